@@ -0,0 +1,9 @@
+// ART的@CriticalNative/@FastNative不在公开SDK中，这里只提供编译时的声明；libyuv以compileOnly依赖，不会打包进AAR，运行时以系统中的定义为准
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
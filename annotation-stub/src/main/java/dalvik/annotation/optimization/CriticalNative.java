@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dalvik.annotation.optimization;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 与ART中同名注解的描述符一致：Android 8.0及以上，ART调用标注的native方法时不传递JNIEnv与jclass，开销最小。
+ * <p>
+ * 该注解不在公开SDK中，这里仅用于编译（compileOnly，不会打包进AAR）；运行时以系统中的定义为准。被标注的方法必须是static、只有基本类型参数与返回值，
+ * 且native实现需通过RegisterNatives注册不带JNIEnv与jclass参数的版本（见yuv_jni.cpp中的JNI_OnLoad）。
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface CriticalNative {
+}
@@ -5,6 +5,9 @@ plugins {
     alias(libs.plugins.maven.publish)
 }
 
+// 只打包ARM ABI：-Plibyuv.armOnly=true 时不打包x86/x86_64的native库，native库本身的内容不变
+val armOnly = providers.gradleProperty("libyuv.armOnly").map { it.toBoolean() }.getOrElse(false)
+
 android {
     namespace = "com.king.libyuv"
     compileSdk = libs.versions.compileSdk.get().toInt()
@@ -19,7 +22,14 @@ android {
                 arguments += "-DCMAKE_SHARED_LINKER_FLAGS=-Wl,-z,max-page-size=16384"
             }
         }
+        if (armOnly) {
+            ndk {
+                abiFilters += listOf("arm64-v8a", "armeabi-v7a")
+            }
+        }
     }
+    // 基准测试可通过 -Plibyuv.testBuildType=release 运行在优化后的native库上
+    testBuildType = providers.gradleProperty("libyuv.testBuildType").getOrElse("debug")
 
     buildTypes {
         release {
@@ -28,6 +38,11 @@ android {
                 getDefaultProguardFile("proguard-android-optimize.txt"),
                 "proguard-rules.pro",
             )
+            externalNativeBuild {
+                cmake {
+                    arguments += "-DLIBYUV_OPTIMIZED=ON"
+                }
+            }
         }
     }
     lint {
@@ -50,4 +65,18 @@ dependencies {
     androidTestImplementation(libs.androidx.test.ext.junit)
     androidTestImplementation(libs.androidx.test.espresso.core)
     implementation(libs.androidx.annotation)
+    compileOnly(project(":annotation-stub"))
+}
+
+// Soak测试：./gradlew :libyuv:testDebugUnitTest --tests "*SoakTest" -Plibyuv.soak=true -Plibyuv.soak.libraryPath=<主机编译的libyuv.so所在目录>
+// 其他 libyuv.soak.* 属性（streams、seconds、fps等）原样传给测试，见SoakHarness.Config
+// 轨迹重放：./gradlew :libyuv:testDebugUnitTest --tests "*TraceReplayTest" -Plibyuv.trace.file=<轨迹文件> -Plibyuv.trace.libraryPath=<主机编译的libyuv.so所在目录>
+tasks.withType<Test>().configureEach {
+    project.properties.filterKeys { it.startsWith("libyuv.soak") || it.startsWith("libyuv.trace") }.forEach { (key, value) ->
+        systemProperty(key, value.toString())
+    }
+    (providers.gradleProperty("libyuv.soak.libraryPath").orNull
+        ?: providers.gradleProperty("libyuv.trace.libraryPath").orNull)?.let {
+        systemProperty("java.library.path", it)
+    }
 }
@@ -0,0 +1,160 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * 色彩空间：黑、白及RGB三原色在每种色彩空间下转换得到的YUV与按标准公式计算的参考值一致（误差不超过1），
+ * BT.601与BT.601全范围仍与libyuv的ARGBToI420、ARGBToJ420一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class ColorSpaceTest {
+
+    /**
+     * 参考颜色：{R, G, B}；每种颜色占一个2x2的块，色度取均值后不受相邻颜色影响
+     */
+    private static final int[][] COLORS = {
+            {0, 0, 0},
+            {255, 255, 255},
+            {255, 0, 0},
+            {0, 255, 0},
+            {0, 0, 255},
+    };
+
+    private static final int WIDTH = COLORS.length * 2;
+    private static final int HEIGHT = 2;
+
+    private static final int[] COLOR_SPACES = {
+            ColorSpace.BT601, ColorSpace.BT601_FULL,
+            ColorSpace.BT709, ColorSpace.BT709_FULL,
+            ColorSpace.BT2020, ColorSpace.BT2020_FULL,
+    };
+
+    @Test
+    public void knownColorsMatchReference() {
+        byte[] argb = argb();
+        for (int colorSpace : COLOR_SPACES) {
+            byte[] i420 = LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, colorSpace);
+            for (int i = 0; i < COLORS.length; i++) {
+                int[] expected = reference(colorSpace, COLORS[i]);
+                String message = "colorSpace=" + colorSpace + ", color=" + i;
+                for (int y = 0; y < HEIGHT; y++) {
+                    for (int x = i * 2; x < i * 2 + 2; x++) {
+                        assertNear(message + " Y", expected[0], i420[y * WIDTH + x]);
+                    }
+                }
+                assertNear(message + " U", expected[1], i420[WIDTH * HEIGHT + i]);
+                assertNear(message + " V", expected[2], i420[WIDTH * HEIGHT + COLORS.length + i]);
+            }
+        }
+    }
+
+    @Test
+    public void bt601MatchesLibyuv() {
+        byte[] argb = argb();
+        // ARGBToI420
+        assertArrayEquals(LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB),
+                LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, ColorSpace.BT601));
+        // ARGBToJ420：RGB24按两行转换为ARGB后同样走ARGBToJ420
+        byte[] j420 = LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, ColorSpace.BT601_FULL);
+        assertArrayEquals(j420, LibYuv.convertToI420(rgb24(argb), WIDTH, HEIGHT, FourCC.FOURCC_24BG, ColorSpace.BT601_FULL));
+        for (int i = 0; i < COLORS.length; i++) {
+            int[] expected = reference(ColorSpace.BT601_FULL, COLORS[i]);
+            assertNear("J420 Y " + i, expected[0], j420[i * 2]);
+            assertNear("J420 U " + i, expected[1], j420[WIDTH * HEIGHT + i]);
+            assertNear("J420 V " + i, expected[2], j420[WIDTH * HEIGHT + COLORS.length + i]);
+        }
+    }
+
+    @Test
+    public void rowPathMatchesDirectArgb() {
+        byte[] argb = argb();
+        byte[] rgb24 = rgb24(argb);
+        for (int colorSpace : COLOR_SPACES) {
+            assertArrayEquals("colorSpace=" + colorSpace,
+                    LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, colorSpace),
+                    LibYuv.convertToI420(rgb24, WIDTH, HEIGHT, FourCC.FOURCC_24BG, colorSpace));
+        }
+    }
+
+    /**
+     * 按标准公式计算参考值：{Y, U, V}
+     */
+    private static int[] reference(int colorSpace, int[] rgb) {
+        double kr;
+        double kb;
+        switch (colorSpace) {
+            case ColorSpace.BT709:
+            case ColorSpace.BT709_FULL:
+                kr = 0.2126;
+                kb = 0.0722;
+                break;
+            case ColorSpace.BT2020:
+            case ColorSpace.BT2020_FULL:
+                kr = 0.2627;
+                kb = 0.0593;
+                break;
+            default:
+                kr = 0.299;
+                kb = 0.114;
+                break;
+        }
+        boolean fullRange = colorSpace == ColorSpace.BT601_FULL
+                || colorSpace == ColorSpace.BT709_FULL
+                || colorSpace == ColorSpace.BT2020_FULL;
+        double r = rgb[0] / 255.0;
+        double g = rgb[1] / 255.0;
+        double b = rgb[2] / 255.0;
+        double luma = kr * r + (1 - kr - kb) * g + kb * b;
+        double cb = (b - luma) / (2 * (1 - kb));
+        double cr = (r - luma) / (2 * (1 - kr));
+        if (fullRange) {
+            return new int[]{
+                    (int) Math.round(luma * 255),
+                    (int) Math.round(128 + cb * 255),
+                    (int) Math.round(128 + cr * 255)};
+        }
+        return new int[]{
+                (int) Math.round(16 + luma * 219),
+                (int) Math.round(128 + cb * 224),
+                (int) Math.round(128 + cr * 224)};
+    }
+
+    private static void assertNear(String message, int expected, byte actual) {
+        int value = actual & 0xFF;
+        assertTrue(message + ": expected " + expected + " but was " + value, Math.abs(expected - value) <= 1);
+    }
+
+    /**
+     * ARGB（内存顺序B、G、R、A）
+     */
+    private static byte[] argb() {
+        byte[] argb = new byte[WIDTH * HEIGHT * 4];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int[] rgb = COLORS[x / 2];
+                int offset = (y * WIDTH + x) * 4;
+                argb[offset] = (byte) rgb[2];
+                argb[offset + 1] = (byte) rgb[1];
+                argb[offset + 2] = (byte) rgb[0];
+                argb[offset + 3] = (byte) 0xFF;
+            }
+        }
+        return argb;
+    }
+
+    /**
+     * RGB24（内存顺序B、G、R）
+     */
+    private static byte[] rgb24(byte[] argb) {
+        byte[] rgb24 = new byte[WIDTH * HEIGHT * 3];
+        for (int i = 0; i < WIDTH * HEIGHT; i++) {
+            System.arraycopy(argb, i * 4, rgb24, i * 3, 3);
+        }
+        return rgb24;
+    }
+}
@@ -0,0 +1,60 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 任意两种格式之间的转换路径：一侧为I420/YV12时应一次遍历直接转换，结果与专用接口一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConvertPathTest {
+
+    private static final int WIDTH = 34;
+    private static final int HEIGHT = 18;
+
+    @Test
+    public void i420PairsAreDirect() {
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_NV21, FourCC.FOURCC_I420));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_NV12, FourCC.FOURCC_I420));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_YUY2, FourCC.FOURCC_I420));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_ARGB, FourCC.FOURCC_I420));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_I420, FourCC.FOURCC_ARGB));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_I420, FourCC.FOURCC_NV21));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_YV12, FourCC.FOURCC_NV12));
+        assertEquals(LibYuv.CONVERT_DIRECT, path(FourCC.FOURCC_I420, FourCC.FOURCC_YV12));
+        // ConvertToI420不支持AR30，经ARGB中转
+        assertEquals(LibYuv.CONVERT_VIA_ARGB, path(FourCC.FOURCC_AR30, FourCC.FOURCC_I420));
+        assertFalse(YuvExplain.convert(WIDTH, HEIGHT, FourCC.FOURCC_NV21, FourCC.FOURCC_I420).isSlowPath());
+        assertEquals("NV21ToI420", YuvExplain.convert(WIDTH, HEIGHT, FourCC.FOURCC_NV21, FourCC.FOURCC_I420).getSteps().get(0).getKernel());
+    }
+
+    @Test
+    public void directI420MatchesDedicatedConversions() {
+        byte[] nv21 = pattern(FourCC.FOURCC_NV21.getTotalBppSize(WIDTH, HEIGHT));
+        byte[] i420 = new byte[FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT)];
+        LibYuv.convert(nv21, WIDTH, HEIGHT, FourCC.FOURCC_NV21, i420, FourCC.FOURCC_I420);
+        assertArrayEquals(LibYuv.nv21ToI420(nv21, WIDTH, HEIGHT), i420);
+
+        byte[] argb = new byte[FourCC.FOURCC_ARGB.getTotalBppSize(WIDTH, HEIGHT)];
+        LibYuv.convert(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, argb, FourCC.FOURCC_ARGB);
+        assertArrayEquals(LibYuv.convertFromI420(i420, WIDTH, HEIGHT, FourCC.FOURCC_ARGB), argb);
+
+        LibYuv.convert(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, i420, FourCC.FOURCC_I420);
+        assertArrayEquals(LibYuv.convertToI420(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB), i420);
+
+        byte[] yv12 = new byte[i420.length];
+        LibYuv.convert(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, yv12, FourCC.FOURCC_YV12);
+        byte[] roundTrip = new byte[i420.length];
+        LibYuv.convert(yv12, WIDTH, HEIGHT, FourCC.FOURCC_YV12, roundTrip, FourCC.FOURCC_I420);
+        assertArrayEquals(i420, roundTrip);
+    }
+
+    private static int path(FourCC src, FourCC dst) {
+        return LibYuv.GetConvertPath(src.getCode(), dst.getCode());
+    }
+}
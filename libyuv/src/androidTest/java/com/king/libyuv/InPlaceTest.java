@@ -0,0 +1,121 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 原地变换：与非原地的结果一致，且往返变换后恢复原始数据。
+ * <p>
+ * 取奇数宽高以覆盖色度平面的取整；非原地的mirror经I420中转，与其对比时取偶数宽度
+ */
+@RunWith(AndroidJUnit4.class)
+public class InPlaceTest {
+
+    private static final int WIDTH = 37;
+    private static final int HEIGHT = 21;
+    private static final int EVEN_WIDTH = 36;
+
+    @Test
+    public void i420ToNv21RoundTrip() {
+        byte[] i420 = pattern(FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT));
+        byte[] data = i420.clone();
+
+        LibYuv.i420ToNv21InPlace(data, WIDTH, HEIGHT);
+        LibYuv.nv21ToI420InPlace(data, WIDTH, HEIGHT);
+        assertArrayEquals(i420, data);
+
+        LibYuv.i420ToNv12InPlace(data, WIDTH, HEIGHT);
+        LibYuv.nv12ToNv21InPlace(data, WIDTH, HEIGHT);
+        LibYuv.nv21ToNv12InPlace(data, WIDTH, HEIGHT);
+        LibYuv.nv12ToI420InPlace(data, WIDTH, HEIGHT);
+        assertArrayEquals(i420, data);
+    }
+
+    @Test
+    public void i420ToNv21MatchesCopyingConversion() {
+        for (int width : new int[]{EVEN_WIDTH, WIDTH}) {
+            byte[] i420 = pattern(FourCC.FOURCC_I420.getTotalBppSize(width, HEIGHT));
+            byte[] data = i420.clone();
+
+            LibYuv.i420ToNv21InPlace(data, width, HEIGHT);
+            assertArrayEquals("width " + width, LibYuv.i420ToNv21(i420, width, HEIGHT), data);
+            byte[] nv21 = data.clone();
+            LibYuv.nv21ToI420InPlace(data, width, HEIGHT);
+            assertArrayEquals("width " + width, LibYuv.nv21ToI420(nv21, width, HEIGHT), data);
+        }
+    }
+
+    @Test
+    public void aliasedNv21ConversionMatchesCopying() {
+        // 源与目标为同一数组时自动走原地转换，奇数宽度下的布局必须与非原地一致
+        byte[] i420 = pattern(FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT));
+        byte[] data = i420.clone();
+
+        LibYuv.i420ToNv21(data, WIDTH, HEIGHT, data);
+        byte[] nv21 = LibYuv.i420ToNv21(i420, WIDTH, HEIGHT);
+        assertArrayEquals(nv21, data);
+        LibYuv.nv21ToI420(data, WIDTH, HEIGHT, data);
+        assertArrayEquals(LibYuv.nv21ToI420(nv21, WIDTH, HEIGHT), data);
+        assertArrayEquals(i420, data);
+    }
+
+    @Test
+    public void mirrorTwiceRestoresOriginal() {
+        for (FourCC fourcc : new FourCC[]{FourCC.FOURCC_I420, FourCC.FOURCC_NV21, FourCC.FOURCC_I444, FourCC.FOURCC_ARGB}) {
+            byte[] original = pattern(LibYuv.sampleSize(fourcc, WIDTH, HEIGHT));
+            byte[] data = original.clone();
+
+            LibYuv.mirrorInPlace(data, WIDTH, HEIGHT, fourcc);
+            assertFalse(fourcc.toString(), Arrays.equals(original, data));
+            LibYuv.mirrorInPlace(data, WIDTH, HEIGHT, fourcc);
+            assertArrayEquals(fourcc.toString(), original, data);
+
+            // 非原地的mirror对I444、ARGB经I420中转，有损，只与YUV420格式对比
+            if (fourcc == FourCC.FOURCC_I420 || fourcc == FourCC.FOURCC_NV21) {
+                original = pattern(LibYuv.sampleSize(fourcc, EVEN_WIDTH, HEIGHT));
+                data = original.clone();
+                LibYuv.mirrorInPlace(data, EVEN_WIDTH, HEIGHT, fourcc);
+                assertArrayEquals(fourcc.toString(), LibYuv.mirror(original, EVEN_WIDTH, HEIGHT, fourcc), data);
+            }
+        }
+    }
+
+    @Test
+    public void aliasedMirrorWithoutInPlaceSupport() {
+        // RGB24、YUY2没有原地镜像，源与目标为同一数组时仍需与非原地的结果一致；YUY2按2像素打包，取偶数宽度
+        for (FourCC fourcc : new FourCC[]{FourCC.FOURCC_24BG, FourCC.FOURCC_YUY2}) {
+            int width = fourcc == FourCC.FOURCC_YUY2 ? EVEN_WIDTH : WIDTH;
+            byte[] original = pattern(fourcc.getTotalBppSize(width, HEIGHT));
+            byte[] data = original.clone();
+
+            LibYuv.mirror(data, width, HEIGHT, fourcc, data);
+            assertArrayEquals(fourcc.toString(), LibYuv.mirror(original, width, HEIGHT, fourcc), data);
+        }
+    }
+
+    @Test
+    public void flipTwiceRestoresOriginal() {
+        for (FourCC fourcc : new FourCC[]{FourCC.FOURCC_I420, FourCC.FOURCC_NV12, FourCC.FOURCC_YUY2, FourCC.FOURCC_ARGB}) {
+            byte[] original = pattern(LibYuv.sampleSize(fourcc, WIDTH, HEIGHT));
+            byte[] data = original.clone();
+
+            LibYuv.flipVerticalInPlace(data, WIDTH, HEIGHT, fourcc);
+            assertFalse(fourcc.toString(), Arrays.equals(original, data));
+            LibYuv.flipVerticalInPlace(data, WIDTH, HEIGHT, fourcc);
+            assertArrayEquals(fourcc.toString(), original, data);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeDimensions() {
+        // -2 x -2 时I420的大小为正数，必须先校验宽高
+        LibYuv.i420ToNv21InPlace(new byte[16], -2, -2);
+    }
+}
@@ -0,0 +1,78 @@
+package com.king.libyuv;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.List;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 增量转换：只转换变化区域后的结果与整帧转换一致；变化区域不在色度块边界上时扩展到2x2边界
+ */
+@RunWith(AndroidJUnit4.class)
+public class IncrementalConverterTest {
+
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 64;
+    private static final int TILE_SIZE = 16;
+
+    @Test
+    public void detectedUpdateMatchesFullConversion() {
+        for (FourCC dstFourcc : new FourCC[]{FourCC.FOURCC_I420, FourCC.FOURCC_NV21}) {
+            IncrementalConverter converter = new IncrementalConverter(WIDTH, HEIGHT, FourCC.FOURCC_ARGB, dstFourcc, TILE_SIZE);
+            byte[] argb = pattern(WIDTH * HEIGHT * 4);
+            assertEquals(1, converter.update(argb));
+            assertArrayEquals(fullConversion(argb, dstFourcc), converter.getOutput());
+
+            // 修改一个起点和尺寸都为奇数的区域，只落在一个区块内
+            fill(argb, 19, 21, 11, 7, (byte) 0x5A);
+            assertEquals(1, converter.update(argb));
+            assertArrayEquals(fullConversion(argb, dstFourcc), converter.getOutput());
+            List<Rect> rects = converter.getDirtyRects();
+            assertEquals(1, rects.size());
+            assertRect(16, 16, 32, 32, rects.get(0));
+
+            assertEquals(0, converter.update(argb));
+        }
+    }
+
+    @Test
+    public void givenRectIsAlignedToChroma() {
+        IncrementalConverter converter = new IncrementalConverter(WIDTH, HEIGHT, FourCC.FOURCC_ARGB, FourCC.FOURCC_I420, TILE_SIZE);
+        byte[] argb = pattern(WIDTH * HEIGHT * 4);
+        converter.update(argb);
+
+        fill(argb, 33, 9, 5, 3, (byte) 0xC3);
+        assertEquals(1, converter.update(argb, Collections.singletonList(new Rect(33, 9, 38, 12))));
+        assertRect(32, 8, 38, 12, converter.getDirtyRects().get(0));
+        assertArrayEquals(fullConversion(argb, FourCC.FOURCC_I420), converter.getOutput());
+    }
+
+    private static void assertRect(int left, int top, int right, int bottom, Rect rect) {
+        assertEquals(left, rect.left);
+        assertEquals(top, rect.top);
+        assertEquals(right, rect.right);
+        assertEquals(bottom, rect.bottom);
+    }
+
+    private static byte[] fullConversion(byte[] argb, FourCC dstFourcc) {
+        byte[] dstData = new byte[dstFourcc.getTotalBppSize(WIDTH, HEIGHT)];
+        LibYuv.convert(argb, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, dstData, dstFourcc);
+        return dstData;
+    }
+
+    private static void fill(byte[] argb, int x, int y, int width, int height, byte value) {
+        for (int row = y; row < y + height; row++) {
+            for (int col = x * 4; col < (x + width) * 4; col++) {
+                argb[row * WIDTH * 4 + col] = (byte) (value + col);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.king.libyuv;
+
+import android.graphics.Rect;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 区域遮挡：只修改对齐到色度块后的矩形区域，区域外的亮度和色度保持不变
+ */
+@RunWith(AndroidJUnit4.class)
+public class MaskTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    // 起点为奇数，对齐后为 (12, 6) - (32, 14)
+    private static final Rect RECT = new Rect(13, 7, 31, 14);
+    private static final int[] ALIGNED = {12, 6, 32, 14};
+
+    @Test
+    public void pixelateFillsBlocks() {
+        for (FourCC fourcc : new FourCC[]{FourCC.FOURCC_I420, FourCC.FOURCC_NV12}) {
+            byte[] original = pattern(FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT));
+            byte[] data = original.clone();
+            LibYuv.maskRegions(data, WIDTH, HEIGHT, fourcc, Collections.singletonList(RECT), MaskMode.MASK_PIXELATE, 4);
+
+            assertOutsideUnchanged(fourcc, original, data);
+            // 对齐后的区域为20x8，正好是5x2个4x4的色块
+            for (int y = ALIGNED[1]; y < ALIGNED[3]; y++) {
+                for (int x = ALIGNED[0]; x < ALIGNED[2]; x++) {
+                    int blockX = ALIGNED[0] + (x - ALIGNED[0]) / 4 * 4;
+                    int blockY = ALIGNED[1] + (y - ALIGNED[1]) / 4 * 4;
+                    assertEquals(fourcc + " (" + x + ", " + y + ")", data[blockY * WIDTH + blockX], data[y * WIDTH + x]);
+                }
+            }
+            // 扩展出来的第一行、第一列也被遮挡
+            assertNotEquals(original[ALIGNED[1] * WIDTH + ALIGNED[0] + 1], data[ALIGNED[1] * WIDTH + ALIGNED[0] + 1]);
+        }
+    }
+
+    @Test
+    public void blurChangesOnlyRect() {
+        for (FourCC fourcc : new FourCC[]{FourCC.FOURCC_I420, FourCC.FOURCC_NV21}) {
+            byte[] original = pattern(FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT));
+            byte[] data = original.clone();
+            LibYuv.maskRegions(data, WIDTH, HEIGHT, fourcc, Collections.singletonList(RECT), MaskMode.MASK_BLUR, 3);
+
+            assertOutsideUnchanged(fourcc, original, data);
+            int changed = 0;
+            for (int y = ALIGNED[1]; y < ALIGNED[3]; y++) {
+                for (int x = ALIGNED[0]; x < ALIGNED[2]; x++) {
+                    if (data[y * WIDTH + x] != original[y * WIDTH + x]) {
+                        changed++;
+                    }
+                }
+            }
+            assertTrue(fourcc + " changed " + changed, changed > (ALIGNED[2] - ALIGNED[0]) * (ALIGNED[3] - ALIGNED[1]) / 2);
+        }
+    }
+
+    @Test
+    public void rectOutsideImageIsIgnored() {
+        byte[] original = pattern(FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT));
+        byte[] data = original.clone();
+        LibYuv.maskRegions(data, WIDTH, HEIGHT, FourCC.FOURCC_I420, Collections.singletonList(new Rect(WIDTH + 1, 3, WIDTH + 9, 11)), MaskMode.MASK_PIXELATE, 4);
+        assertArrayEquals(original, data);
+    }
+
+    /**
+     * 对齐后的矩形之外：亮度逐像素比较，色度按2x2块对应的坐标比较
+     */
+    private static void assertOutsideUnchanged(FourCC fourcc, byte[] original, byte[] data) {
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (!inside(x, y, 1)) {
+                    assertEquals(fourcc + " y(" + x + ", " + y + ")", original[y * WIDTH + x], data[y * WIDTH + x]);
+                }
+            }
+        }
+        int halfWidth = WIDTH / 2;
+        int halfHeight = HEIGHT / 2;
+        int chroma = WIDTH * HEIGHT;
+        for (int y = 0; y < halfHeight; y++) {
+            for (int x = 0; x < halfWidth; x++) {
+                if (inside(x, y, 2)) {
+                    continue;
+                }
+                if (fourcc == FourCC.FOURCC_I420) {
+                    int u = chroma + y * halfWidth + x;
+                    int v = u + halfWidth * halfHeight;
+                    assertEquals(fourcc + " u(" + x + ", " + y + ")", original[u], data[u]);
+                    assertEquals(fourcc + " v(" + x + ", " + y + ")", original[v], data[v]);
+                } else {
+                    int uv = chroma + y * WIDTH + x * 2;
+                    assertEquals(fourcc + " uv(" + x + ", " + y + ")", original[uv], data[uv]);
+                    assertEquals(fourcc + " uv(" + x + ", " + y + ")", original[uv + 1], data[uv + 1]);
+                }
+            }
+        }
+    }
+
+    private static boolean inside(int x, int y, int scale) {
+        return x >= ALIGNED[0] / scale && x < ALIGNED[2] / scale && y >= ALIGNED[1] / scale && y < ALIGNED[3] / scale;
+    }
+}
@@ -0,0 +1,80 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 共享预算：Java层账户与native层的arena共用一个上限，账户占满预算时arena不能扩容，只能退回到堆内存；
+ * 释放arena时并行处理的工作线程即使空闲也会立即释放
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryBudgetTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    private static final class Holder implements MemoryGovernor.Consumer {
+
+        MemoryGovernor.Account account;
+
+        @Override
+        public long getRetainedBytes() {
+            return account.getBytes();
+        }
+
+        @Override
+        public void trim(long targetBytes) {
+            // 模拟不能释放的使用方
+        }
+    }
+
+    @Test
+    public void javaReservationsBlockArenaGrowth() {
+        MemoryGovernor governor = MemoryGovernor.getDefault();
+        Holder holder = new Holder();
+        holder.account = governor.register("MemoryBudgetTest", holder);
+        try {
+            ScratchArena.trim();
+            long budget = governor.getTotalBytes() + 4L * 1024 * 1024;
+            governor.setBudgetBytes(budget);
+            assertTrue(holder.account.reserve(budget - governor.getTotalBytes()));
+            ScratchArena.trim();
+
+            // RGB24的镜像需要两份I420中间数据，约900KB，预算已被账户占满
+            byte[] rgb24 = new byte[FourCC.FOURCC_24BG.getTotalBppSize(WIDTH, HEIGHT)];
+            ScratchArena.Stats before = ScratchArena.getStats();
+            LibYuv.mirror(rgb24, WIDTH, HEIGHT, FourCC.FOURCC_24BG);
+            ScratchArena.Stats after = ScratchArena.getStats();
+            assertEquals(before.getGrowCount(), after.getGrowCount());
+            assertTrue(after.getFallbackCount() > before.getFallbackCount());
+            assertTrue(after.getRetainedBytes() <= before.getRetainedBytes());
+
+            // 归还后arena可以在预算内扩容
+            holder.account.release(holder.account.getBytes());
+            LibYuv.mirror(rgb24, WIDTH, HEIGHT, FourCC.FOURCC_24BG);
+            assertTrue(ScratchArena.getStats().getGrowCount() > after.getGrowCount());
+            assertTrue(governor.getTotalBytes() <= budget);
+        } finally {
+            governor.unregister(holder);
+            governor.setBudgetBytes(MemoryGovernor.UNLIMITED);
+        }
+    }
+
+    @Test
+    public void trimReleasesIdleWorkerArenas() {
+        // Sobel按行分段并行，每个参与的工作线程都会在自己的arena中分配行缓冲
+        byte[] i420 = new byte[FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT)];
+        for (int i = 0; i < 10 && ScratchArena.getStats().getArenaCount() < 2; i++) {
+            LibYuv.sobel(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, WIDTH, HEIGHT, SobelMode.SOBEL_MAGNITUDE);
+        }
+        assumeTrue("no worker threads on this device", ScratchArena.getStats().getArenaCount() >= 2);
+
+        ScratchArena.trim();
+        assertEquals(0, ScratchArena.getStats().getRetainedBytes());
+    }
+}
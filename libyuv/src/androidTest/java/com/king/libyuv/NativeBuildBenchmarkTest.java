@@ -0,0 +1,84 @@
+package com.king.libyuv;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Locale;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import static org.junit.Assert.*;
+
+/**
+ * native构建产物的基准测试：输出libyuv.so的加载耗时、文件大小以及常用转换的吞吐量，结果输出到logcat。
+ * <p>
+ * 对比不同构建方式时，分别使用 {@code -Plibyuv.testBuildType=release}（开启LTO等优化）与 {@code -Plibyuv.armOnly=true}（只打包ARM ABI，只影响APK/AAR大小）运行。
+ */
+@RunWith(AndroidJUnit4.class)
+public class NativeBuildBenchmarkTest {
+
+    private static final String TAG = "NativeBuildBenchmark";
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int WARM_UP = 5;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    public void nativeBuild() {
+        long loadTimeNanos = LibYuv.init();
+        assertTrue(loadTimeNanos >= 0);
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File library = new File(context.getApplicationInfo().nativeLibraryDir, "libyuv.so");
+        // 未解压native库（extractNativeLibs=false）时文件不存在，记为-1
+        long librarySize = library.exists() ? library.length() : -1;
+        Log.i(TAG, "sdk=" + Build.VERSION.SDK_INT + ", abi=" + Build.SUPPORTED_ABIS[0]
+                + ", load=" + loadTimeNanos / 1000 + "us, size=" + librarySize + " bytes");
+
+        byte[] nv21 = new byte[FourCC.FOURCC_NV21.getTotalBppSize(WIDTH, HEIGHT)];
+        for (int i = 0; i < nv21.length; i++) {
+            nv21[i] = (byte) (i * 31);
+        }
+        byte[] i420 = new byte[FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT)];
+        byte[] scaled = new byte[FourCC.FOURCC_I420.getTotalBppSize(WIDTH / 2, HEIGHT / 2)];
+        byte[] argb = new byte[FourCC.FOURCC_ARGB.getTotalBppSize(WIDTH, HEIGHT)];
+
+        for (int i = 0; i < WARM_UP; i++) {
+            LibYuv.nv21ToI420(nv21, WIDTH, HEIGHT, i420);
+            LibYuv.i420Scale(i420, WIDTH, HEIGHT, scaled, WIDTH / 2, HEIGHT / 2, FilterMode.FILTER_BOX);
+            LibYuv.convert(nv21, WIDTH, HEIGHT, FourCC.FOURCC_NV21, argb, FourCC.FOURCC_ARGB);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            LibYuv.nv21ToI420(nv21, WIDTH, HEIGHT, i420);
+        }
+        log("nv21ToI420", start, nv21.length);
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            LibYuv.i420Scale(i420, WIDTH, HEIGHT, scaled, WIDTH / 2, HEIGHT / 2, FilterMode.FILTER_BOX);
+        }
+        log("i420Scale(1/2, box)", start, i420.length);
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            LibYuv.convert(nv21, WIDTH, HEIGHT, FourCC.FOURCC_NV21, argb, FourCC.FOURCC_ARGB);
+        }
+        log("convert(NV21 -> ARGB)", start, nv21.length);
+    }
+
+    private static void log(String name, long startNanos, long srcBytes) {
+        long nanos = (SystemClock.elapsedRealtimeNanos() - startNanos) / ITERATIONS;
+        double mbPerSecond = srcBytes * 1000d / Math.max(1, nanos);
+        Log.i(TAG, name + " " + WIDTH + "x" + HEIGHT + ": " + nanos / 1000 + "us/frame, "
+                + String.format(Locale.US, "%.1f", mbPerSecond) + "MB/s");
+    }
+}
@@ -0,0 +1,73 @@
+package com.king.libyuv;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * native调用开销的微基准测试：分别调用三种注册方式下工作量都很小的现有方法——@CriticalNative的GetConvertPath（查表）、
+ * @FastNative的ArenaGetStats（读取5个计数）与普通JNI的HashDjb2（1个字节），耗时主要为调用方式本身的开销，结果输出到logcat。
+ * <p>
+ * Android 8.0以下注解不生效，GetConvertPath与ArenaGetStats也按普通JNI方法调用。
+ */
+@RunWith(AndroidJUnit4.class)
+public class NativeCallBenchmarkTest {
+
+    private static final String TAG = "NativeCallBenchmark";
+    private static final int WARM_UP = 10_000;
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    public void nativeCallOverhead() {
+        long loadTimeNanos = LibYuv.init();
+        assertTrue(loadTimeNanos >= 0);
+        Log.i(TAG, "sdk=" + Build.VERSION.SDK_INT + ", load=" + loadTimeNanos / 1000 + "us");
+
+        long src = FourCC.FOURCC_NV21.getCode();
+        long dst = FourCC.FOURCC_ARGB.getCode();
+        long[] stats = new long[5];
+        byte[] data = new byte[1];
+
+        long sink = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink += LibYuv.GetConvertPath(src, dst);
+            LibYuv.ArenaGetStats(stats);
+            sink += LibYuv.HashDjb2(data, data.length, 5381);
+        }
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += LibYuv.GetConvertPath(src, dst);
+        }
+        long criticalNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            LibYuv.ArenaGetStats(stats);
+        }
+        long fastNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += LibYuv.HashDjb2(data, data.length, 5381);
+        }
+        long regularNanos = SystemClock.elapsedRealtimeNanos() - start;
+
+        Log.i(TAG, String.format(Locale.US, "GetConvertPath @CriticalNative: %.1fns/call", (double) criticalNanos / ITERATIONS));
+        Log.i(TAG, String.format(Locale.US, "ArenaGetStats @FastNative: %.1fns/call", (double) fastNanos / ITERATIONS));
+        Log.i(TAG, String.format(Locale.US, "HashDjb2 JNI: %.1fns/call", (double) regularNanos / ITERATIONS));
+        Log.i(TAG, String.format(Locale.US, "saved per call: @CriticalNative %.1fns, @FastNative %.1fns",
+                (double) (regularNanos - criticalNanos) / ITERATIONS, (double) (regularNanos - fastNanos) / ITERATIONS));
+        long hash = LibYuv.HashDjb2(data, data.length, 5381);
+        assertEquals((LibYuv.CONVERT_DIRECT + hash) * (WARM_UP + ITERATIONS), sink);
+    }
+}
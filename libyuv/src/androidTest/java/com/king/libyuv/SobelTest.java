@@ -0,0 +1,79 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sobel边缘提取：垂直的阶跃边缘只有水平梯度，缩小后的输出尺寸与目标尺寸一致
+ */
+@RunWith(AndroidJUnit4.class)
+public class SobelTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 40;
+
+    @Test
+    public void verticalEdgeRespondsOnlyInX() {
+        byte[] i420 = verticalEdge(WIDTH, HEIGHT);
+        byte[] xy = LibYuv.sobel(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, WIDTH, HEIGHT, SobelMode.SOBEL_XY);
+        assertEquals(WIDTH * HEIGHT * 2, xy.length);
+        assertEdge(xy, WIDTH, HEIGHT);
+
+        byte[] magnitude = LibYuv.sobel(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, WIDTH, HEIGHT, SobelMode.SOBEL_MAGNITUDE);
+        assertEquals(WIDTH * HEIGHT, magnitude.length);
+        for (int i = 0; i < magnitude.length; i++) {
+            assertEquals("magnitude " + i, xy[i], magnitude[i]);
+        }
+    }
+
+    @Test
+    public void downscaledOutputSize() {
+        byte[] i420 = verticalEdge(WIDTH, HEIGHT);
+        int dstWidth = WIDTH / 2;
+        int dstHeight = HEIGHT / 2;
+        byte[] magnitude = LibYuv.sobel(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, dstWidth, dstHeight, SobelMode.SOBEL_MAGNITUDE);
+        assertEquals(dstWidth * dstHeight, magnitude.length);
+
+        byte[] xy = LibYuv.sobel(i420, WIDTH, HEIGHT, FourCC.FOURCC_I420, dstWidth, dstHeight, SobelMode.SOBEL_XY);
+        assertEquals(dstWidth * dstHeight * 2, xy.length);
+        assertEdge(xy, dstWidth, dstHeight);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUpscaling() {
+        LibYuv.sobel(verticalEdge(WIDTH, HEIGHT), WIDTH, HEIGHT, FourCC.FOURCC_I420, WIDTH * 2, HEIGHT, SobelMode.SOBEL_MAGNITUDE);
+    }
+
+    /**
+     * 边缘在宽度的一半处：两侧的两列饱和，其余为0；垂直梯度全部为0
+     */
+    private static void assertEdge(byte[] xy, int width, int height) {
+        int edge = width / 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int gx = xy[y * width + x] & 0xFF;
+                int gy = xy[width * height + y * width + x] & 0xFF;
+                if (x == edge - 1 || x == edge) {
+                    assertEquals("gx(" + x + ", " + y + ")", 255, gx);
+                } else {
+                    assertEquals("gx(" + x + ", " + y + ")", 0, gx);
+                }
+                assertEquals("gy(" + x + ", " + y + ")", 0, gy);
+            }
+        }
+    }
+
+    private static byte[] verticalEdge(int width, int height) {
+        byte[] i420 = new byte[FourCC.FOURCC_I420.getTotalBppSize(width, height)];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                i420[y * width + x] = (byte) (x < width / 2 ? 40 : 200);
+            }
+        }
+        return i420;
+    }
+}
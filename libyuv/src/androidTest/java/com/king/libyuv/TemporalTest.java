@@ -0,0 +1,96 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 帧混合与时域降噪：interpolate的端点和中点、原地混合；FrameAccumulator收敛到静止画面，运动超过阈值时直接使用当前帧
+ */
+@RunWith(AndroidJUnit4.class)
+public class TemporalTest {
+
+    private static final int WIDTH = 33;
+    private static final int HEIGHT = 17;
+
+    @Test
+    public void interpolateFractions() {
+        int size = FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT);
+        byte[] src0 = pattern(size, 3);
+        byte[] src1 = pattern(size, 11);
+
+        assertArrayEquals(src0, LibYuv.interpolate(src0, src1, WIDTH, HEIGHT, FourCC.FOURCC_I420, 0f));
+        assertArrayEquals(src1, LibYuv.interpolate(src0, src1, WIDTH, HEIGHT, FourCC.FOURCC_I420, 1f));
+        byte[] half = LibYuv.interpolate(src0, src1, WIDTH, HEIGHT, FourCC.FOURCC_I420, 0.5f);
+        for (int i = 0; i < size; i++) {
+            int expected = ((src0[i] & 0xFF) + (src1[i] & 0xFF) + 1) >> 1;
+            assertEquals("index " + i, expected, half[i] & 0xFF);
+        }
+    }
+
+    @Test
+    public void interpolateInPlace() {
+        int size = LibYuv.sampleSize(FourCC.FOURCC_ARGB, WIDTH, HEIGHT);
+        byte[] src0 = pattern(size, 5);
+        byte[] src1 = pattern(size, 9);
+        for (float fraction : new float[]{0f, 0.3f, 0.5f, 1f}) {
+            byte[] expected = LibYuv.interpolate(src0, src1, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, fraction);
+
+            byte[] dst = src0.clone();
+            LibYuv.interpolate(dst, src1, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, fraction, dst);
+            assertArrayEquals("src0 " + fraction, expected, dst);
+
+            dst = src1.clone();
+            LibYuv.interpolate(src0, dst, WIDTH, HEIGHT, FourCC.FOURCC_ARGB, fraction, dst);
+            assertArrayEquals("src1 " + fraction, expected, dst);
+        }
+    }
+
+    @Test
+    public void accumulatorConvergesToConstantFrame() {
+        int size = FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT);
+        FrameAccumulator accumulator = new FrameAccumulator(WIDTH, HEIGHT, FourCC.FOURCC_I420, 0.25f);
+        byte[] first = pattern(size, 7);
+        assertArrayEquals(first, accumulator.accumulate(first));
+
+        byte[] constant = new byte[size];
+        Arrays.fill(constant, (byte) 128);
+        byte[] output = accumulator.accumulate(constant);
+        assertFalse(Arrays.equals(constant, output));
+        for (int i = 0; i < 60; i++) {
+            output = accumulator.accumulate(constant);
+        }
+        assertArrayEquals(constant, output);
+    }
+
+    @Test
+    public void motionAboveThresholdResets() {
+        int size = FourCC.FOURCC_I420.getTotalBppSize(WIDTH, HEIGHT);
+        FrameAccumulator accumulator = new FrameAccumulator(WIDTH, HEIGHT, FourCC.FOURCC_I420, 0.25f, 30);
+        byte[] frame = new byte[size];
+        Arrays.fill(frame, (byte) 100);
+        accumulator.accumulate(frame);
+
+        // 前一半运动超过阈值，后一半在阈值以内
+        Arrays.fill(frame, 0, size / 2, (byte) 200);
+        Arrays.fill(frame, size / 2, size, (byte) 120);
+        byte[] output = accumulator.accumulate(frame);
+        for (int i = 0; i < size / 2; i++) {
+            assertEquals("index " + i, 200, output[i] & 0xFF);
+        }
+        for (int i = size / 2; i < size; i++) {
+            assertEquals("index " + i, 105, output[i] & 0xFF);
+        }
+
+        // 重置后下一帧直接作为新的起点
+        accumulator.reset();
+        Arrays.fill(frame, (byte) 110);
+        assertArrayEquals(frame, accumulator.accumulate(frame));
+    }
+}
@@ -0,0 +1,25 @@
+package com.king.libyuv;
+
+/**
+ * 测试数据：按下标生成的非均匀字节序列，相邻像素、相邻行以及不同平面之间的取值都不相同
+ */
+final class TestPatterns {
+
+    private TestPatterns() {
+    }
+
+    static byte[] pattern(int size) {
+        return pattern(size, 37);
+    }
+
+    /**
+     * @param step 相邻字节的差值；不同的step生成互不相同的序列
+     */
+    static byte[] pattern(int size, int step) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * step + (i >> 5));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,54 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.*;
+
+/**
+ * 预热：YUV_420_888平面规格经yuvToI420转换，字节数组规格经convertToI420转换；通过调用轨迹确认实际执行的路径
+ */
+@RunWith(AndroidJUnit4.class)
+public class WarmUpTest {
+
+    @Test
+    public void planeSpecsWarmYuvToI420() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        YuvTrace.start(out, 0);
+        try {
+            LibYuv.warmUp(Arrays.asList(
+                    FrameSpec.yuv420888(641, 479, 2, RotationMode.ROTATE_90, FourCC.FOURCC_NV21),
+                    FrameSpec.yuv420888(320, 240, 1, RotationMode.ROTATE_0, null),
+                    new FrameSpec(320, 240, FourCC.FOURCC_NV21)));
+        } finally {
+            YuvTrace.stop();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        YuvTrace.readHeader(in);
+        YuvTrace.Record record = YuvTrace.readRecord(in);
+        assertEquals(YuvTrace.OP_YUV_TO_I420, record.op);
+        assertEquals(2, record.arg);
+        assertEquals(RotationMode.ROTATE_90, record.degrees);
+        assertEquals(YuvTrace.OP_CONVERT_FROM_I420, YuvTrace.readRecord(in).op);
+
+        record = YuvTrace.readRecord(in);
+        assertEquals(YuvTrace.OP_YUV_TO_I420, record.op);
+        assertEquals(1, record.arg);
+        assertEquals(YuvTrace.OP_CONVERT_TO_I420, YuvTrace.readRecord(in).op);
+        assertNull(YuvTrace.readRecord(in));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsupportedPixelStride() {
+        FrameSpec.yuv420888(320, 240, 3, RotationMode.ROTATE_0, null);
+    }
+}
@@ -0,0 +1,148 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static com.king.libyuv.TestPatterns.pattern;
+import static org.junit.Assert.*;
+
+/**
+ * 多路画面拼接：4字节格式超出画布的区块只写入画布内的部分，奇数尺寸的I420区块相邻时互不覆盖，重叠的区块按添加顺序绘制
+ */
+@RunWith(AndroidJUnit4.class)
+public class YuvCompositorTest {
+
+    @Test
+    public void offCanvasArgbTilesAreClipped() {
+        int canvasWidth = 8;
+        int canvasHeight = 6;
+        int tileWidth = 6;
+        int tileHeight = 5;
+        byte[] src = pattern(tileWidth * tileHeight * 4);
+        int[][] origins = {{-3, -2}, {5, 4}, {-10, 0}, {canvasWidth, 1}};
+
+        YuvCompositor compositor = new YuvCompositor(canvasWidth, canvasHeight, FourCC.FOURCC_ARGB);
+        compositor.setThreadCount(4);
+        for (int[] origin : origins) {
+            compositor.addTile(src, tileWidth, tileHeight, origin[0], origin[1], tileWidth, tileHeight, FilterMode.FILTER_NONE);
+        }
+
+        byte[] expected = new byte[canvasWidth * canvasHeight * 4];
+        for (int[] origin : origins) {
+            for (int y = 0; y < tileHeight; y++) {
+                for (int x = 0; x < tileWidth; x++) {
+                    int canvasX = origin[0] + x;
+                    int canvasY = origin[1] + y;
+                    if (canvasX >= 0 && canvasX < canvasWidth && canvasY >= 0 && canvasY < canvasHeight) {
+                        System.arraycopy(src, (y * tileWidth + x) * 4, expected, (canvasY * canvasWidth + canvasX) * 4, 4);
+                    }
+                }
+            }
+        }
+        assertArrayEquals(expected, compositor.composite());
+    }
+
+    @Test
+    public void adjacentOddSizeI420Tiles() {
+        // 5x3的区块色度为3x2，与间隔一个像素的相邻区块在色度平面上正好相接
+        int canvasWidth = 11;
+        int canvasHeight = 7;
+        int tileWidth = 5;
+        int tileHeight = 3;
+        int[][] origins = {{0, 0}, {6, 0}, {0, 4}, {6, 4}};
+
+        YuvCompositor compositor = new YuvCompositor(canvasWidth, canvasHeight, FourCC.FOURCC_I420);
+        compositor.setThreadCount(4);
+        byte[][] sources = new byte[origins.length][];
+        for (int i = 0; i < origins.length; i++) {
+            sources[i] = pattern(FourCC.FOURCC_I420.getTotalBppSize(tileWidth, tileHeight), 3 + i * 4);
+            compositor.addTile(sources[i], tileWidth, tileHeight, origins[i][0], origins[i][1], tileWidth, tileHeight, FilterMode.FILTER_NONE);
+        }
+
+        byte[] expected = new byte[FourCC.FOURCC_I420.getTotalBppSize(canvasWidth, canvasHeight)];
+        for (int i = 0; i < origins.length; i++) {
+            copyI420(sources[i], tileWidth, tileHeight, expected, canvasWidth, canvasHeight, origins[i][0], origins[i][1]);
+        }
+        assertArrayEquals(expected, compositor.composite());
+    }
+
+    @Test
+    public void overlappingTilesDrawInAddOrder() {
+        int size = 8;
+        byte[] red = solidArgb(6, 6, 0xFFFF0000);
+        byte[] blue = solidArgb(6, 6, 0xFF0000FF);
+        byte[] green = solidArgb(2, 2, 0xFF00FF00);
+
+        YuvCompositor compositor = new YuvCompositor(size, size, FourCC.FOURCC_ARGB);
+        compositor.setThreadCount(4);
+        compositor.addTile(red, 6, 6, 0, 0, 6, 6, FilterMode.FILTER_NONE)
+                .addTile(blue, 6, 6, 2, 2, 6, 6, FilterMode.FILTER_NONE)
+                .addTile(green, 2, 2, 3, 3, 2, 2, FilterMode.FILTER_NONE);
+        byte[] canvas = compositor.composite();
+
+        assertEquals(0xFFFF0000, argbAt(canvas, size, 1, 1));
+        assertEquals(0xFF0000FF, argbAt(canvas, size, 2, 2));
+        assertEquals(0xFF00FF00, argbAt(canvas, size, 3, 3));
+        assertEquals(0xFF00FF00, argbAt(canvas, size, 4, 4));
+        assertEquals(0xFF0000FF, argbAt(canvas, size, 5, 5));
+        assertEquals(0xFF0000FF, argbAt(canvas, size, 7, 7));
+        assertEquals(0, argbAt(canvas, size, 0, 7));
+
+        // I420：后添加的区块覆盖先添加的区块，亮度与色度都如此
+        byte[] first = new byte[FourCC.FOURCC_I420.getTotalBppSize(6, 6)];
+        byte[] second = new byte[FourCC.FOURCC_I420.getTotalBppSize(4, 4)];
+        Arrays.fill(first, (byte) 50);
+        Arrays.fill(second, (byte) 200);
+        YuvCompositor i420Compositor = new YuvCompositor(size, size, FourCC.FOURCC_I420);
+        i420Compositor.setThreadCount(4);
+        i420Compositor.addTile(first, 6, 6, 0, 0, 6, 6, FilterMode.FILTER_NONE)
+                .addTile(second, 4, 4, 2, 2, 4, 4, FilterMode.FILTER_NONE);
+        byte[] expected = new byte[FourCC.FOURCC_I420.getTotalBppSize(size, size)];
+        copyI420(first, 6, 6, expected, size, size, 0, 0);
+        copyI420(second, 4, 4, expected, size, size, 2, 2);
+        assertArrayEquals(expected, i420Compositor.composite());
+    }
+
+    private static void copyI420(byte[] src, int width, int height, byte[] canvas, int canvasWidth, int canvasHeight, int dstX, int dstY) {
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(src, y * width, canvas, (dstY + y) * canvasWidth + dstX, width);
+        }
+        int srcStrideUv = (width + 1) >> 1;
+        int srcHeightUv = (height + 1) >> 1;
+        int canvasStrideUv = (canvasWidth + 1) >> 1;
+        int canvasUSize = canvasStrideUv * ((canvasHeight + 1) >> 1);
+        int srcUSize = srcStrideUv * srcHeightUv;
+        for (int plane = 0; plane < 2; plane++) {
+            int srcOffset = width * height + plane * srcUSize;
+            int canvasOffset = canvasWidth * canvasHeight + plane * canvasUSize;
+            for (int y = 0; y < srcHeightUv; y++) {
+                System.arraycopy(src, srcOffset + y * srcStrideUv,
+                        canvas, canvasOffset + (dstY / 2 + y) * canvasStrideUv + dstX / 2, srcStrideUv);
+            }
+        }
+    }
+
+    /**
+     * ARGB（内存顺序B、G、R、A）
+     */
+    private static byte[] solidArgb(int width, int height, int color) {
+        byte[] argb = new byte[width * height * 4];
+        for (int i = 0; i < width * height; i++) {
+            argb[i * 4] = (byte) color;
+            argb[i * 4 + 1] = (byte) (color >> 8);
+            argb[i * 4 + 2] = (byte) (color >> 16);
+            argb[i * 4 + 3] = (byte) (color >> 24);
+        }
+        return argb;
+    }
+
+    private static int argbAt(byte[] argb, int width, int x, int y) {
+        int offset = (y * width + x) * 4;
+        return (argb[offset] & 0xFF) | (argb[offset + 1] & 0xFF) << 8
+                | (argb[offset + 2] & 0xFF) << 16 | (argb[offset + 3] & 0xFF) << 24;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_ARENA_H_
+#define YUV_ARENA_H_
+
+#include <stdint.h>
+#include <stdlib.h>
+#include <atomic>
+
+/**
+ * 每个线程一块的临时内存（scratch arena）：一次调用内的中间平面按栈的方式从arena中依次分配，调用结束后归还；
+ * arena会增长到见过的最大尺寸并一直保留，稳态下不再有任何内存分配。
+ * <p>
+ * 单次调用所需内存超过上限时，超出部分直接从堆上分配并在使用后立即释放，不会被保留。
+ * 所有线程arena保留的总字节数同样有上限（由Java层的MemoryGovernor设置），扩容会超出总上限时同样退回到堆内存。
+ * 上限与Java层的池、缓存共用：g_arena_governed_bytes同时计入arena保留的字节数和Java层账户保留的字节数，
+ * arena扩容与Java层申请都对这一个计数做CAS，二者合计不会超过上限。
+ */
+static std::atomic<int64_t> g_arena_max_bytes(64 * 1024 * 1024);
+static std::atomic<int64_t> g_arena_total_max_bytes(INT64_MAX);
+static std::atomic<int64_t> g_arena_retained_bytes(0);
+static std::atomic<int64_t> g_arena_governed_bytes(0);
+static std::atomic<int64_t> g_arena_high_water_bytes(0);
+static std::atomic<int32_t> g_arena_count(0);
+static std::atomic<int64_t> g_arena_grow_count(0);
+static std::atomic<int64_t> g_arena_fallback_count(0);
+static std::atomic<int32_t> g_arena_trim_generation(0);
+
+static inline size_t ArenaAlign(size_t size) {
+    return (size + 63) & ~(size_t) 63;
+}
+
+/**
+ * 在总上限内计入bytes字节（arena扩容的差值或Java层的申请）；会超出上限时不计入并返回false
+ */
+static inline bool ArenaTryCharge(int64_t bytes) {
+    int64_t current = g_arena_governed_bytes.load();
+    while (true) {
+        if (current + bytes > g_arena_total_max_bytes.load()) {
+            return false;
+        }
+        if (g_arena_governed_bytes.compare_exchange_weak(current, current + bytes)) {
+            return true;
+        }
+    }
+}
+
+static inline void ArenaUpdateHighWater(int64_t bytes) {
+    int64_t current = g_arena_high_water_bytes.load();
+    while (bytes > current && !g_arena_high_water_bytes.compare_exchange_weak(current, bytes)) {
+    }
+}
+
+class ScratchArena {
+public:
+    ScratchArena() : memory_(nullptr), data_(nullptr), capacity_(0), used_(0), wanted_(0),
+                     trim_generation_(g_arena_trim_generation.load()) {
+        g_arena_count++;
+    }
+
+    ~ScratchArena() {
+        Release();
+        g_arena_count--;
+    }
+
+    /**
+     * 当前线程的arena
+     */
+    static ScratchArena &Current() {
+        static thread_local ScratchArena arena;
+        return arena;
+    }
+
+    /**
+     * 分配size字节；返回的内存64字节对齐。heap为true表示来自堆，需要在Free时释放
+     */
+    uint8_t *Alloc(size_t size, bool *heap) {
+        *heap = false;
+        if (size == 0) {
+            return nullptr;
+        }
+        size = ArenaAlign(size);
+        if (used_ == 0) {
+            // 没有正在使用的分配时才允许调整，避免已分配的指针失效
+            if (trim_generation_ != g_arena_trim_generation.load()) {
+                trim_generation_ = g_arena_trim_generation.load();
+                Release();
+            }
+            size_t target = wanted_ > size ? wanted_ : size;
+            wanted_ = 0;
+            if (target > capacity_ && (int64_t) target <= g_arena_max_bytes.load() &&
+                ArenaTryCharge((int64_t) (target - capacity_))) {
+                Grow(target);
+            }
+        }
+        size_t end = used_ + size;
+        if (end > wanted_) {
+            wanted_ = end;
+        }
+        ArenaUpdateHighWater((int64_t) end);
+        if (end <= capacity_) {
+            uint8_t *ptr = data_ + used_;
+            used_ = end;
+            return ptr;
+        }
+        g_arena_fallback_count++;
+        *heap = true;
+        return AlignedMalloc(size);
+    }
+
+    void Free(uint8_t *ptr, size_t size, bool heap) {
+        if (heap) {
+            AlignedFree(ptr);
+        } else if (ptr) {
+            used_ -= ArenaAlign(size);
+        }
+    }
+
+    /**
+     * 释放当前线程arena占用的内存（仅在没有正在使用的分配时生效）
+     */
+    void Trim() {
+        if (used_ == 0) {
+            Release();
+        }
+    }
+
+private:
+    /**
+     * 扩容到size字节；调用方已把与当前容量的差值计入g_arena_governed_bytes
+     */
+    void Grow(size_t size) {
+        g_arena_governed_bytes += (int64_t) capacity_;
+        Release();
+        memory_ = (uint8_t *) malloc(size + 63);
+        if (!memory_) {
+            g_arena_governed_bytes -= (int64_t) size;
+            return;
+        }
+        data_ = (uint8_t *) (((uintptr_t) memory_ + 63) & ~(uintptr_t) 63);
+        capacity_ = size;
+        g_arena_retained_bytes += (int64_t) size;
+        g_arena_grow_count++;
+    }
+
+    void Release() {
+        if (memory_) {
+            free(memory_);
+            g_arena_retained_bytes -= (int64_t) capacity_;
+            g_arena_governed_bytes -= (int64_t) capacity_;
+        }
+        memory_ = nullptr;
+        data_ = nullptr;
+        capacity_ = 0;
+    }
+
+    static uint8_t *AlignedMalloc(size_t size) {
+        uint8_t *memory = (uint8_t *) malloc(size + 64);
+        if (!memory) {
+            return nullptr;
+        }
+        uint8_t *ptr = (uint8_t *) (((uintptr_t) memory + 64) & ~(uintptr_t) 63);
+        ((uint8_t **) ptr)[-1] = memory;
+        return ptr;
+    }
+
+    static void AlignedFree(uint8_t *ptr) {
+        if (ptr) {
+            free(((uint8_t **) ptr)[-1]);
+        }
+    }
+
+    uint8_t *memory_;
+    uint8_t *data_;
+    size_t capacity_;
+    size_t used_;
+    size_t wanted_;
+    int32_t trim_generation_;
+};
+
+/**
+ * 从当前线程arena中分配的临时内存，离开作用域时自动归还；同一作用域内需按分配的相反顺序销毁
+ */
+class ScratchBuffer {
+public:
+    explicit ScratchBuffer(size_t size) : size_(size), heap_(false) {
+        data_ = ScratchArena::Current().Alloc(size, &heap_);
+    }
+
+    ~ScratchBuffer() {
+        ScratchArena::Current().Free(data_, size_, heap_);
+    }
+
+    ScratchBuffer(const ScratchBuffer &) = delete;
+
+    ScratchBuffer &operator=(const ScratchBuffer &) = delete;
+
+    uint8_t *data() const {
+        return data_;
+    }
+
+private:
+    size_t size_;
+    bool heap_;
+    uint8_t *data_;
+};
+
+#endif  // YUV_ARENA_H_
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_CHANGE_H_
+#define YUV_CHANGE_H_
+
+#include <stdint.h>
+#include "yuv_jni.h"
+
+/**
+ * 变化检测：先将Y平面缩小到分析尺寸，再与参考帧按区块计算差值平方和（SSE）
+ * <p>
+ * 缩小后的亮度写入current，由调用方在需要时与reference交换，作为下一帧的参考；
+ * has_reference为false时只做缩小，tile_sse保持不变
+ */
+static void DetectChange(const uint8_t *src_y, int src_stride, int width, int height,
+                         const uint8_t *reference, uint8_t *current, int analysis_width,
+                         int analysis_height, int tile_cols, int tile_rows, bool has_reference,
+                         int64_t *tile_sse) {
+    libyuv::ScalePlane(src_y, src_stride, width, height,
+                       current, analysis_width, analysis_width, analysis_height,
+                       libyuv::kFilterBox);
+    if (!has_reference) {
+        return;
+    }
+    for (int tile_y = 0; tile_y < tile_rows; ++tile_y) {
+        int y0 = (int) ((int64_t) tile_y * analysis_height / tile_rows);
+        int y1 = (int) ((int64_t) (tile_y + 1) * analysis_height / tile_rows);
+        for (int tile_x = 0; tile_x < tile_cols; ++tile_x) {
+            int x0 = (int) ((int64_t) tile_x * analysis_width / tile_cols);
+            int x1 = (int) ((int64_t) (tile_x + 1) * analysis_width / tile_cols);
+            int64_t offset = (int64_t) y0 * analysis_width + x0;
+            tile_sse[tile_y * tile_cols + tile_x] = (int64_t) libyuv::ComputeSumSquareErrorPlane(
+                    reference + offset, analysis_width, current + offset, analysis_width,
+                    x1 - x0, y1 - y0);
+        }
+    }
+}
+
+#endif  // YUV_CHANGE_H_
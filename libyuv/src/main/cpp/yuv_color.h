@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_COLOR_H_
+#define YUV_COLOR_H_
+
+#include <stdint.h>
+#include "libyuv/convert_argb.h"
+
+/**
+ * 色彩空间，与Java层的ColorSpace保持一致
+ */
+enum ColorSpace {
+    kColorSpaceBT601 = 0,
+    kColorSpaceBT601Full = 1,
+    kColorSpaceBT709 = 2,
+    kColorSpaceBT709Full = 3,
+    kColorSpaceBT2020 = 4,
+    kColorSpaceBT2020Full = 5,
+};
+
+/**
+ * 获取YUV转RGB所使用的矩阵；swap_uv为true时返回U/V互换后的矩阵（用于输出ABGR/BGRA/RAW等字节序）
+ */
+static inline const libyuv::YuvConstants *GetYuvConstants(int color_space, bool swap_uv) {
+    switch (color_space) {
+        case kColorSpaceBT601Full:
+            return swap_uv ? &libyuv::kYvuJPEGConstants : &libyuv::kYuvJPEGConstants;
+        case kColorSpaceBT709:
+            return swap_uv ? &libyuv::kYvuH709Constants : &libyuv::kYuvH709Constants;
+        case kColorSpaceBT709Full:
+            return swap_uv ? &libyuv::kYvuF709Constants : &libyuv::kYuvF709Constants;
+        case kColorSpaceBT2020:
+            return swap_uv ? &libyuv::kYvu2020Constants : &libyuv::kYuv2020Constants;
+        case kColorSpaceBT2020Full:
+            return swap_uv ? &libyuv::kYvuV2020Constants : &libyuv::kYuvV2020Constants;
+        default:
+            return swap_uv ? &libyuv::kYvuI601Constants : &libyuv::kYuvI601Constants;
+    }
+}
+
+/**
+ * RGB转YUV的定点系数（16位小数）
+ */
+struct RgbToYuvCoefficients {
+    int32_t yr, yg, yb;
+    int32_t ur, ug, ub;
+    int32_t vr, vg, vb;
+    int32_t y_offset;
+};
+
+static inline void GetRgbToYuvCoefficients(int color_space, RgbToYuvCoefficients *coefficients) {
+    double kr;
+    double kb;
+    switch (color_space) {
+        case kColorSpaceBT709:
+        case kColorSpaceBT709Full:
+            kr = 0.2126;
+            kb = 0.0722;
+            break;
+        case kColorSpaceBT2020:
+        case kColorSpaceBT2020Full:
+            kr = 0.2627;
+            kb = 0.0593;
+            break;
+        default:
+            kr = 0.299;
+            kb = 0.114;
+            break;
+    }
+    double kg = 1.0 - kr - kb;
+    bool full_range = color_space == kColorSpaceBT601Full
+                      || color_space == kColorSpaceBT709Full
+                      || color_space == kColorSpaceBT2020Full;
+    double y_scale = full_range ? 1.0 : 219.0 / 255.0;
+    double uv_scale = full_range ? 1.0 : 224.0 / 255.0;
+    const double one = 65536.0;
+    coefficients->yr = (int32_t) (kr * y_scale * one + 0.5);
+    coefficients->yg = (int32_t) (kg * y_scale * one + 0.5);
+    coefficients->yb = (int32_t) (kb * y_scale * one + 0.5);
+    coefficients->ur = -(int32_t) (kr / (2.0 * (1.0 - kb)) * uv_scale * one + 0.5);
+    coefficients->ug = -(int32_t) (kg / (2.0 * (1.0 - kb)) * uv_scale * one + 0.5);
+    coefficients->ub = (int32_t) (0.5 * uv_scale * one + 0.5);
+    coefficients->vr = (int32_t) (0.5 * uv_scale * one + 0.5);
+    coefficients->vg = -(int32_t) (kg / (2.0 * (1.0 - kr)) * uv_scale * one + 0.5);
+    coefficients->vb = -(int32_t) (kb / (2.0 * (1.0 - kr)) * uv_scale * one + 0.5);
+    coefficients->y_offset = full_range ? 0 : 16;
+}
+
+static inline uint8_t ClampToByte(int32_t value) {
+    return (uint8_t) (value < 0 ? 0 : (value > 255 ? 255 : value));
+}
+
+/**
+ * 将两行ARGB（内存顺序为B、G、R、A）转换为两行Y以及一行U/V；
+ * 高度为奇数时最后一行传入相同的src_argb1，dst_y1传nullptr。
+ */
+static void ARGBRowPairToI420Row(const uint8_t *src_argb0, const uint8_t *src_argb1,
+                                 uint8_t *dst_y0, uint8_t *dst_y1,
+                                 uint8_t *dst_u, uint8_t *dst_v, int width,
+                                 const RgbToYuvCoefficients &c) {
+    const int32_t round = 1 << 15;
+    const int32_t y_offset = (c.y_offset << 16) + round;
+    for (int x = 0; x < width; x += 2) {
+        int count = x + 1 < width ? 2 : 1;
+        int32_t sum_b = 0;
+        int32_t sum_g = 0;
+        int32_t sum_r = 0;
+        for (int i = 0; i < count; i++) {
+            const uint8_t *p0 = src_argb0 + (x + i) * 4;
+            const uint8_t *p1 = src_argb1 + (x + i) * 4;
+            dst_y0[x + i] = ClampToByte((c.yr * p0[2] + c.yg * p0[1] + c.yb * p0[0] + y_offset) >> 16);
+            if (dst_y1) {
+                dst_y1[x + i] = ClampToByte((c.yr * p1[2] + c.yg * p1[1] + c.yb * p1[0] + y_offset) >> 16);
+            }
+            sum_b += p0[0] + p1[0];
+            sum_g += p0[1] + p1[1];
+            sum_r += p0[2] + p1[2];
+        }
+        // 2x2的均值，4个像素时右移2位，2个像素时右移1位
+        int shift = count == 2 ? 2 : 1;
+        int32_t b = (sum_b + (1 << (shift - 1))) >> shift;
+        int32_t g = (sum_g + (1 << (shift - 1))) >> shift;
+        int32_t r = (sum_r + (1 << (shift - 1))) >> shift;
+        dst_u[x >> 1] = ClampToByte(((c.ur * r + c.ug * g + c.ub * b + round) >> 16) + 128);
+        dst_v[x >> 1] = ClampToByte(((c.vr * r + c.vg * g + c.vb * b + round) >> 16) + 128);
+    }
+}
+
+#endif  // YUV_COLOR_H_
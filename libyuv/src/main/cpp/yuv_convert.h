@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_CONVERT_H_
+#define YUV_CONVERT_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_jni.h"
+#include "yuv_arena.h"
+
+/**
+ * 紧凑排列（无行填充）的一帧数据的各个平面；packed格式只使用y/stride_y，NV12/NV21的UV平面使用u/stride_u
+ */
+struct SamplePlanes {
+    uint8_t *y;
+    uint8_t *u;
+    uint8_t *v;
+    int stride_y;
+    int stride_u;
+    int stride_v;
+};
+
+/**
+ * 按格式拆分紧凑排列的一帧数据；格式不支持时返回-1
+ */
+static int GetSamplePlanes(uint32_t fourcc, uint8_t *data, int width, int height, SamplePlanes *planes) {
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int y_size = width * height;
+    planes->y = data;
+    planes->stride_y = width;
+    planes->u = nullptr;
+    planes->v = nullptr;
+    planes->stride_u = 0;
+    planes->stride_v = 0;
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_I400:
+            return 0;
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21:
+            planes->u = data + y_size;
+            planes->stride_u = half_width * 2;
+            return 0;
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_YV12:
+            planes->u = data + y_size;
+            planes->v = data + y_size + half_width * half_height;
+            planes->stride_u = half_width;
+            planes->stride_v = half_width;
+            break;
+        case libyuv::FOURCC_I422:
+        case libyuv::FOURCC_YV16:
+            planes->u = data + y_size;
+            planes->v = data + y_size + half_width * height;
+            planes->stride_u = half_width;
+            planes->stride_v = half_width;
+            break;
+        case libyuv::FOURCC_I444:
+        case libyuv::FOURCC_YV24:
+            planes->u = data + y_size;
+            planes->v = data + y_size * 2;
+            planes->stride_u = width;
+            planes->stride_v = width;
+            break;
+        case libyuv::FOURCC_YUY2:
+        case libyuv::FOURCC_UYVY:
+            planes->stride_y = half_width * 4;
+            return 0;
+        case libyuv::FOURCC_RGBP:
+        case libyuv::FOURCC_RGBO:
+        case libyuv::FOURCC_R444:
+            planes->stride_y = width * 2;
+            return 0;
+        case libyuv::FOURCC_24BG:
+        case libyuv::FOURCC_RAW:
+            planes->stride_y = width * 3;
+            return 0;
+        case libyuv::FOURCC_ARGB:
+        case libyuv::FOURCC_BGRA:
+        case libyuv::FOURCC_ABGR:
+        case libyuv::FOURCC_RGBA:
+        case libyuv::FOURCC_AR30:
+            planes->stride_y = width * 4;
+            return 0;
+        default:
+            return -1;
+    }
+    // YV12/YV16/YV24的V平面在前
+    uint32_t canonical = libyuv::CanonicalFourCC(fourcc);
+    if (canonical == libyuv::FOURCC_YV12 || canonical == libyuv::FOURCC_YV16 || canonical == libyuv::FOURCC_YV24) {
+        uint8_t *swap = planes->u;
+        planes->u = planes->v;
+        planes->v = swap;
+    }
+    return 0;
+}
+
+typedef int (*DirectConvertFunction)(const SamplePlanes &src, const SamplePlanes &dst, int width, int height);
+
+/**
+ * 两种格式之间的直接转换：一次遍历，没有中间帧
+ */
+struct DirectConversion {
+    uint32_t src_fourcc;
+    uint32_t dst_fourcc;
+    DirectConvertFunction convert;
+};
+
+static const DirectConversion kDirectConversions[] = {
+        // NV21
+        {libyuv::FOURCC_NV21, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV21ToARGB(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV21, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV21ToABGR(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV21, libyuv::FOURCC_24BG, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV21ToRGB24(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV21, libyuv::FOURCC_RAW, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV21ToRAW(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV21, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV21ToNV12(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        // NV12
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV12ToARGB(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV12ToABGR(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_24BG, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV12ToRGB24(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_RAW, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV12ToRAW(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_RGBP, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::NV12ToRGB565(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_NV12, libyuv::FOURCC_NV21, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            // 交换UV的操作是对称的
+            return libyuv::NV21ToNV12(s.y, s.stride_y, s.u, s.stride_u, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        // YUY2 / UYVY
+        {libyuv::FOURCC_YUY2, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::YUY2ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_YUY2, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::YUY2ToNV12(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_YUY2, libyuv::FOURCC_I422, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::YUY2ToI422(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, d.v, d.stride_v, w, h);
+        }},
+        {libyuv::FOURCC_UYVY, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::UYVYToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_UYVY, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::UYVYToNV12(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_UYVY, libyuv::FOURCC_I422, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::UYVYToI422(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, d.v, d.stride_v, w, h);
+        }},
+        // I422
+        {libyuv::FOURCC_I422, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToARGB(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToABGR(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_BGRA, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToBGRA(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_RGBA, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToRGBA(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_RGBP, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToRGB565(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_YUY2, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToYUY2(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_UYVY, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToUYVY(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_NV21, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToNV21(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_I422, libyuv::FOURCC_I444, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I422ToI444(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v,
+                                      d.y, d.stride_y, d.u, d.stride_u, d.v, d.stride_v, w, h);
+        }},
+        // I444
+        {libyuv::FOURCC_I444, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I444ToARGB(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I444, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I444ToABGR(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_I444, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I444ToNV12(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_I444, libyuv::FOURCC_NV21, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I444ToNV21(s.y, s.stride_y, s.u, s.stride_u, s.v, s.stride_v, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        // I400
+        {libyuv::FOURCC_I400, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::I400ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        // ARGB
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToABGR(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_BGRA, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToBGRA(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_RGBA, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToRGBA(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_24BG, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToRGB24(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_RAW, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToRAW(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_RGBP, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToRGB565(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_RGBO, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToARGB1555(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_R444, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToARGB4444(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_AR30, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToAR30(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToNV12(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_NV21, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToNV21(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_YUY2, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToYUY2(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_UYVY, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToUYVY(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_I422, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToI422(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, d.v, d.stride_v, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_I444, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToI444(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, d.v, d.stride_v, w, h);
+        }},
+        {libyuv::FOURCC_ARGB, libyuv::FOURCC_I400, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGBToI400(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        // ABGR
+        {libyuv::FOURCC_ABGR, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ABGRToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ABGR, libyuv::FOURCC_AR30, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ABGRToAR30(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_ABGR, libyuv::FOURCC_NV12, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ABGRToNV12(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        {libyuv::FOURCC_ABGR, libyuv::FOURCC_NV21, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ABGRToNV21(s.y, s.stride_y, d.y, d.stride_y, d.u, d.stride_u, w, h);
+        }},
+        // 其他packed RGB
+        {libyuv::FOURCC_BGRA, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::BGRAToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RGBA, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RGBAToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_AR30, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::AR30ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_AR30, libyuv::FOURCC_ABGR, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::AR30ToABGR(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_24BG, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RGB24ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RAW, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RAWToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RAW, libyuv::FOURCC_24BG, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RAWToRGB24(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RAW, libyuv::FOURCC_RGBA, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RAWToRGBA(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RGBP, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::RGB565ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_RGBO, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGB1555ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+        {libyuv::FOURCC_R444, libyuv::FOURCC_ARGB, [](const SamplePlanes &s, const SamplePlanes &d, int w, int h) {
+            return libyuv::ARGB4444ToARGB(s.y, s.stride_y, d.y, d.stride_y, w, h);
+        }},
+};
+
+/**
+ * 转换路径，与Java层的LibYuv.CONVERT_*保持一致
+ */
+enum ConvertPath {
+    kConvertUnsupported = -1,
+    kConvertCopy = 0,
+    kConvertDirect = 1,
+    kConvertViaARGB = 2,
+    kConvertViaI420 = 3,
+};
+
+static DirectConvertFunction FindDirectConversion(uint32_t src_fourcc, uint32_t dst_fourcc) {
+    src_fourcc = libyuv::CanonicalFourCC(src_fourcc);
+    dst_fourcc = libyuv::CanonicalFourCC(dst_fourcc);
+    for (const DirectConversion &conversion : kDirectConversions) {
+        if (conversion.src_fourcc == src_fourcc && conversion.dst_fourcc == dst_fourcc) {
+            return conversion.convert;
+        }
+    }
+    return nullptr;
+}
+
+static bool IsPackedRGB(uint32_t fourcc) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_ARGB:
+        case libyuv::FOURCC_ABGR:
+        case libyuv::FOURCC_BGRA:
+        case libyuv::FOURCC_RGBA:
+        case libyuv::FOURCC_AR30:
+        case libyuv::FOURCC_24BG:
+        case libyuv::FOURCC_RAW:
+        case libyuv::FOURCC_RGBP:
+        case libyuv::FOURCC_RGBO:
+        case libyuv::FOURCC_R444:
+            return true;
+        default:
+            return false;
+    }
+}
+
+static bool IsSampleFourCC(uint32_t fourcc) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_I400:
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_YV12:
+        case libyuv::FOURCC_I422:
+        case libyuv::FOURCC_YV16:
+        case libyuv::FOURCC_I444:
+        case libyuv::FOURCC_YV24:
+        case libyuv::FOURCC_YUY2:
+        case libyuv::FOURCC_UYVY:
+            return true;
+        default:
+            return IsPackedRGB(fourcc);
+    }
+}
+
+static bool IsI420FourCC(uint32_t fourcc) {
+    uint32_t canonical = libyuv::CanonicalFourCC(fourcc);
+    return canonical == libyuv::FOURCC_I420 || canonical == libyuv::FOURCC_YV12;
+}
+
+/**
+ * 是否可以一次遍历完成转换：查表得到的内核，或者一侧为I420/YV12时由ConvertToI420/ConvertFromI420直接转换（AR30除外）
+ */
+static bool HasDirectConversion(uint32_t src_fourcc, uint32_t dst_fourcc) {
+    if (FindDirectConversion(src_fourcc, dst_fourcc)) {
+        return true;
+    }
+    if (IsI420FourCC(src_fourcc)) {
+        return true;
+    }
+    return IsI420FourCC(dst_fourcc) && libyuv::CanonicalFourCC(src_fourcc) != libyuv::FOURCC_AR30;
+}
+
+/**
+ * 一次遍历的直接转换；调用前需确认HasDirectConversion。planes中YV12的U、V已按实际位置交换，可以直接按I420传入
+ */
+static int ConvertDirect(const SamplePlanes &src, int src_size, uint32_t src_fourcc,
+                         const SamplePlanes &dst, uint8_t *dst_data, uint32_t dst_fourcc,
+                         int width, int height) {
+    DirectConvertFunction convert = FindDirectConversion(src_fourcc, dst_fourcc);
+    if (convert) {
+        return convert(src, dst, width, height);
+    }
+    if (IsI420FourCC(src_fourcc)) {
+        return libyuv::ConvertFromI420(src.y, src.stride_y, src.u, src.stride_u, src.v, src.stride_v,
+                                       dst_data, 0, width, height, dst_fourcc);
+    }
+    return libyuv::ConvertToI420(src.y, src_size,
+                                 dst.y, dst.stride_y, dst.u, dst.stride_u, dst.v, dst.stride_v,
+                                 0, 0, width, height, width, height,
+                                 libyuv::kRotate0, src_fourcc);
+}
+
+/**
+ * 选择转换路径：优先直接转换；RGB之间（或ConvertToI420不支持的AR30）经ARGB中转，避免色度下采样；其余经I420中转
+ */
+static int GetConvertPath(uint32_t src_fourcc, uint32_t dst_fourcc) {
+    if (!IsSampleFourCC(src_fourcc) || !IsSampleFourCC(dst_fourcc)) {
+        return kConvertUnsupported;
+    }
+    if (libyuv::CanonicalFourCC(src_fourcc) == libyuv::CanonicalFourCC(dst_fourcc)) {
+        return kConvertCopy;
+    }
+    if (HasDirectConversion(src_fourcc, dst_fourcc)) {
+        return kConvertDirect;
+    }
+    bool src_is_ar30 = libyuv::CanonicalFourCC(src_fourcc) == libyuv::FOURCC_AR30;
+    if (IsPackedRGB(src_fourcc) && (IsPackedRGB(dst_fourcc) || src_is_ar30)
+        && HasDirectConversion(libyuv::FOURCC_ARGB, dst_fourcc)) {
+        return kConvertViaARGB;
+    }
+    if (src_is_ar30) {
+        return kConvertUnsupported;
+    }
+    return kConvertViaI420;
+}
+
+/**
+ * 按转换路径执行转换；src与dst均为紧凑排列的数据
+ */
+static int ConvertSample(const uint8_t *src_data, int src_size, int width, int height,
+                         uint8_t *dst_data, int dst_size, uint32_t src_fourcc, uint32_t dst_fourcc) {
+    SamplePlanes src;
+    SamplePlanes dst;
+    GetSamplePlanes(src_fourcc, (uint8_t *) src_data, width, height, &src);
+    GetSamplePlanes(dst_fourcc, dst_data, width, height, &dst);
+    switch (GetConvertPath(src_fourcc, dst_fourcc)) {
+        case kConvertCopy:
+            memcpy(dst_data, src_data, src_size < dst_size ? src_size : dst_size);
+            return 0;
+        case kConvertDirect:
+            return ConvertDirect(src, src_size, src_fourcc, dst, dst_data, dst_fourcc, width, height);
+        case kConvertViaARGB: {
+            ScratchBuffer argb_buffer(width * height * 4);
+            SamplePlanes argb;
+            GetSamplePlanes(libyuv::FOURCC_ARGB, argb_buffer.data(), width, height, &argb);
+            int ret = FindDirectConversion(src_fourcc, libyuv::FOURCC_ARGB)(src, argb, width, height);
+            if (ret != 0) {
+                return ret;
+            }
+            return ConvertDirect(argb, width * height * 4, libyuv::FOURCC_ARGB,
+                                 dst, dst_data, dst_fourcc, width, height);
+        }
+        case kConvertViaI420: {
+            int y_size = width * height;
+            int u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+            int stride_uv = (width + 1) >> 1;
+            ScratchBuffer i420_buffer(y_size + u_size * 2);
+            uint8_t *i420_data = i420_buffer.data();
+            int ret = libyuv::ConvertToI420(src_data, src_size,
+                                            i420_data, width,
+                                            i420_data + y_size, stride_uv,
+                                            i420_data + y_size + u_size, stride_uv,
+                                            0, 0, width, height, width, height,
+                                            libyuv::kRotate0, src_fourcc);
+            if (ret != 0) {
+                return ret;
+            }
+            return libyuv::ConvertFromI420(i420_data, width,
+                                           i420_data + y_size, stride_uv,
+                                           i420_data + y_size + u_size, stride_uv,
+                                           dst_data, 0, width, height, dst_fourcc);
+        }
+        default:
+            return -1;
+    }
+}
+
+#endif  // YUV_CONVERT_H_
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_GRADING_H_
+#define YUV_GRADING_H_
+
+#include <stdint.h>
+#include "yuv_jni.h"
+#include "yuv_parallel.h"
+
+/**
+ * 调色：与Java层的ColorTransform保持一致。
+ * <p>
+ * 4字节packed RGB按阶段依次执行：查表阶段为libyuv的ARGBColorTable（1024字节，按内存中的字节位置），
+ * 矩阵阶段为ARGBColorMatrix（16个int8，64为1.0）。按行分段并行，每一段在缓存中依次执行所有阶段。
+ * YUV按平面查表，每个平面256字节。
+ */
+enum ColorStageKind {
+    kColorStageTable = 0,
+    kColorStageMatrix = 1,
+};
+
+static const int kColorTableSize = 1024;
+static const int kColorMatrixSize = 16;
+static const int kColorRowsPerTask = 32;
+
+static void ApplyColorStages(uint8_t *data, int stride, int width, int height, const int *kinds,
+                             int stage_count, const uint8_t *stage_data) {
+    int task_count = (height + kColorRowsPerTask - 1) / kColorRowsPerTask;
+    ParallelFor(task_count, 0, [&](int task) {
+        int row_begin = task * kColorRowsPerTask;
+        int rows = height - row_begin < kColorRowsPerTask ? height - row_begin : kColorRowsPerTask;
+        uint8_t *strip = data + (int64_t) row_begin * stride;
+        const uint8_t *stage = stage_data;
+        for (int i = 0; i < stage_count; ++i) {
+            if (kinds[i] == kColorStageMatrix) {
+                libyuv::ARGBColorMatrix(strip, stride, strip, stride, (const int8_t *) stage,
+                                        width, rows);
+                stage += kColorMatrixSize;
+            } else {
+                libyuv::ARGBColorTable(strip, stride, stage, 0, 0, width, rows);
+                stage += kColorTableSize;
+            }
+        }
+    });
+}
+
+static inline void ApplyTable(uint8_t *data, int64_t size, int step, const uint8_t *table) {
+    for (int64_t i = 0; i < size; i += step) {
+        data[i] = table[data[i]];
+    }
+}
+
+/**
+ * 按平面查表；y_table、u_table、v_table为nullptr时对应平面保持不变。格式不支持时返回-1
+ */
+static int ApplyPlaneTables(uint8_t *data, int width, int height, uint32_t fourcc,
+                            const uint8_t *y_table, const uint8_t *u_table,
+                            const uint8_t *v_table) {
+    uint32_t canonical = libyuv::CanonicalFourCC(fourcc);
+    int64_t y_size = (int64_t) width * height;
+    int64_t uv_size = (int64_t) ((width + 1) >> 1) * ((height + 1) >> 1);
+    uint8_t *chroma = data + y_size;
+    switch (canonical) {
+        case libyuv::FOURCC_I400:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21:
+            break;
+        default:
+            return -1;
+    }
+    if (y_table) {
+        ApplyTable(data, y_size, 1, y_table);
+    }
+    if (canonical == libyuv::FOURCC_I400) {
+        return 0;
+    }
+    if (canonical == libyuv::FOURCC_I420) {
+        if (u_table) {
+            ApplyTable(chroma, uv_size, 1, u_table);
+        }
+        if (v_table) {
+            ApplyTable(chroma + uv_size, uv_size, 1, v_table);
+        }
+        return 0;
+    }
+    // NV12为UVUV...，NV21为VUVU...
+    bool nv21 = canonical == libyuv::FOURCC_NV21;
+    const uint8_t *first = nv21 ? v_table : u_table;
+    const uint8_t *second = nv21 ? u_table : v_table;
+    if (first) {
+        ApplyTable(chroma, uv_size * 2, 2, first);
+    }
+    if (second) {
+        ApplyTable(chroma + 1, uv_size * 2 - 1, 2, second);
+    }
+    return 0;
+}
+
+#endif  // YUV_GRADING_H_
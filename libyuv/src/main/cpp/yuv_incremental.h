@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_INCREMENTAL_H_
+#define YUV_INCREMENTAL_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_jni.h"
+#include "yuv_arena.h"
+#include "yuv_convert.h"
+#include "yuv_rect.h"
+
+/**
+ * 增量转换：只把4字节packed RGB源中变化的矩形区域转换到常驻的I420/NV12/NV21目标中，其余区域保持不变。
+ * <p>
+ * 矩形按色度块（2x2）对齐后再转换；previous保存上一帧源数据的紧凑拷贝（行跨距为width * 4），
+ * 用于按区块比较找出变化区域，每次转换后只更新变化的部分。
+ */
+typedef int (*RectToI420Function)(const uint8_t *src, int src_stride,
+                                  uint8_t *dst_y, int dst_stride_y,
+                                  uint8_t *dst_u, int dst_stride_u,
+                                  uint8_t *dst_v, int dst_stride_v,
+                                  int width, int height);
+
+static RectToI420Function GetRectToI420Function(uint32_t fourcc) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_ARGB:
+            return libyuv::ARGBToI420;
+        case libyuv::FOURCC_ABGR:
+            return libyuv::ABGRToI420;
+        case libyuv::FOURCC_BGRA:
+            return libyuv::BGRAToI420;
+        case libyuv::FOURCC_RGBA:
+            return libyuv::RGBAToI420;
+        default:
+            return nullptr;
+    }
+}
+
+/**
+ * 按tile_size大小的区块逐行比较当前帧与上一帧，同一区块行中连续变化的区块合并为一个矩形；返回矩形数量
+ */
+static int DetectDirtyRects(const uint8_t *src, int src_stride, const uint8_t *previous,
+                            int width, int height, int tile_size, int *rects) {
+    int row_bytes = width * 4;
+    int tile_cols = (width + tile_size - 1) / tile_size;
+    ScratchBuffer dirty_buffer(tile_cols);
+    uint8_t *dirty = dirty_buffer.data();
+    int rect_count = 0;
+    for (int tile_y = 0; tile_y < height; tile_y += tile_size) {
+        int tile_height = height - tile_y < tile_size ? height - tile_y : tile_size;
+        memset(dirty, 0, tile_cols);
+        int dirty_count = 0;
+        for (int y = tile_y; y < tile_y + tile_height && dirty_count < tile_cols; ++y) {
+            const uint8_t *src_row = src + (int64_t) y * src_stride;
+            const uint8_t *previous_row = previous + (int64_t) y * row_bytes;
+            // 大部分行没有变化，先整行比较
+            if (memcmp(src_row, previous_row, row_bytes) == 0) {
+                continue;
+            }
+            for (int tile_x = 0; tile_x < tile_cols; ++tile_x) {
+                if (dirty[tile_x]) {
+                    continue;
+                }
+                int x = tile_x * tile_size;
+                int tile_width = width - x < tile_size ? width - x : tile_size;
+                if (memcmp(src_row + x * 4, previous_row + x * 4, tile_width * 4) != 0) {
+                    dirty[tile_x] = 1;
+                    dirty_count++;
+                }
+            }
+        }
+        for (int tile_x = 0; tile_x < tile_cols;) {
+            if (!dirty[tile_x]) {
+                ++tile_x;
+                continue;
+            }
+            int run_start = tile_x;
+            while (tile_x < tile_cols && dirty[tile_x]) {
+                ++tile_x;
+            }
+            int x0 = run_start * tile_size;
+            int x1 = tile_x * tile_size > width ? width : tile_x * tile_size;
+            int *rect = rects + rect_count * 4;
+            rect[0] = x0;
+            rect[1] = tile_y;
+            rect[2] = x1 - x0;
+            rect[3] = tile_height;
+            rect_count++;
+        }
+    }
+    return rect_count;
+}
+
+/**
+ * 转换一个已对齐的矩形，并把该区域写回previous
+ */
+static void ConvertDirtyRect(const uint8_t *src, int src_stride, RectToI420Function to_i420,
+                             int width, int height, const int *rect, uint8_t *previous,
+                             uint8_t *dst, uint32_t dst_fourcc) {
+    int x = rect[0];
+    int y = rect[1];
+    int rect_width = rect[2];
+    int rect_height = rect[3];
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int rect_half_width = (rect_width + 1) >> 1;
+    int rect_half_height = (rect_height + 1) >> 1;
+    const uint8_t *src_rect = src + (int64_t) y * src_stride + x * 4;
+    uint8_t *dst_y = dst + (int64_t) y * width + x;
+    uint8_t *dst_chroma = dst + (int64_t) width * height;
+
+    if (libyuv::CanonicalFourCC(dst_fourcc) == libyuv::FOURCC_I420) {
+        int64_t chroma_offset = (int64_t) (y >> 1) * half_width + (x >> 1);
+        to_i420(src_rect, src_stride, dst_y, width,
+                dst_chroma + chroma_offset, half_width,
+                dst_chroma + (int64_t) half_width * half_height + chroma_offset, half_width,
+                rect_width, rect_height);
+    } else {
+        // NV12/NV21：色度先写到临时内存，再交织到目标中
+        int rect_uv_size = rect_half_width * rect_half_height;
+        ScratchBuffer uv_buffer(rect_uv_size * 2);
+        uint8_t *u = uv_buffer.data();
+        uint8_t *v = u + rect_uv_size;
+        to_i420(src_rect, src_stride, dst_y, width, u, rect_half_width, v, rect_half_width,
+                rect_width, rect_height);
+        uint8_t *dst_uv = dst_chroma + (int64_t) (y >> 1) * half_width * 2 + x;
+        if (libyuv::CanonicalFourCC(dst_fourcc) == libyuv::FOURCC_NV21) {
+            libyuv::MergeUVPlane(v, rect_half_width, u, rect_half_width, dst_uv, half_width * 2,
+                                 rect_half_width, rect_half_height);
+        } else {
+            libyuv::MergeUVPlane(u, rect_half_width, v, rect_half_width, dst_uv, half_width * 2,
+                                 rect_half_width, rect_half_height);
+        }
+    }
+    libyuv::CopyPlane(src_rect, src_stride, previous + (int64_t) y * width * 4 + x * 4, width * 4,
+                      rect_width * 4, rect_height);
+}
+
+/**
+ * 增量转换；detect为true时由比较上一帧得到变化区域（has_previous为false时为整帧），否则使用传入的rect_count个矩形。
+ * 实际转换的矩形（已对齐）写回rects，返回矩形数量；源格式不支持时返回-1
+ */
+static int IncrementalConvert(const uint8_t *src, int src_stride, int width, int height,
+                              uint32_t src_fourcc, uint8_t *previous, bool has_previous,
+                              int tile_size, bool detect, int *rects, int rect_count,
+                              uint8_t *dst, uint32_t dst_fourcc) {
+    RectToI420Function to_i420 = GetRectToI420Function(src_fourcc);
+    if (!to_i420) {
+        return -1;
+    }
+    if (detect) {
+        if (has_previous) {
+            rect_count = DetectDirtyRects(src, src_stride, previous, width, height, tile_size, rects);
+        } else {
+            rects[0] = 0;
+            rects[1] = 0;
+            rects[2] = width;
+            rects[3] = height;
+            rect_count = 1;
+        }
+    }
+    int converted = 0;
+    for (int i = 0; i < rect_count; ++i) {
+        int *rect = rects + converted * 4;
+        if (rect != rects + i * 4) {
+            memcpy(rect, rects + i * 4, sizeof(int) * 4);
+        }
+        if (!AlignRectToChroma(rect, width, height)) {
+            continue;
+        }
+        ConvertDirtyRect(src, src_stride, to_i420, width, height, rect, previous, dst, dst_fourcc);
+        converted++;
+    }
+    return converted;
+}
+
+#endif  // YUV_INCREMENTAL_H_
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_INPLACE_H_
+#define YUV_INPLACE_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_jni.h"
+#include "yuv_arena.h"
+#include "yuv_convert.h"
+
+/**
+ * 原地变换：源与目标为同一块内存，只借用一行（或色度平面）大小的临时内存，不再需要一整帧的目标数组
+ */
+
+/**
+ * 色度平面的行数；没有独立色度平面的格式返回0
+ */
+static int GetSampleChromaHeight(uint32_t fourcc, int height) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_YV12:
+            return (height + 1) >> 1;
+        case libyuv::FOURCC_I422:
+        case libyuv::FOURCC_YV16:
+        case libyuv::FOURCC_I444:
+        case libyuv::FOURCC_YV24:
+            return height;
+        default:
+            return 0;
+    }
+}
+
+/**
+ * 逐行交换上下对应的两行
+ */
+static void FlipPlaneInPlace(uint8_t *data, int stride, int rows, uint8_t *tmp_row) {
+    uint8_t *top = data;
+    uint8_t *bottom = data + (int64_t) (rows - 1) * stride;
+    while (top < bottom) {
+        memcpy(tmp_row, top, stride);
+        memcpy(top, bottom, stride);
+        memcpy(bottom, tmp_row, stride);
+        top += stride;
+        bottom -= stride;
+    }
+}
+
+/**
+ * 原地垂直翻转；格式不支持时返回-1
+ */
+static int FlipVerticalInPlace(uint32_t fourcc, uint8_t *data, int width, int height) {
+    SamplePlanes planes;
+    if (GetSamplePlanes(fourcc, data, width, height, &planes) != 0) {
+        return -1;
+    }
+    // NV12/NV21的UV行（2 * ((width + 1) / 2)）在宽度为奇数时比Y行更宽，临时行按最宽的平面分配
+    int row_size = planes.stride_y;
+    row_size = planes.stride_u > row_size ? planes.stride_u : row_size;
+    row_size = planes.stride_v > row_size ? planes.stride_v : row_size;
+    ScratchBuffer tmp_row(row_size);
+    FlipPlaneInPlace(planes.y, planes.stride_y, height, tmp_row.data());
+    int chroma_height = GetSampleChromaHeight(fourcc, height);
+    if (planes.u) {
+        FlipPlaneInPlace(planes.u, planes.stride_u, chroma_height, tmp_row.data());
+    }
+    if (planes.v) {
+        FlipPlaneInPlace(planes.v, planes.stride_v, chroma_height, tmp_row.data());
+    }
+    return 0;
+}
+
+/**
+ * 先把一行拷贝到临时内存，再镜像写回原位置
+ */
+static void MirrorPlaneInPlace(uint8_t *data, int stride, int width, int rows, uint8_t *tmp_row) {
+    for (int y = 0; y < rows; ++y) {
+        uint8_t *row = data + (int64_t) y * stride;
+        memcpy(tmp_row, row, width);
+        libyuv::MirrorPlane(tmp_row, width, row, width, width, 1);
+    }
+}
+
+/**
+ * 原地水平镜像；格式不支持时返回-1
+ */
+static int MirrorInPlace(uint32_t fourcc, uint8_t *data, int width, int height) {
+    SamplePlanes planes;
+    if (GetSamplePlanes(fourcc, data, width, height, &planes) != 0) {
+        return -1;
+    }
+    int chroma_height = GetSampleChromaHeight(fourcc, height);
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_I400:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_YV12:
+        case libyuv::FOURCC_I422:
+        case libyuv::FOURCC_YV16:
+        case libyuv::FOURCC_I444:
+        case libyuv::FOURCC_YV24: {
+            ScratchBuffer tmp_row(width);
+            MirrorPlaneInPlace(planes.y, planes.stride_y, width, height, tmp_row.data());
+            if (planes.u) {
+                MirrorPlaneInPlace(planes.u, planes.stride_u, planes.stride_u, chroma_height, tmp_row.data());
+                MirrorPlaneInPlace(planes.v, planes.stride_v, planes.stride_v, chroma_height, tmp_row.data());
+            }
+            return 0;
+        }
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21: {
+            ScratchBuffer tmp_row(planes.stride_u > width ? planes.stride_u : width);
+            MirrorPlaneInPlace(planes.y, planes.stride_y, width, height, tmp_row.data());
+            int half_width = planes.stride_u >> 1;
+            for (int y = 0; y < chroma_height; ++y) {
+                uint8_t *row = planes.u + (int64_t) y * planes.stride_u;
+                memcpy(tmp_row.data(), row, planes.stride_u);
+                libyuv::MirrorUVPlane(tmp_row.data(), planes.stride_u, row, planes.stride_u, half_width, 1);
+            }
+            return 0;
+        }
+        case libyuv::FOURCC_ARGB:
+        case libyuv::FOURCC_BGRA:
+        case libyuv::FOURCC_ABGR:
+        case libyuv::FOURCC_RGBA:
+        case libyuv::FOURCC_AR30: {
+            ScratchBuffer tmp_row(planes.stride_y);
+            for (int y = 0; y < height; ++y) {
+                uint8_t *row = planes.y + (int64_t) y * planes.stride_y;
+                memcpy(tmp_row.data(), row, planes.stride_y);
+                libyuv::ARGBMirror(tmp_row.data(), planes.stride_y, row, planes.stride_y, width, 1);
+            }
+            return 0;
+        }
+        default:
+            return -1;
+    }
+}
+
+/**
+ * 原地将I420转换为NV12/NV21：色度平面先拷贝到临时内存，再交织写回；Y平面保持不动
+ */
+static void I420ToNVInPlace(uint8_t *data, int width, int height, bool nv21) {
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int uv_size = half_width * half_height;
+    uint8_t *uv = data + (int64_t) width * height;
+    ScratchBuffer tmp_uv(uv_size * 2);
+    memcpy(tmp_uv.data(), uv, uv_size * 2);
+    const uint8_t *u = tmp_uv.data();
+    const uint8_t *v = tmp_uv.data() + uv_size;
+    if (nv21) {
+        libyuv::MergeUVPlane(v, half_width, u, half_width, uv, half_width * 2, half_width, half_height);
+    } else {
+        libyuv::MergeUVPlane(u, half_width, v, half_width, uv, half_width * 2, half_width, half_height);
+    }
+}
+
+/**
+ * 原地将NV12/NV21转换为I420：交织的色度平面先拷贝到临时内存，再拆分写回；Y平面保持不动
+ */
+static void NVToI420InPlace(uint8_t *data, int width, int height, bool nv21) {
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int uv_size = half_width * half_height;
+    uint8_t *u = data + (int64_t) width * height;
+    uint8_t *v = u + uv_size;
+    ScratchBuffer tmp_uv(uv_size * 2);
+    memcpy(tmp_uv.data(), u, uv_size * 2);
+    if (nv21) {
+        libyuv::SplitUVPlane(tmp_uv.data(), half_width * 2, v, half_width, u, half_width, half_width, half_height);
+    } else {
+        libyuv::SplitUVPlane(tmp_uv.data(), half_width * 2, u, half_width, v, half_width, half_width, half_height);
+    }
+}
+
+/**
+ * 原地交换NV12/NV21的UV顺序；SwapUVRow逐对读写同一位置，可以直接原地执行
+ */
+static void SwapUVInPlace(uint8_t *data, int width, int height) {
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    uint8_t *uv = data + (int64_t) width * height;
+    libyuv::SwapUVPlane(uv, half_width * 2, uv, half_width * 2, half_width, half_height);
+}
+
+/**
+ * 原地对亮度平面查表（亮度、对比度、伽马等调整）
+ */
+static void ApplyLumaTableInPlace(uint8_t *y, int64_t size, const uint8_t *table) {
+    for (int64_t i = 0; i < size; ++i) {
+        y[i] = table[y[i]];
+    }
+}
+
+#endif  // YUV_INPLACE_H_
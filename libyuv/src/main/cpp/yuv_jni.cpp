@@ -15,7 +15,25 @@
  */
 
 #include <jni.h>
+#include <stdlib.h>
+#include <string.h>
+#ifdef __ANDROID__
+#include <sys/system_properties.h>
+#endif
 #include "yuv_jni.h"
+#include "yuv_arena.h"
+#include "yuv_change.h"
+#include "yuv_color.h"
+#include "yuv_convert.h"
+#include "yuv_grading.h"
+#include "yuv_incremental.h"
+#include "yuv_inplace.h"
+#include "yuv_mask.h"
+#include "yuv_parallel.h"
+#include "yuv_sobel.h"
+#include "yuv_stats.h"
+#include "yuv_temporal.h"
+#include "yuv_warp.h"
 #include "libyuv/video_common.h"
 
 /**
@@ -91,8 +109,9 @@ Java_com_king_libyuv_LibYuv_NV21ToI420(JNIEnv *env, jclass clazz, jbyteArray src
     jbyte *dst_i420_u_data = dst_i420_data + src_y_size;
     jbyte *dst_i420_v_data = dst_i420_data + src_y_size + src_u_size;
 
+    // VU行跨距与FourCC的大小及原地转换一致：奇数宽度时按 2 * ((width + 1) >> 1) 计算，各行不重叠
     libyuv::NV21ToI420((const uint8_t *) src_nv21_y_data, width,
-                       (const uint8_t *) src_nv21_vu_data, width,
+                       (const uint8_t *) src_nv21_vu_data, src_stride_uv * 2,
                        (uint8_t *) dst_i420_y_data, width,
                        (uint8_t *) dst_i420_u_data, src_stride_uv,
                        (uint8_t *) dst_i420_v_data, src_stride_uv,
@@ -129,7 +148,7 @@ Java_com_king_libyuv_LibYuv_I420ToNV21(JNIEnv *env, jclass clazz, jbyteArray src
             (const uint8_t *) src_i420_u_data, src_stride_uv,
             (const uint8_t *) src_i420_v_data, src_stride_uv,
             (uint8_t *) dst_nv21_y_data, width,
-            (uint8_t *) dst_nv21_uv_data, width,
+            (uint8_t *) dst_nv21_uv_data, src_stride_uv * 2,
             width, height);
 
     env->ReleaseByteArrayElements(src_i420_array, src_i420_data, 0);
@@ -356,3 +375,1649 @@ Java_com_king_libyuv_LibYuv_I420Mirror(JNIEnv *env, jclass clazz, jbyteArray src
     env->ReleaseByteArrayElements(src_i420_array, src_i420_data, 0);
     env->ReleaseByteArrayElements(dst_i420_array, dst_i420_data, 0);
 }
+
+/**
+ * 构建图像金字塔：第0层拷贝原图，后续每一层由上一层缩放得到
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_I420Pyramid(JNIEnv *env, jclass clazz, jbyteArray src_i420_array,
+                                        jint width, jint height, jbyteArray dst_array,
+                                        jintArray widths_array, jintArray heights_array,
+                                        jintArray offsets_array, jint levels,
+                                        jboolean luma_only, jint filtering) {
+    jbyte *src_i420_data = env->GetByteArrayElements(src_i420_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+    jint *widths = env->GetIntArrayElements(widths_array, JNI_FALSE);
+    jint *heights = env->GetIntArrayElements(heights_array, JNI_FALSE);
+    jint *offsets = env->GetIntArrayElements(offsets_array, JNI_FALSE);
+
+    jint src_y_size = width * height;
+    jint src_u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    jint src_stride_uv = (width + 1) >> 1;
+
+    uint8_t *dst_y_data = (uint8_t *) dst_data + offsets[0];
+    if (luma_only) {
+        libyuv::CopyPlane((const uint8_t *) src_i420_data, width,
+                          dst_y_data, width,
+                          width, height);
+    } else {
+        libyuv::I420Copy((const uint8_t *) src_i420_data, width,
+                         (const uint8_t *) src_i420_data + src_y_size, src_stride_uv,
+                         (const uint8_t *) src_i420_data + src_y_size + src_u_size, src_stride_uv,
+                         dst_y_data, width,
+                         dst_y_data + src_y_size, src_stride_uv,
+                         dst_y_data + src_y_size + src_u_size, src_stride_uv,
+                         width, height);
+    }
+
+    for (jint i = 1; i < levels; i++) {
+        jint prev_width = widths[i - 1];
+        jint prev_height = heights[i - 1];
+        jint level_width = widths[i];
+        jint level_height = heights[i];
+        const uint8_t *prev_y_data = (const uint8_t *) dst_data + offsets[i - 1];
+        uint8_t *level_y_data = (uint8_t *) dst_data + offsets[i];
+        if (luma_only) {
+            libyuv::ScalePlane(prev_y_data, prev_width,
+                               prev_width, prev_height,
+                               level_y_data, level_width,
+                               level_width, level_height,
+                               (libyuv::FilterMode) filtering);
+            continue;
+        }
+
+        jint prev_y_size = prev_width * prev_height;
+        jint prev_u_size = ((prev_width + 1) >> 1) * ((prev_height + 1) >> 1);
+        jint prev_stride_uv = (prev_width + 1) >> 1;
+        jint level_y_size = level_width * level_height;
+        jint level_u_size = ((level_width + 1) >> 1) * ((level_height + 1) >> 1);
+        jint level_stride_uv = (level_width + 1) >> 1;
+
+        libyuv::I420Scale(prev_y_data, prev_width,
+                          prev_y_data + prev_y_size, prev_stride_uv,
+                          prev_y_data + prev_y_size + prev_u_size, prev_stride_uv,
+                          prev_width, prev_height,
+                          level_y_data, level_width,
+                          level_y_data + level_y_size, level_stride_uv,
+                          level_y_data + level_y_size + level_u_size, level_stride_uv,
+                          level_width, level_height,
+                          (libyuv::FilterMode) filtering);
+    }
+
+    env->ReleaseIntArrayElements(widths_array, widths, JNI_ABORT);
+    env->ReleaseIntArrayElements(heights_array, heights, JNI_ABORT);
+    env->ReleaseIntArrayElements(offsets_array, offsets, JNI_ABORT);
+    env->ReleaseByteArrayElements(src_i420_array, src_i420_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+}
+
+typedef int (*ToARGBFunction)(const uint8_t *, int, uint8_t *, int, int, int);
+
+/**
+ * 获取packed RGB格式转换为ARGB的函数以及每像素字节数；格式不支持时返回nullptr
+ */
+static ToARGBFunction GetToARGBFunction(uint32_t fourcc, int *bytes_per_pixel) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_ARGB:
+            *bytes_per_pixel = 4;
+            return libyuv::ARGBCopy;
+        case libyuv::FOURCC_ABGR:
+            *bytes_per_pixel = 4;
+            return libyuv::ABGRToARGB;
+        case libyuv::FOURCC_BGRA:
+            *bytes_per_pixel = 4;
+            return libyuv::BGRAToARGB;
+        case libyuv::FOURCC_RGBA:
+            *bytes_per_pixel = 4;
+            return libyuv::RGBAToARGB;
+        case libyuv::FOURCC_AR30:
+            *bytes_per_pixel = 4;
+            return libyuv::AR30ToARGB;
+        case libyuv::FOURCC_24BG:
+            *bytes_per_pixel = 3;
+            return libyuv::RGB24ToARGB;
+        case libyuv::FOURCC_RAW:
+            *bytes_per_pixel = 3;
+            return libyuv::RAWToARGB;
+        case libyuv::FOURCC_RGBP:
+            *bytes_per_pixel = 2;
+            return libyuv::RGB565ToARGB;
+        case libyuv::FOURCC_RGBO:
+            *bytes_per_pixel = 2;
+            return libyuv::ARGB1555ToARGB;
+        case libyuv::FOURCC_R444:
+            *bytes_per_pixel = 2;
+            return libyuv::ARGB4444ToARGB;
+        default:
+            return nullptr;
+    }
+}
+
+/**
+ * 是否为带独立Y平面的格式：这类格式的亮度可以直接引用源数据，不需要临时内存
+ */
+static bool HasLumaPlane(uint32_t fourcc) {
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_I400:
+        case libyuv::FOURCC_J400:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_YV12:
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21:
+        case libyuv::FOURCC_I422:
+        case libyuv::FOURCC_YV16:
+        case libyuv::FOURCC_I444:
+        case libyuv::FOURCC_YV24:
+            return true;
+        default:
+            return false;
+    }
+}
+
+/**
+ * 获取裁减区域的亮度平面：平面YUV格式直接返回指针，packed格式则转换到tmp_data中
+ */
+static int LumaFromSample(const uint8_t *src_data, int src_stride, uint32_t fourcc,
+                          int crop_x, int crop_y, int crop_width, int crop_height,
+                          uint8_t *tmp_data, const uint8_t **luma_data, int *luma_stride) {
+    if (HasLumaPlane(fourcc)) {
+        *luma_data = src_data + crop_y * src_stride + crop_x;
+        *luma_stride = src_stride;
+        return 0;
+    }
+    *luma_data = tmp_data;
+    *luma_stride = crop_width;
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_YUY2:
+            return libyuv::YUY2ToY(src_data + crop_y * src_stride + crop_x * 2, src_stride,
+                                   tmp_data, crop_width, crop_width, crop_height);
+        case libyuv::FOURCC_ARGB:
+            return libyuv::ARGBToJ400(src_data + crop_y * src_stride + crop_x * 4, src_stride,
+                                      tmp_data, crop_width, crop_width, crop_height);
+        case libyuv::FOURCC_RGBA:
+            return libyuv::RGBAToJ400(src_data + crop_y * src_stride + crop_x * 4, src_stride,
+                                      tmp_data, crop_width, crop_width, crop_height);
+        case libyuv::FOURCC_24BG:
+            return libyuv::RGB24ToJ400(src_data + crop_y * src_stride + crop_x * 3, src_stride,
+                                       tmp_data, crop_width, crop_width, crop_height);
+        case libyuv::FOURCC_RAW:
+            return libyuv::RAWToJ400(src_data + crop_y * src_stride + crop_x * 3, src_stride,
+                                     tmp_data, crop_width, crop_width, crop_height);
+        case libyuv::FOURCC_UYVY: {
+            // UYVY没有单独提取Y的接口，色度写入临时平面后丢弃
+            int half_width = (crop_width + 1) >> 1;
+            int half_height = (crop_height + 1) >> 1;
+            ScratchBuffer tmp_uv_buffer(half_width * half_height * 2);
+            uint8_t *tmp_uv_data = tmp_uv_buffer.data();
+            int ret = libyuv::UYVYToI420(src_data + crop_y * src_stride + crop_x * 2, src_stride,
+                                         tmp_data, crop_width,
+                                         tmp_uv_data, half_width,
+                                         tmp_uv_data + half_width * half_height, half_width,
+                                         crop_width, crop_height);
+            return ret;
+        }
+        default:
+            break;
+    }
+
+    // 其余packed格式逐行转换为ARGB后再提取亮度，只占用一行的临时内存
+    int bytes_per_pixel;
+    ToARGBFunction to_argb = GetToARGBFunction(fourcc, &bytes_per_pixel);
+    if (!to_argb) {
+        return -1;
+    }
+    ScratchBuffer row_argb_buffer(crop_width * 4);
+    uint8_t *row_argb_data = row_argb_buffer.data();
+    const uint8_t *src_row = src_data + crop_y * src_stride + crop_x * bytes_per_pixel;
+    for (int y = 0; y < crop_height; y++) {
+        to_argb(src_row, src_stride, row_argb_data, crop_width * 4, crop_width, 1);
+        libyuv::ARGBToJ400(row_argb_data, crop_width * 4, tmp_data + y * crop_width, crop_width,
+                           crop_width, 1);
+        src_row += src_stride;
+    }
+    return 0;
+}
+
+/**
+ * 亮度平面裁减、缩放、旋转：先缩放再旋转，保证旋转处理的是较小的数据
+ */
+static int LumaCropScaleRotate(const uint8_t *src_data, int src_stride, uint32_t fourcc,
+                               int crop_x, int crop_y, int crop_width, int crop_height,
+                               uint8_t *dst_data, int dst_width, int dst_height,
+                               int degrees, int filtering) {
+    // 平面格式直接引用源数据中的Y平面，只有packed格式才需要临时的亮度平面
+    ScratchBuffer tmp_luma_buffer(HasLumaPlane(fourcc) ? 0 : crop_width * crop_height);
+    uint8_t *tmp_luma_data = tmp_luma_buffer.data();
+    const uint8_t *luma_data;
+    int luma_stride;
+    int ret = LumaFromSample(src_data, src_stride, fourcc,
+                             crop_x, crop_y, crop_width, crop_height,
+                             tmp_luma_data, &luma_data, &luma_stride);
+    if (ret == 0) {
+        if (degrees == libyuv::kRotate0) {
+            libyuv::ScalePlane(luma_data, luma_stride, crop_width, crop_height,
+                               dst_data, dst_width, dst_width, dst_height,
+                               (libyuv::FilterMode) filtering);
+        } else {
+            bool quarter_turn = degrees == libyuv::kRotate90 || degrees == libyuv::kRotate270;
+            int scale_width = quarter_turn ? dst_height : dst_width;
+            int scale_height = quarter_turn ? dst_width : dst_height;
+            if (scale_width == crop_width && scale_height == crop_height) {
+                ret = libyuv::RotatePlane(luma_data, luma_stride, dst_data, dst_width,
+                                          crop_width, crop_height,
+                                          (libyuv::RotationMode) degrees);
+            } else {
+                ScratchBuffer tmp_scale_buffer(scale_width * scale_height);
+                uint8_t *tmp_scale_data = tmp_scale_buffer.data();
+                libyuv::ScalePlane(luma_data, luma_stride, crop_width, crop_height,
+                                   tmp_scale_data, scale_width, scale_width, scale_height,
+                                   (libyuv::FilterMode) filtering);
+                ret = libyuv::RotatePlane(tmp_scale_data, scale_width, dst_data, dst_width,
+                                          scale_width, scale_height,
+                                          (libyuv::RotationMode) degrees);
+            }
+        }
+    }
+    return ret;
+}
+
+/**
+ * 将指定格式的数据转换为I400（仅处理亮度）
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_ConvertToI400(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                          jint src_stride, jint width, jint height,
+                                          jbyteArray dst_i400_array,
+                                          jint crop_x, jint crop_y, jint crop_width,
+                                          jint crop_height, jint dst_width, jint dst_height,
+                                          jint degrees, jint filtering, jlong fourcc) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_i400_data = env->GetByteArrayElements(dst_i400_array, JNI_FALSE);
+
+    jint ret = LumaCropScaleRotate((const uint8_t *) src_data, src_stride, (uint32_t) fourcc,
+                                   crop_x, crop_y, crop_width, crop_height,
+                                   (uint8_t *) dst_i400_data, dst_width, dst_height,
+                                   degrees, filtering);
+
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_i400_array, dst_i400_data, 0);
+    return ret;
+}
+
+/**
+ * 将ByteBuffer中指定格式的数据转换为I400（仅处理亮度）
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_BufferToI400(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                         jint src_stride, jint width, jint height,
+                                         jbyteArray dst_i400_array,
+                                         jint crop_x, jint crop_y, jint crop_width,
+                                         jint crop_height, jint dst_width, jint dst_height,
+                                         jint degrees, jint filtering, jlong fourcc) {
+    uint8_t *src_data = (uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    jbyte *dst_i400_data = env->GetByteArrayElements(dst_i400_array, JNI_FALSE);
+
+    jint ret = LumaCropScaleRotate(src_data, src_stride, (uint32_t) fourcc,
+                                   crop_x, crop_y, crop_width, crop_height,
+                                   (uint8_t *) dst_i400_data, dst_width, dst_height,
+                                   degrees, filtering);
+
+    env->ReleaseByteArrayElements(dst_i400_array, dst_i400_data, 0);
+    return ret;
+}
+
+/**
+ * 多路画面拼接：将每一路源数据直接缩放到画布中对应的区域，多个区块并行处理
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_CompositeTiles(JNIEnv *env, jclass clazz, jbyteArray canvas_array,
+                                           jint canvas_width, jint canvas_height,
+                                           jboolean argb, jobjectArray src_arrays,
+                                           jintArray tiles_array, jint tile_count,
+                                           jint thread_count) {
+    jbyte *canvas_data = env->GetByteArrayElements(canvas_array, JNI_FALSE);
+    jint *tiles = env->GetIntArrayElements(tiles_array, JNI_FALSE);
+
+    std::vector<jbyteArray> src_refs(tile_count);
+    std::vector<jbyte *> src_datas(tile_count);
+    for (jint i = 0; i < tile_count; i++) {
+        src_refs[i] = (jbyteArray) env->GetObjectArrayElement(src_arrays, i);
+        src_datas[i] = env->GetByteArrayElements(src_refs[i], JNI_FALSE);
+    }
+
+    jint canvas_y_size = canvas_width * canvas_height;
+    jint canvas_u_size = ((canvas_width + 1) >> 1) * ((canvas_height + 1) >> 1);
+    jint canvas_stride_uv = (canvas_width + 1) >> 1;
+    uint8_t *canvas_y_data = (uint8_t *) canvas_data;
+    uint8_t *canvas_u_data = canvas_y_data + canvas_y_size;
+    uint8_t *canvas_v_data = canvas_y_data + canvas_y_size + canvas_u_size;
+
+    ParallelFor(tile_count, thread_count, [&](int i) {
+        const jint *tile = tiles + i * 7;
+        jint src_width = tile[0];
+        jint src_height = tile[1];
+        jint dst_x = tile[2];
+        jint dst_y = tile[3];
+        jint dst_width = tile[4];
+        jint dst_height = tile[5];
+        libyuv::FilterMode filtering = (libyuv::FilterMode) tile[6];
+        const uint8_t *src_data = (const uint8_t *) src_datas[i];
+
+        if (argb) {
+            // 区块超出画布的部分通过clip裁掉，只写入画布内的区域
+            jint clip_x = dst_x < 0 ? -dst_x : 0;
+            jint clip_y = dst_y < 0 ? -dst_y : 0;
+            jint clip_right = dst_x + dst_width > canvas_width ? canvas_width - dst_x : dst_width;
+            jint clip_bottom = dst_y + dst_height > canvas_height ? canvas_height - dst_y : dst_height;
+            if (clip_right <= clip_x || clip_bottom <= clip_y) {
+                return;
+            }
+            jint canvas_stride = canvas_width * 4;
+            libyuv::ARGBScaleClip(src_data, src_width * 4, src_width, src_height,
+                                  canvas_y_data + (intptr_t) dst_y * canvas_stride + dst_x * 4,
+                                  canvas_stride,
+                                  dst_width, dst_height,
+                                  clip_x, clip_y, clip_right - clip_x, clip_bottom - clip_y,
+                                  filtering);
+            return;
+        }
+
+        jint src_y_size = src_width * src_height;
+        jint src_u_size = ((src_width + 1) >> 1) * ((src_height + 1) >> 1);
+        jint src_stride_uv = (src_width + 1) >> 1;
+        jint dst_uv_offset = (dst_y >> 1) * canvas_stride_uv + (dst_x >> 1);
+        libyuv::I420Scale(src_data, src_width,
+                          src_data + src_y_size, src_stride_uv,
+                          src_data + src_y_size + src_u_size, src_stride_uv,
+                          src_width, src_height,
+                          canvas_y_data + dst_y * canvas_width + dst_x, canvas_width,
+                          canvas_u_data + dst_uv_offset, canvas_stride_uv,
+                          canvas_v_data + dst_uv_offset, canvas_stride_uv,
+                          dst_width, dst_height,
+                          filtering);
+    });
+
+    for (jint i = 0; i < tile_count; i++) {
+        env->ReleaseByteArrayElements(src_refs[i], src_datas[i], JNI_ABORT);
+        env->DeleteLocalRef(src_refs[i]);
+    }
+    env->ReleaseIntArrayElements(tiles_array, tiles, JNI_ABORT);
+    env->ReleaseByteArrayElements(canvas_array, canvas_data, 0);
+}
+
+/**
+ * 将4字节packed格式的叠加图转换为I420与Alpha平面，同时输出预乘Alpha的ARGB数据
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_OverlayFromARGB(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                            jint width, jint height, jlong fourcc,
+                                            jboolean premultiplied, jbyteArray dst_i420_array,
+                                            jbyteArray dst_alpha_array,
+                                            jbyteArray dst_argb_array) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_i420_data = env->GetByteArrayElements(dst_i420_array, JNI_FALSE);
+    jbyte *dst_alpha_data = env->GetByteArrayElements(dst_alpha_array, JNI_FALSE);
+    jbyte *dst_argb_data = env->GetByteArrayElements(dst_argb_array, JNI_FALSE);
+
+    jint stride_argb = width * 4;
+    uint8_t *dst_argb = (uint8_t *) dst_argb_data;
+    jint ret = 0;
+    switch (libyuv::CanonicalFourCC((uint32_t) fourcc)) {
+        case libyuv::FOURCC_ARGB:
+            libyuv::ARGBCopy((const uint8_t *) src_data, stride_argb, dst_argb, stride_argb, width, height);
+            break;
+        case libyuv::FOURCC_ABGR:
+            libyuv::ABGRToARGB((const uint8_t *) src_data, stride_argb, dst_argb, stride_argb, width, height);
+            break;
+        case libyuv::FOURCC_BGRA:
+            libyuv::BGRAToARGB((const uint8_t *) src_data, stride_argb, dst_argb, stride_argb, width, height);
+            break;
+        case libyuv::FOURCC_RGBA:
+            libyuv::RGBAToARGB((const uint8_t *) src_data, stride_argb, dst_argb, stride_argb, width, height);
+            break;
+        default:
+            ret = -1;
+            break;
+    }
+
+    if (ret == 0) {
+        jint y_size = width * height;
+        jint u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+        jint stride_uv = (width + 1) >> 1;
+        uint8_t *dst_y_data = (uint8_t *) dst_i420_data;
+        // YUV混合要求非预乘的颜色，ARGB混合要求预乘的颜色
+        if (premultiplied) {
+            ScratchBuffer straight_argb_buffer(y_size * 4);
+            uint8_t *straight_argb_data = straight_argb_buffer.data();
+            libyuv::ARGBUnattenuate(dst_argb, stride_argb, straight_argb_data, stride_argb, width, height);
+            libyuv::ARGBToI420(straight_argb_data, stride_argb,
+                               dst_y_data, width,
+                               dst_y_data + y_size, stride_uv,
+                               dst_y_data + y_size + u_size, stride_uv,
+                               width, height);
+        } else {
+            libyuv::ARGBToI420(dst_argb, stride_argb,
+                               dst_y_data, width,
+                               dst_y_data + y_size, stride_uv,
+                               dst_y_data + y_size + u_size, stride_uv,
+                               width, height);
+            libyuv::ARGBAttenuate(dst_argb, stride_argb, dst_argb, stride_argb, width, height);
+        }
+        libyuv::ARGBExtractAlpha(dst_argb, stride_argb, (uint8_t *) dst_alpha_data, width, width, height);
+    }
+
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_i420_array, dst_i420_data, 0);
+    env->ReleaseByteArrayElements(dst_alpha_array, dst_alpha_data, 0);
+    env->ReleaseByteArrayElements(dst_argb_array, dst_argb_data, 0);
+    return ret;
+}
+
+/**
+ * 将I420与Alpha平面的叠加图转换为预乘Alpha的ARGB数据
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_OverlayToARGB(JNIEnv *env, jclass clazz, jbyteArray src_i420_array,
+                                          jbyteArray src_alpha_array, jint width, jint height,
+                                          jbyteArray dst_argb_array) {
+    jbyte *src_i420_data = env->GetByteArrayElements(src_i420_array, JNI_FALSE);
+    jbyte *src_alpha_data = env->GetByteArrayElements(src_alpha_array, JNI_FALSE);
+    jbyte *dst_argb_data = env->GetByteArrayElements(dst_argb_array, JNI_FALSE);
+
+    jint y_size = width * height;
+    jint u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    jint stride_uv = (width + 1) >> 1;
+    const uint8_t *src_y_data = (const uint8_t *) src_i420_data;
+
+    libyuv::I420AlphaToARGB(src_y_data, width,
+                            src_y_data + y_size, stride_uv,
+                            src_y_data + y_size + u_size, stride_uv,
+                            (const uint8_t *) src_alpha_data, width,
+                            (uint8_t *) dst_argb_data, width * 4,
+                            width, height, 1);
+
+    env->ReleaseByteArrayElements(src_i420_array, src_i420_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(src_alpha_array, src_alpha_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_argb_array, dst_argb_data, 0);
+}
+
+/**
+ * 根据不透明度生成叠加图混合所需的Alpha平面：全尺寸、半尺寸以及交错的UV Alpha
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_OverlayPrepareAlpha(JNIEnv *env, jclass clazz,
+                                                jbyteArray src_alpha_array, jint width,
+                                                jint height, jint opacity,
+                                                jbyteArray dst_alpha_array,
+                                                jbyteArray dst_half_alpha_array,
+                                                jbyteArray dst_uv_alpha_array) {
+    jbyte *src_alpha_data = env->GetByteArrayElements(src_alpha_array, JNI_FALSE);
+    jbyte *dst_alpha_data = env->GetByteArrayElements(dst_alpha_array, JNI_FALSE);
+    jbyte *dst_half_alpha_data = env->GetByteArrayElements(dst_half_alpha_array, JNI_FALSE);
+    jbyte *dst_uv_alpha_data = env->GetByteArrayElements(dst_uv_alpha_array, JNI_FALSE);
+
+    const uint8_t *src_alpha = (const uint8_t *) src_alpha_data;
+    uint8_t *dst_alpha = (uint8_t *) dst_alpha_data;
+    jint size = width * height;
+    if (opacity >= 255) {
+        memcpy(dst_alpha, src_alpha, size);
+    } else {
+        for (jint i = 0; i < size; i++) {
+            dst_alpha[i] = (uint8_t) ((src_alpha[i] * opacity + 127) / 255);
+        }
+    }
+
+    jint half_width = (width + 1) >> 1;
+    jint half_height = (height + 1) >> 1;
+    libyuv::ScalePlane(dst_alpha, width, width, height,
+                       (uint8_t *) dst_half_alpha_data, half_width, half_width, half_height,
+                       libyuv::kFilterBox);
+    libyuv::MergeUVPlane((const uint8_t *) dst_half_alpha_data, half_width,
+                         (const uint8_t *) dst_half_alpha_data, half_width,
+                         (uint8_t *) dst_uv_alpha_data, half_width * 2,
+                         half_width, half_height);
+
+    env->ReleaseByteArrayElements(src_alpha_array, src_alpha_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_alpha_array, dst_alpha_data, 0);
+    env->ReleaseByteArrayElements(dst_half_alpha_array, dst_half_alpha_data, 0);
+    env->ReleaseByteArrayElements(dst_uv_alpha_array, dst_uv_alpha_data, 0);
+}
+
+/**
+ * 将叠加图混合到I420/NV21/NV12目标数据中（原地修改）
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_OverlayBlendYUV(JNIEnv *env, jclass clazz, jbyteArray dst_array,
+                                            jint dst_width, jint dst_height, jboolean interleaved,
+                                            jbyteArray src_i420_array, jbyteArray src_uv_array,
+                                            jbyteArray alpha_array, jbyteArray half_alpha_array,
+                                            jbyteArray uv_alpha_array, jint src_width,
+                                            jint src_height, jint src_x, jint src_y,
+                                            jint dst_x, jint dst_y, jint width, jint height) {
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+    jbyte *src_i420_data = env->GetByteArrayElements(src_i420_array, JNI_FALSE);
+    jbyte *alpha_data = env->GetByteArrayElements(alpha_array, JNI_FALSE);
+
+    jint src_y_size = src_width * src_height;
+    jint src_u_size = ((src_width + 1) >> 1) * ((src_height + 1) >> 1);
+    jint src_stride_uv = (src_width + 1) >> 1;
+    jint dst_y_size = dst_width * dst_height;
+    jint dst_u_size = ((dst_width + 1) >> 1) * ((dst_height + 1) >> 1);
+    jint dst_stride_uv = (dst_width + 1) >> 1;
+    jint half_width = (width + 1) >> 1;
+    jint half_height = (height + 1) >> 1;
+    jint src_uv_offset = (src_y >> 1) * src_stride_uv + (src_x >> 1);
+    jint dst_uv_offset = (dst_y >> 1) * dst_stride_uv + (dst_x >> 1);
+
+    const uint8_t *src_y_data = (const uint8_t *) src_i420_data;
+    uint8_t *dst_y_data = (uint8_t *) dst_data;
+    uint8_t *dst_region_y = dst_y_data + dst_y * dst_width + dst_x;
+
+    libyuv::BlendPlane(src_y_data + src_y * src_width + src_x, src_width,
+                       dst_region_y, dst_width,
+                       (const uint8_t *) alpha_data + src_y * src_width + src_x, src_width,
+                       dst_region_y, dst_width,
+                       width, height);
+
+    if (interleaved) {
+        jbyte *src_uv_data = env->GetByteArrayElements(src_uv_array, JNI_FALSE);
+        jbyte *uv_alpha_data = env->GetByteArrayElements(uv_alpha_array, JNI_FALSE);
+        jint src_stride_vu = src_stride_uv * 2;
+        jint dst_stride_vu = ((dst_width + 1) >> 1) * 2;
+        jint src_vu_offset = (src_y >> 1) * src_stride_vu + (src_x >> 1) * 2;
+        uint8_t *dst_region_vu = dst_y_data + dst_y_size + (dst_y >> 1) * dst_stride_vu + (dst_x >> 1) * 2;
+        libyuv::BlendPlane((const uint8_t *) src_uv_data + src_vu_offset, src_stride_vu,
+                           dst_region_vu, dst_stride_vu,
+                           (const uint8_t *) uv_alpha_data + src_vu_offset, src_stride_vu,
+                           dst_region_vu, dst_stride_vu,
+                           half_width * 2, half_height);
+        env->ReleaseByteArrayElements(src_uv_array, src_uv_data, JNI_ABORT);
+        env->ReleaseByteArrayElements(uv_alpha_array, uv_alpha_data, JNI_ABORT);
+    } else {
+        jbyte *half_alpha_data = env->GetByteArrayElements(half_alpha_array, JNI_FALSE);
+        const uint8_t *half_alpha = (const uint8_t *) half_alpha_data + src_uv_offset;
+        uint8_t *dst_region_u = dst_y_data + dst_y_size + dst_uv_offset;
+        uint8_t *dst_region_v = dst_y_data + dst_y_size + dst_u_size + dst_uv_offset;
+        libyuv::BlendPlane(src_y_data + src_y_size + src_uv_offset, src_stride_uv,
+                           dst_region_u, dst_stride_uv,
+                           half_alpha, src_stride_uv,
+                           dst_region_u, dst_stride_uv,
+                           half_width, half_height);
+        libyuv::BlendPlane(src_y_data + src_y_size + src_u_size + src_uv_offset, src_stride_uv,
+                           dst_region_v, dst_stride_uv,
+                           half_alpha, src_stride_uv,
+                           dst_region_v, dst_stride_uv,
+                           half_width, half_height);
+        env->ReleaseByteArrayElements(half_alpha_array, half_alpha_data, JNI_ABORT);
+    }
+
+    env->ReleaseByteArrayElements(src_i420_array, src_i420_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(alpha_array, alpha_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+}
+
+/**
+ * 将预乘Alpha的叠加图混合到ARGB/ABGR目标数据中（原地修改）
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_OverlayBlendARGB(JNIEnv *env, jclass clazz, jbyteArray dst_array,
+                                             jint dst_width, jint dst_height,
+                                             jbyteArray src_argb_array, jint src_width,
+                                             jint src_height, jint src_x, jint src_y,
+                                             jint dst_x, jint dst_y, jint width, jint height) {
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+    jbyte *src_argb_data = env->GetByteArrayElements(src_argb_array, JNI_FALSE);
+
+    uint8_t *dst_region = (uint8_t *) dst_data + (dst_y * dst_width + dst_x) * 4;
+    libyuv::ARGBBlend((const uint8_t *) src_argb_data + (src_y * src_width + src_x) * 4, src_width * 4,
+                      dst_region, dst_width * 4,
+                      dst_region, dst_width * 4,
+                      width, height);
+
+    env->ReleaseByteArrayElements(src_argb_array, src_argb_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+}
+
+/**
+ * 按指定色彩空间将I420转换为指定格式；YUV格式的目标与色彩空间无关，直接走ConvertFromI420
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ConvertFromI420Matrix(JNIEnv *env, jclass clazz,
+                                                  jbyteArray src_i420_array, jint width,
+                                                  jint height, jbyteArray dst_sample_array,
+                                                  jint dst_sample_stride, jlong fourcc,
+                                                  jint color_space) {
+    jbyte *src_i420_data = env->GetByteArrayElements(src_i420_array, JNI_FALSE);
+    jbyte *dst_sample_data = env->GetByteArrayElements(dst_sample_array, JNI_FALSE);
+
+    jint src_y_size = width * height;
+    jint src_u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    jint src_stride_uv = (width + 1) >> 1;
+    const uint8_t *src_y = (const uint8_t *) src_i420_data;
+    const uint8_t *src_u = src_y + src_y_size;
+    const uint8_t *src_v = src_y + src_y_size + src_u_size;
+    uint8_t *dst = (uint8_t *) dst_sample_data;
+    const libyuv::YuvConstants *yuv_constants = GetYuvConstants(color_space, false);
+    const libyuv::YuvConstants *yvu_constants = GetYuvConstants(color_space, true);
+
+    // ABGR/BGRA/RAW与ARGB/RGBA/RGB24仅R、B互换：交换U/V平面并使用互换后的矩阵
+    switch (libyuv::CanonicalFourCC((uint32_t) fourcc)) {
+        case libyuv::FOURCC_ARGB:
+            libyuv::I420ToARGBMatrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                     dst, dst_sample_stride ? dst_sample_stride : width * 4,
+                                     yuv_constants, width, height);
+            break;
+        case libyuv::FOURCC_ABGR:
+            libyuv::I420ToARGBMatrix(src_y, width, src_v, src_stride_uv, src_u, src_stride_uv,
+                                     dst, dst_sample_stride ? dst_sample_stride : width * 4,
+                                     yvu_constants, width, height);
+            break;
+        case libyuv::FOURCC_RGBA:
+            libyuv::I420ToRGBAMatrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                     dst, dst_sample_stride ? dst_sample_stride : width * 4,
+                                     yuv_constants, width, height);
+            break;
+        case libyuv::FOURCC_BGRA:
+            libyuv::I420ToRGBAMatrix(src_y, width, src_v, src_stride_uv, src_u, src_stride_uv,
+                                     dst, dst_sample_stride ? dst_sample_stride : width * 4,
+                                     yvu_constants, width, height);
+            break;
+        case libyuv::FOURCC_24BG:
+            libyuv::I420ToRGB24Matrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                      dst, dst_sample_stride ? dst_sample_stride : width * 3,
+                                      yuv_constants, width, height);
+            break;
+        case libyuv::FOURCC_RAW:
+            libyuv::I420ToRGB24Matrix(src_y, width, src_v, src_stride_uv, src_u, src_stride_uv,
+                                      dst, dst_sample_stride ? dst_sample_stride : width * 3,
+                                      yvu_constants, width, height);
+            break;
+        case libyuv::FOURCC_RGBP:
+            libyuv::I420ToRGB565Matrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                       dst, dst_sample_stride ? dst_sample_stride : width * 2,
+                                       yuv_constants, width, height);
+            break;
+        case libyuv::FOURCC_AR30:
+            libyuv::I420ToAR30Matrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                     dst, dst_sample_stride ? dst_sample_stride : width * 4,
+                                     yuv_constants, width, height);
+            break;
+        case libyuv::FOURCC_RGBO:
+        case libyuv::FOURCC_R444: {
+            // ARGB1555/ARGB4444没有矩阵接口，先转换为ARGB再打包
+            ScratchBuffer tmp_argb_buffer(width * height * 4);
+            uint8_t *tmp_argb_data = tmp_argb_buffer.data();
+            libyuv::I420ToARGBMatrix(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                     tmp_argb_data, width * 4, yuv_constants, width, height);
+            int dst_stride = dst_sample_stride ? dst_sample_stride : width * 2;
+            if (libyuv::CanonicalFourCC((uint32_t) fourcc) == libyuv::FOURCC_RGBO) {
+                libyuv::ARGBToARGB1555(tmp_argb_data, width * 4, dst, dst_stride, width, height);
+            } else {
+                libyuv::ARGBToARGB4444(tmp_argb_data, width * 4, dst, dst_stride, width, height);
+            }
+            break;
+        }
+        default:
+            libyuv::ConvertFromI420(src_y, width, src_u, src_stride_uv, src_v, src_stride_uv,
+                                    dst, dst_sample_stride, width, height, (uint32_t) fourcc);
+            break;
+    }
+
+    env->ReleaseByteArrayElements(src_i420_array, src_i420_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_sample_array, dst_sample_data, 0);
+}
+
+/**
+ * 按指定色彩空间将packed RGB格式的裁减区域转换为I420；BT.601全范围使用libyuv的ARGBToJ420，
+ * 其余色彩空间libyuv没有对应的RGB转YUV实现，使用yuv_color.h中的定点实现
+ */
+static int RGBToI420Matrix(const uint8_t *src_data, int src_stride, uint32_t fourcc,
+                           int crop_x, int crop_y, int crop_width, int crop_height,
+                           uint8_t *dst_y, int dst_stride_y,
+                           uint8_t *dst_u, int dst_stride_u,
+                           uint8_t *dst_v, int dst_stride_v, int color_space) {
+    int bytes_per_pixel;
+    ToARGBFunction to_argb = GetToARGBFunction(fourcc, &bytes_per_pixel);
+    if (!to_argb) {
+        return -1;
+    }
+    bool direct = libyuv::CanonicalFourCC(fourcc) == libyuv::FOURCC_ARGB;
+    RgbToYuvCoefficients coefficients;
+    GetRgbToYuvCoefficients(color_space, &coefficients);
+
+    // 非ARGB格式每次只转换两行，临时内存只占用两行ARGB
+    int rows_stride = crop_width * 4;
+    ScratchBuffer rows_argb_buffer(direct ? 0 : rows_stride * 2);
+    uint8_t *rows_argb_data = rows_argb_buffer.data();
+    const uint8_t *src_row = src_data + crop_y * src_stride + crop_x * bytes_per_pixel;
+    for (int y = 0; y < crop_height; y += 2) {
+        int rows = y + 1 < crop_height ? 2 : 1;
+        const uint8_t *argb_row = src_row;
+        int argb_stride = src_stride;
+        if (!direct) {
+            to_argb(src_row, src_stride, rows_argb_data, rows_stride, crop_width, rows);
+            argb_row = rows_argb_data;
+            argb_stride = rows_stride;
+        }
+        uint8_t *y_row = dst_y + y * dst_stride_y;
+        uint8_t *u_row = dst_u + (y >> 1) * dst_stride_u;
+        uint8_t *v_row = dst_v + (y >> 1) * dst_stride_v;
+        if (color_space == kColorSpaceBT601Full) {
+            libyuv::ARGBToJ420(argb_row, argb_stride, y_row, dst_stride_y,
+                               u_row, dst_stride_u, v_row, dst_stride_v, crop_width, rows);
+        } else {
+            ARGBRowPairToI420Row(argb_row, rows == 2 ? argb_row + argb_stride : argb_row,
+                                 y_row, rows == 2 ? y_row + dst_stride_y : nullptr,
+                                 u_row, v_row, crop_width, coefficients);
+        }
+        src_row += src_stride * 2;
+    }
+    return 0;
+}
+
+/**
+ * 按指定色彩空间将指定格式转换为I420；YUV格式的源数据以及BT.601（有限范围）直接走ConvertToI420
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ConvertToI420Matrix(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                                jint src_size, jint width, jint height,
+                                                jbyteArray dst_i420_array,
+                                                jint crop_x, jint crop_y, jint crop_width,
+                                                jint crop_height, jint degrees, jlong fourcc,
+                                                jint color_space) {
+    int bytes_per_pixel;
+    if (color_space == kColorSpaceBT601 || !GetToARGBFunction((uint32_t) fourcc, &bytes_per_pixel)) {
+        Java_com_king_libyuv_LibYuv_ConvertToI420(env, clazz, src_array, src_size, width, height,
+                                                  dst_i420_array, crop_x, crop_y, crop_width,
+                                                  crop_height, degrees, fourcc);
+        return;
+    }
+
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_i420_data = env->GetByteArrayElements(dst_i420_array, JNI_FALSE);
+
+    jint y_size = crop_width * crop_height;
+    jint u_size = ((crop_width + 1) >> 1) * ((crop_height + 1) >> 1);
+    jint stride_uv = (crop_width + 1) >> 1;
+    uint8_t *dst_y = (uint8_t *) dst_i420_data;
+
+    if (degrees == libyuv::kRotate0) {
+        RGBToI420Matrix((const uint8_t *) src_data, width * bytes_per_pixel, (uint32_t) fourcc,
+                        crop_x, crop_y, crop_width, crop_height,
+                        dst_y, crop_width,
+                        dst_y + y_size, stride_uv,
+                        dst_y + y_size + u_size, stride_uv, color_space);
+    } else {
+        ScratchBuffer tmp_i420_buffer(y_size + u_size * 2);
+        uint8_t *tmp_i420_data = tmp_i420_buffer.data();
+        RGBToI420Matrix((const uint8_t *) src_data, width * bytes_per_pixel, (uint32_t) fourcc,
+                        crop_x, crop_y, crop_width, crop_height,
+                        tmp_i420_data, crop_width,
+                        tmp_i420_data + y_size, stride_uv,
+                        tmp_i420_data + y_size + u_size, stride_uv, color_space);
+        jint dst_stride_y = crop_width;
+        if (degrees == libyuv::kRotate90 || degrees == libyuv::kRotate270) {
+            dst_stride_y = crop_height;
+        }
+        jint dst_stride_uv = (dst_stride_y + 1) >> 1;
+        libyuv::I420Rotate(tmp_i420_data, crop_width,
+                           tmp_i420_data + y_size, stride_uv,
+                           tmp_i420_data + y_size + u_size, stride_uv,
+                           dst_y, dst_stride_y,
+                           dst_y + y_size, dst_stride_uv,
+                           dst_y + y_size + u_size, dst_stride_uv,
+                           crop_width, crop_height, (libyuv::RotationMode) degrees);
+    }
+
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_i420_array, dst_i420_data, 0);
+}
+
+/**
+ * 非I420格式的裁减、旋转、镜像、缩放：源数据只转换一次I420，所有中间平面都来自当前线程的scratch arena，
+ * 最后再转换回原格式写入目标数组
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_TransformSample(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                            jint src_size, jint width, jint height,
+                                            jbyteArray dst_array,
+                                            jint crop_x, jint crop_y, jint crop_width,
+                                            jint crop_height, jint dst_width, jint dst_height,
+                                            jint degrees, jboolean mirror, jint filtering,
+                                            jlong fourcc) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    jint y_size = crop_width * crop_height;
+    jint u_size = ((crop_width + 1) >> 1) * ((crop_height + 1) >> 1);
+    ScratchBuffer i420_buffer(y_size + u_size * 2);
+    ScratchBuffer work_buffer(y_size + u_size * 2);
+    uint8_t *i420_data = i420_buffer.data();
+    uint8_t *work_data = work_buffer.data();
+
+    jint cur_width = crop_width;
+    jint cur_height = crop_height;
+    jint cur_stride_uv = (cur_width + 1) >> 1;
+    libyuv::ConvertToI420((const uint8_t *) src_data, src_size,
+                          i420_data, cur_width,
+                          i420_data + y_size, cur_stride_uv,
+                          i420_data + y_size + u_size, cur_stride_uv,
+                          crop_x, crop_y, width, height, crop_width, crop_height,
+                          libyuv::kRotate0, (uint32_t) fourcc);
+
+    if (degrees != libyuv::kRotate0) {
+        bool quarter_turn = degrees == libyuv::kRotate90 || degrees == libyuv::kRotate270;
+        jint rotated_width = quarter_turn ? cur_height : cur_width;
+        jint rotated_stride_uv = (rotated_width + 1) >> 1;
+        libyuv::I420Rotate(i420_data, cur_width,
+                           i420_data + y_size, cur_stride_uv,
+                           i420_data + y_size + u_size, cur_stride_uv,
+                           work_data, rotated_width,
+                           work_data + y_size, rotated_stride_uv,
+                           work_data + y_size + u_size, rotated_stride_uv,
+                           cur_width, cur_height, (libyuv::RotationMode) degrees);
+        uint8_t *swap = i420_data;
+        i420_data = work_data;
+        work_data = swap;
+        cur_height = quarter_turn ? cur_width : cur_height;
+        cur_width = rotated_width;
+        cur_stride_uv = rotated_stride_uv;
+    }
+
+    if (mirror) {
+        libyuv::I420Mirror(i420_data, cur_width,
+                           i420_data + y_size, cur_stride_uv,
+                           i420_data + y_size + u_size, cur_stride_uv,
+                           work_data, cur_width,
+                           work_data + y_size, cur_stride_uv,
+                           work_data + y_size + u_size, cur_stride_uv,
+                           cur_width, cur_height);
+        uint8_t *swap = i420_data;
+        i420_data = work_data;
+        work_data = swap;
+    }
+
+    jint dst_y_size = dst_width * dst_height;
+    jint dst_u_size = ((dst_width + 1) >> 1) * ((dst_height + 1) >> 1);
+    jint dst_stride_uv = (dst_width + 1) >> 1;
+    bool need_scale = dst_width != cur_width || dst_height != cur_height;
+    ScratchBuffer scale_buffer(need_scale ? dst_y_size + dst_u_size * 2 : 0);
+    if (need_scale) {
+        libyuv::I420Scale(i420_data, cur_width,
+                          i420_data + y_size, cur_stride_uv,
+                          i420_data + y_size + u_size, cur_stride_uv,
+                          cur_width, cur_height,
+                          scale_buffer.data(), dst_width,
+                          scale_buffer.data() + dst_y_size, dst_stride_uv,
+                          scale_buffer.data() + dst_y_size + dst_u_size, dst_stride_uv,
+                          dst_width, dst_height, (libyuv::FilterMode) filtering);
+        i420_data = scale_buffer.data();
+    }
+    libyuv::ConvertFromI420(i420_data, dst_width,
+                            i420_data + dst_y_size, dst_stride_uv,
+                            i420_data + dst_y_size + dst_u_size, dst_stride_uv,
+                            (uint8_t *) dst_data, 0, dst_width, dst_height, (uint32_t) fourcc);
+
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+}
+
+/**
+ * 将转换好的I420旋转写入目标数组；degrees为0时调用方应直接写入目标数组
+ */
+static void RotateI420ToArray(const uint8_t *src_data, int width, int height,
+                              uint8_t *dst_data, int degrees) {
+    int y_size = width * height;
+    int u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    int src_stride_uv = (width + 1) >> 1;
+    int dst_stride_y = (degrees == libyuv::kRotate90 || degrees == libyuv::kRotate270) ? height : width;
+    int dst_stride_uv = (dst_stride_y + 1) >> 1;
+    libyuv::I420Rotate(src_data, width,
+                       src_data + y_size, src_stride_uv,
+                       src_data + y_size + u_size, src_stride_uv,
+                       dst_data, dst_stride_y,
+                       dst_data + y_size, dst_stride_uv,
+                       dst_data + y_size + u_size, dst_stride_uv,
+                       width, height, (libyuv::RotationMode) degrees);
+}
+
+/**
+ * 将packed格式Image的Plane直接转换为I420：行跨距不紧凑时只在arena中拷贝成紧凑数据，不经过Java数组
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_PackedBufferToI420(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                               jint src_stride, jint width, jint height,
+                                               jint bytes_per_pixel, jbyteArray dst_i420_array,
+                                               jint degrees, jlong fourcc) {
+    const uint8_t *src_data = (const uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    jbyte *dst_i420_data = env->GetByteArrayElements(dst_i420_array, JNI_FALSE);
+
+    jint row_bytes = width * bytes_per_pixel;
+    jint y_size = width * height;
+    jint u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    jint stride_uv = (width + 1) >> 1;
+
+    ScratchBuffer packed_buffer(src_stride == row_bytes ? 0 : row_bytes * height);
+    const uint8_t *packed_data = src_data;
+    if (src_stride != row_bytes) {
+        libyuv::CopyPlane(src_data, src_stride, packed_buffer.data(), row_bytes, row_bytes, height);
+        packed_data = packed_buffer.data();
+    }
+
+    ScratchBuffer i420_buffer(degrees == libyuv::kRotate0 ? 0 : y_size + u_size * 2);
+    uint8_t *i420_data = degrees == libyuv::kRotate0 ? (uint8_t *) dst_i420_data : i420_buffer.data();
+    libyuv::ConvertToI420(packed_data, row_bytes * height,
+                          i420_data, width,
+                          i420_data + y_size, stride_uv,
+                          i420_data + y_size + u_size, stride_uv,
+                          0, 0, width, height, width, height,
+                          libyuv::kRotate0, (uint32_t) fourcc);
+    if (degrees != libyuv::kRotate0) {
+        RotateI420ToArray(i420_data, width, height, (uint8_t *) dst_i420_data, degrees);
+    }
+
+    env->ReleaseByteArrayElements(dst_i420_array, dst_i420_data, 0);
+}
+
+/**
+ * 将YUV_422_888/YUV_444_888（像素跨距为1）的Image直接转换为I420
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_PlanarBufferToI420(JNIEnv *env, jclass clazz, jobject src_y_buffer,
+                                               jobject src_u_buffer, jobject src_v_buffer,
+                                               jint stride_y, jint stride_u, jint stride_v,
+                                               jint width, jint height, jboolean i444,
+                                               jbyteArray dst_i420_array, jint degrees) {
+    const uint8_t *src_y = (const uint8_t *) env->GetDirectBufferAddress(src_y_buffer);
+    const uint8_t *src_u = (const uint8_t *) env->GetDirectBufferAddress(src_u_buffer);
+    const uint8_t *src_v = (const uint8_t *) env->GetDirectBufferAddress(src_v_buffer);
+    jbyte *dst_i420_data = env->GetByteArrayElements(dst_i420_array, JNI_FALSE);
+
+    jint y_size = width * height;
+    jint u_size = ((width + 1) >> 1) * ((height + 1) >> 1);
+    jint stride_uv = (width + 1) >> 1;
+
+    ScratchBuffer i420_buffer(degrees == libyuv::kRotate0 ? 0 : y_size + u_size * 2);
+    uint8_t *i420_data = degrees == libyuv::kRotate0 ? (uint8_t *) dst_i420_data : i420_buffer.data();
+    if (i444) {
+        libyuv::I444ToI420(src_y, stride_y, src_u, stride_u, src_v, stride_v,
+                           i420_data, width,
+                           i420_data + y_size, stride_uv,
+                           i420_data + y_size + u_size, stride_uv,
+                           width, height);
+    } else {
+        libyuv::I422ToI420(src_y, stride_y, src_u, stride_u, src_v, stride_v,
+                           i420_data, width,
+                           i420_data + y_size, stride_uv,
+                           i420_data + y_size + u_size, stride_uv,
+                           width, height);
+    }
+    if (degrees != libyuv::kRotate0) {
+        RotateI420ToArray(i420_data, width, height, (uint8_t *) dst_i420_data, degrees);
+    }
+
+    env->ReleaseByteArrayElements(dst_i420_array, dst_i420_data, 0);
+}
+
+/**
+ * @CriticalNative版本：没有JNIEnv与jclass参数，仅在Android 8.0及以上由JNI_OnLoad注册；
+ * 更低版本注册下方同名的普通JNI函数，二者共享实现
+ */
+static void ArenaSetMaxBytesCritical(jlong max_bytes) {
+    g_arena_max_bytes.store(max_bytes);
+}
+
+static jlong ArenaGetMaxBytesCritical() {
+    return g_arena_max_bytes.load();
+}
+
+static void ArenaSetTotalMaxBytesCritical(jlong max_bytes) {
+    g_arena_total_max_bytes.store(max_bytes);
+}
+
+static void ArenaAddExternalBytesCritical(jlong bytes) {
+    g_arena_governed_bytes += bytes;
+}
+
+static jboolean ArenaTryReserveExternalCritical(jlong bytes) {
+    return ArenaTryCharge(bytes) ? JNI_TRUE : JNI_FALSE;
+}
+
+static jint GetConvertPathCritical(jlong src_fourcc, jlong dst_fourcc) {
+    return GetConvertPath((uint32_t) src_fourcc, (uint32_t) dst_fourcc);
+}
+
+/**
+ * 设置每个线程scratch arena的容量上限
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ArenaSetMaxBytes(JNIEnv *env, jclass clazz, jlong max_bytes) {
+    ArenaSetMaxBytesCritical(max_bytes);
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_king_libyuv_LibYuv_ArenaGetMaxBytes(JNIEnv *env, jclass clazz) {
+    return ArenaGetMaxBytesCritical();
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ArenaSetTotalMaxBytes(JNIEnv *env, jclass clazz, jlong max_bytes) {
+    ArenaSetTotalMaxBytesCritical(max_bytes);
+}
+
+/**
+ * 把Java层账户保留的字节数计入arena的总上限（可以为负数，表示归还），不检查上限
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ArenaAddExternalBytes(JNIEnv *env, jclass clazz, jlong bytes) {
+    ArenaAddExternalBytesCritical(bytes);
+}
+
+/**
+ * Java层申请保留bytes字节：与arena扩容共用总上限，会超出时返回false
+ */
+extern "C"
+JNIEXPORT jboolean JNICALL
+Java_com_king_libyuv_LibYuv_ArenaTryReserveExternal(JNIEnv *env, jclass clazz, jlong bytes) {
+    return ArenaTryReserveExternalCritical(bytes);
+}
+
+/**
+ * 释放arena：当前线程与空闲的工作线程立即释放，最多等待工作线程50毫秒；其他线程的arena在下一次使用时释放。
+ * 需要等待工作线程，因此不注册为@CriticalNative
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ArenaTrim(JNIEnv *env, jclass clazz) {
+    g_arena_trim_generation++;
+    ScratchArena::Current().Trim();
+    WorkerPool *pool = g_worker_pool.load();
+    if (pool) {
+        pool->TrimArenas(50);
+    }
+}
+
+/**
+ * 获取arena统计：[保留字节数, 单次调用最大占用字节数, arena数量, 扩容次数, 超出上限的堆分配次数]
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ArenaGetStats(JNIEnv *env, jclass clazz, jlongArray stats_array) {
+    jlong stats[5];
+    stats[0] = g_arena_retained_bytes.load();
+    stats[1] = g_arena_high_water_bytes.load();
+    stats[2] = g_arena_count.load();
+    stats[3] = g_arena_grow_count.load();
+    stats[4] = g_arena_fallback_count.load();
+    env->SetLongArrayRegion(stats_array, 0, 5, stats);
+}
+
+/**
+ * 任意两种格式之间的转换：优先使用直接转换的内核，没有时再经ARGB或I420中转；返回0表示成功
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_ConvertSample(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                          jint src_size, jint width, jint height,
+                                          jbyteArray dst_array, jint dst_size,
+                                          jlong src_fourcc, jlong dst_fourcc) {
+    if (GetConvertPath((uint32_t) src_fourcc, (uint32_t) dst_fourcc) == kConvertUnsupported) {
+        return -1;
+    }
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    int ret = ConvertSample((const uint8_t *) src_data, src_size, width, height,
+                            (uint8_t *) dst_data, dst_size,
+                            (uint32_t) src_fourcc, (uint32_t) dst_fourcc);
+
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+    return ret;
+}
+
+/**
+ * 获取两种格式之间的转换路径；见yuv_convert.h中的ConvertPath
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_GetConvertPath(JNIEnv *env, jclass clazz, jlong src_fourcc,
+                                           jlong dst_fourcc) {
+    return GetConvertPathCritical(src_fourcc, dst_fourcc);
+}
+
+/**
+ * 原地水平镜像；格式不支持时返回-1
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_MirrorInPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                          jint width, jint height, jlong fourcc) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    int ret = MirrorInPlace((uint32_t) fourcc, (uint8_t *) data, width, height);
+
+    env->ReleaseByteArrayElements(data_array, data, ret == 0 ? 0 : JNI_ABORT);
+    return ret;
+}
+
+/**
+ * 原地垂直翻转；格式不支持时返回-1
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_FlipVerticalInPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                                jint width, jint height, jlong fourcc) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    int ret = FlipVerticalInPlace((uint32_t) fourcc, (uint8_t *) data, width, height);
+
+    env->ReleaseByteArrayElements(data_array, data, ret == 0 ? 0 : JNI_ABORT);
+    return ret;
+}
+
+/**
+ * 原地将I420转换为NV12/NV21
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_I420ToNVInPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                            jint width, jint height, jboolean nv21) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    I420ToNVInPlace((uint8_t *) data, width, height, nv21);
+
+    env->ReleaseByteArrayElements(data_array, data, 0);
+}
+
+/**
+ * 原地将NV12/NV21转换为I420
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_NVToI420InPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                            jint width, jint height, jboolean nv21) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    NVToI420InPlace((uint8_t *) data, width, height, nv21);
+
+    env->ReleaseByteArrayElements(data_array, data, 0);
+}
+
+/**
+ * 原地交换NV12/NV21的UV顺序
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_SwapUVInPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                          jint width, jint height) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    SwapUVInPlace((uint8_t *) data, width, height);
+
+    env->ReleaseByteArrayElements(data_array, data, 0);
+}
+
+/**
+ * 原地对亮度平面查表
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ApplyLumaTableInPlace(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                                  jint width, jint height, jbyteArray table_array) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+    jbyte *table = env->GetByteArrayElements(table_array, JNI_FALSE);
+
+    ApplyLumaTableInPlace((uint8_t *) data, (int64_t) width * height, (const uint8_t *) table);
+
+    env->ReleaseByteArrayElements(table_array, table, JNI_ABORT);
+    env->ReleaseByteArrayElements(data_array, data, 0);
+}
+
+/**
+ * 计算数据的HashDjb2哈希
+ */
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_king_libyuv_LibYuv_HashDjb2(JNIEnv *env, jclass clazz, jbyteArray data_array, jint size,
+                                     jlong seed) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+
+    uint32_t hash = libyuv::HashDjb2((const uint8_t *) data, (uint64_t) size, (uint32_t) seed);
+
+    env->ReleaseByteArrayElements(data_array, data, JNI_ABORT);
+    return (jlong) hash;
+}
+
+/**
+ * 亮度统计：直方图与区域亮度和
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ComputeLumaStats(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                             jint src_stride, jint width, jint height, jint step,
+                                             jint grid_cols, jint grid_rows, jlongArray out_array) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jlong *out = env->GetLongArrayElements(out_array, JNI_FALSE);
+
+    ComputeLumaStats((const uint8_t *) src_data, src_stride, width, height, step,
+                     grid_cols, grid_rows, (int64_t *) out);
+
+    env->ReleaseLongArrayElements(out_array, out, 0);
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+}
+
+/**
+ * 亮度统计：直接读取direct ByteBuffer中的Y平面（例如Image的第一个平面）
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_BufferLumaStats(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                            jint src_stride, jint width, jint height, jint step,
+                                            jint grid_cols, jint grid_rows, jlongArray out_array) {
+    uint8_t *src_data = (uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    jlong *out = env->GetLongArrayElements(out_array, JNI_FALSE);
+
+    ComputeLumaStats(src_data, src_stride, width, height, step, grid_cols, grid_rows, (int64_t *) out);
+
+    env->ReleaseLongArrayElements(out_array, out, 0);
+}
+
+/**
+ * 变化检测：缩小Y平面后与参考帧按区块计算SSE
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_DetectChange(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                         jint src_stride, jint width, jint height,
+                                         jobject reference_buffer, jobject current_buffer,
+                                         jint analysis_width, jint analysis_height,
+                                         jint tile_cols, jint tile_rows, jboolean has_reference,
+                                         jlongArray tile_sse_array) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    uint8_t *reference = (uint8_t *) env->GetDirectBufferAddress(reference_buffer);
+    uint8_t *current = (uint8_t *) env->GetDirectBufferAddress(current_buffer);
+    jlong *tile_sse = env->GetLongArrayElements(tile_sse_array, JNI_FALSE);
+
+    DetectChange((const uint8_t *) src_data, src_stride, width, height, reference, current,
+                 analysis_width, analysis_height, tile_cols, tile_rows, has_reference,
+                 (int64_t *) tile_sse);
+
+    env->ReleaseLongArrayElements(tile_sse_array, tile_sse, 0);
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+}
+
+/**
+ * 变化检测：直接读取direct ByteBuffer中的Y平面（例如Image的第一个平面）
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_BufferDetectChange(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                               jint src_stride, jint width, jint height,
+                                               jobject reference_buffer, jobject current_buffer,
+                                               jint analysis_width, jint analysis_height,
+                                               jint tile_cols, jint tile_rows,
+                                               jboolean has_reference, jlongArray tile_sse_array) {
+    uint8_t *src_data = (uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    uint8_t *reference = (uint8_t *) env->GetDirectBufferAddress(reference_buffer);
+    uint8_t *current = (uint8_t *) env->GetDirectBufferAddress(current_buffer);
+    jlong *tile_sse = env->GetLongArrayElements(tile_sse_array, JNI_FALSE);
+
+    DetectChange(src_data, src_stride, width, height, reference, current,
+                 analysis_width, analysis_height, tile_cols, tile_rows, has_reference,
+                 (int64_t *) tile_sse);
+
+    env->ReleaseLongArrayElements(tile_sse_array, tile_sse, 0);
+}
+
+/**
+ * 增量转换：只转换变化的矩形区域；返回实际转换的矩形数量，源格式不支持时返回-1
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_IncrementalConvert(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                               jint src_stride, jint width, jint height,
+                                               jlong src_fourcc, jobject previous_buffer,
+                                               jboolean has_previous, jint tile_size,
+                                               jboolean detect, jintArray rects_array,
+                                               jint rect_count, jbyteArray dst_array,
+                                               jlong dst_fourcc) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    uint8_t *previous = (uint8_t *) env->GetDirectBufferAddress(previous_buffer);
+    jint *rects = env->GetIntArrayElements(rects_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    int ret = IncrementalConvert((const uint8_t *) src_data, src_stride, width, height,
+                                 (uint32_t) src_fourcc, previous, has_previous, tile_size, detect,
+                                 (int *) rects, rect_count, (uint8_t *) dst_data,
+                                 (uint32_t) dst_fourcc);
+
+    env->ReleaseByteArrayElements(dst_array, dst_data, ret < 0 ? JNI_ABORT : 0);
+    env->ReleaseIntArrayElements(rects_array, rects, 0);
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+    return ret;
+}
+
+/**
+ * 增量转换：直接读取direct ByteBuffer中的源数据（例如Image的第一个平面）
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_BufferIncrementalConvert(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                                     jint src_stride, jint width, jint height,
+                                                     jlong src_fourcc, jobject previous_buffer,
+                                                     jboolean has_previous, jint tile_size,
+                                                     jboolean detect, jintArray rects_array,
+                                                     jint rect_count, jbyteArray dst_array,
+                                                     jlong dst_fourcc) {
+    uint8_t *src_data = (uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    uint8_t *previous = (uint8_t *) env->GetDirectBufferAddress(previous_buffer);
+    jint *rects = env->GetIntArrayElements(rects_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    int ret = IncrementalConvert(src_data, src_stride, width, height, (uint32_t) src_fourcc,
+                                 previous, has_previous, tile_size, detect, (int *) rects,
+                                 rect_count, (uint8_t *) dst_data, (uint32_t) dst_fourcc);
+
+    env->ReleaseByteArrayElements(dst_array, dst_data, ret < 0 ? JNI_ABORT : 0);
+    env->ReleaseIntArrayElements(rects_array, rects, 0);
+    return ret;
+}
+
+/**
+ * 原地遮挡矩形区域（模糊或马赛克）；格式不支持时返回-1
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_MaskRegions(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                        jint width, jint height, jlong fourcc,
+                                        jintArray rects_array, jint rect_count, jint mode,
+                                        jint strength) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+    jint *rects = env->GetIntArrayElements(rects_array, JNI_FALSE);
+
+    int ret = MaskRegions((uint8_t *) data, width, height, (uint32_t) fourcc, (const int *) rects,
+                          rect_count, mode, strength);
+
+    env->ReleaseIntArrayElements(rects_array, rects, JNI_ABORT);
+    env->ReleaseByteArrayElements(data_array, data, ret == 0 ? 0 : JNI_ABORT);
+    return ret;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_WarpAffine(JNIEnv *env, jclass clazz, jbyteArray src_array,
+                                       jint width, jint height, jlong fourcc,
+                                       jbyteArray dst_array, jint dst_width, jint dst_height,
+                                       jdoubleArray inverse_array, jbyteArray fill_array) {
+    jbyte *src = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst = env->GetByteArrayElements(dst_array, JNI_FALSE);
+    jdouble *inverse = env->GetDoubleArrayElements(inverse_array, JNI_FALSE);
+    jbyte *fill = env->GetByteArrayElements(fill_array, JNI_FALSE);
+
+    int ret = WarpAffine((const uint8_t *) src, width, height, (uint32_t) fourcc,
+                         (uint8_t *) dst, dst_width, dst_height, (const double *) inverse,
+                         (const uint8_t *) fill, 0);
+
+    env->ReleaseByteArrayElements(fill_array, fill, JNI_ABORT);
+    env->ReleaseDoubleArrayElements(inverse_array, inverse, JNI_ABORT);
+    env->ReleaseByteArrayElements(dst_array, dst, ret == 0 ? 0 : JNI_ABORT);
+    env->ReleaseByteArrayElements(src_array, src, JNI_ABORT);
+    return ret;
+}
+
+/**
+ * Sobel边缘提取：读取紧凑排列的Y平面
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_Sobel(JNIEnv *env, jclass clazz, jbyteArray src_array, jint src_stride,
+                                  jint width, jint height, jbyteArray dst_array, jint dst_width,
+                                  jint dst_height, jint mode) {
+    jbyte *src_data = env->GetByteArrayElements(src_array, JNI_FALSE);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    SobelPlane((const uint8_t *) src_data, src_stride, width, height, (uint8_t *) dst_data,
+               dst_width, dst_height, mode);
+
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+    env->ReleaseByteArrayElements(src_array, src_data, JNI_ABORT);
+}
+
+/**
+ * Sobel边缘提取：直接读取direct ByteBuffer中的Y平面（例如Image的第一个平面）
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_BufferSobel(JNIEnv *env, jclass clazz, jobject src_buffer,
+                                        jint src_stride, jint width, jint height,
+                                        jbyteArray dst_array, jint dst_width, jint dst_height,
+                                        jint mode) {
+    uint8_t *src_data = (uint8_t *) env->GetDirectBufferAddress(src_buffer);
+    jbyte *dst_data = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    SobelPlane(src_data, src_stride, width, height, (uint8_t *) dst_data, dst_width, dst_height,
+               mode);
+
+    env->ReleaseByteArrayElements(dst_array, dst_data, 0);
+}
+
+/**
+ * 调色：原地依次执行查表、颜色矩阵阶段
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_ApplyColorStages(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                             jint stride, jint width, jint height,
+                                             jintArray kinds_array, jint stage_count,
+                                             jbyteArray stage_array) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+    jint *kinds = env->GetIntArrayElements(kinds_array, JNI_FALSE);
+    jbyte *stage_data = env->GetByteArrayElements(stage_array, JNI_FALSE);
+
+    ApplyColorStages((uint8_t *) data, stride, width, height, (const int *) kinds, stage_count,
+                     (const uint8_t *) stage_data);
+
+    env->ReleaseByteArrayElements(stage_array, stage_data, JNI_ABORT);
+    env->ReleaseIntArrayElements(kinds_array, kinds, JNI_ABORT);
+    env->ReleaseByteArrayElements(data_array, data, 0);
+}
+
+/**
+ * 按平面查表；表为null时对应平面保持不变
+ */
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_king_libyuv_LibYuv_ApplyPlaneTables(JNIEnv *env, jclass clazz, jbyteArray data_array,
+                                             jint width, jint height, jlong fourcc,
+                                             jbyteArray y_array, jbyteArray u_array,
+                                             jbyteArray v_array) {
+    jbyte *data = env->GetByteArrayElements(data_array, JNI_FALSE);
+    jbyte *y_table = y_array ? env->GetByteArrayElements(y_array, JNI_FALSE) : nullptr;
+    jbyte *u_table = u_array ? env->GetByteArrayElements(u_array, JNI_FALSE) : nullptr;
+    jbyte *v_table = v_array ? env->GetByteArrayElements(v_array, JNI_FALSE) : nullptr;
+
+    int ret = ApplyPlaneTables((uint8_t *) data, width, height, (uint32_t) fourcc,
+                               (const uint8_t *) y_table, (const uint8_t *) u_table,
+                               (const uint8_t *) v_table);
+
+    if (v_table) {
+        env->ReleaseByteArrayElements(v_array, v_table, JNI_ABORT);
+    }
+    if (u_table) {
+        env->ReleaseByteArrayElements(u_array, u_table, JNI_ABORT);
+    }
+    if (y_table) {
+        env->ReleaseByteArrayElements(y_array, y_table, JNI_ABORT);
+    }
+    env->ReleaseByteArrayElements(data_array, data, ret == 0 ? 0 : JNI_ABORT);
+    return ret;
+}
+
+/**
+ * 两帧按权重混合
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_InterpolateFrames(JNIEnv *env, jclass clazz, jbyteArray src0_array,
+                                              jbyteArray src1_array, jbyteArray dst_array,
+                                              jint size, jint weight) {
+    jbyte *src0 = env->GetByteArrayElements(src0_array, JNI_FALSE);
+    jbyte *src1 = env->IsSameObject(src1_array, src0_array)
+                  ? src0 : env->GetByteArrayElements(src1_array, JNI_FALSE);
+    jbyte *dst = env->IsSameObject(dst_array, src0_array) ? src0
+                 : env->IsSameObject(dst_array, src1_array) ? src1
+                 : env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    InterpolateFrames((const uint8_t *) src0, (const uint8_t *) src1, (uint8_t *) dst, size, weight);
+
+    // 目标与源为同一个数组时只释放一次，并写回数据
+    if (dst != src0 && dst != src1) {
+        env->ReleaseByteArrayElements(dst_array, dst, 0);
+    }
+    if (src1 != src0) {
+        env->ReleaseByteArrayElements(src1_array, src1, dst == src1 ? 0 : JNI_ABORT);
+    }
+    env->ReleaseByteArrayElements(src0_array, src0, dst == src0 ? 0 : JNI_ABORT);
+}
+
+/**
+ * 指数滑动平均：累加器为direct ByteBuffer，每个采样2字节
+ */
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_king_libyuv_LibYuv_AccumulateFrame(JNIEnv *env, jclass clazz, jbyteArray frame_array,
+                                            jobject accumulator_buffer, jint size, jint weight,
+                                            jboolean first, jint motion_threshold,
+                                            jbyteArray dst_array) {
+    jbyte *frame = env->GetByteArrayElements(frame_array, JNI_FALSE);
+    uint16_t *accumulator = (uint16_t *) env->GetDirectBufferAddress(accumulator_buffer);
+    jbyte *dst = env->GetByteArrayElements(dst_array, JNI_FALSE);
+
+    AccumulateFrame((const uint8_t *) frame, accumulator, size, weight, first, motion_threshold,
+                    (uint8_t *) dst);
+
+    env->ReleaseByteArrayElements(dst_array, dst, 0);
+    env->ReleaseByteArrayElements(frame_array, frame, JNI_ABORT);
+}
+
+/**
+ * 通过RegisterNatives显式注册所有native方法，避免首次调用时按名称查找符号
+ */
+static const JNINativeMethod kNativeMethods[] = {
+        {"YUVToI420", "(Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;IIIIII[BI)V", (void *) Java_com_king_libyuv_LibYuv_YUVToI420},
+        {"NV21ToI420", "([BII[B)V", (void *) Java_com_king_libyuv_LibYuv_NV21ToI420},
+        {"I420ToNV21", "([BII[B)V", (void *) Java_com_king_libyuv_LibYuv_I420ToNV21},
+        {"ConvertFromI420", "([BII[BIJ)V", (void *) Java_com_king_libyuv_LibYuv_ConvertFromI420},
+        {"ConvertToI420", "([BIII[BIIIIIJ)V", (void *) Java_com_king_libyuv_LibYuv_ConvertToI420},
+        {"ConvertFromI420Matrix", "([BII[BIJI)V", (void *) Java_com_king_libyuv_LibYuv_ConvertFromI420Matrix},
+        {"ConvertToI420Matrix", "([BIII[BIIIIIJI)V", (void *) Java_com_king_libyuv_LibYuv_ConvertToI420Matrix},
+        {"I420Rotate", "([BII[BI)V", (void *) Java_com_king_libyuv_LibYuv_I420Rotate},
+        {"I420Scale", "([BII[BIII)V", (void *) Java_com_king_libyuv_LibYuv_I420Scale},
+        {"I420Crop", "([BII[BIIII)V", (void *) Java_com_king_libyuv_LibYuv_I420Crop},
+        {"I420Mirror", "([BII[B)V", (void *) Java_com_king_libyuv_LibYuv_I420Mirror},
+        {"ConvertToI400", "([BIII[BIIIIIIIIJ)I", (void *) Java_com_king_libyuv_LibYuv_ConvertToI400},
+        {"BufferToI400", "(Ljava/nio/ByteBuffer;III[BIIIIIIIIJ)I", (void *) Java_com_king_libyuv_LibYuv_BufferToI400},
+        {"I420Pyramid", "([BII[B[I[I[IIZI)V", (void *) Java_com_king_libyuv_LibYuv_I420Pyramid},
+        {"CompositeTiles", "([BIIZ[[B[III)V", (void *) Java_com_king_libyuv_LibYuv_CompositeTiles},
+        {"OverlayFromARGB", "([BIIJZ[B[B[B)I", (void *) Java_com_king_libyuv_LibYuv_OverlayFromARGB},
+        {"OverlayToARGB", "([B[BII[B)V", (void *) Java_com_king_libyuv_LibYuv_OverlayToARGB},
+        {"OverlayPrepareAlpha", "([BIII[B[B[B)V", (void *) Java_com_king_libyuv_LibYuv_OverlayPrepareAlpha},
+        {"OverlayBlendYUV", "([BIIZ[B[B[B[B[BIIIIIIII)V", (void *) Java_com_king_libyuv_LibYuv_OverlayBlendYUV},
+        {"OverlayBlendARGB", "([BII[BIIIIIIII)V", (void *) Java_com_king_libyuv_LibYuv_OverlayBlendARGB},
+        {"TransformSample", "([BIII[BIIIIIIIZIJ)V", (void *) Java_com_king_libyuv_LibYuv_TransformSample},
+        {"PackedBufferToI420", "(Ljava/nio/ByteBuffer;IIII[BIJ)V", (void *) Java_com_king_libyuv_LibYuv_PackedBufferToI420},
+        {"PlanarBufferToI420", "(Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;Ljava/nio/ByteBuffer;IIIIIZ[BI)V", (void *) Java_com_king_libyuv_LibYuv_PlanarBufferToI420},
+        {"ArenaTrim", "()V", (void *) Java_com_king_libyuv_LibYuv_ArenaTrim},
+        {"ArenaGetStats", "([J)V", (void *) Java_com_king_libyuv_LibYuv_ArenaGetStats},
+        {"ConvertSample", "([BIII[BIJJ)I", (void *) Java_com_king_libyuv_LibYuv_ConvertSample},
+        {"MirrorInPlace", "([BIIJ)I", (void *) Java_com_king_libyuv_LibYuv_MirrorInPlace},
+        {"FlipVerticalInPlace", "([BIIJ)I", (void *) Java_com_king_libyuv_LibYuv_FlipVerticalInPlace},
+        {"I420ToNVInPlace", "([BIIZ)V", (void *) Java_com_king_libyuv_LibYuv_I420ToNVInPlace},
+        {"NVToI420InPlace", "([BIIZ)V", (void *) Java_com_king_libyuv_LibYuv_NVToI420InPlace},
+        {"SwapUVInPlace", "([BII)V", (void *) Java_com_king_libyuv_LibYuv_SwapUVInPlace},
+        {"ApplyLumaTableInPlace", "([BII[B)V", (void *) Java_com_king_libyuv_LibYuv_ApplyLumaTableInPlace},
+        {"HashDjb2", "([BIJ)J", (void *) Java_com_king_libyuv_LibYuv_HashDjb2},
+        {"ComputeLumaStats", "([BIIIIII[J)V", (void *) Java_com_king_libyuv_LibYuv_ComputeLumaStats},
+        {"BufferLumaStats", "(Ljava/nio/ByteBuffer;IIIIII[J)V", (void *) Java_com_king_libyuv_LibYuv_BufferLumaStats},
+        {"DetectChange", "([BIIILjava/nio/ByteBuffer;Ljava/nio/ByteBuffer;IIIIZ[J)V", (void *) Java_com_king_libyuv_LibYuv_DetectChange},
+        {"BufferDetectChange", "(Ljava/nio/ByteBuffer;IIILjava/nio/ByteBuffer;Ljava/nio/ByteBuffer;IIIIZ[J)V", (void *) Java_com_king_libyuv_LibYuv_BufferDetectChange},
+        {"IncrementalConvert", "([BIIIJLjava/nio/ByteBuffer;ZIZ[II[BJ)I", (void *) Java_com_king_libyuv_LibYuv_IncrementalConvert},
+        {"BufferIncrementalConvert", "(Ljava/nio/ByteBuffer;IIIJLjava/nio/ByteBuffer;ZIZ[II[BJ)I", (void *) Java_com_king_libyuv_LibYuv_BufferIncrementalConvert},
+        {"MaskRegions", "([BIIJ[IIII)I", (void *) Java_com_king_libyuv_LibYuv_MaskRegions},
+        {"WarpAffine", "([BIIJ[BII[D[B)I", (void *) Java_com_king_libyuv_LibYuv_WarpAffine},
+        {"Sobel", "([BIII[BIII)V", (void *) Java_com_king_libyuv_LibYuv_Sobel},
+        {"BufferSobel", "(Ljava/nio/ByteBuffer;III[BIII)V", (void *) Java_com_king_libyuv_LibYuv_BufferSobel},
+        {"ApplyColorStages", "([BIII[II[B)V", (void *) Java_com_king_libyuv_LibYuv_ApplyColorStages},
+        {"ApplyPlaneTables", "([BIIJ[B[B[B)I", (void *) Java_com_king_libyuv_LibYuv_ApplyPlaneTables},
+        {"InterpolateFrames", "([B[B[BII)V", (void *) Java_com_king_libyuv_LibYuv_InterpolateFrames},
+        {"AccumulateFrame", "([BLjava/nio/ByteBuffer;IIZI[B)V", (void *) Java_com_king_libyuv_LibYuv_AccumulateFrame},
+};
+
+/**
+ * 仅包含基本类型参数的方法：Android 8.0及以上注册@CriticalNative版本
+ */
+static const JNINativeMethod kCriticalNativeMethods[] = {
+        {"ArenaSetMaxBytes", "(J)V", (void *) ArenaSetMaxBytesCritical},
+        {"ArenaGetMaxBytes", "()J", (void *) ArenaGetMaxBytesCritical},
+        {"ArenaSetTotalMaxBytes", "(J)V", (void *) ArenaSetTotalMaxBytesCritical},
+        {"ArenaAddExternalBytes", "(J)V", (void *) ArenaAddExternalBytesCritical},
+        {"ArenaTryReserveExternal", "(J)Z", (void *) ArenaTryReserveExternalCritical},
+        {"GetConvertPath", "(JJ)I", (void *) GetConvertPathCritical},
+};
+
+static const JNINativeMethod kCompatNativeMethods[] = {
+        {"ArenaSetMaxBytes", "(J)V", (void *) Java_com_king_libyuv_LibYuv_ArenaSetMaxBytes},
+        {"ArenaGetMaxBytes", "()J", (void *) Java_com_king_libyuv_LibYuv_ArenaGetMaxBytes},
+        {"ArenaSetTotalMaxBytes", "(J)V", (void *) Java_com_king_libyuv_LibYuv_ArenaSetTotalMaxBytes},
+        {"ArenaAddExternalBytes", "(J)V", (void *) Java_com_king_libyuv_LibYuv_ArenaAddExternalBytes},
+        {"ArenaTryReserveExternal", "(J)Z", (void *) Java_com_king_libyuv_LibYuv_ArenaTryReserveExternal},
+        {"GetConvertPath", "(JJ)I", (void *) Java_com_king_libyuv_LibYuv_GetConvertPath},
+};
+
+static int GetSdkVersion() {
+#ifdef __ANDROID__
+    char value[PROP_VALUE_MAX] = {0};
+    if (__system_property_get("ro.build.version.sdk", value) > 0) {
+        return atoi(value);
+    }
+#endif
+    return 0;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env = nullptr;
+    if (vm->GetEnv((void **) &env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+    jclass clazz = env->FindClass("com/king/libyuv/LibYuv");
+    if (!clazz) {
+        return JNI_ERR;
+    }
+    const JNINativeMethod *primitive_methods = GetSdkVersion() >= 26 ? kCriticalNativeMethods : kCompatNativeMethods;
+    jint ret = env->RegisterNatives(clazz, kNativeMethods, sizeof(kNativeMethods) / sizeof(kNativeMethods[0]));
+    if (ret == JNI_OK) {
+        ret = env->RegisterNatives(clazz, primitive_methods, sizeof(kCriticalNativeMethods) / sizeof(kCriticalNativeMethods[0]));
+    }
+    env->DeleteLocalRef(clazz);
+    return ret == JNI_OK ? JNI_VERSION_1_6 : JNI_ERR;
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_MASK_H_
+#define YUV_MASK_H_
+
+#include <stdint.h>
+#include "yuv_jni.h"
+#include "yuv_arena.h"
+#include "yuv_rect.h"
+
+/**
+ * 区域遮挡（隐私保护）：只处理矩形区域内的数据，原地写回I420/NV12/NV21，与Java层的MaskMode保持一致
+ */
+enum MaskMode {
+    kMaskBlur = 0,
+    kMaskPixelate = 1,
+};
+
+/**
+ * 马赛克：每个平面先用box缩小到每个色块一个像素，再用最近邻放大回原区域；色度平面与亮度使用相同的色块数
+ */
+static void PixelateRegion(uint8_t *data, int width, int height, bool nv, const int *rect,
+                           int block_size) {
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int x = rect[0];
+    int y = rect[1];
+    int rect_width = rect[2];
+    int rect_height = rect[3];
+    int chroma_width = (rect_width + 1) >> 1;
+    int chroma_height = (rect_height + 1) >> 1;
+    int small_width = (rect_width + block_size - 1) / block_size;
+    int small_height = (rect_height + block_size - 1) / block_size;
+    ScratchBuffer small_buffer(small_width * small_height * 2);
+    uint8_t *small = small_buffer.data();
+
+    uint8_t *dst_y = data + (int64_t) y * width + x;
+    libyuv::ScalePlane(dst_y, width, rect_width, rect_height,
+                       small, small_width, small_width, small_height, libyuv::kFilterBox);
+    libyuv::ScalePlane(small, small_width, small_width, small_height,
+                       dst_y, width, rect_width, rect_height, libyuv::kFilterNone);
+
+    uint8_t *chroma = data + (int64_t) width * height;
+    if (nv) {
+        uint8_t *dst_uv = chroma + (int64_t) (y >> 1) * half_width * 2 + x;
+        libyuv::UVScale(dst_uv, half_width * 2, chroma_width, chroma_height,
+                        small, small_width * 2, small_width, small_height, libyuv::kFilterBox);
+        libyuv::UVScale(small, small_width * 2, small_width, small_height,
+                        dst_uv, half_width * 2, chroma_width, chroma_height, libyuv::kFilterNone);
+        return;
+    }
+    int64_t chroma_offset = (int64_t) (y >> 1) * half_width + (x >> 1);
+    uint8_t *planes[2] = {chroma + chroma_offset,
+                          chroma + (int64_t) half_width * half_height + chroma_offset};
+    for (uint8_t *plane : planes) {
+        libyuv::ScalePlane(plane, half_width, chroma_width, chroma_height,
+                           small, small_width, small_width, small_height, libyuv::kFilterBox);
+        libyuv::ScalePlane(small, small_width, small_width, small_height,
+                           plane, half_width, chroma_width, chroma_height, libyuv::kFilterNone);
+    }
+}
+
+/**
+ * 模糊：区域转换为ARGB后使用libyuv的ARGBBlur（积分图box模糊，耗时与半径无关）原地模糊，再转换回原区域。
+ * 区域太小无法模糊时返回false
+ */
+static bool BlurRegion(uint8_t *data, int width, int height, uint32_t fourcc, const int *rect,
+                       int radius) {
+    int x = rect[0];
+    int y = rect[1];
+    int rect_width = rect[2];
+    int rect_height = rect[3];
+    // 与ARGBBlur内部的限制一致，同时决定积分图环形缓冲区的行数
+    if (radius > rect_height) {
+        radius = rect_height;
+    }
+    if (radius > rect_width / 2 - 1) {
+        radius = rect_width / 2 - 1;
+    }
+    if (radius <= 0) {
+        return false;
+    }
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int argb_stride = rect_width * 4;
+    ScratchBuffer argb_buffer(argb_stride * rect_height);
+    ScratchBuffer cumsum_buffer(sizeof(int32_t) * argb_stride * (radius * 2 + 2));
+    uint8_t *argb = argb_buffer.data();
+    int32_t *cumsum = (int32_t *) cumsum_buffer.data();
+
+    uint8_t *dst_y = data + (int64_t) y * width + x;
+    uint8_t *chroma = data + (int64_t) width * height;
+    switch (libyuv::CanonicalFourCC(fourcc)) {
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21: {
+            bool nv21 = libyuv::CanonicalFourCC(fourcc) == libyuv::FOURCC_NV21;
+            uint8_t *dst_uv = chroma + (int64_t) (y >> 1) * half_width * 2 + x;
+            if (nv21) {
+                libyuv::NV21ToARGB(dst_y, width, dst_uv, half_width * 2, argb, argb_stride,
+                                   rect_width, rect_height);
+            } else {
+                libyuv::NV12ToARGB(dst_y, width, dst_uv, half_width * 2, argb, argb_stride,
+                                   rect_width, rect_height);
+            }
+            libyuv::ARGBBlur(argb, argb_stride, argb, argb_stride, cumsum, argb_stride,
+                             rect_width, rect_height, radius);
+            if (nv21) {
+                libyuv::ARGBToNV21(argb, argb_stride, dst_y, width, dst_uv, half_width * 2,
+                                   rect_width, rect_height);
+            } else {
+                libyuv::ARGBToNV12(argb, argb_stride, dst_y, width, dst_uv, half_width * 2,
+                                   rect_width, rect_height);
+            }
+            break;
+        }
+        default: {
+            int64_t chroma_offset = (int64_t) (y >> 1) * half_width + (x >> 1);
+            uint8_t *dst_u = chroma + chroma_offset;
+            uint8_t *dst_v = chroma + (int64_t) half_width * half_height + chroma_offset;
+            libyuv::I420ToARGB(dst_y, width, dst_u, half_width, dst_v, half_width,
+                               argb, argb_stride, rect_width, rect_height);
+            libyuv::ARGBBlur(argb, argb_stride, argb, argb_stride, cumsum, argb_stride,
+                             rect_width, rect_height, radius);
+            libyuv::ARGBToI420(argb, argb_stride, dst_y, width, dst_u, half_width, dst_v, half_width,
+                               rect_width, rect_height);
+            break;
+        }
+    }
+    return true;
+}
+
+/**
+ * 原地遮挡rect_count个矩形（x, y, width, height），矩形会先对齐到色度块并限制在图像范围内；
+ * strength为模糊半径或马赛克色块大小。格式不支持时返回-1
+ */
+static int MaskRegions(uint8_t *data, int width, int height, uint32_t fourcc, const int *rects,
+                       int rect_count, int mode, int strength) {
+    uint32_t canonical = libyuv::CanonicalFourCC(fourcc);
+    if (canonical != libyuv::FOURCC_I420 && canonical != libyuv::FOURCC_NV12 &&
+        canonical != libyuv::FOURCC_NV21) {
+        return -1;
+    }
+    bool nv = canonical != libyuv::FOURCC_I420;
+    for (int i = 0; i < rect_count; ++i) {
+        int rect[4] = {rects[i * 4], rects[i * 4 + 1], rects[i * 4 + 2], rects[i * 4 + 3]};
+        if (!AlignRectToChroma(rect, width, height)) {
+            continue;
+        }
+        // 区域太小无法模糊时退化为整块马赛克
+        if (mode != kMaskBlur || !BlurRegion(data, width, height, fourcc, rect, strength)) {
+            int block_size = mode == kMaskBlur ? (rect[2] > rect[3] ? rect[2] : rect[3]) : strength;
+            PixelateRegion(data, width, height, nv, rect, block_size);
+        }
+    }
+    return 0;
+}
+
+#endif  // YUV_MASK_H_
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_PARALLEL_H_
+#define YUV_PARALLEL_H_
+
+#include <atomic>
+#include <chrono>
+#include <condition_variable>
+#include <deque>
+#include <mutex>
+#include <thread>
+
+#include "yuv_arena.h"
+
+/**
+ * 获取默认的并行线程数
+ */
+static inline int DefaultThreadCount(int task_count) {
+    int cpu_count = (int) std::thread::hardware_concurrency();
+    if (cpu_count <= 0) {
+        cpu_count = 1;
+    }
+    return task_count < cpu_count ? task_count : cpu_count;
+}
+
+class WorkerPool;
+
+/**
+ * 已启动的工作线程池；没有并行过时为null，释放arena时不需要为此启动线程
+ */
+static std::atomic<WorkerPool *> g_worker_pool(nullptr);
+
+/**
+ * 常驻的工作线程池：首次并行时启动CPU核数-1个线程，之后一直保留。
+ * 每次并行不再创建、销毁线程，工作线程各自的scratch arena也随线程保留，稳态下不再有内存分配；
+ * 内存紧张时通过 {@link #TrimArenas(int)} 唤醒空闲的工作线程释放各自的arena。
+ */
+class WorkerPool {
+public:
+    /**
+     * 一次并行任务；由调用方在栈上持有，直到所有参与的工作线程退出
+     */
+    struct Job {
+        void (*run)(void *context, int index);
+        void *context;
+        int task_count;
+        int helper_slots;
+        int active_helpers;
+        std::atomic<int> next_index;
+
+        void Drain() {
+            int i;
+            while ((i = next_index.fetch_add(1)) < task_count) {
+                run(context, i);
+            }
+        }
+    };
+
+    static WorkerPool &Instance() {
+        // 有意不释放：工作线程在进程退出前一直存在，避免静态析构时等待线程
+        static WorkerPool *pool = new WorkerPool();
+        return *pool;
+    }
+
+    int thread_count() const {
+        return thread_count_;
+    }
+
+    /**
+     * 执行job：最多helpers个工作线程与当前线程一起执行，返回时所有任务都已完成
+     */
+    void Run(Job *job, int helpers) {
+        {
+            std::lock_guard<std::mutex> lock(mutex_);
+            job->helper_slots = helpers;
+            job->active_helpers = 0;
+            queue_.push_back(job);
+        }
+        if (helpers == 1) {
+            work_cv_.notify_one();
+        } else {
+            work_cv_.notify_all();
+        }
+        job->Drain();
+        std::unique_lock<std::mutex> lock(mutex_);
+        Remove(job);
+        done_cv_.wait(lock, [job] { return job->active_helpers == 0; });
+    }
+
+    /**
+     * 让所有工作线程释放各自的arena：空闲的线程立即被唤醒释放，正在执行任务的线程在任务结束后释放。
+     * 最多等待timeout_ms毫秒，超时后尚未释放的线程仍会在空闲时释放
+     */
+    void TrimArenas(int timeout_ms) {
+        std::unique_lock<std::mutex> lock(mutex_);
+        int generation = ++trim_generation_;
+        trimmed_threads_ = 0;
+        work_cv_.notify_all();
+        done_cv_.wait_for(lock, std::chrono::milliseconds(timeout_ms), [this, generation] {
+            return trim_generation_ != generation || trimmed_threads_ >= thread_count_;
+        });
+    }
+
+private:
+    WorkerPool() : trim_generation_(0), trimmed_threads_(0) {
+        int cpu_count = (int) std::thread::hardware_concurrency();
+        thread_count_ = cpu_count > 1 ? cpu_count - 1 : 0;
+        for (int i = 0; i < thread_count_; i++) {
+            std::thread(&WorkerPool::Loop, this).detach();
+        }
+        g_worker_pool.store(this);
+    }
+
+    void Loop() {
+        std::unique_lock<std::mutex> lock(mutex_);
+        int trim_generation = trim_generation_;
+        for (;;) {
+            work_cv_.wait(lock, [this, &trim_generation] {
+                return !queue_.empty() || trim_generation != trim_generation_;
+            });
+            if (trim_generation != trim_generation_) {
+                int generation = trim_generation_;
+                trim_generation = generation;
+                lock.unlock();
+                ScratchArena::Current().Trim();
+                lock.lock();
+                if (generation == trim_generation_) {
+                    trimmed_threads_++;
+                }
+                done_cv_.notify_all();
+                continue;
+            }
+            Job *job = queue_.front();
+            job->active_helpers++;
+            if (--job->helper_slots <= 0) {
+                queue_.pop_front();
+            }
+            lock.unlock();
+            job->Drain();
+            lock.lock();
+            // 所有任务都已被领取，job离开队列，不会再有工作线程加入
+            Remove(job);
+            if (--job->active_helpers == 0) {
+                done_cv_.notify_all();
+            }
+        }
+    }
+
+    void Remove(Job *job) {
+        for (auto it = queue_.begin(); it != queue_.end(); ++it) {
+            if (*it == job) {
+                queue_.erase(it);
+                return;
+            }
+        }
+    }
+
+    int thread_count_;
+    int trim_generation_;
+    int trimmed_threads_;
+    std::mutex mutex_;
+    std::condition_variable work_cv_;
+    std::condition_variable done_cv_;
+    std::deque<Job *> queue_;
+};
+
+/**
+ * 将[0, task_count)个任务分配到多个线程中执行，当前线程也会参与执行；
+ * thread_count小于等于0时按CPU核数自动选择。其余线程来自常驻的 {@link WorkerPool}，
+ * task只能调用纯native代码，不可使用JNIEnv。
+ */
+template<typename Task>
+static void ParallelFor(int task_count, int thread_count, const Task &task) {
+    if (thread_count <= 0) {
+        thread_count = DefaultThreadCount(task_count);
+    }
+    if (thread_count > task_count) {
+        thread_count = task_count;
+    }
+    int helpers = 0;
+    if (thread_count > 1) {
+        WorkerPool &pool = WorkerPool::Instance();
+        helpers = thread_count - 1 < pool.thread_count() ? thread_count - 1 : pool.thread_count();
+    }
+    if (helpers <= 0) {
+        for (int i = 0; i < task_count; i++) {
+            task(i);
+        }
+        return;
+    }
+
+    WorkerPool::Job job;
+    job.run = [](void *context, int index) {
+        (*(const Task *) context)(index);
+    };
+    job.context = (void *) &task;
+    job.task_count = task_count;
+    job.next_index = 0;
+    WorkerPool::Instance().Run(&job, helpers);
+}
+
+#endif  // YUV_PARALLEL_H_
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_RECT_H_
+#define YUV_RECT_H_
+
+/**
+ * 将矩形（x, y, width, height）扩展到色度块边界并限制在图像范围内；矩形为空时返回false
+ */
+static bool AlignRectToChroma(int *rect, int width, int height) {
+    int x0 = rect[0] < 0 ? 0 : rect[0];
+    int y0 = rect[1] < 0 ? 0 : rect[1];
+    int x1 = rect[0] + rect[2];
+    int y1 = rect[1] + rect[3];
+    x1 = x1 > width ? width : x1;
+    y1 = y1 > height ? height : y1;
+    if (x0 >= x1 || y0 >= y1) {
+        return false;
+    }
+    x0 &= ~1;
+    y0 &= ~1;
+    x1 = (x1 + 1) & ~1;
+    y1 = (y1 + 1) & ~1;
+    rect[0] = x0;
+    rect[1] = y0;
+    rect[2] = (x1 > width ? width : x1) - x0;
+    rect[3] = (y1 > height ? height : y1) - y0;
+    return true;
+}
+
+#endif  // YUV_RECT_H_
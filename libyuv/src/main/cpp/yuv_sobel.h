@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_SOBEL_H_
+#define YUV_SOBEL_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_jni.h"
+#include "yuv_arena.h"
+#include "yuv_parallel.h"
+
+/**
+ * 亮度平面的Sobel边缘（梯度）提取，与Java层的SobelMode保持一致：
+ * 幅值平面为 min(|Gx| + |Gy|, 255)，XY为两个平面（先|Gx|后|Gy|）。
+ * <p>
+ * 行处理函数与libyuv的ARGBSobel相同（SobelXRow/SobelYRow/SobelToPlaneRow），
+ * 只是直接读取亮度行，省去ARGB与灰度之间的转换；边缘像素按复制边界处理。
+ */
+enum SobelMode {
+    kSobelMagnitude = 0,
+    kSobelXY = 1,
+};
+
+static const int kSobelRowsPerTask = 64;
+
+typedef void (*SobelXRowFunction)(const uint8_t *src_y0, const uint8_t *src_y1,
+                                  const uint8_t *src_y2, uint8_t *dst_sobelx, int width);
+typedef void (*SobelYRowFunction)(const uint8_t *src_y0, const uint8_t *src_y1,
+                                  uint8_t *dst_sobely, int width);
+typedef void (*SobelToPlaneRowFunction)(const uint8_t *src_sobelx, const uint8_t *src_sobely,
+                                        uint8_t *dst_y, int width);
+
+struct SobelRows {
+    SobelXRowFunction sobel_x;
+    SobelYRowFunction sobel_y;
+    SobelToPlaneRowFunction to_plane;
+};
+
+/**
+ * 按CPU特性选择行处理函数，与libyuv的ARGBSobelize一致
+ */
+static SobelRows GetSobelRows(int width) {
+    SobelRows rows = {libyuv::SobelXRow_C, libyuv::SobelYRow_C, libyuv::SobelToPlaneRow_C};
+#if defined(HAS_SOBELXROW_SSE2)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasSSE2)) {
+        rows.sobel_x = libyuv::SobelXRow_SSE2;
+    }
+#endif
+#if defined(HAS_SOBELXROW_NEON)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasNEON)) {
+        rows.sobel_x = libyuv::SobelXRow_NEON;
+    }
+#endif
+#if defined(HAS_SOBELYROW_SSE2)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasSSE2)) {
+        rows.sobel_y = libyuv::SobelYRow_SSE2;
+    }
+#endif
+#if defined(HAS_SOBELYROW_NEON)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasNEON)) {
+        rows.sobel_y = libyuv::SobelYRow_NEON;
+    }
+#endif
+#if defined(HAS_SOBELTOPLANEROW_SSE2)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasSSE2)) {
+        rows.to_plane = IS_ALIGNED(width, 16) ? libyuv::SobelToPlaneRow_SSE2
+                                              : libyuv::SobelToPlaneRow_Any_SSE2;
+    }
+#endif
+#if defined(HAS_SOBELTOPLANEROW_NEON)
+    if (libyuv::TestCpuFlag(libyuv::kCpuHasNEON)) {
+        rows.to_plane = IS_ALIGNED(width, 16) ? libyuv::SobelToPlaneRow_NEON
+                                              : libyuv::SobelToPlaneRow_Any_NEON;
+    }
+#endif
+    return rows;
+}
+
+/**
+ * 把一行亮度复制到带边界的行缓冲中，左右各复制一个边缘像素（SIMD行函数按8/16像素读取，其余填充为边缘像素）
+ */
+static inline void LoadSobelRow(const uint8_t *src, uint8_t *row, int width) {
+    memcpy(row, src, width);
+    row[-1] = row[0];
+    memset(row + width, row[width - 1], 16);
+}
+
+/**
+ * 计算[row_begin, row_end)行；dst_x/dst_y为XY模式的两个输出平面，幅值模式只使用dst_x
+ */
+static void SobelPlaneRows(const SobelRows &functions, const uint8_t *src, int src_stride,
+                           int width, int height, uint8_t *dst_x, uint8_t *dst_y, int mode,
+                           int row_begin, int row_end) {
+    const int kEdge = 16;
+    const int row_size = (width + kEdge + 31) & ~31;
+    ScratchBuffer rows_buffer(row_size * 5 + kEdge);
+    uint8_t *row_sobelx = rows_buffer.data();
+    uint8_t *row_sobely = row_sobelx + row_size;
+    uint8_t *rows[3] = {row_sobely + row_size + kEdge,
+                        row_sobely + row_size * 2 + kEdge,
+                        row_sobely + row_size * 3 + kEdge};
+    auto load = [&](int y, uint8_t *row) {
+        y = y < 0 ? 0 : (y >= height ? height - 1 : y);
+        LoadSobelRow(src + (int64_t) y * src_stride, row, width);
+    };
+    load(row_begin - 1, rows[0]);
+    load(row_begin, rows[1]);
+    for (int y = row_begin; y < row_end; ++y) {
+        load(y + 1, rows[2]);
+        functions.sobel_x(rows[0] - 1, rows[1] - 1, rows[2] - 1, row_sobelx, width);
+        functions.sobel_y(rows[0] - 1, rows[2] - 1, row_sobely, width);
+        if (mode == kSobelXY) {
+            memcpy(dst_x + (int64_t) y * width, row_sobelx, width);
+            memcpy(dst_y + (int64_t) y * width, row_sobely, width);
+        } else {
+            functions.to_plane(row_sobelx, row_sobely, dst_x + (int64_t) y * width, width);
+        }
+        uint8_t *top = rows[0];
+        rows[0] = rows[1];
+        rows[1] = rows[2];
+        rows[2] = top;
+    }
+}
+
+/**
+ * Sobel边缘提取：目标尺寸小于源尺寸时先用box缩小到目标尺寸；按行分段并行。
+ * 输出为紧凑排列：幅值模式为dst_width * dst_height，XY模式为两个这样的平面
+ */
+static void SobelPlane(const uint8_t *src, int src_stride, int width, int height,
+                       uint8_t *dst, int dst_width, int dst_height, int mode) {
+    bool scale = width != dst_width || height != dst_height;
+    ScratchBuffer scaled_buffer(scale ? dst_width * dst_height : 0);
+    if (scale) {
+        libyuv::ScalePlane(src, src_stride, width, height,
+                           scaled_buffer.data(), dst_width, dst_width, dst_height,
+                           libyuv::kFilterBox);
+        src = scaled_buffer.data();
+        src_stride = dst_width;
+    }
+    SobelRows functions = GetSobelRows(dst_width);
+    uint8_t *dst_y = mode == kSobelXY ? dst + (int64_t) dst_width * dst_height : nullptr;
+    int task_count = (dst_height + kSobelRowsPerTask - 1) / kSobelRowsPerTask;
+    ParallelFor(task_count, 0, [&](int task) {
+        int row_begin = task * kSobelRowsPerTask;
+        int row_end = row_begin + kSobelRowsPerTask > dst_height
+                      ? dst_height : row_begin + kSobelRowsPerTask;
+        SobelPlaneRows(functions, src, src_stride, dst_width, dst_height, dst, dst_y, mode,
+                       row_begin, row_end);
+    });
+}
+
+#endif  // YUV_SOBEL_H_
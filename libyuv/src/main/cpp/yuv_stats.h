@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_STATS_H_
+#define YUV_STATS_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_arena.h"
+#include "yuv_parallel.h"
+
+/**
+ * 亮度统计：一次遍历Y平面同时得到256级直方图与N×M个区域的亮度和；
+ * 结果布局为 [0, 256) 直方图，[256, 256 + cells) 区域亮度和，[256 + cells, 256 + cells * 2) 区域采样数（按行优先排列）。
+ * 均值、方差、最小值、最大值都可以由直方图得到，不需要再遍历一次。
+ */
+static const int kLumaHistogramSize = 256;
+
+/**
+ * 采样数超过该值时按行分段并行统计
+ */
+static const int64_t kLumaStatsParallelSamples = 1 << 19;
+
+static inline int LumaStatsSize(int grid_cols, int grid_rows) {
+    return kLumaHistogramSize + grid_cols * grid_rows * 2;
+}
+
+/**
+ * 统计[row_begin, row_end)范围内的采样行；使用4个子直方图交替累加，避免相邻的相同亮度值互相等待
+ */
+static void LumaStatsRows(const uint8_t *y_plane, int stride, int width, int height, int step,
+                          int grid_cols, int grid_rows, int row_begin, int row_end, int64_t *out) {
+    uint32_t hist[4][kLumaHistogramSize];
+    memset(hist, 0, sizeof(hist));
+    int cells = grid_cols * grid_rows;
+    int64_t *cell_sums = out + kLumaHistogramSize;
+    int64_t *cell_counts = cell_sums + cells;
+
+    for (int row = row_begin; row < row_end; ++row) {
+        int y = row * step;
+        const uint8_t *src = y_plane + (int64_t) y * stride;
+        int grid_y = (int) ((int64_t) y * grid_rows / height);
+        for (int grid_x = 0; grid_x < grid_cols; ++grid_x) {
+            int x0 = (int) ((int64_t) grid_x * width / grid_cols);
+            int x1 = (int) ((int64_t) (grid_x + 1) * width / grid_cols);
+            int x = (x0 + step - 1) / step * step;
+            if (x >= x1) {
+                continue;
+            }
+            int n = (x1 - 1 - x) / step + 1;
+            const uint8_t *p = src + x;
+            uint32_t sum = 0;
+            int i = 0;
+            if (step == 1) {
+                for (; i + 4 <= n; i += 4) {
+                    uint8_t v0 = p[i], v1 = p[i + 1], v2 = p[i + 2], v3 = p[i + 3];
+                    hist[0][v0]++;
+                    hist[1][v1]++;
+                    hist[2][v2]++;
+                    hist[3][v3]++;
+                    sum += v0 + v1 + v2 + v3;
+                }
+            }
+            for (; i < n; ++i) {
+                uint8_t v = p[(int64_t) i * step];
+                hist[i & 3][v]++;
+                sum += v;
+            }
+            int cell = grid_y * grid_cols + grid_x;
+            cell_sums[cell] += sum;
+            cell_counts[cell] += n;
+        }
+    }
+    for (int v = 0; v < kLumaHistogramSize; ++v) {
+        out[v] += (int64_t) hist[0][v] + hist[1][v] + hist[2][v] + hist[3][v];
+    }
+}
+
+/**
+ * 统计Y平面；step为采样间隔（1为全部像素），out长度为LumaStatsSize(grid_cols, grid_rows)
+ */
+static void ComputeLumaStats(const uint8_t *y_plane, int stride, int width, int height, int step,
+                             int grid_cols, int grid_rows, int64_t *out) {
+    int stats_size = LumaStatsSize(grid_cols, grid_rows);
+    memset(out, 0, sizeof(int64_t) * stats_size);
+    int sampled_rows = (height + step - 1) / step;
+    int64_t samples = (int64_t) sampled_rows * ((width + step - 1) / step);
+    int band_count = samples >= kLumaStatsParallelSamples ? DefaultThreadCount(4) : 1;
+    if (band_count > sampled_rows) {
+        band_count = sampled_rows;
+    }
+    if (band_count <= 1) {
+        LumaStatsRows(y_plane, stride, width, height, step, grid_cols, grid_rows, 0, sampled_rows, out);
+        return;
+    }
+    // 每个分段单独累加，结束后再合并，不需要任何同步
+    ScratchBuffer band_buffer(sizeof(int64_t) * band_count * stats_size);
+    int64_t *band_stats = (int64_t *) band_buffer.data();
+    memset(band_stats, 0, sizeof(int64_t) * band_count * stats_size);
+    ParallelFor(band_count, band_count, [&](int band) {
+        int row_begin = (int) ((int64_t) sampled_rows * band / band_count);
+        int row_end = (int) ((int64_t) sampled_rows * (band + 1) / band_count);
+        LumaStatsRows(y_plane, stride, width, height, step, grid_cols, grid_rows, row_begin, row_end,
+                      band_stats + (size_t) band * stats_size);
+    });
+    for (int band = 0; band < band_count; ++band) {
+        const int64_t *stats = band_stats + (size_t) band * stats_size;
+        for (int i = 0; i < stats_size; ++i) {
+            out[i] += stats[i];
+        }
+    }
+}
+
+#endif  // YUV_STATS_H_
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_TEMPORAL_H_
+#define YUV_TEMPORAL_H_
+
+#include <stdint.h>
+#include <string.h>
+#include "yuv_jni.h"
+#include "yuv_parallel.h"
+
+/**
+ * 时域处理：两帧按权重混合（帧率转换）与指数滑动平均（时域降噪）。
+ * <p>
+ * 两帧与目标的数据排列相同且都是紧凑的，每个字节都是一个8位采样，因此整帧可以当作一行处理；
+ * 按kTemporalBytesPerTask字节分段并行。
+ */
+static const int kTemporalBytesPerTask = 256 * 1024;
+
+static inline int TemporalTaskCount(int64_t size) {
+    return (int) ((size + kTemporalBytesPerTask - 1) / kTemporalBytesPerTask);
+}
+
+/**
+ * 混合两帧：weight为src1的权重（0~256），0为src0，256为src1；dst可以与src0或src1相同
+ */
+static void InterpolateFrames(const uint8_t *src0, const uint8_t *src1, uint8_t *dst, int64_t size,
+                              int weight) {
+    ParallelFor(TemporalTaskCount(size), 0, [&](int task) {
+        int64_t offset = (int64_t) task * kTemporalBytesPerTask;
+        int length = (int) (size - offset < kTemporalBytesPerTask ? size - offset : kTemporalBytesPerTask);
+        if (weight >= 256) {
+            if (dst != src1) {
+                memcpy(dst + offset, src1 + offset, length);
+            }
+            return;
+        }
+        // libyuv的InterpolatePlane中0为src0，255约为src1；单行处理整段
+        libyuv::InterpolatePlane(src0 + offset, length, src1 + offset, length, dst + offset, length,
+                                 length, 1, weight);
+    });
+}
+
+/**
+ * 指数滑动平均：accumulator为每个采样一个uint16（8位小数），acc += (frame - acc) * weight / 256，
+ * 结果四舍五入写入dst。first为true时用当前帧初始化；motion_threshold大于0时，
+ * 与平均值相差超过阈值的采样视为运动，直接使用当前帧，避免拖影
+ */
+static void AccumulateFrame(const uint8_t *frame, uint16_t *accumulator, int64_t size, int weight,
+                            bool first, int motion_threshold, uint8_t *dst) {
+    ParallelFor(TemporalTaskCount(size), 0, [&](int task) {
+        int64_t begin = (int64_t) task * kTemporalBytesPerTask;
+        int64_t end = size - begin < kTemporalBytesPerTask ? size : begin + kTemporalBytesPerTask;
+        if (first) {
+            for (int64_t i = begin; i < end; ++i) {
+                accumulator[i] = (uint16_t) (frame[i] << 8);
+                dst[i] = frame[i];
+            }
+            return;
+        }
+        int threshold = motion_threshold << 8;
+        for (int64_t i = begin; i < end; ++i) {
+            int value = frame[i] << 8;
+            int acc = accumulator[i];
+            int diff = value - acc;
+            if (threshold > 0 && (diff > threshold || diff < -threshold)) {
+                acc = value;
+            } else {
+                // 四舍五入；向零取整会让较小的差值永远无法收敛
+                acc += (diff * weight + 128) >> 8;
+            }
+            accumulator[i] = (uint16_t) acc;
+            dst[i] = (uint8_t) ((acc + 128) >> 8);
+        }
+    });
+}
+
+#endif  // YUV_TEMPORAL_H_
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#ifndef YUV_WARP_H_
+#define YUV_WARP_H_
+
+#include <math.h>
+#include <stdint.h>
+#include <string.h>
+#include <vector>
+#include "yuv_jni.h"
+#include "yuv_parallel.h"
+
+/**
+ * 仿射变换（任意角度旋转、纠偏）：目标中的每个像素通过逆矩阵映射回源图像，再做双线性采样；
+ * 映射到源图像之外的像素使用填充值。
+ * <p>
+ * 逆矩阵 inverse = {a, b, c, d, e, f}：源坐标 u = a * x + b * y + c，v = d * x + e * y + f，
+ * 坐标为连续坐标，像素 (i, j) 覆盖 [i, i + 1) x [j, j + 1)。
+ * libyuv的ARGBAffineRow只有最近邻采样且不做越界检查，这里使用定点的双线性实现，按行分段并行。
+ */
+static const int kWarpRowsPerTask = 32;
+
+/**
+ * 采样一个平面的[row_begin, row_end)行；channels为每个像素的字节数（1：Y/U/V，2：交织的UV，4：packed RGB）
+ */
+template<int channels>
+static void WarpPlaneRows(const uint8_t *src, int src_stride, int src_width, int src_height,
+                          uint8_t *dst, int dst_stride, int dst_width,
+                          const double *inverse, const uint8_t *fill, int row_begin, int row_end) {
+    // 步进使用32位小数累加，避免长行上的累积误差，采样时再取16.16
+    const int64_t du = llround(inverse[0] * 4294967296.0);
+    const int64_t dv = llround(inverse[3] * 4294967296.0);
+    // 采样点允许落在[-0.5, size - 0.5]内，边缘像素按clamp处理
+    const int64_t min_u = -((int64_t) 1 << 31);
+    const int64_t min_v = -((int64_t) 1 << 31);
+    const int64_t max_u = ((int64_t) src_width << 32) - ((int64_t) 1 << 31);
+    const int64_t max_v = ((int64_t) src_height << 32) - ((int64_t) 1 << 31);
+    for (int y = row_begin; y < row_end; ++y) {
+        // 像素中心 (x + 0.5, y + 0.5) 映射到源坐标，再减去0.5得到以像素中心为整数的坐标
+        double row_u = inverse[0] * 0.5 + inverse[1] * (y + 0.5) + inverse[2] - 0.5;
+        double row_v = inverse[3] * 0.5 + inverse[4] * (y + 0.5) + inverse[5] - 0.5;
+        int64_t row_u64 = llround(row_u * 4294967296.0);
+        int64_t row_v64 = llround(row_v * 4294967296.0);
+        uint8_t *dst_row = dst + (int64_t) y * dst_stride;
+        for (int x = 0; x < dst_width; ++x, row_u64 += du, row_v64 += dv) {
+            uint8_t *out = dst_row + x * channels;
+            if (row_u64 < min_u || row_u64 > max_u || row_v64 < min_v || row_v64 > max_v) {
+                for (int c = 0; c < channels; ++c) {
+                    out[c] = fill[c];
+                }
+                continue;
+            }
+            int32_t u = (int32_t) (row_u64 >> 16);
+            int32_t v = (int32_t) (row_v64 >> 16);
+            int x0 = u >> 16;
+            int y0 = v >> 16;
+            uint32_t wx = (uint32_t) (u & 0xffff) >> 8;
+            uint32_t wy = (uint32_t) (v & 0xffff) >> 8;
+            int x1 = x0 + 1;
+            int y1 = y0 + 1;
+            x0 = x0 < 0 ? 0 : x0;
+            y0 = y0 < 0 ? 0 : y0;
+            x1 = x1 >= src_width ? src_width - 1 : x1;
+            y1 = y1 >= src_height ? src_height - 1 : y1;
+            const uint8_t *top = src + (int64_t) y0 * src_stride;
+            const uint8_t *bottom = src + (int64_t) y1 * src_stride;
+            const uint8_t *p00 = top + x0 * channels;
+            const uint8_t *p01 = top + x1 * channels;
+            const uint8_t *p10 = bottom + x0 * channels;
+            const uint8_t *p11 = bottom + x1 * channels;
+            for (int c = 0; c < channels; ++c) {
+                uint32_t t = p00[c] * (256 - wx) + p01[c] * wx;
+                uint32_t b = p10[c] * (256 - wx) + p11[c] * wx;
+                out[c] = (uint8_t) ((t * (256 - wy) + b * wy + 32768) >> 16);
+            }
+        }
+    }
+}
+
+/**
+ * 并行任务：一个平面中的[row_begin, row_end)行
+ */
+struct WarpTask {
+    int plane;
+    int row_begin;
+    int row_end;
+};
+
+struct WarpPlane {
+    const uint8_t *src;
+    int src_stride;
+    int src_width;
+    int src_height;
+    uint8_t *dst;
+    int dst_stride;
+    int dst_width;
+    int dst_height;
+    int channels;
+    double inverse[6];
+    uint8_t fill[4];
+};
+
+static void RunWarpTask(const WarpPlane &plane, int row_begin, int row_end) {
+    switch (plane.channels) {
+        case 1:
+            WarpPlaneRows<1>(plane.src, plane.src_stride, plane.src_width, plane.src_height,
+                             plane.dst, plane.dst_stride, plane.dst_width, plane.inverse,
+                             plane.fill, row_begin, row_end);
+            break;
+        case 2:
+            WarpPlaneRows<2>(plane.src, plane.src_stride, plane.src_width, plane.src_height,
+                             plane.dst, plane.dst_stride, plane.dst_width, plane.inverse,
+                             plane.fill, row_begin, row_end);
+            break;
+        default:
+            WarpPlaneRows<4>(plane.src, plane.src_stride, plane.src_width, plane.src_height,
+                             plane.dst, plane.dst_stride, plane.dst_width, plane.inverse,
+                             plane.fill, row_begin, row_end);
+            break;
+    }
+}
+
+/**
+ * 色度平面的逆矩阵：色度的连续坐标为亮度的一半，平移量减半，线性部分不变
+ */
+static void HalveWarpMatrix(const double *inverse, double *chroma_inverse) {
+    chroma_inverse[0] = inverse[0];
+    chroma_inverse[1] = inverse[1];
+    chroma_inverse[2] = inverse[2] * 0.5;
+    chroma_inverse[3] = inverse[3];
+    chroma_inverse[4] = inverse[4];
+    chroma_inverse[5] = inverse[5] * 0.5;
+}
+
+/**
+ * 仿射变换；fill为填充值：packed RGB为4个字节，YUV为Y、U、V。格式不支持时返回-1
+ */
+static int WarpAffine(const uint8_t *src, int width, int height, uint32_t fourcc,
+                      uint8_t *dst, int dst_width, int dst_height,
+                      const double *inverse, const uint8_t *fill, int thread_count) {
+    WarpPlane planes[3];
+    int plane_count = 0;
+    int half_width = (width + 1) >> 1;
+    int half_height = (height + 1) >> 1;
+    int dst_half_width = (dst_width + 1) >> 1;
+    int dst_half_height = (dst_height + 1) >> 1;
+    auto add_plane = [&](const uint8_t *plane_src, int src_stride, int src_w, int src_h,
+                         uint8_t *plane_dst, int dst_stride, int dst_w, int dst_h,
+                         int channels, bool chroma, const uint8_t *plane_fill) {
+        WarpPlane &plane = planes[plane_count++];
+        plane.src = plane_src;
+        plane.src_stride = src_stride;
+        plane.src_width = src_w;
+        plane.src_height = src_h;
+        plane.dst = plane_dst;
+        plane.dst_stride = dst_stride;
+        plane.dst_width = dst_w;
+        plane.dst_height = dst_h;
+        plane.channels = channels;
+        if (chroma) {
+            HalveWarpMatrix(inverse, plane.inverse);
+        } else {
+            memcpy(plane.inverse, inverse, sizeof(plane.inverse));
+        }
+        memcpy(plane.fill, plane_fill, channels);
+    };
+
+    uint32_t canonical = libyuv::CanonicalFourCC(fourcc);
+    switch (canonical) {
+        case libyuv::FOURCC_ARGB:
+        case libyuv::FOURCC_ABGR:
+        case libyuv::FOURCC_BGRA:
+        case libyuv::FOURCC_RGBA:
+            add_plane(src, width * 4, width, height, dst, dst_width * 4, dst_width, dst_height,
+                      4, false, fill);
+            break;
+        case libyuv::FOURCC_I400:
+        case libyuv::FOURCC_I420:
+        case libyuv::FOURCC_NV12:
+        case libyuv::FOURCC_NV21: {
+            add_plane(src, width, width, height, dst, dst_width, dst_width, dst_height,
+                      1, false, fill);
+            if (canonical == libyuv::FOURCC_I400) {
+                break;
+            }
+            const uint8_t *src_chroma = src + (int64_t) width * height;
+            uint8_t *dst_chroma = dst + (int64_t) dst_width * dst_height;
+            if (canonical == libyuv::FOURCC_I420) {
+                add_plane(src_chroma, half_width, half_width, half_height,
+                          dst_chroma, dst_half_width, dst_half_width, dst_half_height,
+                          1, true, fill + 1);
+                add_plane(src_chroma + (int64_t) half_width * half_height, half_width,
+                          half_width, half_height,
+                          dst_chroma + (int64_t) dst_half_width * dst_half_height, dst_half_width,
+                          dst_half_width, dst_half_height, 1, true, fill + 2);
+            } else {
+                uint8_t uv_fill[2];
+                bool nv21 = canonical == libyuv::FOURCC_NV21;
+                uv_fill[0] = nv21 ? fill[2] : fill[1];
+                uv_fill[1] = nv21 ? fill[1] : fill[2];
+                add_plane(src_chroma, half_width * 2, half_width, half_height,
+                          dst_chroma, dst_half_width * 2, dst_half_width, dst_half_height,
+                          2, true, uv_fill);
+            }
+            break;
+        }
+        default:
+            return -1;
+    }
+
+    // 每个平面按kWarpRowsPerTask行一段拆分为任务，亮度和色度平面的任务一起并行
+    std::vector<WarpTask> tasks;
+    for (int i = 0; i < plane_count; ++i) {
+        for (int row = 0; row < planes[i].dst_height; row += kWarpRowsPerTask) {
+            int row_end = row + kWarpRowsPerTask;
+            tasks.push_back({i, row, row_end > planes[i].dst_height ? planes[i].dst_height : row_end});
+        }
+    }
+    ParallelFor((int) tasks.size(), thread_count, [&](int index) {
+        const WarpTask &task = tasks[index];
+        RunWarpTask(planes[task.plane], task.row_begin, task.row_end);
+    });
+    return 0;
+}
+
+#endif  // YUV_WARP_H_
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 自适应缩放：每次缩放时根据缩放比例与最近的缩放耗时自动选择 {@link FilterMode}，在超出每帧耗时预算时逐级降低画质，而不是丢帧。
+ * <p>
+ * 画质从高到低依次为 {@link FilterMode#FILTER_BOX}、{@link FilterMode#FILTER_BILINEAR}、{@link FilterMode#FILTER_LINEAR}、
+ * {@link FilterMode#FILTER_NONE}；只有缩小到1/2以下时才会使用BOX，其余情况最高使用BILINEAR。
+ * <p>
+ * 最近一个窗口内的平均耗时超过预算时降低一级；平均耗时低于预算的 {@value #HEADROOM_PERCENT}% 时恢复一级。每次调整后会重新积累一个完整窗口，避免来回抖动。
+ * 耗时按调用统计，建议每一路流（固定的输入输出尺寸）使用一个实例；尺寸变化时会重新开始统计。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class AdaptiveScaler {
+
+    /**
+     * 默认的统计窗口大小（次）
+     */
+    public static final int DEFAULT_WINDOW = 16;
+
+    /**
+     * 平均耗时低于预算的该百分比时恢复一级画质
+     */
+    public static final int HEADROOM_PERCENT = 60;
+
+    private final long budgetNanos;
+    private final long[] window;
+
+    private int windowCount;
+    private int windowIndex;
+    private long windowSum;
+    private int ceiling = FilterMode.FILTER_BOX;
+    private int preferred = FilterMode.FILTER_BOX;
+    private long geometry = -1;
+
+    private final long[] modeCounts = new long[FilterMode.FILTER_BOX + 1];
+    private long downgradeCount;
+    private long upgradeCount;
+
+    /**
+     * 构造
+     *
+     * @param budgetNanos 每次缩放的耗时预算，单位：纳秒
+     */
+    public AdaptiveScaler(long budgetNanos) {
+        this(budgetNanos, DEFAULT_WINDOW);
+    }
+
+    /**
+     * 构造
+     *
+     * @param budgetNanos 每次缩放的耗时预算，单位：纳秒
+     * @param window      统计窗口大小（次）
+     */
+    public AdaptiveScaler(long budgetNanos, int window) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("budgetNanos must be positive");
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+        this.window = new long[window];
+    }
+
+    /**
+     * I420缩放
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param dstWidth    缩放后的宽度
+     * @param dstHeight   缩放后的高度
+     * @return 返回缩放后的I420数据
+     */
+    @NonNull
+    public byte[] i420Scale(@NonNull byte[] srcI420Data, int width, int height, int dstWidth, int dstHeight) {
+        byte[] dstData = new byte[FourCC.FOURCC_I420.getTotalBppSize(dstWidth, dstHeight)];
+        i420Scale(srcI420Data, width, height, dstData, dstWidth, dstHeight);
+        return dstData;
+    }
+
+    /**
+     * I420缩放（复用目标数组）
+     *
+     * @return 返回本次使用的 {@link FilterMode}
+     */
+    @FilterMode
+    public int i420Scale(@NonNull byte[] srcI420Data, int width, int height, @NonNull byte[] dstData, int dstWidth, int dstHeight) {
+        int filterMode = selectFilterMode(width, height, dstWidth, dstHeight);
+        long start = System.nanoTime();
+        LibYuv.i420Scale(srcI420Data, width, height, dstData, dstWidth, dstHeight, filterMode);
+        record(System.nanoTime() - start);
+        return filterMode;
+    }
+
+    /**
+     * 将指定格式的数据进行缩放（复用目标数组）
+     *
+     * @return 返回本次使用的 {@link FilterMode}
+     */
+    @FilterMode
+    public int scale(@NonNull byte[] srcData, int width, int height, int dstWidth, int dstHeight, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
+        int filterMode = selectFilterMode(width, height, dstWidth, dstHeight);
+        long start = System.nanoTime();
+        LibYuv.scale(srcData, width, height, dstWidth, dstHeight, fourcc, filterMode, dstData);
+        record(System.nanoTime() - start);
+        return filterMode;
+    }
+
+    /**
+     * 按缩放比例得到的最佳画质：缩小到1/2以下时为BOX，否则为BILINEAR
+     */
+    @FilterMode
+    static int preferredFilterMode(int width, int height, int dstWidth, int dstHeight) {
+        if ((long) dstWidth * 2 < width && (long) dstHeight * 2 < height) {
+            return FilterMode.FILTER_BOX;
+        }
+        return FilterMode.FILTER_BILINEAR;
+    }
+
+    /**
+     * 选择本次缩放使用的FilterMode
+     */
+    @FilterMode
+    synchronized int selectFilterMode(int width, int height, int dstWidth, int dstHeight) {
+        long newGeometry = ((long) width << 48) ^ ((long) height << 32) ^ ((long) dstWidth << 16) ^ dstHeight;
+        if (newGeometry != geometry) {
+            geometry = newGeometry;
+            preferred = preferredFilterMode(width, height, dstWidth, dstHeight);
+            clearWindow();
+        }
+        int filterMode = Math.min(preferred, ceiling);
+        modeCounts[filterMode]++;
+        return filterMode;
+    }
+
+    /**
+     * 记录一次缩放耗时，窗口满后按平均耗时调整画质上限
+     */
+    synchronized void record(long nanos) {
+        if (windowCount == window.length) {
+            windowSum -= window[windowIndex];
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = nanos;
+        windowSum += nanos;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (windowCount < window.length) {
+            return;
+        }
+        long average = windowSum / windowCount;
+        int current = Math.min(preferred, ceiling);
+        if (average > budgetNanos && current > FilterMode.FILTER_NONE) {
+            ceiling = current - 1;
+            downgradeCount++;
+            clearWindow();
+        } else if (average * 100 < budgetNanos * HEADROOM_PERCENT && ceiling < preferred) {
+            ceiling++;
+            upgradeCount++;
+            clearWindow();
+        }
+    }
+
+    private void clearWindow() {
+        Arrays.fill(window, 0);
+        windowCount = 0;
+        windowIndex = 0;
+        windowSum = 0;
+    }
+
+    /**
+     * 获取当前允许的最高画质
+     *
+     * @return 返回当前允许的最高画质；{@link FilterMode}
+     */
+    @FilterMode
+    public synchronized int getFilterModeCeiling() {
+        return ceiling;
+    }
+
+    /**
+     * 重置画质上限与统计信息
+     */
+    public synchronized void reset() {
+        ceiling = FilterMode.FILTER_BOX;
+        preferred = FilterMode.FILTER_BOX;
+        geometry = -1;
+        clearWindow();
+        Arrays.fill(modeCounts, 0);
+        downgradeCount = 0;
+        upgradeCount = 0;
+    }
+
+    /**
+     * 获取统计信息
+     *
+     * @return 返回统计信息
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(modeCounts.clone(), downgradeCount, upgradeCount, ceiling,
+                windowCount == 0 ? 0 : windowSum / windowCount);
+    }
+
+    /**
+     * 自适应缩放统计信息
+     */
+    public static final class Stats {
+
+        private final long[] modeCounts;
+        private final long downgradeCount;
+        private final long upgradeCount;
+        private final int filterModeCeiling;
+        private final long averageNanos;
+
+        Stats(long[] modeCounts, long downgradeCount, long upgradeCount, int filterModeCeiling, long averageNanos) {
+            this.modeCounts = modeCounts;
+            this.downgradeCount = downgradeCount;
+            this.upgradeCount = upgradeCount;
+            this.filterModeCeiling = filterModeCeiling;
+            this.averageNanos = averageNanos;
+        }
+
+        /**
+         * 获取使用指定FilterMode的次数
+         *
+         * @param filterMode {@link FilterMode}
+         * @return 返回使用次数
+         */
+        public long getModeCount(@FilterMode int filterMode) {
+            return modeCounts[filterMode];
+        }
+
+        /**
+         * 获取降低画质的次数
+         *
+         * @return 返回降低画质的次数
+         */
+        public long getDowngradeCount() {
+            return downgradeCount;
+        }
+
+        /**
+         * 获取恢复画质的次数
+         *
+         * @return 返回恢复画质的次数
+         */
+        public long getUpgradeCount() {
+            return upgradeCount;
+        }
+
+        /**
+         * 获取当前允许的最高画质
+         *
+         * @return 返回当前允许的最高画质；{@link FilterMode}
+         */
+        @FilterMode
+        public int getFilterModeCeiling() {
+            return filterModeCeiling;
+        }
+
+        /**
+         * 获取当前窗口内的平均耗时
+         *
+         * @return 返回平均耗时，单位：纳秒
+         */
+        public long getAverageNanos() {
+            return averageNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "none=" + modeCounts[FilterMode.FILTER_NONE] +
+                    ", linear=" + modeCounts[FilterMode.FILTER_LINEAR] +
+                    ", bilinear=" + modeCounts[FilterMode.FILTER_BILINEAR] +
+                    ", box=" + modeCounts[FilterMode.FILTER_BOX] +
+                    ", downgradeCount=" + downgradeCount +
+                    ", upgradeCount=" + upgradeCount +
+                    ", filterModeCeiling=" + filterModeCeiling +
+                    ", averageNanos=" + averageNanos +
+                    '}';
+        }
+    }
+}
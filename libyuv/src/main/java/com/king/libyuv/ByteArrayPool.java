@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 字节数组池：按精确大小复用byte[]，避免每帧重复分配相同尺寸的数组。
+ * <p>
+ * 同一尺寸的数组会放入同一个桶中；池中缓存的总字节数超过上限时，归还的数组将直接丢弃交给GC回收。
+ * 池中缓存的数组计入 {@link MemoryGovernor} 的预算，预算紧张时会被裁减。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class ByteArrayPool {
+
+    /**
+     * 默认池缓存上限：32MB
+     */
+    public static final long DEFAULT_MAX_POOLED_BYTES = 32L * 1024 * 1024;
+
+    private static final ByteArrayPool DEFAULT = new ByteArrayPool(DEFAULT_MAX_POOLED_BYTES);
+
+    private final Map<Integer, ArrayDeque<byte[]>> buckets = new HashMap<>();
+    private final MemoryGovernor.Consumer consumer = new MemoryGovernor.Consumer() {
+        @Override
+        public long getRetainedBytes() {
+            return getPooledBytes();
+        }
+
+        @Override
+        public void trim(long targetBytes) {
+            trimToSize(targetBytes);
+        }
+    };
+
+    private final MemoryGovernor.Account account;
+
+    private long maxPooledBytes;
+    private long pooledBytes;
+
+    /**
+     * 构造
+     *
+     * @param maxPooledBytes 池中最多缓存的字节数
+     */
+    public ByteArrayPool(long maxPooledBytes) {
+        account = MemoryGovernor.getDefault().register("ByteArrayPool@" + Integer.toHexString(System.identityHashCode(this)), consumer);
+        setMaxPooledBytes(maxPooledBytes);
+    }
+
+    /**
+     * 获取默认的共享池
+     *
+     * @return 返回默认的共享池
+     */
+    @NonNull
+    public static ByteArrayPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 获取一个长度为size的数组；池中有可复用的数组时直接返回，否则新分配
+     * <p>
+     * 注意：复用返回的数组内容是未定义的（保留了上一次使用的数据）。
+     *
+     * @param size 数组长度
+     * @return 返回长度为size的数组
+     */
+    @NonNull
+    public byte[] acquire(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be non-negative");
+        }
+        synchronized (this) {
+            ArrayDeque<byte[]> bucket = buckets.get(size);
+            if (bucket != null) {
+                byte[] data = bucket.pollLast();
+                if (data != null) {
+                    pooledBytes -= size;
+                    account.release(size);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(size);
+                    }
+                    return data;
+                }
+            }
+        }
+        return new byte[size];
+    }
+
+    /**
+     * 归还数组到池中；归还后调用方不应再使用该数组。超出池的上限或 {@link MemoryGovernor} 的预算时直接丢弃
+     *
+     * @param data 需要归还的数组
+     */
+    public void release(@NonNull byte[] data) {
+        if (data == null) {
+            return;
+        }
+        int size = data.length;
+        synchronized (this) {
+            if (pooledBytes + size > maxPooledBytes) {
+                return;
+            }
+        }
+        // 在池的锁外申请预算，申请时可能会裁减其他池或缓存
+        if (!account.reserve(size)) {
+            return;
+        }
+        synchronized (this) {
+            if (pooledBytes + size > maxPooledBytes) {
+                account.release(size);
+                return;
+            }
+            ArrayDeque<byte[]> bucket = buckets.get(size);
+            if (bucket == null) {
+                bucket = new ArrayDeque<>();
+                buckets.put(size, bucket);
+            }
+            bucket.addLast(data);
+            pooledBytes += size;
+        }
+    }
+
+    /**
+     * 设置池中最多缓存的字节数；若当前缓存已超出上限，则会立即清空
+     *
+     * @param maxPooledBytes 池中最多缓存的字节数
+     */
+    public synchronized void setMaxPooledBytes(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("maxPooledBytes must be non-negative");
+        }
+        this.maxPooledBytes = maxPooledBytes;
+        if (pooledBytes > maxPooledBytes) {
+            clear();
+        }
+    }
+
+    /**
+     * 获取池中最多缓存的字节数
+     *
+     * @return 返回池中最多缓存的字节数
+     */
+    public synchronized long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    /**
+     * 获取池中当前缓存的字节数
+     *
+     * @return 返回池中当前缓存的字节数
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * 丢弃池中的数组，直到缓存的字节数不超过targetBytes
+     */
+    private synchronized void trimToSize(long targetBytes) {
+        Iterator<ArrayDeque<byte[]>> iterator = buckets.values().iterator();
+        while (pooledBytes > targetBytes && iterator.hasNext()) {
+            ArrayDeque<byte[]> bucket = iterator.next();
+            while (pooledBytes > targetBytes && !bucket.isEmpty()) {
+                int size = bucket.pollLast().length;
+                pooledBytes -= size;
+                account.release(size);
+            }
+            if (bucket.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 清空池
+     */
+    public synchronized void clear() {
+        buckets.clear();
+        account.release(pooledBytes);
+        pooledBytes = 0;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 画面变化检测：将每一帧的亮度缩小到分析尺寸后，与参考帧按区块计算libyuv的差值平方和（ComputeSumSquareErrorPlane），
+ * 得到全局的均方误差（MSE）/PSNR以及每个区块的变化情况；画面没有变化时可以跳过或降级后续的转换与推理。
+ * <p>
+ * 参考帧与当前帧的缩小结果保存在两块复用的堆外内存（direct ByteBuffer）中，更新参考帧时只交换两者，稳态下不再有任何内存分配。
+ * 源尺寸变化时会丢弃参考帧，下一帧重新作为参考。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class ChangeDetector {
+
+    /**
+     * 默认的分析宽度
+     */
+    public static final int DEFAULT_ANALYSIS_WIDTH = 160;
+    /**
+     * 默认的分析高度
+     */
+    public static final int DEFAULT_ANALYSIS_HEIGHT = 90;
+    /**
+     * 默认的区块列数
+     */
+    public static final int DEFAULT_TILE_COLS = 8;
+    /**
+     * 默认的区块行数
+     */
+    public static final int DEFAULT_TILE_ROWS = 6;
+
+    /**
+     * 与libyuv一致：两帧完全相同时的PSNR
+     */
+    public static final double MAX_PSNR = 128.0;
+
+    private final int analysisWidth;
+    private final int analysisHeight;
+    private final int tileCols;
+    private final int tileRows;
+    private final long[] tileSse;
+
+    private ByteBuffer reference;
+    private ByteBuffer current;
+    private boolean hasReference;
+    private int sourceWidth;
+    private int sourceHeight;
+
+    /**
+     * 构造：使用默认的分析尺寸（160x90）与区块划分（8x6）
+     */
+    public ChangeDetector() {
+        this(DEFAULT_ANALYSIS_WIDTH, DEFAULT_ANALYSIS_HEIGHT, DEFAULT_TILE_COLS, DEFAULT_TILE_ROWS);
+    }
+
+    /**
+     * 构造
+     *
+     * @param analysisWidth  分析宽度：亮度缩小后的宽度
+     * @param analysisHeight 分析高度：亮度缩小后的高度
+     * @param tileCols       区块列数
+     * @param tileRows       区块行数
+     */
+    public ChangeDetector(int analysisWidth, int analysisHeight, int tileCols, int tileRows) {
+        LibYuv.checkDimensions(analysisWidth, analysisHeight);
+        if (tileCols <= 0 || tileRows <= 0) {
+            throw new IllegalArgumentException("tileCols and tileRows must be positive");
+        }
+        if (tileCols > analysisWidth || tileRows > analysisHeight) {
+            throw new IllegalArgumentException("tileCols and tileRows must not exceed the analysis size");
+        }
+        this.analysisWidth = analysisWidth;
+        this.analysisHeight = analysisHeight;
+        this.tileCols = tileCols;
+        this.tileRows = tileRows;
+        this.tileSse = new long[tileCols * tileRows];
+        this.reference = ByteBuffer.allocateDirect(analysisWidth * analysisHeight);
+        this.current = ByteBuffer.allocateDirect(analysisWidth * analysisHeight);
+    }
+
+    /**
+     * 与参考帧比较，并将当前帧作为下一帧的参考（即检测相邻两帧之间的变化）
+     *
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @return 返回检测结果
+     */
+    @NonNull
+    public Result detect(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc) {
+        return detect(data, width, height, fourcc, true);
+    }
+
+    /**
+     * 与参考帧比较
+     * <p>
+     * 支持 I400/I420/YV12/I422/YV16/I444/YV24 以及 NV12/NV21；只比较亮度
+     *
+     * @param data            图像数据
+     * @param width           图像宽度
+     * @param height          图像高度
+     * @param fourcc          指定数据格式；{@link FourCC}
+     * @param updateReference 是否将当前帧作为新的参考帧；为false时始终与之前保留的参考帧（例如静止背景）比较
+     * @return 返回检测结果
+     */
+    @NonNull
+    public synchronized Result detect(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, boolean updateReference) {
+        LibYuv.checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        if (!LibYuv.hasLumaPlane(fourcc)) {
+            throw new IllegalArgumentException("unsupported fourcc for change detection: " + fourcc);
+        }
+        LibYuv.checkArraySize(data, width * height, "data");
+        boolean compare = prepare(width, height);
+        long traceStart = YuvTrace.begin();
+        LibYuv.DetectChange(data, width, width, height, reference, current, analysisWidth, analysisHeight, tileCols, tileRows, compare, tileSse);
+        record(traceStart, data, fourcc, width, height);
+        return finish(compare, updateReference);
+    }
+
+    /**
+     * 与参考帧比较：直接读取Image的Y平面（支持 YUV_420_888/YUV_422_888/YUV_444_888）
+     *
+     * @param image           图像
+     * @param updateReference 是否将当前帧作为新的参考帧；为false时始终与之前保留的参考帧（例如静止背景）比较
+     * @return 返回检测结果
+     */
+    @NonNull
+    public synchronized Result detect(@NonNull Image image, boolean updateReference) {
+        Objects.requireNonNull(image, "image is null");
+        int format = image.getFormat();
+        if (format != ImageFormat.YUV_420_888 && format != ImageFormat.YUV_422_888 && format != ImageFormat.YUV_444_888) {
+            throw new IllegalArgumentException("unsupported image format for change detection: " + format);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Image.Plane[] planes = image.getPlanes();
+        if (planes == null || planes.length < 1) {
+            throw new IllegalArgumentException("image must contain at least 1 plane");
+        }
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        boolean compare = prepare(width, height);
+        if (plane.getPixelStride() != 1 || !buffer.isDirect()) {
+            // 非紧凑像素排列时，退回到先读取数据再检测
+            byte[] lumaData = LibYuv.readPlaneBytes(plane, width, height);
+            long traceStart = YuvTrace.begin();
+            LibYuv.DetectChange(lumaData, width, width, height, reference, current, analysisWidth, analysisHeight, tileCols, tileRows, compare, tileSse);
+            record(traceStart, lumaData, FourCC.FOURCC_I400, width, height);
+            return finish(compare, updateReference);
+        }
+        int rowStride = plane.getRowStride();
+        if (rowStride <= 0) {
+            throw new IllegalArgumentException("image plane rowStride must be positive");
+        }
+        LibYuv.checkBufferCapacity(buffer, rowStride * (height - 1) + width, "image plane buffer is too small");
+        long traceStart = YuvTrace.begin();
+        LibYuv.BufferDetectChange(buffer, rowStride, width, height, reference, current, analysisWidth, analysisHeight, tileCols, tileRows, compare, tileSse);
+        record(traceStart, null, FourCC.FOURCC_I400, width, height);
+        return finish(compare, updateReference);
+    }
+
+    /**
+     * 记录一次检测：分析尺寸记录为目标尺寸，区块划分记录为附加参数（列数 << 16 | 行数）
+     */
+    private void record(long traceStart, @Nullable byte[] data, @NonNull FourCC fourcc, int width, int height) {
+        YuvTrace.record(traceStart, YuvTrace.OP_DETECT_CHANGE, data, fourcc, FourCC.FOURCC_I400, width, height, 0, 0, width, height,
+                RotationMode.ROTATE_0, analysisWidth, analysisHeight, FilterMode.FILTER_NONE, tileCols << 16 | tileRows);
+    }
+
+    /**
+     * 源尺寸变化时丢弃参考帧；返回本帧是否需要与参考帧比较
+     */
+    private boolean prepare(int width, int height) {
+        if (width != sourceWidth || height != sourceHeight) {
+            sourceWidth = width;
+            sourceHeight = height;
+            hasReference = false;
+        }
+        return hasReference;
+    }
+
+    private Result finish(boolean compared, boolean updateReference) {
+        if (!hasReference || updateReference) {
+            ByteBuffer previous = reference;
+            reference = current;
+            current = previous;
+            hasReference = true;
+        }
+        if (!compared) {
+            return new Result(analysisWidth, analysisHeight, tileCols, tileRows, null);
+        }
+        return new Result(analysisWidth, analysisHeight, tileCols, tileRows, tileSse.clone());
+    }
+
+    /**
+     * 丢弃参考帧，下一帧将作为新的参考
+     */
+    public synchronized void reset() {
+        hasReference = false;
+        sourceWidth = 0;
+        sourceHeight = 0;
+    }
+
+    /**
+     * 获取分析宽度
+     *
+     * @return 返回分析宽度
+     */
+    public int getAnalysisWidth() {
+        return analysisWidth;
+    }
+
+    /**
+     * 获取分析高度
+     *
+     * @return 返回分析高度
+     */
+    public int getAnalysisHeight() {
+        return analysisHeight;
+    }
+
+    /**
+     * 变化检测结果
+     */
+    public static final class Result {
+
+        private final int analysisWidth;
+        private final int analysisHeight;
+        private final int tileCols;
+        private final int tileRows;
+        /**
+         * 为null时表示没有参考帧（第一帧或源尺寸变化后的第一帧）
+         */
+        private final long[] tileSse;
+        private final long totalSse;
+
+        Result(int analysisWidth, int analysisHeight, int tileCols, int tileRows, long[] tileSse) {
+            this.analysisWidth = analysisWidth;
+            this.analysisHeight = analysisHeight;
+            this.tileCols = tileCols;
+            this.tileRows = tileRows;
+            this.tileSse = tileSse;
+            long total = 0;
+            if (tileSse != null) {
+                for (long sse : tileSse) {
+                    total += sse;
+                }
+            }
+            this.totalSse = total;
+        }
+
+        /**
+         * 是否有参考帧；第一帧（或源尺寸变化后的第一帧）没有参考帧，应视为已变化
+         *
+         * @return 有参考帧时返回true
+         */
+        public boolean hasReference() {
+            return tileSse != null;
+        }
+
+        /**
+         * 获取全局的均方误差（MSE），作为全局变化程度
+         *
+         * @return 返回均方误差；没有参考帧时返回0
+         */
+        public double getMse() {
+            return (double) totalSse / ((long) analysisWidth * analysisHeight);
+        }
+
+        /**
+         * 获取全局的PSNR
+         *
+         * @return 返回PSNR，单位：dB；两帧相同或没有参考帧时返回 {@link #MAX_PSNR}
+         */
+        public double getPsnr() {
+            return toPsnr(getMse());
+        }
+
+        /**
+         * 全局均方误差是否超过阈值；没有参考帧时始终返回true
+         *
+         * @param mseThreshold 均方误差阈值
+         * @return 超过阈值时返回true
+         */
+        public boolean isChanged(double mseThreshold) {
+            return tileSse == null || getMse() > mseThreshold;
+        }
+
+        /**
+         * 获取区块列数
+         *
+         * @return 返回区块列数
+         */
+        public int getTileCols() {
+            return tileCols;
+        }
+
+        /**
+         * 获取区块行数
+         *
+         * @return 返回区块行数
+         */
+        public int getTileRows() {
+            return tileRows;
+        }
+
+        /**
+         * 获取指定区块的均方误差
+         *
+         * @param col 区块所在列
+         * @param row 区块所在行
+         * @return 返回均方误差；没有参考帧时返回0
+         */
+        public double getTileMse(int col, int row) {
+            if (col < 0 || col >= tileCols || row < 0 || row >= tileRows) {
+                throw new IndexOutOfBoundsException("tile out of bounds: " + col + ", " + row);
+            }
+            if (tileSse == null) {
+                return 0;
+            }
+            int tileWidth = (int) ((long) (col + 1) * analysisWidth / tileCols) - (int) ((long) col * analysisWidth / tileCols);
+            int tileHeight = (int) ((long) (row + 1) * analysisHeight / tileRows) - (int) ((long) row * analysisHeight / tileRows);
+            return (double) tileSse[row * tileCols + col] / ((long) tileWidth * tileHeight);
+        }
+
+        /**
+         * 指定区块的均方误差是否超过阈值；没有参考帧时始终返回true
+         *
+         * @param col          区块所在列
+         * @param row          区块所在行
+         * @param mseThreshold 均方误差阈值
+         * @return 超过阈值时返回true
+         */
+        public boolean isTileChanged(int col, int row, double mseThreshold) {
+            return tileSse == null || getTileMse(col, row) > mseThreshold;
+        }
+
+        /**
+         * 获取变化区块图
+         *
+         * @param mseThreshold 均方误差阈值
+         * @return 返回按行优先排列的变化区块图，长度为 tileCols * tileRows
+         */
+        @NonNull
+        public boolean[] getChangeMap(double mseThreshold) {
+            boolean[] changeMap = new boolean[tileCols * tileRows];
+            for (int row = 0; row < tileRows; row++) {
+                for (int col = 0; col < tileCols; col++) {
+                    changeMap[row * tileCols + col] = isTileChanged(col, row, mseThreshold);
+                }
+            }
+            return changeMap;
+        }
+
+        /**
+         * 获取均方误差超过阈值的区块数
+         *
+         * @param mseThreshold 均方误差阈值
+         * @return 返回变化的区块数
+         */
+        public int getChangedTileCount(double mseThreshold) {
+            int count = 0;
+            for (boolean changed : getChangeMap(mseThreshold)) {
+                if (changed) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        static double toPsnr(double mse) {
+            if (mse <= 0) {
+                return MAX_PSNR;
+            }
+            return Math.min(MAX_PSNR, 10.0 * Math.log10(255.0 * 255.0 / mse));
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "hasReference=" + hasReference() +
+                    ", mse=" + getMse() +
+                    ", psnr=" + getPsnr() +
+                    ", tiles=" + tileCols + 'x' + tileRows +
+                    '}';
+        }
+    }
+}
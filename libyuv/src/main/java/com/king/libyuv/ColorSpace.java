@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import androidx.annotation.IntDef;
+
+/**
+ * YUV与RGB相互转换时使用的色彩空间（颜色矩阵与取值范围）。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+@IntDef({
+        ColorSpace.BT601,
+        ColorSpace.BT601_FULL,
+        ColorSpace.BT709,
+        ColorSpace.BT709_FULL,
+        ColorSpace.BT2020,
+        ColorSpace.BT2020_FULL,
+})
+@Retention(RetentionPolicy.SOURCE)
+public @interface ColorSpace {
+    /**
+     * BT.601 limited range; libyuv default.
+     */
+    int BT601 = 0;
+    /**
+     * BT.601 full range (JPEG).
+     */
+    int BT601_FULL = 1;
+    /**
+     * BT.709 limited range; HD video.
+     */
+    int BT709 = 2;
+    /**
+     * BT.709 full range.
+     */
+    int BT709_FULL = 3;
+    /**
+     * BT.2020 limited range; UHD video.
+     */
+    int BT2020 = 4;
+    /**
+     * BT.2020 full range.
+     */
+    int BT2020_FULL = 5;
+}
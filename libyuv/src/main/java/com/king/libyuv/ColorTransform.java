@@ -0,0 +1,424 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 调色（滤镜）：预先编译好的查表、颜色矩阵、伽马等变换，每帧只需一次native调用原地执行，可以在多帧之间复用。
+ * <p>
+ * 对4字节packed RGB（ARGB/ABGR/BGRA/RGBA），变换按添加顺序执行：相邻的逐通道变换（查表、多项式、伽马）合并为一张表（libyuv的ARGBColorTable），
+ * 相邻的颜色矩阵相乘合并为一个矩阵（libyuv的ARGBColorMatrix）；图像按行分段，每一段在缓存中依次执行所有阶段。
+ * <p>
+ * 对YUV（I400/I420/NV12/NV21），使用按平面的查表：{@link Builder#lumaTable(byte[])}、{@link Builder#chromaTables(byte[], byte[])}；
+ * {@link Builder#gamma(float)} 同时作用于RGB通道和亮度。仅packed RGB与仅YUV的变换不能添加到同一个 {@link ColorTransform}。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class ColorTransform {
+
+    static final int STAGE_TABLE = 0;
+    static final int STAGE_MATRIX = 1;
+
+    private static final int TABLE_SIZE = 256;
+    /**
+     * 通道顺序：R、G、B、A
+     */
+    private static final int CHANNELS = 4;
+
+    /**
+     * 各格式中 R、G、B、A 在内存中的字节位置，顺序与 {@link #getPackedIndex(FourCC)} 一致
+     */
+    private static final int[][] CHANNEL_POSITIONS = {
+            {2, 1, 0, 3},
+            {0, 1, 2, 3},
+            {1, 2, 3, 0},
+            {3, 2, 1, 0},
+    };
+
+    private final int[] stageKinds;
+    /**
+     * 查表阶段为 byte[4][256]，矩阵阶段为 float[16]（行为输出通道，列为输入通道）
+     */
+    private final Object[] stages;
+    private final boolean rgbOnly;
+    private final boolean yuvOnly;
+    @Nullable
+    private final byte[] yTable;
+    @Nullable
+    private final byte[] uTable;
+    @Nullable
+    private final byte[] vTable;
+    /**
+     * 按 ARGB、ABGR、BGRA、RGBA 缓存的native阶段数据
+     */
+    private final byte[][] stageData = new byte[4][];
+
+    private ColorTransform(@NonNull Builder builder) {
+        int count = builder.stages.size();
+        this.stageKinds = new int[count];
+        this.stages = new Object[count];
+        for (int i = 0; i < count; i++) {
+            Object stage = builder.stages.get(i);
+            stageKinds[i] = stage instanceof float[] ? STAGE_MATRIX : STAGE_TABLE;
+            stages[i] = stage;
+        }
+        this.rgbOnly = builder.rgbOnly;
+        this.yuvOnly = builder.yuvOnly;
+        this.yTable = builder.yTable;
+        this.uTable = builder.uTable;
+        this.vTable = builder.vTable;
+    }
+
+    /**
+     * 原地执行变换
+     *
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式：4字节packed RGB或 I400/I420/NV12/NV21；{@link FourCC}
+     */
+    public void apply(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc) {
+        LibYuv.checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        switch (fourcc) {
+            case FOURCC_ARGB:
+            case FOURCC_ABGR:
+            case FOURCC_BGRA:
+            case FOURCC_RGBA:
+                if (yuvOnly) {
+                    throw new IllegalArgumentException("luma and chroma tables only apply to YUV: " + fourcc);
+                }
+                LibYuv.checkArraySize(data, width * height * 4, "data");
+                if (stageKinds.length > 0) {
+                    LibYuv.ApplyColorStages(data, width * 4, width, height, stageKinds, stageKinds.length, getStageData(fourcc));
+                }
+                break;
+            case FOURCC_I400:
+            case FOURCC_I420:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+                if (rgbOnly) {
+                    throw new IllegalArgumentException("channel tables and color matrices only apply to packed RGB: " + fourcc);
+                }
+                LibYuv.checkArraySize(data, fourcc.getTotalBppSize(width, height), "data");
+                if (yTable != null || uTable != null || vTable != null) {
+                    LibYuv.ApplyPlaneTables(data, width, height, fourcc.getCode(), yTable, uTable, vTable);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported fourcc for color transform: " + fourcc);
+        }
+    }
+
+    /**
+     * 获取native阶段数据：查表阶段为1024字节，矩阵阶段为16个int8，均按该格式在内存中的字节位置排列
+     */
+    @NonNull
+    synchronized byte[] getStageData(@NonNull FourCC fourcc) {
+        int index = getPackedIndex(fourcc);
+        byte[] data = stageData[index];
+        if (data != null) {
+            return data;
+        }
+        int[] positions = CHANNEL_POSITIONS[index];
+        int size = 0;
+        for (int kind : stageKinds) {
+            size += kind == STAGE_MATRIX ? CHANNELS * CHANNELS : TABLE_SIZE * CHANNELS;
+        }
+        data = new byte[size];
+        int offset = 0;
+        for (int i = 0; i < stages.length; i++) {
+            if (stageKinds[i] == STAGE_MATRIX) {
+                float[] matrix = (float[]) stages[i];
+                for (int out = 0; out < CHANNELS; out++) {
+                    for (int in = 0; in < CHANNELS; in++) {
+                        data[offset + positions[out] * CHANNELS + positions[in]] = (byte) Math.round(matrix[out * CHANNELS + in] * 64f);
+                    }
+                }
+                offset += CHANNELS * CHANNELS;
+            } else {
+                byte[][] tables = (byte[][]) stages[i];
+                for (int value = 0; value < TABLE_SIZE; value++) {
+                    for (int channel = 0; channel < CHANNELS; channel++) {
+                        data[offset + value * CHANNELS + positions[channel]] = tables[channel][value];
+                    }
+                }
+                offset += TABLE_SIZE * CHANNELS;
+            }
+        }
+        stageData[index] = data;
+        return data;
+    }
+
+    private static int getPackedIndex(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_ARGB:
+                return 0;
+            case FOURCC_ABGR:
+                return 1;
+            case FOURCC_BGRA:
+                return 2;
+            case FOURCC_RGBA:
+                return 3;
+            default:
+                throw new IllegalArgumentException("unsupported fourcc for color transform: " + fourcc);
+        }
+    }
+
+    /**
+     * 构建 {@link ColorTransform}：变换按调用顺序执行
+     */
+    public static final class Builder {
+
+        private final List<Object> stages = new ArrayList<>();
+        private boolean rgbOnly;
+        private boolean yuvOnly;
+        @Nullable
+        private byte[] yTable;
+        @Nullable
+        private byte[] uTable;
+        @Nullable
+        private byte[] vTable;
+
+        /**
+         * 逐通道查表（仅packed RGB）
+         *
+         * @param red   红色通道的查表，长度为256；为null时不变
+         * @param green 绿色通道的查表，长度为256；为null时不变
+         * @param blue  蓝色通道的查表，长度为256；为null时不变
+         * @param alpha 透明通道的查表，长度为256；为null时不变
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder channelTables(@Nullable byte[] red, @Nullable byte[] green, @Nullable byte[] blue, @Nullable byte[] alpha) {
+            byte[][] tables = {red, green, blue, alpha};
+            for (byte[] table : tables) {
+                checkTable(table);
+            }
+            rgbOnly = true;
+            appendTables(tables);
+            return this;
+        }
+
+        /**
+         * 逐通道多项式（仅packed RGB）：新值 = C0 + C1 * v + C2 * v^2 + C3 * v^3，结果截断到 0~255；
+         * 与libyuv的ARGBPolynomial相同，由于是逐通道变换，会预先计算为查表
+         *
+         * @param coefficients 长度为16：依次为C0、C1、C2、C3，每一项按 R、G、B、A 排列
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder polynomial(@NonNull float[] coefficients) {
+            Objects.requireNonNull(coefficients, "coefficients is null");
+            if (coefficients.length != 16) {
+                throw new IllegalArgumentException("coefficients length must be 16");
+            }
+            byte[][] tables = new byte[CHANNELS][TABLE_SIZE];
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                for (int value = 0; value < TABLE_SIZE; value++) {
+                    float v = value;
+                    float result = coefficients[channel] + coefficients[4 + channel] * v
+                            + coefficients[8 + channel] * v * v + coefficients[12 + channel] * v * v * v;
+                    tables[channel][value] = (byte) clamp((int) result);
+                }
+            }
+            rgbOnly = true;
+            appendTables(tables);
+            return this;
+        }
+
+        /**
+         * 伽马：新值 = 255 * (v / 255)^gamma；gamma小于1时提亮，大于1时压暗。作用于 R、G、B 通道以及YUV的亮度，不改变透明通道和色度
+         *
+         * @param gamma 伽马值，必须为正数
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder gamma(float gamma) {
+            if (!(gamma > 0f) || Float.isInfinite(gamma)) {
+                throw new IllegalArgumentException("gamma must be positive");
+            }
+            byte[] table = new byte[TABLE_SIZE];
+            for (int value = 0; value < TABLE_SIZE; value++) {
+                table[value] = (byte) clamp((int) Math.round(255.0 * Math.pow(value / 255.0, gamma)));
+            }
+            appendTables(new byte[][]{table, table, table, null});
+            yTable = composeTable(yTable, table);
+            return this;
+        }
+
+        /**
+         * 颜色矩阵（仅packed RGB）：与libyuv的ARGBColorMatrix相同，不含偏移量，系数精度为1/64；
+         * 相邻的矩阵会相乘合并，合并后的系数必须在 -2 ~ 1.98 之间
+         *
+         * @param matrix 长度为16的4x4矩阵，行优先；行为输出的 R、G、B、A，列为输入的 R、G、B、A
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder colorMatrix(@NonNull float[] matrix) {
+            Objects.requireNonNull(matrix, "matrix is null");
+            if (matrix.length != CHANNELS * CHANNELS) {
+                throw new IllegalArgumentException("matrix length must be 16");
+            }
+            rgbOnly = true;
+            int last = stages.size() - 1;
+            if (last >= 0 && stages.get(last) instanceof float[]) {
+                stages.set(last, multiply(matrix, (float[]) stages.get(last)));
+            } else {
+                stages.add(matrix.clone());
+            }
+            return this;
+        }
+
+        /**
+         * 怀旧（仅packed RGB）：以颜色矩阵的方式近似libyuv的ARGBSepia；
+         * 颜色矩阵的系数精度为1/64，ARGBSepia中的45、35、17（/128）换算后为半步，会被取整，因此结果只是近似，与ARGBSepia略有差异
+         *
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder sepia() {
+            return colorMatrix(new float[]{
+                    50f / 128, 98f / 128, 24f / 128, 0f,
+                    45f / 128, 88f / 128, 22f / 128, 0f,
+                    35f / 128, 68f / 128, 17f / 128, 0f,
+                    0f, 0f, 0f, 1f,
+            });
+        }
+
+        /**
+         * 亮度查表（仅YUV）
+         *
+         * @param table 长度为256的查表：新亮度 = table[旧亮度]
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder lumaTable(@NonNull byte[] table) {
+            Objects.requireNonNull(table, "table is null");
+            checkTable(table);
+            yuvOnly = true;
+            yTable = composeTable(yTable, table);
+            return this;
+        }
+
+        /**
+         * 色度查表（仅YUV）
+         *
+         * @param u U平面的查表，长度为256；为null时不变
+         * @param v V平面的查表，长度为256；为null时不变
+         * @return 返回Builder
+         */
+        @NonNull
+        public Builder chromaTables(@Nullable byte[] u, @Nullable byte[] v) {
+            checkTable(u);
+            checkTable(v);
+            yuvOnly = true;
+            if (u != null) {
+                uTable = composeTable(uTable, u);
+            }
+            if (v != null) {
+                vTable = composeTable(vTable, v);
+            }
+            return this;
+        }
+
+        /**
+         * 构建：同时添加了仅packed RGB和仅YUV的变换时抛出IllegalArgumentException
+         *
+         * @return 返回 {@link ColorTransform}
+         */
+        @NonNull
+        public ColorTransform build() {
+            if (rgbOnly && yuvOnly) {
+                throw new IllegalArgumentException("channel tables, polynomials and color matrices (packed RGB only) cannot be combined with luma or chroma tables (YUV only)");
+            }
+            for (Object stage : stages) {
+                if (stage instanceof float[]) {
+                    for (float value : (float[]) stage) {
+                        int fixed = Math.round(value * 64f);
+                        if (fixed < Byte.MIN_VALUE || fixed > Byte.MAX_VALUE) {
+                            throw new IllegalArgumentException("color matrix coefficient out of range: " + value);
+                        }
+                    }
+                }
+            }
+            return new ColorTransform(this);
+        }
+
+        private void appendTables(@NonNull byte[][] tables) {
+            int last = stages.size() - 1;
+            byte[][] previous = last >= 0 && stages.get(last) instanceof byte[][] ? (byte[][]) stages.get(last) : null;
+            byte[][] composed = new byte[CHANNELS][];
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                composed[channel] = composeTable(previous != null ? previous[channel] : null, tables[channel]);
+            }
+            if (previous != null) {
+                stages.set(last, composed);
+            } else {
+                stages.add(composed);
+            }
+        }
+
+        private static void checkTable(@Nullable byte[] table) {
+            if (table != null && table.length != TABLE_SIZE) {
+                throw new IllegalArgumentException("table length must be 256");
+            }
+        }
+    }
+
+    /**
+     * 合并两张表：先查first再查second；为null表示不变
+     */
+    @NonNull
+    static byte[] composeTable(@Nullable byte[] first, @Nullable byte[] second) {
+        byte[] table = new byte[TABLE_SIZE];
+        for (int value = 0; value < TABLE_SIZE; value++) {
+            int mapped = first != null ? first[value] & 0xFF : value;
+            table[value] = second != null ? second[mapped] : (byte) mapped;
+        }
+        return table;
+    }
+
+    /**
+     * 矩阵相乘：返回 a * b，即先执行b再执行a
+     */
+    @NonNull
+    static float[] multiply(@NonNull float[] a, @NonNull float[] b) {
+        float[] result = new float[CHANNELS * CHANNELS];
+        for (int row = 0; row < CHANNELS; row++) {
+            for (int col = 0; col < CHANNELS; col++) {
+                float sum = 0f;
+                for (int k = 0; k < CHANNELS; k++) {
+                    sum += a[row * CHANNELS + k] * b[k * CHANNELS + col];
+                }
+                result[row * CHANNELS + col] = sum;
+            }
+        }
+        return result;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 转换结果缓存：以源数据的libyuv HashDjb2哈希、源数据长度以及操作参数作为键，缓存转换结果，
+ * 重复转换同一帧（例如相册、缩略图）时只需一次哈希遍历和一次拷贝。
+ * <p>
+ * 按字节数限制容量，超出时按最近最少使用（LRU）淘汰；可选择将结果存放在堆外内存（direct ByteBuffer）中，减少Java堆占用。
+ * 缓存的结果计入 {@link MemoryGovernor} 的预算，预算紧张时同样按LRU淘汰。
+ * <p>
+ * 注意：HashDjb2是32位哈希，不同的源数据在长度与操作参数都相同时仍有极小的概率发生碰撞；对正确性要求严格的场景不建议使用。
+ * 返回的数组是缓存结果的拷贝，调用方可以随意修改。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class ConversionCache {
+
+    /**
+     * libyuv HashDjb2的默认种子
+     */
+    private static final long HASH_SEED = 5381;
+
+    /**
+     * 转换操作：缓存未命中时调用
+     */
+    public interface Converter {
+        /**
+         * 执行转换
+         *
+         * @param srcData 源数据
+         * @return 返回转换结果
+         */
+        @NonNull
+        byte[] convert(@NonNull byte[] srcData);
+    }
+
+    private final boolean offHeap;
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final MemoryGovernor.Consumer consumer = new MemoryGovernor.Consumer() {
+        @Override
+        public long getRetainedBytes() {
+            synchronized (ConversionCache.this) {
+                return sizeBytes;
+            }
+        }
+
+        @Override
+        public void trim(long targetBytes) {
+            synchronized (ConversionCache.this) {
+                trimToSize(targetBytes);
+            }
+        }
+    };
+
+    private final MemoryGovernor.Account account;
+
+    private long maxBytes;
+    private long sizeBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * 构造：结果存放在Java堆上
+     *
+     * @param maxBytes 缓存的最大字节数
+     */
+    public ConversionCache(long maxBytes) {
+        this(maxBytes, false);
+    }
+
+    /**
+     * 构造
+     *
+     * @param maxBytes 缓存的最大字节数
+     * @param offHeap  是否将结果存放在堆外内存（direct ByteBuffer）中
+     */
+    public ConversionCache(long maxBytes, boolean offHeap) {
+        this.offHeap = offHeap;
+        account = MemoryGovernor.getDefault().register("ConversionCache@" + Integer.toHexString(System.identityHashCode(this)), consumer);
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * 带缓存的 {@link LibYuv#convert(byte[], int, int, FourCC, FourCC)}
+     */
+    @NonNull
+    public byte[] convert(@NonNull byte[] srcData, int width, int height, @NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        return getOrCompute(srcData, "convert:" + width + 'x' + height + ':' + srcFourcc + "->" + dstFourcc,
+                src -> LibYuv.convert(src, width, height, srcFourcc, dstFourcc));
+    }
+
+    /**
+     * 带缓存的 {@link LibYuv#convertToI420(byte[], int, int, int, FourCC)}
+     */
+    @NonNull
+    public byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        return getOrCompute(srcData, "convertToI420:" + width + 'x' + height + ':' + degrees + ':' + fourcc,
+                src -> LibYuv.convertToI420(src, width, height, degrees, fourcc));
+    }
+
+    /**
+     * 带缓存的 {@link LibYuv#convertFromI420(byte[], int, int, FourCC)}
+     */
+    @NonNull
+    public byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull FourCC fourcc) {
+        return getOrCompute(i420Data, "convertFromI420:" + width + 'x' + height + ':' + fourcc,
+                src -> LibYuv.convertFromI420(src, width, height, fourcc));
+    }
+
+    /**
+     * 带缓存的 {@link LibYuv#scale(byte[], int, int, int, int, FourCC, int)}
+     */
+    @NonNull
+    public byte[] scale(@NonNull byte[] srcData, int width, int height, int dstWidth, int dstHeight, @NonNull FourCC fourcc, @FilterMode int filterMode) {
+        return getOrCompute(srcData, "scale:" + width + 'x' + height + "->" + dstWidth + 'x' + dstHeight + ':' + fourcc + ':' + filterMode,
+                src -> LibYuv.scale(src, width, height, dstWidth, dstHeight, fourcc, filterMode));
+    }
+
+    /**
+     * 带缓存的 {@link LibYuv#rotate(byte[], int, int, int, FourCC)}
+     */
+    @NonNull
+    public byte[] rotate(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        return getOrCompute(srcData, "rotate:" + width + 'x' + height + ':' + degrees + ':' + fourcc,
+                src -> LibYuv.rotate(src, width, height, degrees, fourcc));
+    }
+
+    /**
+     * 获取缓存的转换结果；未命中时调用converter执行转换并缓存结果
+     *
+     * @param srcData   源数据
+     * @param params    操作参数（包括尺寸、格式以及整个变换链），需要正确实现equals与hashCode，例如String
+     * @param converter 转换操作
+     * @return 返回转换结果的拷贝
+     */
+    @NonNull
+    public byte[] getOrCompute(@NonNull byte[] srcData, @NonNull Object params, @NonNull Converter converter) {
+        Objects.requireNonNull(srcData, "srcData is null");
+        return getOrCompute(srcData, LibYuv.HashDjb2(srcData, srcData.length, HASH_SEED), params, converter);
+    }
+
+    @NonNull
+    byte[] getOrCompute(@NonNull byte[] srcData, long hash, @NonNull Object params, @NonNull Converter converter) {
+        Objects.requireNonNull(params, "params is null");
+        Objects.requireNonNull(converter, "converter is null");
+        Key key = new Key(hash, srcData.length, params);
+        synchronized (this) {
+            Object value = entries.get(key);
+            if (value != null) {
+                hitCount++;
+                return copyOf(value);
+            }
+            missCount++;
+        }
+        // 转换在锁外执行；并发的相同请求可能各自转换一次，结果一致
+        byte[] result = converter.convert(srcData);
+        put(key, result);
+        return result;
+    }
+
+    private void put(@NonNull Key key, @NonNull byte[] result) {
+        if (result.length > getMaxBytes()) {
+            return;
+        }
+        // 在缓存的锁外申请预算，申请时可能会按LRU淘汰本缓存或裁减其他使用方；预算用尽时不缓存
+        if (!account.reserve(result.length)) {
+            return;
+        }
+        synchronized (this) {
+            putLocked(key, result);
+        }
+    }
+
+    private void putLocked(@NonNull Key key, @NonNull byte[] result) {
+        if (result.length > maxBytes) {
+            account.release(result.length);
+            return;
+        }
+        Object previous = entries.put(key, offHeap ? toDirectBuffer(result) : result.clone());
+        if (previous != null) {
+            sizeBytes -= sizeOf(previous);
+            account.release(sizeOf(previous));
+        }
+        sizeBytes += result.length;
+        trimToSize(maxBytes);
+    }
+
+    private void trimToSize(long targetBytes) {
+        Iterator<Map.Entry<Key, Object>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > targetBytes && iterator.hasNext()) {
+            long size = sizeOf(iterator.next().getValue());
+            sizeBytes -= size;
+            account.release(size);
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 设置缓存的最大字节数；当前缓存超出上限时立即按LRU淘汰
+     *
+     * @param maxBytes 缓存的最大字节数
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must be non-negative");
+        }
+        this.maxBytes = maxBytes;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 获取缓存的最大字节数
+     *
+     * @return 返回缓存的最大字节数
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 是否将结果存放在堆外内存中
+     *
+     * @return 存放在堆外内存时返回true
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * 清空缓存（不重置统计信息）
+     */
+    public synchronized void clear() {
+        entries.clear();
+        account.release(sizeBytes);
+        sizeBytes = 0;
+    }
+
+    /**
+     * 获取缓存统计信息
+     *
+     * @return 返回缓存统计信息
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, entries.size(), sizeBytes);
+    }
+
+    private static Object toDirectBuffer(@NonNull byte[] data) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        return buffer;
+    }
+
+    private static byte[] copyOf(@NonNull Object value) {
+        if (value instanceof ByteBuffer) {
+            ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+            buffer.clear();
+            byte[] data = new byte[buffer.capacity()];
+            buffer.get(data);
+            return data;
+        }
+        byte[] data = (byte[]) value;
+        return Arrays.copyOf(data, data.length);
+    }
+
+    private static long sizeOf(@NonNull Object value) {
+        return value instanceof ByteBuffer ? ((ByteBuffer) value).capacity() : ((byte[]) value).length;
+    }
+
+    /**
+     * 缓存键：源数据哈希 + 源数据长度 + 操作参数
+     */
+    private static final class Key {
+
+        private final long hash;
+        private final int length;
+        private final Object params;
+
+        Key(long hash, int length, @NonNull Object params) {
+            this.hash = hash;
+            this.length = length;
+            this.params = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && length == key.length && params.equals(key.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (int) (hash ^ (hash >>> 32)) + length) + params.hashCode();
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public static final class Stats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int entryCount;
+        private final long sizeBytes;
+
+        Stats(long hitCount, long missCount, long evictionCount, int entryCount, long sizeBytes) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.entryCount = entryCount;
+            this.sizeBytes = sizeBytes;
+        }
+
+        /**
+         * 获取命中次数
+         *
+         * @return 返回命中次数
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * 获取未命中次数
+         *
+         * @return 返回未命中次数
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * 获取因超出容量而被淘汰的结果数量
+         *
+         * @return 返回淘汰数量
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * 获取当前缓存的结果数量
+         *
+         * @return 返回结果数量
+         */
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        /**
+         * 获取当前缓存占用的字节数
+         *
+         * @return 返回占用的字节数
+         */
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        /**
+         * 获取命中率
+         *
+         * @return 返回命中率；没有任何请求时返回0
+         */
+        public float getHitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 0f : (float) hitCount / total;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", entryCount=" + entryCount +
+                    ", sizeBytes=" + sizeBytes +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 时域降噪：对连续帧做指数滑动平均（EMA），output = output + (frame - output) * weight。
+ * <p>
+ * 平均值保存在一块复用的堆外内存（direct ByteBuffer）中，每个采样16位（8位小数），
+ * 权重较小时也能逐渐收敛，不会因为8位取整而停在固定的偏差上。
+ * 可选的运动阈值：与平均值相差超过阈值的采样直接使用当前帧，避免运动区域拖影。
+ * <p>
+ * 支持所有每个采样为8位的格式，例如 I420/NV21/NV12。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class FrameAccumulator {
+
+    private final int width;
+    private final int height;
+    private final FourCC fourcc;
+    private final int size;
+    private final int weight;
+    private final int motionThreshold;
+    private final ByteBuffer accumulator;
+    private final byte[] output;
+
+    private boolean hasFrame;
+
+    /**
+     * 构造：不做运动检测
+     *
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @param weight 新帧的权重：(0, 1]，越小降噪越强、响应越慢
+     */
+    public FrameAccumulator(int width, int height, @NonNull FourCC fourcc, float weight) {
+        this(width, height, fourcc, weight, 0);
+    }
+
+    /**
+     * 构造
+     *
+     * @param width           图像宽度
+     * @param height          图像高度
+     * @param fourcc          指定数据格式；{@link FourCC}
+     * @param weight          新帧的权重：(0, 1]，越小降噪越强、响应越慢
+     * @param motionThreshold 运动阈值（0 ~ 255）：采样与平均值相差超过该值时直接使用当前帧；0表示不做运动检测
+     */
+    public FrameAccumulator(int width, int height, @NonNull FourCC fourcc, float weight, int motionThreshold) {
+        LibYuv.checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        if (!LibYuv.hasByteSamples(fourcc)) {
+            throw new IllegalArgumentException("unsupported fourcc for accumulator: " + fourcc);
+        }
+        if (!(weight > 0f && weight <= 1f)) {
+            throw new IllegalArgumentException("weight must be in (0, 1]");
+        }
+        if (motionThreshold < 0 || motionThreshold > 255) {
+            throw new IllegalArgumentException("motionThreshold must be in [0, 255]");
+        }
+        this.width = width;
+        this.height = height;
+        this.fourcc = fourcc;
+        this.size = LibYuv.sampleSize(fourcc, width, height);
+        this.weight = Math.max(1, Math.round(weight * 256f));
+        this.motionThreshold = motionThreshold;
+        this.accumulator = ByteBuffer.allocateDirect(size * 2);
+        this.output = new byte[size];
+    }
+
+    /**
+     * 累加一帧
+     *
+     * @param frame 帧数据
+     * @return 返回平均后的数据：每次都写入同一个数组，见 {@link #getOutput()}
+     */
+    @NonNull
+    public synchronized byte[] accumulate(@NonNull byte[] frame) {
+        accumulate(frame, output);
+        return output;
+    }
+
+    /**
+     * 累加一帧（复用目标数组）：平均值仍保存在内部，dstData只接收本次的结果
+     *
+     * @param frame   帧数据
+     * @param dstData 目标数据
+     */
+    public synchronized void accumulate(@NonNull byte[] frame, @NonNull byte[] dstData) {
+        LibYuv.checkArraySize(frame, size, "frame");
+        LibYuv.checkArraySize(dstData, size, "dstData");
+        long traceStart = YuvTrace.begin();
+        LibYuv.AccumulateFrame(frame, accumulator, size, weight, !hasFrame, motionThreshold, dstData);
+        // 权重（1 ~ 256）与运动阈值合并记录为附加参数：运动阈值 << 9 | 权重
+        YuvTrace.record(traceStart, YuvTrace.OP_ACCUMULATE, frame, fourcc, fourcc, width, height, motionThreshold << 9 | weight);
+        hasFrame = true;
+    }
+
+    /**
+     * 丢弃平均值（例如场景切换），下一帧将直接作为新的起点
+     */
+    public synchronized void reset() {
+        hasFrame = false;
+    }
+
+    /**
+     * 获取 {@link #accumulate(byte[])} 使用的输出数组
+     *
+     * @return 返回输出数组
+     */
+    @NonNull
+    public byte[] getOutput() {
+        return output;
+    }
+
+    /**
+     * 获取数据格式
+     *
+     * @return 返回数据格式；{@link FourCC}
+     */
+    @NonNull
+    public FourCC getFourcc() {
+        return fourcc;
+    }
+
+    /**
+     * 获取图像宽度
+     *
+     * @return 返回图像宽度
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取图像高度
+     *
+     * @return 返回图像高度
+     */
+    public int getHeight() {
+        return height;
+    }
+}
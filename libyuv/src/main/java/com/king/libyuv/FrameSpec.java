@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 帧规格：描述一条帧处理流水线的尺寸与格式（源格式 → 旋转 → 缩放 → 目标格式），用于 {@link LibYuv#warmUp(java.util.Collection)} 预热。
+ * <p>
+ * 源数据可以是字节数组（构造方法），也可以是相机 {@link android.graphics.ImageFormat#YUV_420_888} Image的三个平面（{@link #yuv420888}），
+ * 后者按 imageToI420 → yuvToI420 的路径预热，平面为带行填充的直接缓冲区。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class FrameSpec {
+
+    private final int width;
+    private final int height;
+    private final FourCC fourcc;
+    private final int degrees;
+    private final int dstWidth;
+    private final int dstHeight;
+    private final int filterMode;
+    private final FourCC dstFourcc;
+    private final int uvPixelStride;
+
+    /**
+     * 构造：只转换为I420
+     *
+     * @param width  源图像宽度
+     * @param height 源图像高度
+     * @param fourcc 源数据格式；{@link FourCC}
+     */
+    public FrameSpec(int width, int height, @NonNull FourCC fourcc) {
+        this(width, height, fourcc, RotationMode.ROTATE_0, null);
+    }
+
+    /**
+     * 构造：旋转后转换为目标格式
+     *
+     * @param width     源图像宽度
+     * @param height    源图像高度
+     * @param fourcc    源数据格式；{@link FourCC}
+     * @param degrees   旋转角度；{@link RotationMode}
+     * @param dstFourcc 目标数据格式；为null时只转换为I420
+     */
+    public FrameSpec(int width, int height, @NonNull FourCC fourcc, @RotationMode int degrees, @Nullable FourCC dstFourcc) {
+        this(width, height, fourcc, degrees,
+                isQuarterTurn(degrees) ? height : width, isQuarterTurn(degrees) ? width : height,
+                FilterMode.FILTER_BOX, dstFourcc);
+    }
+
+    /**
+     * 构造：旋转、缩放后转换为目标格式
+     *
+     * @param width      源图像宽度
+     * @param height     源图像高度
+     * @param fourcc     源数据格式；{@link FourCC}
+     * @param degrees    旋转角度；{@link RotationMode}
+     * @param dstWidth   缩放后的宽度（旋转之后）
+     * @param dstHeight  缩放后的高度（旋转之后）
+     * @param filterMode 压缩过滤模式；{@link FilterMode}
+     * @param dstFourcc  目标数据格式；为null时只转换为I420
+     */
+    public FrameSpec(int width, int height, @NonNull FourCC fourcc, @RotationMode int degrees, int dstWidth, int dstHeight,
+                     @FilterMode int filterMode, @Nullable FourCC dstFourcc) {
+        this(width, height, fourcc, 0, degrees, dstWidth, dstHeight, filterMode, dstFourcc);
+    }
+
+    private FrameSpec(int width, int height, @NonNull FourCC fourcc, int uvPixelStride, @RotationMode int degrees, int dstWidth, int dstHeight,
+                      @FilterMode int filterMode, @Nullable FourCC dstFourcc) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        if (width <= 0 || height <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        this.fourcc = fourcc;
+        this.degrees = degrees;
+        this.dstWidth = dstWidth;
+        this.dstHeight = dstHeight;
+        this.filterMode = filterMode;
+        this.dstFourcc = dstFourcc;
+        this.uvPixelStride = uvPixelStride;
+    }
+
+    /**
+     * 创建相机YUV_420_888 Image的帧规格：旋转后转换为目标格式
+     *
+     * @param width         源图像宽度
+     * @param height        源图像高度
+     * @param uvPixelStride 色度平面的像素跨距：1为U、V分开存放，2为U、V交错存放（大多数相机）
+     * @param degrees       旋转角度；{@link RotationMode}
+     * @param dstFourcc     目标数据格式；为null时只转换为I420
+     * @return 返回帧规格
+     */
+    @NonNull
+    public static FrameSpec yuv420888(int width, int height, int uvPixelStride, @RotationMode int degrees, @Nullable FourCC dstFourcc) {
+        return yuv420888(width, height, uvPixelStride, degrees,
+                isQuarterTurn(degrees) ? height : width, isQuarterTurn(degrees) ? width : height,
+                FilterMode.FILTER_BOX, dstFourcc);
+    }
+
+    /**
+     * 创建相机YUV_420_888 Image的帧规格：旋转、缩放后转换为目标格式
+     *
+     * @param width         源图像宽度
+     * @param height        源图像高度
+     * @param uvPixelStride 色度平面的像素跨距：1为U、V分开存放，2为U、V交错存放（大多数相机）
+     * @param degrees       旋转角度；{@link RotationMode}
+     * @param dstWidth      缩放后的宽度（旋转之后）
+     * @param dstHeight     缩放后的高度（旋转之后）
+     * @param filterMode    压缩过滤模式；{@link FilterMode}
+     * @param dstFourcc     目标数据格式；为null时只转换为I420
+     * @return 返回帧规格
+     */
+    @NonNull
+    public static FrameSpec yuv420888(int width, int height, int uvPixelStride, @RotationMode int degrees, int dstWidth, int dstHeight,
+                                      @FilterMode int filterMode, @Nullable FourCC dstFourcc) {
+        if (uvPixelStride != 1 && uvPixelStride != 2) {
+            throw new IllegalArgumentException("uvPixelStride must be 1 or 2");
+        }
+        return new FrameSpec(width, height, FourCC.FOURCC_I420, uvPixelStride, degrees, dstWidth, dstHeight, filterMode, dstFourcc);
+    }
+
+    /**
+     * 获取源图像宽度
+     *
+     * @return 返回源图像宽度
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取源图像高度
+     *
+     * @return 返回源图像高度
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 获取源数据格式
+     *
+     * @return 返回源数据格式
+     */
+    @NonNull
+    public FourCC getFourcc() {
+        return fourcc;
+    }
+
+    /**
+     * 获取旋转角度
+     *
+     * @return 返回旋转角度
+     */
+    @RotationMode
+    public int getDegrees() {
+        return degrees;
+    }
+
+    /**
+     * 获取缩放后的宽度
+     *
+     * @return 返回缩放后的宽度
+     */
+    public int getDstWidth() {
+        return dstWidth;
+    }
+
+    /**
+     * 获取缩放后的高度
+     *
+     * @return 返回缩放后的高度
+     */
+    public int getDstHeight() {
+        return dstHeight;
+    }
+
+    /**
+     * 获取压缩过滤模式
+     *
+     * @return 返回压缩过滤模式
+     */
+    @FilterMode
+    public int getFilterMode() {
+        return filterMode;
+    }
+
+    /**
+     * 获取目标数据格式
+     *
+     * @return 只转换为I420时返回null
+     */
+    @Nullable
+    public FourCC getDstFourcc() {
+        return dstFourcc;
+    }
+
+    /**
+     * 获取YUV_420_888色度平面的像素跨距
+     *
+     * @return 源数据为Image平面时返回1或2，为字节数组时返回0
+     */
+    public int getUvPixelStride() {
+        return uvPixelStride;
+    }
+
+    /**
+     * 是否需要缩放
+     */
+    boolean isScaled() {
+        return dstWidth != getRotatedWidth() || dstHeight != getRotatedHeight();
+    }
+
+    int getRotatedWidth() {
+        return isQuarterTurn(degrees) ? height : width;
+    }
+
+    int getRotatedHeight() {
+        return isQuarterTurn(degrees) ? width : height;
+    }
+
+    // 不依赖LibYuv，避免构造规格时在调用线程上提前加载native库
+    private static boolean isQuarterTurn(int degrees) {
+        return degrees == RotationMode.ROTATE_90 || degrees == RotationMode.ROTATE_270;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "FrameSpec{" +
+                "width=" + width +
+                ", height=" + height +
+                ", fourcc=" + fourcc +
+                ", degrees=" + degrees +
+                ", dstWidth=" + dstWidth +
+                ", dstHeight=" + dstHeight +
+                ", filterMode=" + filterMode +
+                ", dstFourcc=" + dstFourcc +
+                ", uvPixelStride=" + uvPixelStride +
+                '}';
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import android.graphics.Rect;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 增量转换：适用于录屏（MediaProjection + ImageReader）等大部分区域不变的场景，只把变化的区域从4字节packed RGB转换到常驻的I420/NV12/NV21目标中，
+ * 其余区域保持上一次的结果。
+ * <p>
+ * 变化区域可以由调用方给出（例如系统提供的脏区域），也可以自动检测：与上一帧的源数据按区块比较，同一区块行中连续变化的区块合并为一个矩形。
+ * 所有矩形都会扩展到色度块（2x2）边界后再转换。第一帧、尺寸变化或调用 {@link #invalidate()} 之后会转换整帧。
+ * <p>
+ * 上一帧的源数据保存在一块复用的堆外内存（direct ByteBuffer）中，每次只更新变化的部分。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class IncrementalConverter {
+
+    /**
+     * 默认的检测区块大小
+     */
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    private final int width;
+    private final int height;
+    private final FourCC srcFourcc;
+    private final FourCC dstFourcc;
+    private final int tileSize;
+    private final byte[] dstData;
+    private final ByteBuffer previous;
+
+    private int[] rects;
+    private int rectCount;
+    private boolean hasPrevious;
+
+    /**
+     * 构造：使用默认的检测区块大小
+     *
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param srcFourcc 源数据格式：{@link FourCC#FOURCC_ARGB}、{@link FourCC#FOURCC_ABGR}、{@link FourCC#FOURCC_BGRA}、{@link FourCC#FOURCC_RGBA}
+     * @param dstFourcc 目标数据格式：{@link FourCC#FOURCC_I420}、{@link FourCC#FOURCC_NV12}、{@link FourCC#FOURCC_NV21}
+     */
+    public IncrementalConverter(int width, int height, @NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        this(width, height, srcFourcc, dstFourcc, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * 构造
+     *
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param srcFourcc 源数据格式：{@link FourCC#FOURCC_ARGB}、{@link FourCC#FOURCC_ABGR}、{@link FourCC#FOURCC_BGRA}、{@link FourCC#FOURCC_RGBA}
+     * @param dstFourcc 目标数据格式：{@link FourCC#FOURCC_I420}、{@link FourCC#FOURCC_NV12}、{@link FourCC#FOURCC_NV21}
+     * @param tileSize  自动检测时的区块大小，必须为正偶数；越小检测出的区域越精确，比较的开销也越大
+     */
+    public IncrementalConverter(int width, int height, @NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc, int tileSize) {
+        LibYuv.checkDimensions(width, height);
+        Objects.requireNonNull(srcFourcc, "srcFourcc is null");
+        Objects.requireNonNull(dstFourcc, "dstFourcc is null");
+        switch (srcFourcc) {
+            case FOURCC_ARGB:
+            case FOURCC_ABGR:
+            case FOURCC_BGRA:
+            case FOURCC_RGBA:
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported source fourcc for incremental conversion: " + srcFourcc);
+        }
+        switch (dstFourcc) {
+            case FOURCC_I420:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported destination fourcc for incremental conversion: " + dstFourcc);
+        }
+        if (tileSize <= 0 || (tileSize & 1) != 0) {
+            throw new IllegalArgumentException("tileSize must be a positive even number");
+        }
+        this.width = width;
+        this.height = height;
+        this.srcFourcc = srcFourcc;
+        this.dstFourcc = dstFourcc;
+        this.tileSize = tileSize;
+        this.dstData = new byte[dstFourcc.getTotalBppSize(width, height)];
+        this.previous = ByteBuffer.allocateDirect(width * height * 4);
+        int tileCols = (width + tileSize - 1) / tileSize;
+        int tileRows = (height + tileSize - 1) / tileSize;
+        this.rects = new int[tileCols * tileRows * 4];
+    }
+
+    /**
+     * 自动检测变化区域并转换
+     *
+     * @param srcData 源数据，行跨距为 width * 4
+     * @return 返回本次转换的矩形数量；0表示没有变化
+     */
+    public synchronized int update(@NonNull byte[] srcData) {
+        LibYuv.checkArraySize(srcData, width * height * 4, "srcData");
+        return convert(srcData, null, width * 4, true);
+    }
+
+    /**
+     * 只转换给定的变化区域；第一帧或调用 {@link #invalidate()} 之后会忽略dirtyRects并转换整帧
+     *
+     * @param srcData    源数据，行跨距为 width * 4
+     * @param dirtyRects 变化区域；调用方需保证区域之外的源数据与上一帧相同
+     * @return 返回本次转换的矩形数量
+     */
+    public synchronized int update(@NonNull byte[] srcData, @NonNull List<Rect> dirtyRects) {
+        LibYuv.checkArraySize(srcData, width * height * 4, "srcData");
+        setRects(dirtyRects);
+        return convert(srcData, null, width * 4, false);
+    }
+
+    /**
+     * 自动检测变化区域并转换：直接读取Image（例如RGBA_8888）的第一个平面
+     *
+     * @param image 图像
+     * @return 返回本次转换的矩形数量；0表示没有变化
+     */
+    public synchronized int update(@NonNull Image image) {
+        return update(image, null);
+    }
+
+    /**
+     * 转换Image中的变化区域；dirtyRects为null时自动检测
+     *
+     * @param image      图像
+     * @param dirtyRects 变化区域；为null时自动检测
+     * @return 返回本次转换的矩形数量
+     */
+    public synchronized int update(@NonNull Image image, @Nullable List<Rect> dirtyRects) {
+        Objects.requireNonNull(image, "image is null");
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException("image size does not match: " + image.getWidth() + "x" + image.getHeight());
+        }
+        if (LibYuv.getImageFormatFourcc(image.getFormat()) != srcFourcc) {
+            throw new IllegalArgumentException("image format does not match " + srcFourcc + ": " + image.getFormat());
+        }
+        Image.Plane[] planes = image.getPlanes();
+        if (planes == null || planes.length < 1) {
+            throw new IllegalArgumentException("image must contain at least 1 plane");
+        }
+        boolean detect = dirtyRects == null;
+        if (!detect) {
+            setRects(dirtyRects);
+        }
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        if (plane.getPixelStride() != 4 || !buffer.isDirect()) {
+            // 非紧凑像素排列时，退回到先读取数据再转换
+            byte[] srcData = LibYuv.readPackedImageBytes(plane, width, height, 4);
+            return convert(srcData, null, width * 4, detect);
+        }
+        int rowStride = plane.getRowStride();
+        if (rowStride < width * 4) {
+            throw new IllegalArgumentException("image plane rowStride is too small");
+        }
+        LibYuv.checkBufferCapacity(buffer, rowStride * (height - 1) + width * 4, "image plane buffer is too small");
+        return convert(null, buffer, rowStride, detect);
+    }
+
+    private void setRects(@NonNull List<Rect> dirtyRects) {
+        Objects.requireNonNull(dirtyRects, "dirtyRects is null");
+        if (dirtyRects.size() * 4 > rects.length) {
+            rects = new int[dirtyRects.size() * 4];
+        }
+        rectCount = 0;
+        for (Rect rect : dirtyRects) {
+            rects[rectCount * 4] = rect.left;
+            rects[rectCount * 4 + 1] = rect.top;
+            rects[rectCount * 4 + 2] = rect.right - rect.left;
+            rects[rectCount * 4 + 3] = rect.bottom - rect.top;
+            rectCount++;
+        }
+    }
+
+    private int convert(@Nullable byte[] srcData, @Nullable ByteBuffer srcBuffer, int srcStride, boolean detect) {
+        // 没有上一帧时必须转换整帧，否则目标中未转换的区域没有意义
+        boolean detectRects = detect || !hasPrevious;
+        long traceStart = YuvTrace.begin();
+        int count = srcData != null
+                ? LibYuv.IncrementalConvert(srcData, srcStride, width, height, srcFourcc.getCode(), previous, hasPrevious, tileSize, detectRects, rects, rectCount, dstData, dstFourcc.getCode())
+                : LibYuv.BufferIncrementalConvert(srcBuffer, srcStride, width, height, srcFourcc.getCode(), previous, hasPrevious, tileSize, detectRects, rects, rectCount, dstData, dstFourcc.getCode());
+        if (count < 0) {
+            throw new IllegalArgumentException("unsupported source fourcc for incremental conversion: " + srcFourcc);
+        }
+        rectCount = count;
+        hasPrevious = true;
+        // 区块大小记录为附加参数
+        YuvTrace.record(traceStart, YuvTrace.OP_INCREMENTAL_CONVERT, srcData, srcFourcc, dstFourcc, width, height, tileSize);
+        return count;
+    }
+
+    /**
+     * 丢弃上一帧，下一次更新将转换整帧
+     */
+    public synchronized void invalidate() {
+        hasPrevious = false;
+        rectCount = 0;
+    }
+
+    /**
+     * 获取常驻的目标数据：每次更新都写入同一个数组
+     *
+     * @return 返回目标数据
+     */
+    @NonNull
+    public byte[] getOutput() {
+        return dstData;
+    }
+
+    /**
+     * 获取最近一次更新实际转换的区域（已对齐到色度块）
+     *
+     * @return 返回转换的区域
+     */
+    @NonNull
+    public synchronized List<Rect> getDirtyRects() {
+        List<Rect> list = new ArrayList<>(rectCount);
+        for (int i = 0; i < rectCount; i++) {
+            int x = rects[i * 4];
+            int y = rects[i * 4 + 1];
+            list.add(new Rect(x, y, x + rects[i * 4 + 2], y + rects[i * 4 + 3]));
+        }
+        return list;
+    }
+
+    /**
+     * 获取目标数据格式
+     *
+     * @return 返回目标数据格式；{@link FourCC}
+     */
+    @NonNull
+    public FourCC getDstFourcc() {
+        return dstFourcc;
+    }
+
+    /**
+     * 获取图像宽度
+     *
+     * @return 返回图像宽度
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取图像高度
+     *
+     * @return 返回图像高度
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -15,16 +15,25 @@
  */
 package com.king.libyuv;
 
+import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.graphics.ImageFormat;
 import android.graphics.PixelFormat;
 import android.media.Image;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import dalvik.annotation.optimization.CriticalNative;
+import dalvik.annotation.optimization.FastNative;
 
 /**
  * LibYuv：基于Google的libyuv编译封装的YUV转换类工具库，主要用途是在各种YUV与RGB之间进行相互转换、裁减、旋转、缩放、镜像等。
@@ -35,6 +44,10 @@ import androidx.annotation.NonNull;
  * <p>
  * 将指定格式的数据转换为I420数据: {@link #convertToI420(byte[], int, int, FourCC)}
  * <p>
+ * 任意两种格式之间直接转换: {@link #convert(byte[], int, int, FourCC, FourCC)}
+ * <p>
+ * 指定色彩空间（BT.601/BT.709/BT.2020）进行转换: {@link #convertFromI420(byte[], int, int, FourCC, int)}、{@link #convertToI420(byte[], int, int, FourCC, int)}
+ * <p>
  * YUV转I420：{@link #yuvToI420(ByteBuffer, ByteBuffer, ByteBuffer, int, int, int, int, int, int, int)}
  * <p>
  * 将指定格式的数据进行旋转: {@link #rotate(byte[], int, int, int, FourCC)}
@@ -45,6 +58,41 @@ import androidx.annotation.NonNull;
  * <p>
  * 将指定格式的数据进行镜像翻转: {@link #mirror(byte[], int, int, FourCC)}
  * <p>
+ * 仅提取亮度（I400）: {@link #imageToI400(Image, Rect, int, int, int, int)}
+ * <p>
+ * 构建图像金字塔: {@link #buildPyramid(byte[], int, int, int, float, int)}
+ * <p>
+ * 查看执行计划与严格模式: {@link YuvExplain}、{@link #setStrictMode(boolean)}
+ * <p>
+ * 启动时预热、消除首帧耗时: {@link #warmUpAsync(Collection, ByteArrayPool)}
+ * <p>
+ * 亮度直方图与区域曝光统计: {@link #computeLumaStats(Image, int, int, int)}
+ * <p>
+ * 画面变化检测（静止画面跳过后续处理）: {@link ChangeDetector}
+ * <p>
+ * 录屏等场景只转换变化区域: {@link IncrementalConverter}
+ * <p>
+ * 隐私区域模糊/马赛克: {@link #maskRegions(byte[], int, int, FourCC, List, int, int)}
+ * <p>
+ * 帧混合（帧率转换）与时域降噪: {@link #interpolate(byte[], byte[], int, int, FourCC, float)}、{@link FrameAccumulator}
+ * <p>
+ * 调色滤镜（查表、颜色矩阵、伽马）: {@link ColorTransform}
+ * <p>
+ * 边缘/梯度提取（条码、文档定位）: {@link #sobel(Image, byte[], int, int, int)}
+ * <p>
+ * 任意角度旋转、仿射变换（文档纠偏）: {@link #deskew(byte[], int, int, FourCC, float, int)}、
+ * {@link #warpAffine(byte[], int, int, FourCC, Matrix, int, int, int)}
+ * <p>
+ * 内存预算（池、缓存、native临时内存统一限额，响应onTrimMemory）: {@link MemoryGovernor}
+ * <p>
+ * 录制线上的实际调用并重放（用真实负载做基准测试）: {@link YuvTrace}、{@link YuvTraceReplayer}
+ * <p>
+ * 原地变换（不需要目标数组，适用于大尺寸图像）: {@link #mirrorInPlace(byte[], int, int, FourCC)}、
+ * {@link #flipVerticalInPlace(byte[], int, int, FourCC)}、{@link #i420ToNv21InPlace(byte[], int, int)} 等
+ * <p>
+ * 别名规则：复用目标数组的方法中，源数组与目标数组不能是同一个数组；例外的是 i420Mirror、mirror、i420ToNv21、nv21ToI420、interpolate，
+ * 传入同一个数组时会自动按原地变换执行。
+ * <p>
  *
  * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
  * <p>
@@ -55,14 +103,184 @@ public final class LibYuv {
 
     private static final String TAG = "LibYuv";
 
+    /**
+     * 转换路径，与native层yuv_convert.h中的ConvertPath保持一致
+     */
+    static final int CONVERT_UNSUPPORTED = -1;
+    static final int CONVERT_COPY = 0;
+    static final int CONVERT_DIRECT = 1;
+    static final int CONVERT_VIA_ARGB = 2;
+    static final int CONVERT_VIA_I420 = 3;
+
+    private static volatile boolean strictMode;
+
+    private static final long LOAD_TIME_NANOS;
+
     static {
+        // 静态初始化只使用JDK的接口，不依赖android.jar，SoakTest等JVM单元测试才能加载主机编译的native库
+        long start = System.nanoTime();
         System.loadLibrary("yuv");
+        LOAD_TIME_NANOS = System.nanoTime() - start;
     }
 
     private LibYuv() {
         throw new AssertionError();
     }
 
+    /**
+     * 提前加载native库：默认在首次使用LibYuv时才加载libyuv.so并注册native方法，建议在应用启动阶段（可在后台线程）调用，
+     * 避免首帧处理时承担这部分耗时
+     *
+     * @return 返回加载native库（包括在JNI_OnLoad中注册native方法）的耗时，单位：纳秒
+     */
+    public static long init() {
+        return LOAD_TIME_NANOS;
+    }
+
+    /**
+     * 设置严格模式：开启后，会走慢路径（非I420格式经I420中转、libyuv内部临时分配、Java逐像素拷贝等）的操作将抛出 {@link IllegalStateException}；
+     * 慢路径的判定与 {@link YuvExplain} 生成的执行计划一致。默认关闭，建议仅在调试或测试中开启。
+     *
+     * @param enabled 是否开启
+     */
+    public static void setStrictMode(boolean enabled) {
+        strictMode = enabled;
+    }
+
+    /**
+     * 是否开启了严格模式
+     *
+     * @return 开启时返回true
+     */
+    public static boolean isStrictMode() {
+        return strictMode;
+    }
+
+    /**
+     * 预热：按给定的帧规格各执行一遍完整的处理流水线，消除首帧的额外耗时（加载native库、libyuv的CPU特性检测、
+     * 内核代码的首次缺页以及Java校验路径的类初始化等）
+     * <p>
+     * native层的 {@link ScratchArena} 是按线程分配的，只有在实际处理帧的线程上调用才能同时预先扩容该线程的arena。
+     *
+     * @param specs 帧规格
+     * @return 返回预热耗时，单位：纳秒
+     */
+    public static long warmUp(@NonNull Collection<FrameSpec> specs) {
+        return warmUp(specs, null);
+    }
+
+    /**
+     * 预热：按给定的帧规格各执行一遍完整的处理流水线，并将流水线用到的数组放入缓冲池
+     * <p>
+     * 开启严格模式时，会走慢路径的帧规格同样会抛出 {@link IllegalStateException}。
+     *
+     * @param specs 帧规格
+     * @param pool  需要预先填充的缓冲池；为null时不填充
+     * @return 返回预热耗时，单位：纳秒
+     */
+    public static long warmUp(@NonNull Collection<FrameSpec> specs, @Nullable ByteArrayPool pool) {
+        Objects.requireNonNull(specs, "specs is null");
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (FrameSpec spec : specs) {
+            warmUp(spec, pool);
+        }
+        return SystemClock.elapsedRealtimeNanos() - start;
+    }
+
+    /**
+     * 在后台线程中预热，建议在应用启动时调用
+     * <p>
+     * 预热失败（例如严格模式下的慢路径、不支持的帧规格）只输出警告日志，不会抛到未捕获异常处理器中导致应用崩溃。
+     *
+     * @param specs 帧规格
+     * @param pool  需要预先填充的缓冲池；为null时不填充
+     * @return 返回已启动的预热线程
+     */
+    @NonNull
+    public static Thread warmUpAsync(@NonNull Collection<FrameSpec> specs, @Nullable ByteArrayPool pool) {
+        Objects.requireNonNull(specs, "specs is null");
+        List<FrameSpec> copy = new ArrayList<>(specs);
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            try {
+                long nanos = warmUp(copy, pool);
+                Log.d(TAG, "warmUp: " + copy.size() + " specs in " + nanos / 1000 + "us");
+            } catch (RuntimeException e) {
+                Log.w(TAG, "warmUp failed", e);
+            }
+        }, "LibYuv-warmUp");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void warmUp(@NonNull FrameSpec spec, @Nullable ByteArrayPool pool) {
+        int width = spec.getWidth();
+        int height = spec.getHeight();
+        int rotatedWidth = spec.getRotatedWidth();
+        int rotatedHeight = spec.getRotatedHeight();
+        FourCC fourcc = spec.getFourcc();
+        FourCC dstFourcc = spec.getDstFourcc();
+        List<byte[]> arrays = new ArrayList<>(4);
+
+        byte[] srcData = null;
+        byte[] i420Data = acquire(pool, i420Size(rotatedWidth, rotatedHeight), arrays);
+        if (spec.getUvPixelStride() > 0) {
+            warmUpYuvPlanes(width, height, spec.getUvPixelStride(), spec.getDegrees(), i420Data);
+        } else {
+            srcData = acquire(pool, sampleSize(fourcc, width, height), arrays);
+            convertToI420(srcData, width, height, spec.getDegrees(), fourcc, i420Data);
+        }
+        if (spec.isScaled()) {
+            byte[] scaledData = acquire(pool, i420Size(spec.getDstWidth(), spec.getDstHeight()), arrays);
+            i420Scale(i420Data, rotatedWidth, rotatedHeight, scaledData, spec.getDstWidth(), spec.getDstHeight(), spec.getFilterMode());
+            i420Data = scaledData;
+        }
+        if (dstFourcc != null && dstFourcc != FourCC.FOURCC_I420) {
+            byte[] dstData = acquire(pool, dstFourcc.getTotalBppSize(spec.getDstWidth(), spec.getDstHeight()), arrays);
+            convertFromI420(i420Data, spec.getDstWidth(), spec.getDstHeight(), dstData, dstFourcc);
+            if (srcData != null && spec.getDegrees() == RotationMode.ROTATE_0 && !spec.isScaled()) {
+                // 不旋转、不缩放时调用方通常直接转换，同时预热直接转换的内核
+                byte[] directData = acquire(pool, sampleSize(dstFourcc, width, height), arrays);
+                convert(srcData, width, height, fourcc, directData, dstFourcc);
+            }
+        }
+        if (pool != null) {
+            for (byte[] data : arrays) {
+                pool.release(data);
+            }
+        }
+    }
+
+    /**
+     * 按相机YUV_420_888的布局构造平面并转换：行跨距按64字节对齐；像素跨距为2时U、V是同一块交错内存（V在前）中相差一个字节的两个视图
+     */
+    private static void warmUpYuvPlanes(int width, int height, int uvPixelStride, @RotationMode int degrees, @NonNull byte[] dstData) {
+        int chromaWidth = (width + 1) >> 1;
+        int chromaHeight = (height + 1) >> 1;
+        int yStride = (width + 63) & ~63;
+        int uvStride = (chromaWidth * uvPixelStride + 63) & ~63;
+        ByteBuffer yBuffer = ByteBuffer.allocateDirect(yStride * height);
+        ByteBuffer uBuffer;
+        ByteBuffer vBuffer;
+        if (uvPixelStride == 2) {
+            ByteBuffer vuBuffer = ByteBuffer.allocateDirect(uvStride * chromaHeight);
+            vBuffer = vuBuffer.duplicate();
+            vuBuffer.position(1);
+            uBuffer = vuBuffer.slice();
+        } else {
+            uBuffer = ByteBuffer.allocateDirect(uvStride * chromaHeight);
+            vBuffer = ByteBuffer.allocateDirect(uvStride * chromaHeight);
+        }
+        yuvToI420(yBuffer, uBuffer, vBuffer, yStride, uvStride, uvStride, uvPixelStride, width, height, dstData, degrees);
+    }
+
+    private static byte[] acquire(@Nullable ByteArrayPool pool, int size, @NonNull List<byte[]> arrays) {
+        byte[] data = pool != null ? pool.acquire(size) : new byte[size];
+        arrays.add(data);
+        return data;
+    }
+
     /**
      * 将Image转换为I420
      *
@@ -223,7 +441,22 @@ public final class LibYuv {
         checkPackedImagePlane(image, bytesPerPixel);
         int width = image.getWidth();
         int height = image.getHeight();
-        byte[] packedData = readPackedImageBytes(image.getPlanes()[0], width, height, bytesPerPixel);
+        Image.Plane plane = image.getPlanes()[0];
+        ByteBuffer buffer = plane.getBuffer();
+        if (buffer.isDirect() && plane.getPixelStride() == bytesPerPixel) {
+            int rowStride = plane.getRowStride();
+            checkBufferCapacity(buffer, rowStride * (height - 1) + width * bytesPerPixel, "packed image buffer is too small");
+            byte[] dstData = new byte[i420Size(width, height)];
+            long traceStart = YuvTrace.begin();
+            PackedBufferToI420(buffer, rowStride, width, height, bytesPerPixel, dstData, degrees, fourcc.getCode());
+            YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I420, null, fourcc, FourCC.FOURCC_I420, width, height, 0, 0, width, height, degrees,
+                    rotatedWidth(width, height, degrees), rotatedHeight(width, height, degrees), FilterMode.FILTER_NONE, -1);
+            return dstData;
+        }
+        if (strictMode) {
+            checkStrict(YuvExplain.imageToI420(image, degrees, fourcc));
+        }
+        byte[] packedData = readPackedImageBytes(plane, width, height, bytesPerPixel);
         return convertToI420(packedData, width, height, degrees, fourcc);
     }
 
@@ -232,10 +465,38 @@ public final class LibYuv {
         checkPlanarYuvImagePlanes(image);
         int width = image.getWidth();
         int height = image.getHeight();
+        Image.Plane[] planes = image.getPlanes();
+        if (isDirectPlanarImage(planes)) {
+            int chromaWidth = fourcc == FourCC.FOURCC_I444 ? width : (width + 1) >> 1;
+            for (int i = 0; i < planes.length; i++) {
+                int planeWidth = i == 0 ? width : chromaWidth;
+                checkBufferCapacity(planes[i].getBuffer(), planes[i].getRowStride() * (height - 1) + planeWidth, "image plane buffer is too small");
+            }
+            byte[] dstData = new byte[i420Size(width, height)];
+            long traceStart = YuvTrace.begin();
+            PlanarBufferToI420(planes[0].getBuffer(), planes[1].getBuffer(), planes[2].getBuffer(),
+                    planes[0].getRowStride(), planes[1].getRowStride(), planes[2].getRowStride(),
+                    width, height, fourcc == FourCC.FOURCC_I444, dstData, degrees);
+            YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I420, null, fourcc, FourCC.FOURCC_I420, width, height, 0, 0, width, height, degrees,
+                    rotatedWidth(width, height, degrees), rotatedHeight(width, height, degrees), FilterMode.FILTER_NONE, -1);
+            return dstData;
+        }
+        if (strictMode) {
+            checkStrict(YuvExplain.imageToI420(image, degrees, fourcc));
+        }
         byte[] srcData = readPlanarYuvImageBytes(image, fourcc, width, height);
         return convertToI420(srcData, width, height, degrees, fourcc);
     }
 
+    static boolean isDirectPlanarImage(@NonNull Image.Plane[] planes) {
+        for (Image.Plane plane : planes) {
+            if (plane.getPixelStride() != 1 || !plane.getBuffer().isDirect()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @NonNull
     private static byte[] readPlanarYuvImageBytes(@NonNull Image image, @NonNull FourCC fourcc, int width, int height) {
         Image.Plane[] planes = image.getPlanes();
@@ -263,6 +524,13 @@ public final class LibYuv {
         return dstData;
     }
 
+    @NonNull
+    static byte[] readPlaneBytes(@NonNull Image.Plane plane, int planeWidth, int planeHeight) {
+        byte[] dstData = new byte[planeWidth * planeHeight];
+        readPlaneBytes(plane, planeWidth, planeHeight, dstData, 0);
+        return dstData;
+    }
+
     private static void readPlaneBytes(@NonNull Image.Plane plane, int planeWidth, int planeHeight, @NonNull byte[] dstData, int dstOffset) {
         ByteBuffer buffer = plane.getBuffer();
         int rowStride = plane.getRowStride();
@@ -287,7 +555,7 @@ public final class LibYuv {
     }
 
     @NonNull
-    private static byte[] readPackedImageBytes(@NonNull Image.Plane plane, int width, int height, int bytesPerPixel) {
+    static byte[] readPackedImageBytes(@NonNull Image.Plane plane, int width, int height, int bytesPerPixel) {
         ByteBuffer buffer = plane.getBuffer();
         int rowStride = plane.getRowStride();
         int pixelStride = plane.getPixelStride();
@@ -339,7 +607,13 @@ public final class LibYuv {
         checkDimensions(width, height);
         checkArraySize(nv21Data, FourCC.FOURCC_NV21.getTotalBppSize(width, height), "nv21Data");
         checkArraySize(dstData, i420Size(width, height), "dstData");
-        NV21ToI420(nv21Data, width, height, dstData);
+        long traceStart = YuvTrace.begin();
+        if (nv21Data == dstData) {
+            NVToI420InPlace(dstData, width, height, true);
+        } else {
+            NV21ToI420(nv21Data, width, height, dstData);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_NV21_TO_I420, nv21Data == dstData ? null : nv21Data, FourCC.FOURCC_NV21, FourCC.FOURCC_I420, width, height, nv21Data == dstData ? 1 : 0);
     }
 
     /**
@@ -364,7 +638,13 @@ public final class LibYuv {
         checkDimensions(width, height);
         checkArraySize(i420Data, i420Size(width, height), "i420Data");
         checkArraySize(dstData, FourCC.FOURCC_NV21.getTotalBppSize(width, height), "dstData");
-        I420ToNV21(i420Data, width, height, dstData);
+        long traceStart = YuvTrace.begin();
+        if (i420Data == dstData) {
+            I420ToNVInPlace(dstData, width, height, true);
+        } else {
+            I420ToNV21(i420Data, width, height, dstData);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_TO_NV21, i420Data == dstData ? null : i420Data, FourCC.FOURCC_I420, FourCC.FOURCC_NV21, width, height, i420Data == dstData ? 1 : 0);
     }
 
     /**
@@ -402,9 +682,12 @@ public final class LibYuv {
             i420Rotate(srcData, width, height, dstData, degrees);
             return;
         }
-        byte[] i420Data = convertToI420(srcData, width, height, RotationMode.ROTATE_0, fourcc);
-        byte[] rotatedI420Data = i420Rotate(i420Data, width, height, degrees);
-        convertFromI420(rotatedI420Data, dstWidth, dstHeight, dstData, fourcc);
+        if (strictMode) {
+            checkStrict(YuvExplain.rotate(width, height, degrees, fourcc));
+        }
+        long traceStart = YuvTrace.begin();
+        TransformSample(srcData, srcData.length, width, height, dstData, 0, 0, width, height, dstWidth, dstHeight, degrees, false, FilterMode.FILTER_NONE, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_ROTATE, srcData, fourcc, fourcc, width, height, 0, 0, width, height, degrees, dstWidth, dstHeight, FilterMode.FILTER_NONE, 0);
     }
 
     /**
@@ -465,9 +748,12 @@ public final class LibYuv {
             i420Scale(srcData, width, height, dstData, dstWidth, dstHeight, filterMode);
             return;
         }
-        byte[] i420Data = convertToI420(srcData, width, height, fourcc);
-        byte[] dstDataI420 = i420Scale(i420Data, width, height, dstWidth, dstHeight, filterMode);
-        convertFromI420(dstDataI420, dstWidth, dstHeight, dstData, fourcc);
+        if (strictMode) {
+            checkStrict(YuvExplain.scale(width, height, dstWidth, dstHeight, fourcc, filterMode));
+        }
+        long traceStart = YuvTrace.begin();
+        TransformSample(srcData, srcData.length, width, height, dstData, 0, 0, width, height, dstWidth, dstHeight, RotationMode.ROTATE_0, false, filterMode, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_SCALE, srcData, fourcc, fourcc, width, height, 0, 0, width, height, RotationMode.ROTATE_0, dstWidth, dstHeight, filterMode, 0);
     }
 
     /**
@@ -545,8 +831,12 @@ public final class LibYuv {
             i420Crop(srcData, width, height, cropX, cropY, cropWidth, cropHeight, dstData);
             return;
         }
-        byte[] i420Data = convertToI420(srcData, width, height, cropX, cropY, cropWidth, cropHeight, RotationMode.ROTATE_0, fourcc);
-        convertFromI420(i420Data, cropWidth, cropHeight, dstData, fourcc);
+        if (strictMode) {
+            checkStrict(YuvExplain.crop(width, height, cropX, cropY, cropWidth, cropHeight, fourcc));
+        }
+        long traceStart = YuvTrace.begin();
+        TransformSample(srcData, srcData.length, width, height, dstData, cropX, cropY, cropWidth, cropHeight, cropWidth, cropHeight, RotationMode.ROTATE_0, false, FilterMode.FILTER_NONE, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_CROP, srcData, fourcc, fourcc, width, height, cropX, cropY, cropWidth, cropHeight, RotationMode.ROTATE_0, cropWidth, cropHeight, FilterMode.FILTER_NONE, 0);
     }
 
     /**
@@ -574,190 +864,1097 @@ public final class LibYuv {
         checkDimensions(width, height);
         int requiredSize = fourcc.getTotalBppSize(width, height);
         checkArraySize(dstData, requiredSize, "dstData");
+        if (srcData == dstData && canMirrorInPlace(fourcc)) {
+            mirrorInPlace(dstData, width, height, fourcc);
+            return;
+        }
         if (fourcc == FourCC.FOURCC_I420) {
             i420Mirror(srcData, width, height, dstData);
             return;
         }
-        byte[] i420Data = convertToI420(srcData, width, height, fourcc);
-        byte[] mirrorI420Data = i420Mirror(i420Data, width, height);
-        convertFromI420(mirrorI420Data, width, height, dstData, fourcc);
+        if (strictMode) {
+            checkStrict(YuvExplain.mirror(width, height, fourcc));
+        }
+        long traceStart = YuvTrace.begin();
+        TransformSample(srcData, srcData.length, width, height, dstData, 0, 0, width, height, width, height, RotationMode.ROTATE_0, true, FilterMode.FILTER_NONE, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_MIRROR, srcData, fourcc, fourcc, width, height, 0);
     }
 
     /**
-     * 将I420数据转换为指定格式的数据
+     * 原地水平镜像：结果直接写回data，不需要额外的目标数组，只借用一行大小的native临时内存
+     * <p>
+     * 支持 I400/I420/YV12/I422/YV16/I444/YV24、NV12/NV21 以及4字节的 ARGB/BGRA/ABGR/RGBA/AR30
      *
-     * @param i420Data 源I420数据
-     * @param width    图像宽度
-     * @param height   图像高度
-     * @param fourcc   指定数据格式；{@link FourCC}
-     * @return 返回转换成指定格式后的数据
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
      */
-    @NonNull
-    public static byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull FourCC fourcc) {
-        int dstSize = fourcc.getTotalBppSize(width, height);
-        return convertFromI420(i420Data, width, height, dstSize, fourcc);
+    public static void mirrorInPlace(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        checkArraySize(data, sampleSize(fourcc, width, height), "data");
+        long traceStart = YuvTrace.begin();
+        if (MirrorInPlace(data, width, height, fourcc.getCode()) != 0) {
+            throw new IllegalArgumentException("unsupported in-place fourcc: " + fourcc);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_MIRROR_IN_PLACE, null, fourcc, fourcc, width, height, 0);
     }
 
     /**
-     * 将I420数据转换为指定格式的数据
-     *
-     * @param i420Data 源I420数据
-     * @param width    图像宽度
-     * @param height   图像高度
-     * @param dstSize  目标数据占用字节大小
-     * @param fourcc   指定数据格式；{@link FourCC}
-     * @return 返回转换成指定格式后的数据
+     * 是否支持 {@link #mirrorInPlace(byte[], int, int, FourCC)}；其余格式源与目标为同一数组时，
+     * 由TransformSample先把源数据转换到scratch arena中的I420再写回
      */
-    @NonNull
-    public static byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, int dstSize, @NonNull FourCC fourcc) {
-        checkDimensions(width, height);
-        checkDstSize(dstSize);
-        byte[] dstData = new byte[dstSize];
-        convertFromI420(i420Data, width, height, dstData, fourcc);
-        return dstData;
+    private static boolean canMirrorInPlace(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_I400:
+            case FOURCC_I420:
+            case FOURCC_YV12:
+            case FOURCC_I422:
+            case FOURCC_YV16:
+            case FOURCC_I444:
+            case FOURCC_YV24:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+            case FOURCC_ARGB:
+            case FOURCC_BGRA:
+            case FOURCC_ABGR:
+            case FOURCC_RGBA:
+            case FOURCC_AR30:
+                return true;
+            default:
+                return false;
+        }
     }
 
     /**
-     * 将I420数据转换为指定格式的数据（复用目标数组）
+     * 原地垂直翻转：结果直接写回data，不需要额外的目标数组，只借用一行大小的native临时内存
+     * <p>
+     * 支持所有紧凑排列（无行填充）的格式
+     *
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
      */
-    public static void convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull byte[] dstData, @NonNull FourCC fourcc) {
+    public static void flipVerticalInPlace(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc) {
         checkDimensions(width, height);
-        checkArraySize(dstData, fourcc.getTotalBppSize(width, height), "dstData");
-        ConvertFromI420(i420Data, width, height, dstData, 0, fourcc.getCode());
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        checkArraySize(data, sampleSize(fourcc, width, height), "data");
+        long traceStart = YuvTrace.begin();
+        if (FlipVerticalInPlace(data, width, height, fourcc.getCode()) != 0) {
+            throw new IllegalArgumentException("unsupported in-place fourcc: " + fourcc);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_FLIP_VERTICAL_IN_PLACE, null, fourcc, fourcc, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据
+     * 原地将I420转换为NV21：Y平面保持不动，只借用色度平面大小（1/3帧）的native临时内存
      *
-     * @param srcData 源数据
-     * @param width   图像宽度
-     * @param height  图像高度
-     * @param fourcc  指定数据格式；{@link FourCC}
-     * @return 返回I420数据
+     * @param data   I420数据，转换后为NV21数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    @NonNull
-    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc) {
-        return convertToI420(srcData, width, height, RotationMode.ROTATE_0, fourcc);
+    public static void i420ToNv21InPlace(@NonNull byte[] data, int width, int height) {
+        checkDimensions(width, height);
+        checkArraySize(data, i420Size(width, height), "data");
+        long traceStart = YuvTrace.begin();
+        I420ToNVInPlace(data, width, height, true);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_TO_NV_IN_PLACE, null, FourCC.FOURCC_I420, FourCC.FOURCC_NV21, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据
+     * 原地将I420转换为NV12：Y平面保持不动，只借用色度平面大小（1/3帧）的native临时内存
      *
-     * @param srcData 源数据
-     * @param width   图像宽度
-     * @param height  图像高度
-     * @param degrees 需要旋转的角度；{@link  RotationMode}
-     * @param fourcc  指定数据格式；{@link FourCC}
-     * @return 返回I420数据
+     * @param data   I420数据，转换后为NV12数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    @NonNull
-    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc) {
-        return convertToI420(srcData, width, height, 0, 0, width, height, degrees, fourcc);
+    public static void i420ToNv12InPlace(@NonNull byte[] data, int width, int height) {
+        checkDimensions(width, height);
+        checkArraySize(data, i420Size(width, height), "data");
+        long traceStart = YuvTrace.begin();
+        I420ToNVInPlace(data, width, height, false);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_TO_NV_IN_PLACE, null, FourCC.FOURCC_I420, FourCC.FOURCC_NV12, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据
+     * 原地将NV21转换为I420：Y平面保持不动，只借用色度平面大小（1/3帧）的native临时内存
      *
-     * @param srcData  源数据
-     * @param width    图像宽度
-     * @param height   图像高度
-     * @param cropRect 裁减的矩形
-     * @param degrees  需要旋转的角度；{@link  RotationMode}
-     * @param fourcc   指定数据格式；{@link FourCC}
-     * @return 返回I420数据
+     * @param data   NV21数据，转换后为I420数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    @NonNull
-    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @NonNull Rect cropRect, @RotationMode int degrees, @NonNull FourCC fourcc) {
-        return convertToI420(srcData, width, height, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), degrees, fourcc);
+    public static void nv21ToI420InPlace(@NonNull byte[] data, int width, int height) {
+        checkDimensions(width, height);
+        checkArraySize(data, i420Size(width, height), "data");
+        long traceStart = YuvTrace.begin();
+        NVToI420InPlace(data, width, height, true);
+        YuvTrace.record(traceStart, YuvTrace.OP_NV_TO_I420_IN_PLACE, null, FourCC.FOURCC_NV21, FourCC.FOURCC_I420, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据
+     * 原地将NV12转换为I420：Y平面保持不动，只借用色度平面大小（1/3帧）的native临时内存
      *
-     * @param srcData    源数据
-     * @param width      图像宽度
-     * @param height     图像高度
-     * @param cropX      裁减起始点X坐标
-     * @param cropY      裁减起始点Y坐标
-     * @param cropWidth  裁减的宽度
-     * @param cropHeight 裁减的高度
-     * @param degrees    需要旋转的角度；{@link  RotationMode}
-     * @param fourcc     指定数据格式；{@link FourCC}
-     * @return 返回I420数据
+     * @param data   NV12数据，转换后为I420数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    @NonNull
-    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc) {
+    public static void nv12ToI420InPlace(@NonNull byte[] data, int width, int height) {
         checkDimensions(width, height);
-        checkRotationMode(degrees);
-        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
-        byte[] dstData = new byte[i420Size(cropWidth, cropHeight)];
-        convertToI420(srcData, width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc, dstData);
-        return dstData;
+        checkArraySize(data, i420Size(width, height), "data");
+        long traceStart = YuvTrace.begin();
+        NVToI420InPlace(data, width, height, false);
+        YuvTrace.record(traceStart, YuvTrace.OP_NV_TO_I420_IN_PLACE, null, FourCC.FOURCC_NV12, FourCC.FOURCC_I420, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据（复用目标数组）
+     * 原地将NV21转换为NV12（交换UV顺序），不需要任何临时内存
+     *
+     * @param data   NV21数据，转换后为NV12数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    public static void convertToI420(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
-        convertToI420(srcData, width, height, 0, 0, width, height, degrees, fourcc, dstData);
+    public static void nv21ToNv12InPlace(@NonNull byte[] data, int width, int height) {
+        checkDimensions(width, height);
+        checkArraySize(data, i420Size(width, height), "data");
+        long traceStart = YuvTrace.begin();
+        SwapUVInPlace(data, width, height);
+        // 交换UV是对称的，nv12ToNv21InPlace同样记录为NV21->NV12
+        YuvTrace.record(traceStart, YuvTrace.OP_SWAP_UV_IN_PLACE, null, FourCC.FOURCC_NV21, FourCC.FOURCC_NV12, width, height, 0);
     }
 
     /**
-     * 将指定格式的数据转换为I420数据（复用目标数组）
+     * 原地将NV12转换为NV21（交换UV顺序），不需要任何临时内存
+     *
+     * @param data   NV12数据，转换后为NV21数据
+     * @param width  图像宽度
+     * @param height 图像高度
      */
-    public static void convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
-        checkDimensions(width, height);
-        checkRotationMode(degrees);
-        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
-        checkArraySize(dstData, i420Size(cropWidth, cropHeight), "dstData");
-        ConvertToI420(srcData, srcData.length, width, height, dstData, cropX, cropY, cropWidth, cropHeight, degrees, fourcc.getCode());
+    public static void nv12ToNv21InPlace(@NonNull byte[] data, int width, int height) {
+        nv21ToNv12InPlace(data, width, height);
     }
 
     /**
-     * I420旋转
+     * 原地对亮度平面查表，可用于亮度、对比度、伽马等调整；色度平面保持不变
+     * <p>
+     * 支持 I400/I420/YV12/I422/YV16/I444/YV24 以及 NV12/NV21
      *
-     * @param srcI420Data 源I420数据
-     * @param width       图像宽度
-     * @param height      图像高度
-     * @param degrees     需要旋转的角度；{@link  RotationMode}
-     * @return 返回旋转后的数据
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @param lut    长度为256的查找表：新亮度 = lut[旧亮度]
      */
-    @NonNull
-    public static byte[] i420Rotate(@NonNull byte[] srcI420Data, int width, int height, @RotationMode int degrees) {
+    public static void applyLumaLutInPlace(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, @NonNull byte[] lut) {
         checkDimensions(width, height);
-        checkRotationMode(degrees);
-        int dstWidth = rotatedWidth(width, height, degrees);
-        int dstHeight = rotatedHeight(width, height, degrees);
-        byte[] dstData = new byte[i420Size(dstWidth, dstHeight)];
-        i420Rotate(srcI420Data, width, height, dstData, degrees);
-        return dstData;
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        Objects.requireNonNull(lut, "lut is null");
+        if (lut.length != 256) {
+            throw new IllegalArgumentException("lut length must be 256");
+        }
+        if (!hasLumaPlane(fourcc)) {
+            throw new IllegalArgumentException("unsupported in-place fourcc: " + fourcc);
+        }
+        checkArraySize(data, sampleSize(fourcc, width, height), "data");
+        long traceStart = YuvTrace.begin();
+        ApplyLumaTableInPlace(data, width, height, lut);
+        YuvTrace.record(traceStart, YuvTrace.OP_LUMA_LUT_IN_PLACE, null, fourcc, fourcc, width, height, 0);
     }
 
     /**
-     * I420旋转（复用目标数组）
+     * 原地遮挡矩形区域（人脸、车牌等隐私区域）：只处理区域内的数据，不需要先转换为ARGB再转换回来
+     * <p>
+     * 支持 I420/NV21/NV12；矩形会先扩展到偶数坐标（色度块边界），超出图像的部分会被裁掉
+     *
+     * @param data     图像数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @param rects    需要遮挡的矩形区域
+     * @param mode     遮挡方式；{@link MaskMode}
+     * @param strength 遮挡强度：模糊半径或马赛克色块大小（像素）
      */
-    public static void i420Rotate(@NonNull byte[] srcI420Data, int width, int height, @NonNull byte[] dstData, @RotationMode int degrees) {
+    public static void maskRegions(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, @NonNull List<Rect> rects, @MaskMode int mode, int strength) {
         checkDimensions(width, height);
-        checkRotationMode(degrees);
-        int dstWidth = rotatedWidth(width, height, degrees);
-        int dstHeight = rotatedHeight(width, height, degrees);
-        checkArraySize(dstData, i420Size(dstWidth, dstHeight), "dstData");
-        I420Rotate(srcI420Data, width, height, dstData, degrees);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        Objects.requireNonNull(rects, "rects is null");
+        if (fourcc != FourCC.FOURCC_I420 && fourcc != FourCC.FOURCC_NV21 && fourcc != FourCC.FOURCC_NV12) {
+            throw new IllegalArgumentException("unsupported fourcc for mask: " + fourcc);
+        }
+        if (mode != MaskMode.MASK_BLUR && mode != MaskMode.MASK_PIXELATE) {
+            throw new IllegalArgumentException("unsupported mask mode: " + mode);
+        }
+        if (strength <= 0) {
+            throw new IllegalArgumentException("strength must be positive");
+        }
+        checkArraySize(data, i420Size(width, height), "data");
+        if (rects.isEmpty()) {
+            return;
+        }
+        int[] rectData = new int[rects.size() * 4];
+        int index = 0;
+        for (Rect rect : rects) {
+            rectData[index++] = rect.left;
+            rectData[index++] = rect.top;
+            rectData[index++] = rect.width();
+            rectData[index++] = rect.height();
+        }
+        MaskRegions(data, width, height, fourcc.getCode(), rectData, rects.size(), mode, strength);
     }
 
     /**
-     * I420镜像
+     * 仿射变换（任意角度旋转、缩放、平移、错切）：双线性采样，按行分段并行；映射到源图像之外的区域使用填充颜色
+     * <p>
+     * 支持 ARGB/ABGR/BGRA/RGBA/I400/I420/NV21/NV12
      *
-     * @param srcI420Data 源I420数据
-     * @param width       图像宽度
-     * @param height      图像高度
-     * @return 返回镜像后的数据
+     * @param srcData   源数据
+     * @param width     源图像宽度
+     * @param height    源图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param matrix    源坐标到目标坐标的变换矩阵，必须为仿射变换
+     * @param dstWidth  目标图像宽度
+     * @param dstHeight 目标图像高度
+     * @param fillColor 填充颜色（ARGB）
+     * @return 返回变换后的数据
      */
     @NonNull
-    public static byte[] i420Mirror(@NonNull byte[] srcI420Data, int width, int height) {
-        checkDimensions(width, height);
-        byte[] dstData = new byte[i420Size(width, height)];
-        i420Mirror(srcI420Data, width, height, dstData);
+    public static byte[] warpAffine(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, @NonNull Matrix matrix, int dstWidth, int dstHeight, int fillColor) {
+        Objects.requireNonNull(matrix, "matrix is null");
+        float[] values = new float[9];
+        matrix.getValues(values);
+        checkDimensions(dstWidth, dstHeight);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        byte[] dstData = new byte[sampleSize(fourcc, dstWidth, dstHeight)];
+        warpAffine(srcData, width, height, fourcc, values, dstData, dstWidth, dstHeight, fillColor);
+        return dstData;
+    }
+
+    /**
+     * 仿射变换（复用目标数组）
+     *
+     * @param srcData   源数据
+     * @param width     源图像宽度
+     * @param height    源图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param matrix    源坐标到目标坐标的变换矩阵：与 {@link Matrix#getValues(float[])} 的排列一致，长度为6（仿射部分）或9
+     * @param dstData   目标数据
+     * @param dstWidth  目标图像宽度
+     * @param dstHeight 目标图像高度
+     * @param fillColor 填充颜色（ARGB）
+     */
+    public static void warpAffine(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, @NonNull float[] matrix, @NonNull byte[] dstData, int dstWidth, int dstHeight, int fillColor) {
+        checkDimensions(width, height);
+        checkDimensions(dstWidth, dstHeight);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        Objects.requireNonNull(matrix, "matrix is null");
+        switch (fourcc) {
+            case FOURCC_ARGB:
+            case FOURCC_ABGR:
+            case FOURCC_BGRA:
+            case FOURCC_RGBA:
+            case FOURCC_I400:
+            case FOURCC_I420:
+            case FOURCC_NV21:
+            case FOURCC_NV12:
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported fourcc for warp: " + fourcc);
+        }
+        double[] inverse = WarpMatrix.invert(matrix);
+        checkArraySize(srcData, sampleSize(fourcc, width, height), "srcData");
+        checkArraySize(dstData, sampleSize(fourcc, dstWidth, dstHeight), "dstData");
+        WarpAffine(srcData, width, height, fourcc.getCode(), dstData, dstWidth, dstHeight, inverse, WarpMatrix.fillBytes(fourcc, fillColor));
+    }
+
+    /**
+     * 纠偏（任意角度旋转）：绕图像中心旋转，输出尺寸与源图像相同，旋转后超出的部分被裁掉，空出的部分使用填充颜色
+     *
+     * @param srcData   源数据
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param degrees   旋转角度，顺时针为正
+     * @param fillColor 填充颜色（ARGB）
+     * @return 返回旋转后的数据
+     */
+    @NonNull
+    public static byte[] deskew(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, float degrees, int fillColor) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        byte[] dstData = new byte[sampleSize(fourcc, width, height)];
+        deskew(srcData, width, height, fourcc, degrees, dstData, fillColor);
+        return dstData;
+    }
+
+    /**
+     * 纠偏（复用目标数组）
+     *
+     * @param srcData   源数据
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param degrees   旋转角度，顺时针为正
+     * @param dstData   目标数据
+     * @param fillColor 填充颜色（ARGB）
+     */
+    public static void deskew(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, float degrees, @NonNull byte[] dstData, int fillColor) {
+        warpAffine(srcData, width, height, fourcc, WarpMatrix.rotation(degrees, width, height, width, height), dstData, width, height, fillColor);
+    }
+
+    /**
+     * 统计亮度：直方图、均值、方差、最小值、最大值（不划分区域，逐像素统计）
+     *
+     * @param data   图像数据
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @return 返回亮度统计结果
+     */
+    @NonNull
+    public static LumaStats computeLumaStats(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc) {
+        return computeLumaStats(data, width, height, fourcc, 1, 1, 1);
+    }
+
+    /**
+     * 统计亮度：一次遍历Y平面同时得到直方图、均值、方差、最小值、最大值以及 gridCols × gridRows 个区域的平均亮度；
+     * 可以代替先转换为I420再在Java中逐像素统计。
+     * <p>
+     * 支持 I400/I420/YV12/I422/YV16/I444/YV24 以及 NV12/NV21；色度平面不参与统计
+     *
+     * @param data     图像数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @param gridCols 区域列数
+     * @param gridRows 区域行数
+     * @param step     采样间隔：1为逐像素统计，2为横纵方向各隔一个像素采样（采样数为1/4），以此类推
+     * @return 返回亮度统计结果
+     */
+    @NonNull
+    public static LumaStats computeLumaStats(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, int gridCols, int gridRows, int step) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        checkLumaStatsParams(gridCols, gridRows, step);
+        if (!hasLumaPlane(fourcc)) {
+            throw new IllegalArgumentException("unsupported fourcc for luma stats: " + fourcc);
+        }
+        checkArraySize(data, width * height, "data");
+        long[] stats = new long[LumaStats.HISTOGRAM_SIZE + gridCols * gridRows * 2];
+        long traceStart = YuvTrace.begin();
+        ComputeLumaStats(data, width, width, height, step, gridCols, gridRows, stats);
+        recordLumaStats(traceStart, data, fourcc, width, height, gridCols, gridRows, step);
+        return new LumaStats(stats, gridCols, gridRows);
+    }
+
+    /**
+     * 统计亮度：直接读取Image的Y平面（支持 YUV_420_888/YUV_422_888/YUV_444_888），不需要先转换为I420
+     *
+     * @param image    图像
+     * @param gridCols 区域列数
+     * @param gridRows 区域行数
+     * @param step     采样间隔：1为逐像素统计，2为横纵方向各隔一个像素采样（采样数为1/4），以此类推
+     * @return 返回亮度统计结果
+     */
+    @NonNull
+    public static LumaStats computeLumaStats(@NonNull Image image, int gridCols, int gridRows, int step) {
+        Objects.requireNonNull(image, "image is null");
+        checkLumaStatsParams(gridCols, gridRows, step);
+        int format = image.getFormat();
+        if (format != ImageFormat.YUV_420_888 && format != ImageFormat.YUV_422_888 && format != ImageFormat.YUV_444_888) {
+            throw new IllegalArgumentException("unsupported image format for luma stats: " + format);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Image.Plane[] planes = image.getPlanes();
+        if (planes == null || planes.length < 1) {
+            throw new IllegalArgumentException("image must contain at least 1 plane");
+        }
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        long[] stats = new long[LumaStats.HISTOGRAM_SIZE + gridCols * gridRows * 2];
+        if (plane.getPixelStride() != 1 || !buffer.isDirect()) {
+            // 非紧凑像素排列时，退回到先读取数据再统计
+            byte[] lumaData = readPlaneBytes(plane, width, height);
+            long traceStart = YuvTrace.begin();
+            ComputeLumaStats(lumaData, width, width, height, step, gridCols, gridRows, stats);
+            recordLumaStats(traceStart, lumaData, FourCC.FOURCC_I400, width, height, gridCols, gridRows, step);
+            return new LumaStats(stats, gridCols, gridRows);
+        }
+        int rowStride = plane.getRowStride();
+        if (rowStride <= 0) {
+            throw new IllegalArgumentException("image plane rowStride must be positive");
+        }
+        checkBufferCapacity(buffer, rowStride * (height - 1) + width, "image plane buffer is too small");
+        long traceStart = YuvTrace.begin();
+        BufferLumaStats(buffer, rowStride, width, height, step, gridCols, gridRows, stats);
+        recordLumaStats(traceStart, null, FourCC.FOURCC_I400, width, height, gridCols, gridRows, step);
+        return new LumaStats(stats, gridCols, gridRows);
+    }
+
+    /**
+     * 记录一次亮度统计：区域划分记录为目标尺寸，采样间隔记录为附加参数
+     */
+    private static void recordLumaStats(long traceStart, @Nullable byte[] data, @NonNull FourCC fourcc, int width, int height, int gridCols, int gridRows, int step) {
+        YuvTrace.record(traceStart, YuvTrace.OP_LUMA_STATS, data, fourcc, FourCC.FOURCC_I400, width, height, 0, 0, width, height, RotationMode.ROTATE_0, gridCols, gridRows, FilterMode.FILTER_NONE, step);
+    }
+
+    /**
+     * 两帧按权重混合（例如24fps转30fps时生成中间帧）：dst = src0 * (1 - fraction) + src1 * fraction
+     * <p>
+     * 支持所有每个采样为8位的格式（不支持 RGBP/RGBO/R444/AR30）
+     *
+     * @param src0Data 第一帧数据
+     * @param src1Data 第二帧数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @param fraction 第二帧的权重：0 ~ 1
+     * @return 返回混合后的数据
+     */
+    @NonNull
+    public static byte[] interpolate(@NonNull byte[] src0Data, @NonNull byte[] src1Data, int width, int height, @NonNull FourCC fourcc, float fraction) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        byte[] dstData = new byte[sampleSize(fourcc, width, height)];
+        interpolate(src0Data, src1Data, width, height, fourcc, fraction, dstData);
+        return dstData;
+    }
+
+    /**
+     * 两帧按权重混合（复用目标数组）：dstData可以是src0Data或src1Data，此时原地混合
+     *
+     * @param src0Data 第一帧数据
+     * @param src1Data 第二帧数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @param fraction 第二帧的权重：0 ~ 1
+     * @param dstData  目标数据
+     */
+    public static void interpolate(@NonNull byte[] src0Data, @NonNull byte[] src1Data, int width, int height, @NonNull FourCC fourcc, float fraction, @NonNull byte[] dstData) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        if (!hasByteSamples(fourcc)) {
+            throw new IllegalArgumentException("unsupported fourcc for interpolate: " + fourcc);
+        }
+        if (!(fraction >= 0f && fraction <= 1f)) {
+            throw new IllegalArgumentException("fraction must be in [0, 1]");
+        }
+        int size = sampleSize(fourcc, width, height);
+        checkArraySize(src0Data, size, "src0Data");
+        checkArraySize(src1Data, size, "src1Data");
+        checkArraySize(dstData, size, "dstData");
+        long traceStart = YuvTrace.begin();
+        InterpolateFrames(src0Data, src1Data, dstData, size, Math.round(fraction * 256f));
+        YuvTrace.record(traceStart, YuvTrace.OP_INTERPOLATE, src0Data, fourcc, fourcc, width, height, Math.round(fraction * 256f));
+    }
+
+    /**
+     * Sobel边缘提取：直接读取Y平面计算梯度，可选先缩小到目标尺寸（例如条码、文档定位只需要低分辨率的梯度图）
+     * <p>
+     * 支持 I400/I420/YV12/I422/YV16/I444/YV24 以及 NV12/NV21；色度平面不参与计算
+     *
+     * @param data      图像数据
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param dstWidth  输出宽度，不能大于图像宽度
+     * @param dstHeight 输出高度，不能大于图像高度
+     * @param mode      输出方式；{@link SobelMode}
+     * @return 返回梯度数据：幅值为 dstWidth * dstHeight，XY为两个这样的平面
+     */
+    @NonNull
+    public static byte[] sobel(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, int dstWidth, int dstHeight, @SobelMode int mode) {
+        checkSobelParams(width, height, dstWidth, dstHeight, mode);
+        byte[] dstData = new byte[sobelSize(dstWidth, dstHeight, mode)];
+        sobel(data, width, height, fourcc, dstData, dstWidth, dstHeight, mode);
+        return dstData;
+    }
+
+    /**
+     * Sobel边缘提取（复用目标数组）
+     *
+     * @param data      图像数据
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param fourcc    指定数据格式；{@link FourCC}
+     * @param dstData   梯度数据：幅值为 dstWidth * dstHeight，XY为两个这样的平面
+     * @param dstWidth  输出宽度，不能大于图像宽度
+     * @param dstHeight 输出高度，不能大于图像高度
+     * @param mode      输出方式；{@link SobelMode}
+     */
+    public static void sobel(@NonNull byte[] data, int width, int height, @NonNull FourCC fourcc, @NonNull byte[] dstData, int dstWidth, int dstHeight, @SobelMode int mode) {
+        checkSobelParams(width, height, dstWidth, dstHeight, mode);
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        if (!hasLumaPlane(fourcc)) {
+            throw new IllegalArgumentException("unsupported fourcc for sobel: " + fourcc);
+        }
+        checkArraySize(data, width * height, "data");
+        checkArraySize(dstData, sobelSize(dstWidth, dstHeight, mode), "dstData");
+        long traceStart = YuvTrace.begin();
+        Sobel(data, width, width, height, dstData, dstWidth, dstHeight, mode);
+        YuvTrace.record(traceStart, YuvTrace.OP_SOBEL, data, fourcc, FourCC.FOURCC_I400, width, height, 0, 0, width, height, RotationMode.ROTATE_0, dstWidth, dstHeight, FilterMode.FILTER_NONE, mode);
+    }
+
+    /**
+     * Sobel边缘提取（复用目标数组）：直接读取Image的Y平面（支持 YUV_420_888/YUV_422_888/YUV_444_888），不需要先转换为I420
+     *
+     * @param image     图像
+     * @param dstData   梯度数据：幅值为 dstWidth * dstHeight，XY为两个这样的平面
+     * @param dstWidth  输出宽度，不能大于图像宽度
+     * @param dstHeight 输出高度，不能大于图像高度
+     * @param mode      输出方式；{@link SobelMode}
+     */
+    public static void sobel(@NonNull Image image, @NonNull byte[] dstData, int dstWidth, int dstHeight, @SobelMode int mode) {
+        Objects.requireNonNull(image, "image is null");
+        int format = image.getFormat();
+        if (format != ImageFormat.YUV_420_888 && format != ImageFormat.YUV_422_888 && format != ImageFormat.YUV_444_888) {
+            throw new IllegalArgumentException("unsupported image format for sobel: " + format);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        checkSobelParams(width, height, dstWidth, dstHeight, mode);
+        checkArraySize(dstData, sobelSize(dstWidth, dstHeight, mode), "dstData");
+        Image.Plane[] planes = image.getPlanes();
+        if (planes == null || planes.length < 1) {
+            throw new IllegalArgumentException("image must contain at least 1 plane");
+        }
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        if (plane.getPixelStride() != 1 || !buffer.isDirect()) {
+            // 非紧凑像素排列时，退回到先读取数据再计算
+            byte[] lumaData = readPlaneBytes(plane, width, height);
+            long traceStart = YuvTrace.begin();
+            Sobel(lumaData, width, width, height, dstData, dstWidth, dstHeight, mode);
+            YuvTrace.record(traceStart, YuvTrace.OP_SOBEL, lumaData, FourCC.FOURCC_I400, FourCC.FOURCC_I400, width, height, 0, 0, width, height, RotationMode.ROTATE_0, dstWidth, dstHeight, FilterMode.FILTER_NONE, mode);
+            return;
+        }
+        int rowStride = plane.getRowStride();
+        if (rowStride <= 0) {
+            throw new IllegalArgumentException("image plane rowStride must be positive");
+        }
+        checkBufferCapacity(buffer, rowStride * (height - 1) + width, "image plane buffer is too small");
+        long traceStart = YuvTrace.begin();
+        BufferSobel(buffer, rowStride, width, height, dstData, dstWidth, dstHeight, mode);
+        YuvTrace.record(traceStart, YuvTrace.OP_SOBEL, null, FourCC.FOURCC_I400, FourCC.FOURCC_I400, width, height, 0, 0, width, height, RotationMode.ROTATE_0, dstWidth, dstHeight, FilterMode.FILTER_NONE, mode);
+    }
+
+    private static void checkSobelParams(int width, int height, int dstWidth, int dstHeight, int mode) {
+        checkDimensions(width, height);
+        checkDimensions(dstWidth, dstHeight);
+        if (dstWidth > width || dstHeight > height) {
+            throw new IllegalArgumentException("dstWidth and dstHeight must not exceed width and height");
+        }
+        if (mode != SobelMode.SOBEL_MAGNITUDE && mode != SobelMode.SOBEL_XY) {
+            throw new IllegalArgumentException("unsupported sobel mode: " + mode);
+        }
+    }
+
+    private static int sobelSize(int dstWidth, int dstHeight, int mode) {
+        return mode == SobelMode.SOBEL_XY ? dstWidth * dstHeight * 2 : dstWidth * dstHeight;
+    }
+
+    private static void checkLumaStatsParams(int gridCols, int gridRows, int step) {
+        if (gridCols <= 0 || gridRows <= 0) {
+            throw new IllegalArgumentException("gridCols and gridRows must be positive");
+        }
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+    }
+
+    /**
+     * 将I420数据转换为指定格式的数据
+     *
+     * @param i420Data 源I420数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @return 返回转换成指定格式后的数据
+     */
+    @NonNull
+    public static byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull FourCC fourcc) {
+        int dstSize = fourcc.getTotalBppSize(width, height);
+        return convertFromI420(i420Data, width, height, dstSize, fourcc);
+    }
+
+    /**
+     * 将I420数据转换为指定格式的数据
+     *
+     * @param i420Data 源I420数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param dstSize  目标数据占用字节大小
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @return 返回转换成指定格式后的数据
+     */
+    @NonNull
+    public static byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, int dstSize, @NonNull FourCC fourcc) {
+        checkDimensions(width, height);
+        checkDstSize(dstSize);
+        byte[] dstData = new byte[dstSize];
+        convertFromI420(i420Data, width, height, dstData, fourcc);
+        return dstData;
+    }
+
+    /**
+     * 将I420数据转换为指定格式的数据（复用目标数组）
+     */
+    public static void convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull byte[] dstData, @NonNull FourCC fourcc) {
+        checkDimensions(width, height);
+        checkArraySize(dstData, fourcc.getTotalBppSize(width, height), "dstData");
+        long traceStart = YuvTrace.begin();
+        ConvertFromI420(i420Data, width, height, dstData, 0, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_FROM_I420, i420Data, FourCC.FOURCC_I420, fourcc, width, height, -1);
+    }
+
+    /**
+     * 按指定色彩空间将I420数据转换为指定格式的数据
+     *
+     * @param i420Data   源I420数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param colorSpace 色彩空间；{@link ColorSpace}，仅对RGB格式生效
+     * @return 返回转换成指定格式后的数据
+     */
+    @NonNull
+    public static byte[] convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        checkDimensions(width, height);
+        byte[] dstData = new byte[fourcc.getTotalBppSize(width, height)];
+        convertFromI420(i420Data, width, height, dstData, fourcc, colorSpace);
+        return dstData;
+    }
+
+    /**
+     * 按指定色彩空间将I420数据转换为指定格式的数据（复用目标数组）
+     */
+    public static void convertFromI420(@NonNull byte[] i420Data, int width, int height, @NonNull byte[] dstData, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        checkDimensions(width, height);
+        checkColorSpace(colorSpace);
+        checkArraySize(dstData, fourcc.getTotalBppSize(width, height), "dstData");
+        long traceStart = YuvTrace.begin();
+        ConvertFromI420Matrix(i420Data, width, height, dstData, 0, fourcc.getCode(), colorSpace);
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_FROM_I420, i420Data, FourCC.FOURCC_I420, fourcc, width, height, colorSpace);
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据
+     *
+     * @param srcData 源数据
+     * @param width   图像宽度
+     * @param height  图像高度
+     * @param fourcc  指定数据格式；{@link FourCC}
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc) {
+        return convertToI420(srcData, width, height, RotationMode.ROTATE_0, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据
+     *
+     * @param srcData 源数据
+     * @param width   图像宽度
+     * @param height  图像高度
+     * @param degrees 需要旋转的角度；{@link  RotationMode}
+     * @param fourcc  指定数据格式；{@link FourCC}
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        return convertToI420(srcData, width, height, 0, 0, width, height, degrees, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据
+     *
+     * @param srcData  源数据
+     * @param width    图像宽度
+     * @param height   图像高度
+     * @param cropRect 裁减的矩形
+     * @param degrees  需要旋转的角度；{@link  RotationMode}
+     * @param fourcc   指定数据格式；{@link FourCC}
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @NonNull Rect cropRect, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        return convertToI420(srcData, width, height, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), degrees, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据
+     *
+     * @param srcData    源数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        byte[] dstData = new byte[i420Size(cropWidth, cropHeight)];
+        convertToI420(srcData, width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc, dstData);
+        return dstData;
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据（复用目标数组）
+     */
+    public static void convertToI420(@NonNull byte[] srcData, int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
+        convertToI420(srcData, width, height, 0, 0, width, height, degrees, fourcc, dstData);
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据（复用目标数组）
+     */
+    public static void convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        checkArraySize(dstData, i420Size(cropWidth, cropHeight), "dstData");
+        if (strictMode) {
+            checkStrict(YuvExplain.convertToI420(width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc));
+        }
+        long traceStart = YuvTrace.begin();
+        ConvertToI420(srcData, srcData.length, width, height, dstData, cropX, cropY, cropWidth, cropHeight, degrees, fourcc.getCode());
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I420, srcData, fourcc, FourCC.FOURCC_I420, width, height, cropX, cropY, cropWidth, cropHeight, degrees,
+                rotatedWidth(cropWidth, cropHeight, degrees), rotatedHeight(cropWidth, cropHeight, degrees), FilterMode.FILTER_NONE, -1);
+    }
+
+    /**
+     * 按指定色彩空间将指定格式的数据转换为I420数据
+     *
+     * @param srcData    源数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param colorSpace 色彩空间；{@link ColorSpace}，仅对RGB格式生效
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        return convertToI420(srcData, width, height, 0, 0, width, height, RotationMode.ROTATE_0, fourcc, colorSpace);
+    }
+
+    /**
+     * 按指定色彩空间将指定格式的数据转换为I420数据
+     *
+     * @param srcData    源数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param colorSpace 色彩空间；{@link ColorSpace}，仅对RGB格式生效
+     * @return 返回I420数据
+     */
+    @NonNull
+    public static byte[] convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        byte[] dstData = new byte[i420Size(cropWidth, cropHeight)];
+        convertToI420(srcData, width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc, colorSpace, dstData);
+        return dstData;
+    }
+
+    /**
+     * 按指定色彩空间将指定格式的数据转换为I420数据（复用目标数组）
+     */
+    public static void convertToI420(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc, @ColorSpace int colorSpace, @NonNull byte[] dstData) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        checkColorSpace(colorSpace);
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        checkArraySize(dstData, i420Size(cropWidth, cropHeight), "dstData");
+        if (strictMode) {
+            checkStrict(YuvExplain.convertToI420(width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc, colorSpace));
+        }
+        long traceStart = YuvTrace.begin();
+        ConvertToI420Matrix(srcData, srcData.length, width, height, dstData, cropX, cropY, cropWidth, cropHeight, degrees, fourcc.getCode(), colorSpace);
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I420, srcData, fourcc, FourCC.FOURCC_I420, width, height, cropX, cropY, cropWidth, cropHeight, degrees,
+                rotatedWidth(cropWidth, cropHeight, degrees), rotatedHeight(cropWidth, cropHeight, degrees), FilterMode.FILTER_NONE, colorSpace);
+    }
+
+    /**
+     * 将指定格式的数据直接转换为另一种格式：libyuv有直接转换的内核时（如NV21→ARGB、YUY2→NV12、ARGB→NV21、ABGR→ARGB、NV12→RGB565等）
+     * 只需遍历一次且没有中间帧；没有时RGB之间经ARGB中转，其余经I420中转。可通过 {@link YuvExplain#convert(int, int, FourCC, FourCC)} 查看实际的转换路径
+     *
+     * @param srcData   源数据
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param srcFourcc 源数据格式；{@link FourCC}
+     * @param dstFourcc 目标数据格式；{@link FourCC}
+     * @return 返回转换后的数据
+     */
+    @NonNull
+    public static byte[] convert(@NonNull byte[] srcData, int width, int height, @NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        checkDimensions(width, height);
+        byte[] dstData = new byte[sampleSize(dstFourcc, width, height)];
+        convert(srcData, width, height, srcFourcc, dstData, dstFourcc);
+        return dstData;
+    }
+
+    /**
+     * 将指定格式的数据直接转换为另一种格式（复用目标数组）
+     */
+    public static void convert(@NonNull byte[] srcData, int width, int height, @NonNull FourCC srcFourcc, @NonNull byte[] dstData, @NonNull FourCC dstFourcc) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(srcFourcc, "srcFourcc is null");
+        Objects.requireNonNull(dstFourcc, "dstFourcc is null");
+        int srcSize = sampleSize(srcFourcc, width, height);
+        int dstSize = sampleSize(dstFourcc, width, height);
+        checkArraySize(srcData, srcSize, "srcData");
+        checkArraySize(dstData, dstSize, "dstData");
+        if (strictMode) {
+            checkStrict(YuvExplain.convert(width, height, srcFourcc, dstFourcc));
+        }
+        long traceStart = YuvTrace.begin();
+        int ret = ConvertSample(srcData, srcSize, width, height, dstData, dstSize, srcFourcc.getCode(), dstFourcc.getCode());
+        if (ret != 0) {
+            throw new IllegalArgumentException("unsupported conversion: " + srcFourcc + " -> " + dstFourcc);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT, srcData, srcFourcc, dstFourcc, width, height, 0);
+    }
+
+    /**
+     * 两种格式之间是否有直接转换的内核（一次遍历，没有中间帧）
+     *
+     * @param srcFourcc 源数据格式；{@link FourCC}
+     * @param dstFourcc 目标数据格式；{@link FourCC}
+     * @return 有直接转换的内核或两种格式相同时返回true
+     */
+    public static boolean hasDirectConversion(@NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        int path = GetConvertPath(srcFourcc.getCode(), dstFourcc.getCode());
+        return path == CONVERT_COPY || path == CONVERT_DIRECT;
+    }
+
+    /**
+     * 将指定格式的数据转换为I400（仅亮度）
+     *
+     * @param srcData 源数据
+     * @param width   图像宽度
+     * @param height  图像高度
+     * @param fourcc  指定数据格式；{@link FourCC}
+     * @return 返回I400数据
+     */
+    @NonNull
+    public static byte[] convertToI400(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc) {
+        return convertToI400(srcData, width, height, 0, 0, width, height, RotationMode.ROTATE_0, width, height, FilterMode.FILTER_NONE, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据裁减、旋转、缩放后转换为I400（仅亮度）
+     *
+     * @param srcData    源数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropRect   裁减的矩形
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param dstWidth   目标宽（旋转后）
+     * @param dstHeight  目标高（旋转后）
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回I400数据
+     */
+    @NonNull
+    public static byte[] convertToI400(@NonNull byte[] srcData, int width, int height, @NonNull Rect cropRect, @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode, @NonNull FourCC fourcc) {
+        return convertToI400(srcData, width, height, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), degrees, dstWidth, dstHeight, filterMode, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据裁减、旋转、缩放后转换为I400（仅亮度）
+     *
+     * @param srcData    源数据
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param dstWidth   目标宽（旋转后）
+     * @param dstHeight  目标高（旋转后）
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回I400数据
+     */
+    @NonNull
+    public static byte[] convertToI400(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode, @NonNull FourCC fourcc) {
+        checkDimensions(dstWidth, dstHeight);
+        byte[] dstData = new byte[dstWidth * dstHeight];
+        convertToI400(srcData, width, height, cropX, cropY, cropWidth, cropHeight, degrees, dstWidth, dstHeight, filterMode, fourcc, dstData);
+        return dstData;
+    }
+
+    /**
+     * 将指定格式的数据裁减、旋转、缩放后转换为I400（复用目标数组）
+     * <p>
+     * 只处理亮度：YUV格式直接读取Y平面，不会处理色度；packed RGB格式按JPEG全范围（J400）计算亮度。
+     */
+    public static void convertToI400(@NonNull byte[] srcData, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode, @NonNull FourCC fourcc, @NonNull byte[] dstData) {
+        checkDimensions(width, height);
+        checkDimensions(dstWidth, dstHeight);
+        checkRotationMode(degrees);
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        int srcStride = getSampleStride(fourcc, width);
+        checkArraySize(srcData, srcStride * height, "srcData");
+        checkArraySize(dstData, dstWidth * dstHeight, "dstData");
+        long traceStart = YuvTrace.begin();
+        int ret = ConvertToI400(srcData, srcStride, width, height, dstData, cropX, cropY, cropWidth, cropHeight, dstWidth, dstHeight, degrees, filterMode, fourcc.getCode());
+        if (ret != 0) {
+            throw new IllegalArgumentException("unsupported fourcc for I400: " + fourcc);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I400, srcData, fourcc, FourCC.FOURCC_I400, width, height, cropX, cropY, cropWidth, cropHeight, degrees, dstWidth, dstHeight, filterMode, 0);
+    }
+
+    /**
+     * 将Image转换为I400（仅亮度）
+     *
+     * @param image 图像；{@link Image}
+     * @return 返回I400数据
+     */
+    @NonNull
+    public static byte[] imageToI400(@NonNull Image image) {
+        Objects.requireNonNull(image, "image is null");
+        return imageToI400(image, null, RotationMode.ROTATE_0, image.getWidth(), image.getHeight(), FilterMode.FILTER_NONE);
+    }
+
+    /**
+     * 将Image裁减、旋转、缩放后转换为I400（仅亮度）
+     *
+     * @param image      图像；{@link Image}
+     * @param cropRect   裁减的矩形，为null时表示不裁减
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param dstWidth   目标宽（旋转后）
+     * @param dstHeight  目标高（旋转后）
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @return 返回I400数据
+     */
+    @NonNull
+    public static byte[] imageToI400(@NonNull Image image, @Nullable Rect cropRect, @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode) {
+        checkDimensions(dstWidth, dstHeight);
+        byte[] dstData = new byte[dstWidth * dstHeight];
+        imageToI400(image, cropRect, degrees, dstWidth, dstHeight, filterMode, dstData);
+        return dstData;
+    }
+
+    /**
+     * 将Image裁减、旋转、缩放后转换为I400（复用目标数组）
+     * <p>
+     * YUV格式的Image直接读取Y平面；packed格式的Image直接读取plane缓冲区，不会额外拷贝整帧数据。
+     */
+    public static void imageToI400(@NonNull Image image, @Nullable Rect cropRect, @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode, @NonNull byte[] dstData) {
+        Objects.requireNonNull(image, "image is null");
+        checkRotationMode(degrees);
+        checkDimensions(dstWidth, dstHeight);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int cropX = cropRect != null ? cropRect.left : 0;
+        int cropY = cropRect != null ? cropRect.top : 0;
+        int cropWidth = cropRect != null ? cropRect.width() : width;
+        int cropHeight = cropRect != null ? cropRect.height() : height;
+        checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
+        checkArraySize(dstData, dstWidth * dstHeight, "dstData");
+
+        int format = image.getFormat();
+        FourCC fourcc;
+        int bytesPerPixel;
+        if (format == ImageFormat.YUV_420_888 || format == ImageFormat.YUV_422_888 || format == ImageFormat.YUV_444_888) {
+            fourcc = FourCC.FOURCC_I400;
+            bytesPerPixel = 1;
+        } else {
+            fourcc = requireImageFormatFourcc(format);
+            bytesPerPixel = getPackedBytesPerPixel(fourcc);
+        }
+        Image.Plane[] planes = image.getPlanes();
+        if (planes == null || planes.length < 1) {
+            throw new IllegalArgumentException("image must contain at least 1 plane");
+        }
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        int rowStride = plane.getRowStride();
+        if (plane.getPixelStride() != bytesPerPixel || !buffer.isDirect()) {
+            // 非紧凑像素排列时，退回到先读取数据再转换
+            byte[] srcData = bytesPerPixel == 1
+                    ? readPlaneBytes(plane, width, height)
+                    : readPackedImageBytes(plane, width, height, bytesPerPixel);
+            convertToI400(srcData, width, height, cropX, cropY, cropWidth, cropHeight, degrees, dstWidth, dstHeight, filterMode, fourcc, dstData);
+            return;
+        }
+        if (rowStride <= 0) {
+            throw new IllegalArgumentException("image plane rowStride must be positive");
+        }
+        checkBufferCapacity(buffer, rowStride * (height - 1) + width * bytesPerPixel, "image plane buffer is too small");
+        long traceStart = YuvTrace.begin();
+        int ret = BufferToI400(buffer, rowStride, width, height, dstData, cropX, cropY, cropWidth, cropHeight, dstWidth, dstHeight, degrees, filterMode, fourcc.getCode());
+        if (ret != 0) {
+            throw new IllegalArgumentException("unsupported fourcc for I400: " + fourcc);
+        }
+        YuvTrace.record(traceStart, YuvTrace.OP_CONVERT_TO_I400, null, fourcc, FourCC.FOURCC_I400, width, height, cropX, cropY, cropWidth, cropHeight, degrees, dstWidth, dstHeight, filterMode, 0);
+    }
+
+    /**
+     * I420旋转
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param degrees     需要旋转的角度；{@link  RotationMode}
+     * @return 返回旋转后的数据
+     */
+    @NonNull
+    public static byte[] i420Rotate(@NonNull byte[] srcI420Data, int width, int height, @RotationMode int degrees) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        int dstWidth = rotatedWidth(width, height, degrees);
+        int dstHeight = rotatedHeight(width, height, degrees);
+        byte[] dstData = new byte[i420Size(dstWidth, dstHeight)];
+        i420Rotate(srcI420Data, width, height, dstData, degrees);
+        return dstData;
+    }
+
+    /**
+     * I420旋转（复用目标数组）
+     */
+    public static void i420Rotate(@NonNull byte[] srcI420Data, int width, int height, @NonNull byte[] dstData, @RotationMode int degrees) {
+        checkDimensions(width, height);
+        checkRotationMode(degrees);
+        int dstWidth = rotatedWidth(width, height, degrees);
+        int dstHeight = rotatedHeight(width, height, degrees);
+        checkArraySize(dstData, i420Size(dstWidth, dstHeight), "dstData");
+        long traceStart = YuvTrace.begin();
+        I420Rotate(srcI420Data, width, height, dstData, degrees);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_ROTATE, srcI420Data, FourCC.FOURCC_I420, FourCC.FOURCC_I420, width, height, 0, 0, width, height, degrees, dstWidth, dstHeight, FilterMode.FILTER_NONE, 0);
+    }
+
+    /**
+     * I420镜像
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @return 返回镜像后的数据
+     */
+    @NonNull
+    public static byte[] i420Mirror(@NonNull byte[] srcI420Data, int width, int height) {
+        checkDimensions(width, height);
+        byte[] dstData = new byte[i420Size(width, height)];
+        i420Mirror(srcI420Data, width, height, dstData);
         return dstData;
     }
 
@@ -767,7 +1964,14 @@ public final class LibYuv {
     public static void i420Mirror(@NonNull byte[] srcI420Data, int width, int height, @NonNull byte[] dstData) {
         checkDimensions(width, height);
         checkArraySize(dstData, i420Size(width, height), "dstData");
+        long traceStart = YuvTrace.begin();
+        if (srcI420Data == dstData) {
+            MirrorInPlace(dstData, width, height, FourCC.FOURCC_I420.getCode());
+            YuvTrace.record(traceStart, YuvTrace.OP_MIRROR_IN_PLACE, null, FourCC.FOURCC_I420, FourCC.FOURCC_I420, width, height, 0);
+            return;
+        }
         I420Mirror(srcI420Data, width, height, dstData);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_MIRROR, srcI420Data, FourCC.FOURCC_I420, FourCC.FOURCC_I420, width, height, 0);
     }
 
     /**
@@ -795,7 +1999,9 @@ public final class LibYuv {
         checkDimensions(width, height);
         checkDimensions(dstWidth, dstHeight);
         checkArraySize(dstData, i420Size(dstWidth, dstHeight), "dstData");
+        long traceStart = YuvTrace.begin();
         I420Scale(srcI420Data, width, height, dstData, dstWidth, dstHeight, filterMode);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_SCALE, srcI420Data, FourCC.FOURCC_I420, FourCC.FOURCC_I420, width, height, 0, 0, width, height, RotationMode.ROTATE_0, dstWidth, dstHeight, filterMode, 0);
     }
 
     /**
@@ -826,9 +2032,92 @@ public final class LibYuv {
         checkDimensions(width, height);
         checkCropBounds(width, height, cropX, cropY, cropWidth, cropHeight);
         checkArraySize(dstData, i420Size(cropWidth, cropHeight), "dstData");
+        long traceStart = YuvTrace.begin();
         I420Crop(srcI420Data, width, height, dstData, cropX, cropY, cropWidth, cropHeight);
+        YuvTrace.record(traceStart, YuvTrace.OP_I420_CROP, srcI420Data, FourCC.FOURCC_I420, FourCC.FOURCC_I420, width, height, cropX, cropY, cropWidth, cropHeight, RotationMode.ROTATE_0, cropWidth, cropHeight, FilterMode.FILTER_NONE, 0);
+    }
+
+    /**
+     * 构建I420图像金字塔
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param levels      层数（包含原图）
+     * @param factor      相邻两层的缩放系数，取值范围：(0, 1)，如：0.5
+     * @param filterMode  压缩过滤模式；{@link  FilterMode}
+     * @return 返回图像金字塔；{@link YuvPyramid}
+     */
+    @NonNull
+    public static YuvPyramid buildPyramid(@NonNull byte[] srcI420Data, int width, int height, int levels, float factor, @FilterMode int filterMode) {
+        return buildPyramid(srcI420Data, width, height, levels, factor, filterMode, false);
+    }
+
+    /**
+     * 构建图像金字塔
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param levels      层数（包含原图）
+     * @param factor      相邻两层的缩放系数，取值范围：(0, 1)，如：0.5
+     * @param filterMode  压缩过滤模式；{@link  FilterMode}
+     * @param lumaOnly    是否仅输出亮度（I400）
+     * @return 返回图像金字塔；{@link YuvPyramid}
+     */
+    @NonNull
+    public static YuvPyramid buildPyramid(@NonNull byte[] srcI420Data, int width, int height, int levels, float factor, @FilterMode int filterMode, boolean lumaOnly) {
+        return buildPyramid(srcI420Data, width, height, levels, factor, filterMode, lumaOnly, ByteArrayPool.getDefault());
     }
 
+    /**
+     * 构建图像金字塔
+     * <p>
+     * 每一层都由上一层缩放得到，所有层级连续存放在同一个从pool中获取的数组中；
+     * 当lumaOnly为true时，只处理Y平面，此时源数据也可以是NV21/NV12等Y平面在前的数据。
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param levels      层数（包含原图）
+     * @param factor      相邻两层的缩放系数，取值范围：(0, 1)，如：0.5
+     * @param filterMode  压缩过滤模式；{@link  FilterMode}
+     * @param lumaOnly    是否仅输出亮度（I400）
+     * @param pool        数组池；{@link ByteArrayPool}
+     * @return 返回图像金字塔；{@link YuvPyramid}
+     */
+    @NonNull
+    public static YuvPyramid buildPyramid(@NonNull byte[] srcI420Data, int width, int height, int levels, float factor, @FilterMode int filterMode, boolean lumaOnly, @NonNull ByteArrayPool pool) {
+        checkDimensions(width, height);
+        Objects.requireNonNull(pool, "pool is null");
+        if (levels <= 0) {
+            throw new IllegalArgumentException("levels must be positive");
+        }
+        if (!(factor > 0f && factor < 1f)) {
+            throw new IllegalArgumentException("factor must be in (0, 1): " + factor);
+        }
+        FourCC fourcc = lumaOnly ? FourCC.FOURCC_I400 : FourCC.FOURCC_I420;
+        checkArraySize(srcI420Data, fourcc.getTotalBppSize(width, height), "srcI420Data");
+        int[] widths = new int[levels];
+        int[] heights = new int[levels];
+        int[] offsets = new int[levels];
+        YuvPyramid.computeLevelSizes(width, height, levels, factor, widths, heights);
+        long totalSize = 0;
+        for (int i = 0; i < levels; i++) {
+            offsets[i] = (int) totalSize;
+            totalSize += fourcc.getTotalBppSize(widths[i], heights[i]);
+            if (totalSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("pyramid is too large");
+            }
+        }
+        byte[] dstData = pool.acquire((int) totalSize);
+        long traceStart = YuvTrace.begin();
+        I420Pyramid(srcI420Data, width, height, dstData, widths, heights, offsets, levels, lumaOnly, filterMode);
+        // 目标尺寸记录第二层的尺寸（重放时据此还原缩小比例），层数记录为附加参数
+        int levelIndex = levels > 1 ? 1 : 0;
+        YuvTrace.record(traceStart, YuvTrace.OP_PYRAMID, srcI420Data, fourcc, fourcc, width, height, 0, 0, width, height, RotationMode.ROTATE_0, widths[levelIndex], heights[levelIndex], filterMode, levels);
+        return new YuvPyramid(pool, fourcc, widths, heights, offsets, dstData);
+    }
 
     /**
      * YUV转I420
@@ -870,7 +2159,10 @@ public final class LibYuv {
         if (!srcYData.isDirect() || !srcUData.isDirect() || !srcVData.isDirect()) {
             throw new IllegalArgumentException("source buffers must be direct");
         }
+        long traceStart = YuvTrace.begin();
         YUVToI420(srcYData, srcUData, srcVData, yStride, uStride, vStride, uvPixelStride, width, height, dstData, degrees);
+        YuvTrace.record(traceStart, YuvTrace.OP_YUV_TO_I420, null, null, FourCC.FOURCC_I420, width, height, 0, 0, width, height, degrees,
+                rotatedWidth(width, height, degrees), rotatedHeight(width, height, degrees), FilterMode.FILTER_NONE, uvPixelStride);
     }
 
     private static int i420Size(int width, int height) {
@@ -878,7 +2170,7 @@ public final class LibYuv {
         return FourCC.FOURCC_I420.getTotalBppSize(width, height);
     }
 
-    private static void checkDimensions(int width, int height) {
+    static void checkDimensions(int width, int height) {
         if (width <= 0 || height <= 0) {
             throw new IllegalArgumentException("width and height must be positive");
         }
@@ -893,13 +2185,25 @@ public final class LibYuv {
         }
     }
 
+    private static void checkStrict(@NonNull YuvPlan plan) {
+        if (plan.isSlowPath()) {
+            throw new IllegalStateException("strict mode: " + plan.getOperation() + " " + plan.getSlowReasons());
+        }
+    }
+
+    private static void checkColorSpace(int colorSpace) {
+        if (colorSpace < ColorSpace.BT601 || colorSpace > ColorSpace.BT2020_FULL) {
+            throw new IllegalArgumentException("invalid color space: " + colorSpace);
+        }
+    }
+
     private static void checkDstSize(int size) {
         if (size <= 0) {
             throw new IllegalArgumentException("dstSize must be positive");
         }
     }
 
-    private static void checkArraySize(@NonNull byte[] data, int minSize, @NonNull String name) {
+    static void checkArraySize(@NonNull byte[] data, int minSize, @NonNull String name) {
         Objects.requireNonNull(data, name + " is null");
         if (minSize < 0) {
             throw new IllegalArgumentException("minSize must be non-negative");
@@ -1005,6 +2309,36 @@ public final class LibYuv {
         }
     }
 
+    /**
+     * 紧凑排列时一帧数据的大小；YUY2/UYVY奇数宽度时按对齐后的行计算
+     */
+    static int sampleSize(@NonNull FourCC fourcc, int width, int height) {
+        if (fourcc == FourCC.FOURCC_YUY2 || fourcc == FourCC.FOURCC_UYVY) {
+            return getSampleStride(fourcc, width) * height;
+        }
+        return fourcc.getTotalBppSize(width, height);
+    }
+
+    private static int getSampleStride(@NonNull FourCC fourcc, int width) {
+        switch (fourcc) {
+            case FOURCC_YUY2:
+            case FOURCC_UYVY:
+                return ((width + 1) >> 1) << 2;
+            case FOURCC_I400:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+            case FOURCC_I420:
+            case FOURCC_YV12:
+            case FOURCC_I422:
+            case FOURCC_YV16:
+            case FOURCC_I444:
+            case FOURCC_YV24:
+                return width;
+            default:
+                return width * getPackedBytesPerPixel(fourcc);
+        }
+    }
+
     private static FourCC requireImageFormatFourcc(int format) {
         FourCC fourcc = getImageFormatFourcc(format);
         if (fourcc == null) {
@@ -1013,7 +2347,7 @@ public final class LibYuv {
         return fourcc;
     }
 
-    private static FourCC getImageFormatFourcc(int format) {
+    static FourCC getImageFormatFourcc(int format) {
         switch (format) {
             case ImageFormat.YUV_422_888:
                 return FourCC.FOURCC_I422;
@@ -1037,24 +2371,61 @@ public final class LibYuv {
         }
     }
 
+    /**
+     * 是否为Y平面在前的平面/半平面YUV格式
+     */
+    static boolean hasLumaPlane(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_I400:
+            case FOURCC_I420:
+            case FOURCC_YV12:
+            case FOURCC_I422:
+            case FOURCC_YV16:
+            case FOURCC_I444:
+            case FOURCC_YV24:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 是否每个采样都是一个字节（可以逐字节处理）
+     */
+    static boolean hasByteSamples(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_RGBP:
+            case FOURCC_RGBO:
+            case FOURCC_R444:
+            case FOURCC_AR30:
+                return false;
+            default:
+                return true;
+        }
+    }
+
     private static boolean isQuarterTurn(@RotationMode int degrees) {
         return degrees == RotationMode.ROTATE_90 || degrees == RotationMode.ROTATE_270;
     }
 
-    private static int rotatedWidth(int width, int height, @RotationMode int degrees) {
+    static int rotatedWidth(int width, int height, @RotationMode int degrees) {
         return isQuarterTurn(degrees) ? height : width;
     }
 
-    private static int rotatedHeight(int width, int height, @RotationMode int degrees) {
+    static int rotatedHeight(int width, int height, @RotationMode int degrees) {
         return isQuarterTurn(degrees) ? width : height;
     }
 
-    private static void checkBufferCapacity(@NonNull ByteBuffer buffer, int requiredCapacity, @NonNull String message) {
+    static void checkBufferCapacity(@NonNull ByteBuffer buffer, int requiredCapacity, @NonNull String message) {
         if (buffer.capacity() < requiredCapacity) {
             throw new IllegalArgumentException(message);
         }
     }
 
+    // 以下native方法均在yuv_jni.cpp的JNI_OnLoad中通过RegisterNatives注册，新增或修改签名时需同步更新注册表
+
     /**
      * YUV转I420
      *
@@ -1121,6 +2492,20 @@ public final class LibYuv {
      */
     static native void ConvertToI420(byte[] srcData, int srcSize, int width, int height, byte[] dstData, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, long fourcc);
 
+    /**
+     * 按指定色彩空间将I420转换为指定格式的数据
+     *
+     * @param colorSpace 色彩空间；{@link ColorSpace}
+     */
+    static native void ConvertFromI420Matrix(byte[] srcI420Data, int width, int height, byte[] dstData, int dstStride, long fourcc, @ColorSpace int colorSpace);
+
+    /**
+     * 按指定色彩空间将指定格式的数据转换为I420数据
+     *
+     * @param colorSpace 色彩空间；{@link ColorSpace}
+     */
+    static native void ConvertToI420Matrix(byte[] srcData, int srcSize, int width, int height, byte[] dstData, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, long fourcc, @ColorSpace int colorSpace);
+
     /**
      * I420旋转
      *
@@ -1168,4 +2553,234 @@ public final class LibYuv {
      * @param dstData     目标I420数据
      */
     static native void I420Mirror(byte[] srcI420Data, int width, int height, byte[] dstData);
+
+    /**
+     * 将指定格式的数据裁减、缩放、旋转后转换为I400
+     *
+     * @param srcData    源数据
+     * @param srcStride  源数据跨距
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param dstData    目标I400数据
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param dstWidth   目标宽（旋转后）
+     * @param dstHeight  目标高（旋转后）
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @param fourcc     指定格式
+     * @return 成功返回0
+     */
+    static native int ConvertToI400(byte[] srcData, int srcStride, int width, int height, byte[] dstData, int cropX, int cropY, int cropWidth, int cropHeight, int dstWidth, int dstHeight, @RotationMode int degrees, @FilterMode int filterMode, long fourcc);
+
+    /**
+     * 将ByteBuffer中指定格式的数据裁减、缩放、旋转后转换为I400
+     *
+     * @param srcData    源数据（direct ByteBuffer）
+     * @param srcStride  源数据跨距
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param dstData    目标I400数据
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param dstWidth   目标宽（旋转后）
+     * @param dstHeight  目标高（旋转后）
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @param fourcc     指定格式
+     * @return 成功返回0
+     */
+    static native int BufferToI400(ByteBuffer srcData, int srcStride, int width, int height, byte[] dstData, int cropX, int cropY, int cropWidth, int cropHeight, int dstWidth, int dstHeight, @RotationMode int degrees, @FilterMode int filterMode, long fourcc);
+
+    /**
+     * 构建图像金字塔
+     *
+     * @param srcI420Data 源I420数据
+     * @param width       图像宽度
+     * @param height      图像高度
+     * @param dstData     目标数据，存放所有层级
+     * @param widths      各层宽度
+     * @param heights     各层高度
+     * @param offsets     各层数据在目标数据中的起始偏移
+     * @param levels      层数
+     * @param lumaOnly    是否仅处理亮度
+     * @param filterMode  压缩过滤模式；{@link  FilterMode}
+     */
+    static native void I420Pyramid(byte[] srcI420Data, int width, int height, byte[] dstData, int[] widths, int[] heights, int[] offsets, int levels, boolean lumaOnly, @FilterMode int filterMode);
+
+    /**
+     * 多路画面拼接
+     *
+     * @param canvasData   画布数据
+     * @param canvasWidth  画布宽度
+     * @param canvasHeight 画布高度
+     * @param argb         画布是否为4字节packed格式，否则为I420
+     * @param srcData      各区块的源数据
+     * @param tiles        各区块的参数：srcWidth, srcHeight, dstX, dstY, dstWidth, dstHeight, filterMode
+     * @param tileCount    区块数量
+     * @param threadCount  线程数；小于等于0时自动选择
+     */
+    static native void CompositeTiles(byte[] canvasData, int canvasWidth, int canvasHeight, boolean argb, byte[][] srcData, int[] tiles, int tileCount, int threadCount);
+
+    /**
+     * 将4字节packed格式的叠加图拆分为I420、Alpha平面以及预乘Alpha的ARGB数据
+     *
+     * @return 成功返回0，格式不支持时返回-1
+     */
+    static native int OverlayFromARGB(byte[] srcData, int width, int height, long fourcc, boolean premultiplied, byte[] dstI420Data, byte[] dstAlphaData, byte[] dstArgbData);
+
+    static native void OverlayToARGB(byte[] srcI420Data, byte[] srcAlphaData, int width, int height, byte[] dstArgbData);
+
+    /**
+     * 按不透明度生成叠加图的Alpha平面、半尺寸Alpha平面以及交错色度所用的Alpha平面
+     */
+    static native void OverlayPrepareAlpha(byte[] srcAlphaData, int width, int height, int opacity, byte[] dstAlphaData, byte[] dstHalfAlphaData, byte[] dstUvAlphaData);
+
+    static native void OverlayBlendYUV(byte[] dstData, int dstWidth, int dstHeight, boolean interleaved, byte[] srcI420Data, byte[] srcUvData, byte[] alphaData, byte[] halfAlphaData, byte[] uvAlphaData, int srcWidth, int srcHeight, int srcX, int srcY, int dstX, int dstY, int width, int height);
+
+    static native void OverlayBlendARGB(byte[] dstData, int dstWidth, int dstHeight, byte[] srcArgbData, int srcWidth, int srcHeight, int srcX, int srcY, int dstX, int dstY, int width, int height);
+
+    /**
+     * 非I420格式的裁减、旋转、镜像、缩放，中间数据使用native的scratch arena
+     *
+     * @param mirror 是否镜像翻转
+     */
+    static native void TransformSample(byte[] srcData, int srcSize, int width, int height, byte[] dstData, int cropX, int cropY, int cropWidth, int cropHeight, int dstWidth, int dstHeight, @RotationMode int degrees, boolean mirror, @FilterMode int filterMode, long fourcc);
+
+    /**
+     * 将packed格式的直接缓冲区转换为I420
+     *
+     * @param srcStride 源数据行跨距
+     */
+    static native void PackedBufferToI420(ByteBuffer srcData, int srcStride, int width, int height, int bytesPerPixel, byte[] dstData, @RotationMode int degrees, long fourcc);
+
+    /**
+     * 将I422/I444的直接缓冲区转换为I420
+     *
+     * @param i444 是否为I444，否则为I422
+     */
+    static native void PlanarBufferToI420(ByteBuffer srcYData, ByteBuffer srcUData, ByteBuffer srcVData, int yStride, int uStride, int vStride, int width, int height, boolean i444, byte[] dstData, @RotationMode int degrees);
+
+    @CriticalNative
+    static native void ArenaSetMaxBytes(long maxBytes);
+
+    @CriticalNative
+    static native long ArenaGetMaxBytes();
+
+    @CriticalNative
+    static native void ArenaSetTotalMaxBytes(long maxBytes);
+
+    @CriticalNative
+    static native void ArenaAddExternalBytes(long bytes);
+
+    /**
+     * 与arena扩容共用总上限申请bytes字节；会超出上限时返回false
+     */
+    @CriticalNative
+    static native boolean ArenaTryReserveExternal(long bytes);
+
+    /**
+     * 需要等待工作线程释放arena，不使用@CriticalNative
+     */
+    static native void ArenaTrim();
+
+    @FastNative
+    static native void ArenaGetStats(long[] stats);
+
+    /**
+     * 任意两种格式之间的转换；返回0表示成功
+     */
+    static native int ConvertSample(byte[] srcData, int srcSize, int width, int height, byte[] dstData, int dstSize, long srcFourcc, long dstFourcc);
+
+    @CriticalNative
+    static native int GetConvertPath(long srcFourcc, long dstFourcc);
+
+    /**
+     * 原地镜像；格式不支持时返回-1
+     */
+    static native int MirrorInPlace(byte[] data, int width, int height, long fourcc);
+
+    /**
+     * 原地垂直翻转；格式不支持时返回-1
+     */
+    static native int FlipVerticalInPlace(byte[] data, int width, int height, long fourcc);
+
+    static native void I420ToNVInPlace(byte[] data, int width, int height, boolean nv21);
+
+    static native void NVToI420InPlace(byte[] data, int width, int height, boolean nv21);
+
+    static native void SwapUVInPlace(byte[] data, int width, int height);
+
+    static native void ApplyLumaTableInPlace(byte[] data, int width, int height, byte[] lut);
+
+    /**
+     * 计算数据前size个字节的HashDjb2哈希（无符号32位）
+     */
+    static native long HashDjb2(byte[] data, int size, long seed);
+
+    /**
+     * 亮度统计；stats依次为256级直方图、区域亮度和、区域采样数
+     */
+    static native void ComputeLumaStats(byte[] data, int stride, int width, int height, int step, int gridCols, int gridRows, long[] stats);
+
+    static native void BufferLumaStats(ByteBuffer data, int stride, int width, int height, int step, int gridCols, int gridRows, long[] stats);
+
+    /**
+     * 变化检测：将Y平面缩小到分析尺寸写入current；hasReference为true时再与reference按区块计算SSE，写入tileSse
+     */
+    static native void DetectChange(byte[] data, int stride, int width, int height, ByteBuffer reference, ByteBuffer current, int analysisWidth, int analysisHeight, int tileCols, int tileRows, boolean hasReference, long[] tileSse);
+
+    static native void BufferDetectChange(ByteBuffer data, int stride, int width, int height, ByteBuffer reference, ByteBuffer current, int analysisWidth, int analysisHeight, int tileCols, int tileRows, boolean hasReference, long[] tileSse);
+
+    /**
+     * 增量转换：只转换变化的矩形区域（x, y, width, height）；detect为true时由比较previous得到变化区域。
+     * 返回实际转换的矩形数量，对齐后的矩形写回rects；源格式不支持时返回-1
+     */
+    static native int IncrementalConvert(byte[] srcData, int srcStride, int width, int height, long srcFourcc, ByteBuffer previous, boolean hasPrevious, int tileSize, boolean detect, int[] rects, int rectCount, byte[] dstData, long dstFourcc);
+
+    static native int BufferIncrementalConvert(ByteBuffer srcData, int srcStride, int width, int height, long srcFourcc, ByteBuffer previous, boolean hasPrevious, int tileSize, boolean detect, int[] rects, int rectCount, byte[] dstData, long dstFourcc);
+
+    /**
+     * 原地遮挡rectCount个矩形（x, y, width, height）；格式不支持时返回-1
+     */
+    static native int MaskRegions(byte[] data, int width, int height, long fourcc, int[] rects, int rectCount, @MaskMode int mode, int strength);
+
+    /**
+     * 仿射变换：inverse为目标坐标到源坐标的逆矩阵 {a, b, c, d, e, f}，fill为每个平面的填充值；格式不支持时返回-1
+     */
+    static native int WarpAffine(byte[] srcData, int width, int height, long fourcc, byte[] dstData, int dstWidth, int dstHeight, double[] inverse, byte[] fill);
+
+    /**
+     * Sobel边缘提取：目标尺寸小于源尺寸时先缩小
+     */
+    static native void Sobel(byte[] srcData, int srcStride, int width, int height, byte[] dstData, int dstWidth, int dstHeight, @SobelMode int mode);
+
+    /**
+     * Sobel边缘提取：直接读取direct ByteBuffer中的Y平面
+     */
+    static native void BufferSobel(ByteBuffer srcData, int srcStride, int width, int height, byte[] dstData, int dstWidth, int dstHeight, @SobelMode int mode);
+
+    /**
+     * 调色：原地依次执行stageCount个阶段（查表或颜色矩阵），stageData按该格式在内存中的字节位置排列
+     */
+    static native void ApplyColorStages(byte[] data, int stride, int width, int height, int[] stageKinds, int stageCount, byte[] stageData);
+
+    /**
+     * 原地按平面查表；表为null时对应平面保持不变，格式不支持时返回-1
+     */
+    static native int ApplyPlaneTables(byte[] data, int width, int height, long fourcc, byte[] yTable, byte[] uTable, byte[] vTable);
+
+    /**
+     * 两帧按权重混合：weight为src1的权重（0 ~ 256），dstData可以与源为同一个数组
+     */
+    static native void InterpolateFrames(byte[] src0Data, byte[] src1Data, byte[] dstData, int size, int weight);
+
+    /**
+     * 指数滑动平均：accumulator每个采样2字节（8位小数），first为true时用当前帧初始化
+     */
+    static native void AccumulateFrame(byte[] frame, ByteBuffer accumulator, int size, int weight, boolean first, int motionThreshold, byte[] dstData);
 }
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 亮度统计结果：256级直方图、均值、方差、最小值、最大值以及N×M个区域的平均亮度，可用于自动曝光反馈与暗光检测。
+ * <p>
+ * 通过 {@link LibYuv#computeLumaStats(byte[], int, int, FourCC, int, int, int)} 或
+ * {@link LibYuv#computeLumaStats(android.media.Image, int, int, int)} 获取；采样间隔大于1时，所有统计值都只基于采样到的像素。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class LumaStats {
+
+    /**
+     * 直方图的级数
+     */
+    public static final int HISTOGRAM_SIZE = 256;
+
+    private final int[] histogram = new int[HISTOGRAM_SIZE];
+    private final long sampleCount;
+    private final double mean;
+    private final double variance;
+    private final int min;
+    private final int max;
+    private final int gridCols;
+    private final int gridRows;
+    private final float[] gridMeans;
+
+    /**
+     * 由native统计结果构造
+     *
+     * @param stats    [0, 256) 直方图，随后是按行优先排列的区域亮度和与区域采样数
+     * @param gridCols 区域列数
+     * @param gridRows 区域行数
+     */
+    LumaStats(@NonNull long[] stats, int gridCols, int gridRows) {
+        this.gridCols = gridCols;
+        this.gridRows = gridRows;
+        long count = 0;
+        long sum = 0;
+        long sumSquares = 0;
+        int min = -1;
+        int max = -1;
+        for (int v = 0; v < HISTOGRAM_SIZE; v++) {
+            long n = stats[v];
+            histogram[v] = (int) n;
+            if (n == 0) {
+                continue;
+            }
+            if (min < 0) {
+                min = v;
+            }
+            max = v;
+            count += n;
+            sum += n * v;
+            sumSquares += n * v * v;
+        }
+        this.sampleCount = count;
+        this.min = min;
+        this.max = max;
+        if (count > 0) {
+            this.mean = (double) sum / count;
+            this.variance = Math.max(0, (double) sumSquares / count - mean * mean);
+        } else {
+            this.mean = 0;
+            this.variance = 0;
+        }
+        int cells = gridCols * gridRows;
+        this.gridMeans = new float[cells];
+        for (int i = 0; i < cells; i++) {
+            long cellCount = stats[HISTOGRAM_SIZE + cells + i];
+            gridMeans[i] = cellCount > 0 ? (float) stats[HISTOGRAM_SIZE + i] / cellCount : 0f;
+        }
+    }
+
+    /**
+     * 获取亮度直方图
+     *
+     * @return 返回长度为256的直方图的拷贝：下标为亮度值，元素为采样数
+     */
+    @NonNull
+    public int[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * 获取指定亮度值的采样数
+     *
+     * @param luma 亮度值：0~255
+     * @return 返回采样数
+     */
+    public int getCount(int luma) {
+        return histogram[luma];
+    }
+
+    /**
+     * 获取参与统计的采样数
+     *
+     * @return 返回采样数
+     */
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 获取平均亮度
+     *
+     * @return 返回平均亮度：0~255
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * 获取亮度方差
+     *
+     * @return 返回亮度方差
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * 获取亮度标准差
+     *
+     * @return 返回亮度标准差
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * 获取最小亮度
+     *
+     * @return 返回最小亮度；没有采样时返回-1
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * 获取最大亮度
+     *
+     * @return 返回最大亮度；没有采样时返回-1
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * 获取亮度的百分位数，例如0.5为中位数；可用于忽略少量高光或暗部
+     *
+     * @param fraction 百分位：0~1
+     * @return 返回累计采样数达到该比例时的亮度值；没有采样时返回-1
+     */
+    public int getPercentile(float fraction) {
+        if (fraction < 0f || fraction > 1f) {
+            throw new IllegalArgumentException("fraction must be in [0, 1]");
+        }
+        if (sampleCount == 0) {
+            return -1;
+        }
+        long target = Math.max(1, (long) Math.ceil(fraction * sampleCount));
+        long cumulative = 0;
+        for (int v = 0; v < HISTOGRAM_SIZE; v++) {
+            cumulative += histogram[v];
+            if (cumulative >= target) {
+                return v;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 获取亮度小于等于指定值的采样所占比例，可用于暗光或欠曝检测
+     *
+     * @param luma 亮度值：0~255
+     * @return 返回比例：0~1
+     */
+    public float getFractionAtOrBelow(int luma) {
+        if (sampleCount == 0) {
+            return 0f;
+        }
+        long cumulative = 0;
+        for (int v = 0; v <= luma && v < HISTOGRAM_SIZE; v++) {
+            cumulative += histogram[v];
+        }
+        return (float) cumulative / sampleCount;
+    }
+
+    /**
+     * 获取区域列数
+     *
+     * @return 返回区域列数
+     */
+    public int getGridCols() {
+        return gridCols;
+    }
+
+    /**
+     * 获取区域行数
+     *
+     * @return 返回区域行数
+     */
+    public int getGridRows() {
+        return gridRows;
+    }
+
+    /**
+     * 获取指定区域的平均亮度
+     *
+     * @param col 区域所在列
+     * @param row 区域所在行
+     * @return 返回平均亮度；区域内没有采样时返回0
+     */
+    public float getGridMean(int col, int row) {
+        if (col < 0 || col >= gridCols || row < 0 || row >= gridRows) {
+            throw new IndexOutOfBoundsException("grid cell out of bounds: " + col + ", " + row);
+        }
+        return gridMeans[row * gridCols + col];
+    }
+
+    /**
+     * 获取所有区域的平均亮度
+     *
+     * @return 返回按行优先排列的区域平均亮度的拷贝，长度为 gridCols * gridRows
+     */
+    @NonNull
+    public float[] getGridMeans() {
+        return gridMeans.clone();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "LumaStats{" +
+                "sampleCount=" + sampleCount +
+                ", mean=" + mean +
+                ", variance=" + variance +
+                ", min=" + min +
+                ", max=" + max +
+                ", grid=" + gridCols + 'x' + gridRows +
+                '}';
+    }
+}
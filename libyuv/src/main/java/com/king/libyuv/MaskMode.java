@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import androidx.annotation.IntDef;
+
+/**
+ * 区域遮挡（隐私保护）的方式。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+@IntDef({
+        MaskMode.MASK_BLUR,
+        MaskMode.MASK_PIXELATE,
+})
+@Retention(RetentionPolicy.SOURCE)
+public @interface MaskMode {
+    /**
+     * 模糊：强度为模糊半径（像素）；box模糊，耗时与半径无关
+     */
+    int MASK_BLUR = 0;
+    /**
+     * 马赛克：强度为色块大小（像素）；相同强度下比模糊更难还原
+     */
+    int MASK_PIXELATE = 1;
+}
@@ -0,0 +1,531 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import android.content.ComponentCallbacks2;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 内存预算：统一管理LibYuv保留的内存，包括 {@link ByteArrayPool}、{@link ConversionCache}（Java堆或堆外）以及native层的 {@link ScratchArena}。
+ * <p>
+ * 每个使用方注册后得到一个 {@link Account}，保留内存之前先通过它申请，丢弃后归还；预算只维护一个总计数，申请时用CAS直接扣减，不加锁，也不逐个询问使用方。
+ * 总量会超出预算时才进入慢路径：先从占用最多的使用方开始裁减（池直接丢弃数组，缓存按LRU淘汰，arena释放），
+ * 仍然不够时拒绝保留：池和缓存不再保留新的数据，arena退回到每次调用使用堆内存并在结束后释放。也就是说预算用尽时处理只会变慢，不会失败。
+ * <p>
+ * arena在native层扩容，不经过Java层：共享的预算（{@link #getDefault()}）把账户的申请和归还同步到native层的同一个计数，
+ * arena扩容与Java层申请都对这一个计数按预算做CAS，二者合计不会超过预算，而不是各自占满一份预算。
+ * <p>
+ * 在Application的 {@link ComponentCallbacks2#onTrimMemory(int)} 中调用 {@link #onTrimMemory(int)}，即可随系统内存压力释放保留的内存。
+ * 默认不限制预算，此时除了计数之外没有任何额外开销。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class MemoryGovernor {
+
+    /**
+     * 不限制预算
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * 内存的使用方：能够报告当前保留的字节数，并按要求释放；保留和释放的字节数需要同步记录到注册时得到的 {@link Account}
+     */
+    public interface Consumer {
+        /**
+         * 获取当前保留的字节数
+         *
+         * @return 返回保留的字节数
+         */
+        long getRetainedBytes();
+
+        /**
+         * 释放保留的内存，直到保留的字节数不超过targetBytes（尽力而为）；释放的字节数通过 {@link Account#release(long)} 归还
+         *
+         * @param targetBytes 目标字节数
+         */
+        void trim(long targetBytes);
+    }
+
+    /**
+     * native层的arena：所有线程共享一个统计；{@link ScratchArena#trim()} 立即释放当前线程与工作线程的arena，其他线程在下一次使用时才真正释放
+     */
+    private static final Consumer ARENA_CONSUMER = new Consumer() {
+        @Override
+        public long getRetainedBytes() {
+            return ScratchArena.getStats().getRetainedBytes();
+        }
+
+        @Override
+        public void trim(long targetBytes) {
+            ScratchArena.trim();
+        }
+    };
+
+    private static final MemoryGovernor DEFAULT = new MemoryGovernor(true);
+
+    private final boolean governsArena;
+    private final List<Registration> registrations = new ArrayList<>();
+    /**
+     * 所有账户保留的总字节数（不含arena）
+     */
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    private volatile long budgetBytes = UNLIMITED;
+    /**
+     * arena最近一次统计的保留字节数：只在慢路径、裁减和统计时刷新
+     */
+    private volatile long arenaBytes;
+    private long trimCount;
+    private long deniedCount;
+
+    MemoryGovernor(boolean governsArena) {
+        this.governsArena = governsArena;
+        if (governsArena) {
+            registrations.add(new Registration("ScratchArena", ARENA_CONSUMER, null));
+        }
+    }
+
+    /**
+     * 获取进程内共享的内存预算；LibYuv的池、缓存以及arena都由它管理
+     *
+     * @return 返回共享的内存预算
+     */
+    @NonNull
+    public static MemoryGovernor getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 注册一个使用方；只保留弱引用，使用方被回收后自动移除，账户中未归还的字节数一并退还
+     *
+     * @param name     名称，用于统计
+     * @param consumer 使用方
+     * @return 返回使用方的账户：保留内存前通过它申请，丢弃后归还
+     */
+    @NonNull
+    public synchronized Account register(@NonNull String name, @NonNull Consumer consumer) {
+        Objects.requireNonNull(name, "name is null");
+        Objects.requireNonNull(consumer, "consumer is null");
+        Account account = new Account(this);
+        registrations.add(new Registration(name, consumer, account));
+        return account;
+    }
+
+    /**
+     * 注销一个使用方：账户中未归还的字节数退还给预算，之后该账户的申请总是成功且不再计数
+     *
+     * @param consumer 使用方
+     */
+    public synchronized void unregister(@NonNull Consumer consumer) {
+        Iterator<Registration> iterator = registrations.iterator();
+        while (iterator.hasNext()) {
+            Registration registration = iterator.next();
+            Consumer registered = registration.consumer.get();
+            if (registration.account != null && (registered == null || registered == consumer)) {
+                registration.account.close();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 设置预算；当前保留的内存超出预算时立即裁减
+     *
+     * @param budgetBytes 预算（字节）；{@link #UNLIMITED} 表示不限制
+     */
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("budgetBytes must be non-negative");
+        }
+        this.budgetBytes = budgetBytes;
+        if (governsArena) {
+            ScratchArena.setTotalMaxBytes(budgetBytes);
+        }
+        if (budgetBytes != UNLIMITED) {
+            trimLocked(budgetBytes);
+        }
+    }
+
+    /**
+     * 获取预算
+     *
+     * @return 返回预算（字节）；{@link #UNLIMITED} 表示不限制
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * 申请保留bytes字节：预算足够时直接用CAS计入总量；会超出预算时先裁减其他保留的内存，仍然不够时返回false，调用方不应保留这部分内存
+     *
+     * @param bytes 需要保留的字节数
+     * @return 可以保留时返回true
+     */
+    boolean reserve(long bytes) {
+        if (budgetBytes == UNLIMITED) {
+            retainedBytes.addAndGet(bytes);
+            if (governsArena) {
+                ScratchArena.addExternalBytes(bytes);
+            }
+            return true;
+        }
+        return tryReserve(bytes) || reserveSlow(bytes);
+    }
+
+    /**
+     * 归还bytes字节
+     *
+     * @param bytes 归还的字节数
+     */
+    void release(long bytes) {
+        retainedBytes.addAndGet(-bytes);
+        if (governsArena) {
+            ScratchArena.addExternalBytes(-bytes);
+        }
+    }
+
+    private boolean tryReserve(long bytes) {
+        if (governsArena) {
+            // 与arena扩容共用native层的计数，按同一个上限检查
+            if (!ScratchArena.tryReserveExternal(bytes)) {
+                return false;
+            }
+            retainedBytes.addAndGet(bytes);
+            return true;
+        }
+        while (true) {
+            long budget = budgetBytes;
+            long current = retainedBytes.get();
+            if (budget != UNLIMITED && (bytes > budget || current + arenaBytes > budget - bytes)) {
+                return false;
+            }
+            if (retainedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized boolean reserveSlow(long bytes) {
+        long budget = budgetBytes;
+        if (bytes <= budget) {
+            if (getTotalBytesLocked() > budget - bytes) {
+                trimLocked(budget - bytes);
+            }
+            if (tryReserve(bytes)) {
+                return true;
+            }
+        }
+        deniedCount++;
+        return false;
+    }
+
+    /**
+     * 裁减保留的内存，直到总量不超过targetBytes；从占用最多的使用方开始
+     *
+     * @param targetBytes 目标字节数
+     */
+    public synchronized void trimTo(long targetBytes) {
+        if (targetBytes < 0) {
+            throw new IllegalArgumentException("targetBytes must be non-negative");
+        }
+        trimLocked(Math.min(targetBytes, budgetBytes));
+    }
+
+    /**
+     * 响应系统的内存压力：在 {@link ComponentCallbacks2#onTrimMemory(int)} 中调用。
+     * <p>
+     * 前台运行时内存紧张或界面不可见时释放一半，进入后台或内存不足时只保留四分之一，即将被杀死或内存严重不足时全部释放。
+     *
+     * @param level 内存压力等级
+     */
+    public synchronized void onTrimMemory(int level) {
+        long total = getTotalBytesLocked();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimLocked(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimLocked(Math.min(total / 4, budgetBytes));
+        } else {
+            trimLocked(Math.min(total / 2, budgetBytes));
+        }
+    }
+
+    /**
+     * 释放所有保留的内存：在 {@link android.content.ComponentCallbacks#onLowMemory()} 中调用
+     */
+    public synchronized void onLowMemory() {
+        trimLocked(0);
+    }
+
+    /**
+     * 获取当前保留的总字节数
+     *
+     * @return 返回保留的总字节数
+     */
+    public synchronized long getTotalBytes() {
+        return getTotalBytesLocked();
+    }
+
+    /**
+     * 获取统计信息：预算、总量以及每个使用方保留的字节数
+     *
+     * @return 返回统计信息
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        Map<String, Long> consumerBytes = new LinkedHashMap<>();
+        long total = getTotalBytesLocked();
+        for (Registration registration : registrations) {
+            Consumer consumer = registration.consumer.get();
+            if (consumer == null) {
+                continue;
+            }
+            long bytes = consumer == ARENA_CONSUMER ? arenaBytes : consumer.getRetainedBytes();
+            Long previous = consumerBytes.get(registration.name);
+            consumerBytes.put(registration.name, previous == null ? bytes : previous + bytes);
+        }
+        return new Stats(budgetBytes, total, Collections.unmodifiableMap(consumerBytes), trimCount, deniedCount);
+    }
+
+    /**
+     * 移除已被回收的使用方并退还其账户，刷新arena的统计；返回总量
+     */
+    private long getTotalBytesLocked() {
+        Iterator<Registration> iterator = registrations.iterator();
+        while (iterator.hasNext()) {
+            Registration registration = iterator.next();
+            if (registration.consumer.get() == null && registration.account != null) {
+                registration.account.close();
+                iterator.remove();
+            }
+        }
+        if (governsArena) {
+            arenaBytes = ARENA_CONSUMER.getRetainedBytes();
+        }
+        return retainedBytes.get() + arenaBytes;
+    }
+
+    /**
+     * 从占用最多的使用方开始裁减，直到总量不超过targetBytes；每次裁减后按实际释放的字节数重新计算总量
+     */
+    private long trimLocked(long targetBytes) {
+        long total = getTotalBytesLocked();
+        if (total <= targetBytes) {
+            return total;
+        }
+        List<Consumer> consumers = new ArrayList<>(registrations.size());
+        List<Long> retained = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations) {
+            Consumer consumer = registration.consumer.get();
+            if (consumer == null) {
+                continue;
+            }
+            long bytes = consumer == ARENA_CONSUMER ? arenaBytes : consumer.getRetainedBytes();
+            int index = 0;
+            while (index < retained.size() && retained.get(index) >= bytes) {
+                index++;
+            }
+            consumers.add(index, consumer);
+            retained.add(index, bytes);
+        }
+        for (int i = 0; i < consumers.size() && total > targetBytes; i++) {
+            long bytes = retained.get(i);
+            if (bytes == 0) {
+                break;
+            }
+            Consumer consumer = consumers.get(i);
+            consumer.trim(Math.max(0, bytes - (total - targetBytes)));
+            if (consumer == ARENA_CONSUMER) {
+                // 其他线程的arena可能在下一次使用时才释放，按释放后的统计计算
+                arenaBytes = ARENA_CONSUMER.getRetainedBytes();
+            }
+            total = retainedBytes.get() + arenaBytes;
+            trimCount++;
+        }
+        return total;
+    }
+
+    /**
+     * 使用方在预算中的账户：保留内存前通过 {@link #reserve(long)} 申请，丢弃后通过 {@link #release(long)} 归还
+     */
+    public static final class Account {
+
+        private final MemoryGovernor governor;
+        private final AtomicLong bytes = new AtomicLong();
+
+        private volatile boolean closed;
+
+        Account(@NonNull MemoryGovernor governor) {
+            this.governor = governor;
+        }
+
+        /**
+         * 申请保留bytes字节：总量会超出预算时先裁减其他保留的内存，仍然不够时返回false，调用方不应保留这部分内存。
+         * 不能在使用方自身的锁内调用，申请时可能会裁减该使用方
+         *
+         * @param bytes 需要保留的字节数
+         * @return 可以保留时返回true
+         */
+        public boolean reserve(long bytes) {
+            if (bytes < 0) {
+                throw new IllegalArgumentException("bytes must be non-negative");
+            }
+            if (closed) {
+                return true;
+            }
+            if (!governor.reserve(bytes)) {
+                return false;
+            }
+            this.bytes.addAndGet(bytes);
+            return true;
+        }
+
+        /**
+         * 归还bytes字节：丢弃已保留的内存之后调用
+         *
+         * @param bytes 归还的字节数
+         */
+        public void release(long bytes) {
+            if (bytes <= 0 || closed) {
+                return;
+            }
+            this.bytes.addAndGet(-bytes);
+            governor.release(bytes);
+        }
+
+        /**
+         * 获取账户中保留的字节数
+         *
+         * @return 返回保留的字节数
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        void close() {
+            closed = true;
+            governor.release(bytes.getAndSet(0));
+        }
+    }
+
+    private static final class Registration {
+
+        private final String name;
+        private final WeakReference<Consumer> consumer;
+        /**
+         * arena没有账户，为null
+         */
+        @Nullable
+        private final Account account;
+
+        Registration(@NonNull String name, @NonNull Consumer consumer, @Nullable Account account) {
+            this.name = name;
+            this.consumer = new WeakReference<>(consumer);
+            this.account = account;
+        }
+    }
+
+    /**
+     * 内存预算统计信息
+     */
+    public static final class Stats {
+
+        private final long budgetBytes;
+        private final long totalBytes;
+        private final Map<String, Long> consumerBytes;
+        private final long trimCount;
+        private final long deniedCount;
+
+        Stats(long budgetBytes, long totalBytes, @NonNull Map<String, Long> consumerBytes, long trimCount, long deniedCount) {
+            this.budgetBytes = budgetBytes;
+            this.totalBytes = totalBytes;
+            this.consumerBytes = consumerBytes;
+            this.trimCount = trimCount;
+            this.deniedCount = deniedCount;
+        }
+
+        /**
+         * 获取预算
+         *
+         * @return 返回预算（字节）；{@link #UNLIMITED} 表示不限制
+         */
+        public long getBudgetBytes() {
+            return budgetBytes;
+        }
+
+        /**
+         * 获取当前保留的总字节数
+         *
+         * @return 返回保留的总字节数
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * 获取每个使用方当前保留的字节数；同名的使用方合并统计
+         *
+         * @return 返回名称到字节数的映射
+         */
+        @NonNull
+        public Map<String, Long> getConsumerBytes() {
+            return consumerBytes;
+        }
+
+        /**
+         * 获取裁减使用方的次数
+         *
+         * @return 返回裁减次数
+         */
+        public long getTrimCount() {
+            return trimCount;
+        }
+
+        /**
+         * 获取因预算用尽而拒绝保留的次数；此时处理退化为每次分配、用完即释放
+         *
+         * @return 返回拒绝次数
+         */
+        public long getDeniedCount() {
+            return deniedCount;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "budgetBytes=" + budgetBytes +
+                    ", totalBytes=" + totalBytes +
+                    ", consumerBytes=" + consumerBytes +
+                    ", trimCount=" + trimCount +
+                    ", deniedCount=" + deniedCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import androidx.annotation.NonNull;
+
+/**
+ * native层的临时内存（scratch arena）：每个线程一块，用于一次调用内部的中间平面（例如非I420格式旋转、缩放、裁减、镜像时的I420中间数据）。
+ * <p>
+ * arena会增长到见过的最大尺寸并一直保留，稳态下除了调用方的输出数组外不再有任何内存分配；
+ * 单个线程的arena不会超过 {@link #setMaxBytes(long)} 设置的上限，超出时该次调用直接使用堆内存并在结束后释放；
+ * 设置了 {@link MemoryGovernor} 的预算时，所有线程arena与池、缓存保留的字节数合计不会超过预算。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class ScratchArena {
+
+    /**
+     * 默认每个线程arena的容量上限：64MB
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private ScratchArena() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 设置每个线程arena的容量上限；已经超过上限的arena会在 {@link #trim()} 之后按新的上限重新分配
+     *
+     * @param maxBytes 容量上限（字节）
+     */
+    public static void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must be >= 0");
+        }
+        LibYuv.ArenaSetMaxBytes(maxBytes);
+    }
+
+    /**
+     * 获取每个线程arena的容量上限
+     *
+     * @return 返回容量上限（字节）
+     */
+    public static long getMaxBytes() {
+        return LibYuv.ArenaGetMaxBytes();
+    }
+
+    /**
+     * 设置所有线程arena保留的总字节数上限；扩容会超出上限时该次调用直接使用堆内存，由 {@link MemoryGovernor} 设置
+     *
+     * @param maxBytes 总容量上限（字节）
+     */
+    static void setTotalMaxBytes(long maxBytes) {
+        LibYuv.ArenaSetTotalMaxBytes(maxBytes);
+    }
+
+    /**
+     * 把Java层账户保留的字节数计入总上限（负数表示归还），不检查上限；由 {@link MemoryGovernor} 调用
+     *
+     * @param bytes 字节数
+     */
+    static void addExternalBytes(long bytes) {
+        LibYuv.ArenaAddExternalBytes(bytes);
+    }
+
+    /**
+     * 在总上限内为Java层申请bytes字节：与arena扩容共用同一个计数，二者合计不超过 {@link #setTotalMaxBytes(long)}；由 {@link MemoryGovernor} 调用
+     *
+     * @param bytes 字节数
+     * @return 不会超出上限并已计入时返回true
+     */
+    static boolean tryReserveExternal(long bytes) {
+        return LibYuv.ArenaTryReserveExternal(bytes);
+    }
+
+    /**
+     * 释放arena占用的内存：当前线程与并行处理的工作线程立即释放（最多等待工作线程50毫秒），其他线程在下一次使用arena时释放
+     */
+    public static void trim() {
+        LibYuv.ArenaTrim();
+    }
+
+    /**
+     * 获取arena统计信息
+     *
+     * @return 返回arena统计信息
+     */
+    @NonNull
+    public static Stats getStats() {
+        long[] stats = new long[5];
+        LibYuv.ArenaGetStats(stats);
+        return new Stats(stats[0], stats[1], (int) stats[2], stats[3], stats[4]);
+    }
+
+    /**
+     * arena统计信息
+     */
+    public static final class Stats {
+
+        private final long retainedBytes;
+        private final long highWaterBytes;
+        private final int arenaCount;
+        private final long growCount;
+        private final long fallbackCount;
+
+        Stats(long retainedBytes, long highWaterBytes, int arenaCount, long growCount, long fallbackCount) {
+            this.retainedBytes = retainedBytes;
+            this.highWaterBytes = highWaterBytes;
+            this.arenaCount = arenaCount;
+            this.growCount = growCount;
+            this.fallbackCount = fallbackCount;
+        }
+
+        /**
+         * 获取所有线程arena当前保留的字节数
+         *
+         * @return 返回保留的字节数
+         */
+        public long getRetainedBytes() {
+            return retainedBytes;
+        }
+
+        /**
+         * 获取单次调用占用arena的最大字节数（高水位）
+         *
+         * @return 返回高水位字节数
+         */
+        public long getHighWaterBytes() {
+            return highWaterBytes;
+        }
+
+        /**
+         * 获取已创建arena的线程数
+         *
+         * @return 返回arena数量
+         */
+        public int getArenaCount() {
+            return arenaCount;
+        }
+
+        /**
+         * 获取arena扩容次数；稳态下应不再增长
+         *
+         * @return 返回扩容次数
+         */
+        public long getGrowCount() {
+            return growCount;
+        }
+
+        /**
+         * 获取因超过上限而直接使用堆内存的次数
+         *
+         * @return 返回堆内存分配次数
+         */
+        public long getFallbackCount() {
+            return fallbackCount;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "retainedBytes=" + retainedBytes +
+                    ", highWaterBytes=" + highWaterBytes +
+                    ", arenaCount=" + arenaCount +
+                    ", growCount=" + growCount +
+                    ", fallbackCount=" + fallbackCount +
+                    '}';
+        }
+    }
+}
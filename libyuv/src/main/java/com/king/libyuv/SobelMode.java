@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import androidx.annotation.IntDef;
+/**
+ * Sobel边缘提取的输出方式。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+@IntDef({
+        SobelMode.SOBEL_MAGNITUDE,
+        SobelMode.SOBEL_XY,
+})
+@Retention(RetentionPolicy.SOURCE)
+public @interface SobelMode {
+    /**
+     * 梯度幅值：一个平面，每个像素为 min(|Gx| + |Gy|, 255)
+     */
+    int SOBEL_MAGNITUDE = 0;
+    /**
+     * 水平和垂直梯度：两个平面，先 |Gx| 后 |Gy|，每个像素限制在 0~255
+     */
+    int SOBEL_XY = 1;
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 仿射变换的矩阵计算：矩阵与 android.graphics.Matrix#getValues 的排列一致（行优先的3x3矩阵），表示源坐标到目标坐标的映射；
+ * native层需要的是目标坐标到源坐标的逆矩阵 {a, b, c, d, e, f}。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+final class WarpMatrix {
+
+    private WarpMatrix() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 求仿射矩阵的逆矩阵
+     *
+     * @param values 源坐标到目标坐标的矩阵：长度为6（仿射部分）或9（最后一行必须为 0, 0, 1）
+     * @return 返回目标坐标到源坐标的逆矩阵 {a, b, c, d, e, f}
+     */
+    @NonNull
+    static double[] invert(@NonNull float[] values) {
+        if (values.length != 6 && values.length != 9) {
+            throw new IllegalArgumentException("matrix length must be 6 or 9");
+        }
+        if (values.length == 9 && (values[6] != 0f || values[7] != 0f || values[8] != 1f)) {
+            throw new IllegalArgumentException("matrix must be affine");
+        }
+        double m00 = values[0];
+        double m01 = values[1];
+        double m02 = values[2];
+        double m10 = values[3];
+        double m11 = values[4];
+        double m12 = values[5];
+        double det = m00 * m11 - m01 * m10;
+        if (Math.abs(det) < 1e-12 || Double.isNaN(det) || Double.isInfinite(det)) {
+            throw new IllegalArgumentException("matrix is not invertible");
+        }
+        double a = m11 / det;
+        double b = -m01 / det;
+        double d = -m10 / det;
+        double e = m00 / det;
+        return new double[]{a, b, -(a * m02 + b * m12), d, e, -(d * m02 + e * m12)};
+    }
+
+    /**
+     * 绕源图像中心旋转，并把源图像中心放到目标图像中心的矩阵
+     *
+     * @param degrees   旋转角度，顺时针为正（y轴向下）
+     * @param width     源图像宽度
+     * @param height    源图像高度
+     * @param dstWidth  目标图像宽度
+     * @param dstHeight 目标图像高度
+     * @return 返回源坐标到目标坐标的矩阵（长度为6）
+     */
+    @NonNull
+    static float[] rotation(float degrees, int width, int height, int dstWidth, int dstHeight) {
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double cx = width / 2.0;
+        double cy = height / 2.0;
+        // x' = cos * (x - cx) - sin * (y - cy) + dstWidth / 2
+        // y' = sin * (x - cx) + cos * (y - cy) + dstHeight / 2
+        return new float[]{
+                (float) cos, (float) -sin, (float) (dstWidth / 2.0 - cos * cx + sin * cy),
+                (float) sin, (float) cos, (float) (dstHeight / 2.0 - sin * cx - cos * cy),
+        };
+    }
+
+    /**
+     * 填充颜色（ARGB）转换为native层每个平面的填充值：4字节packed RGB按内存中的字节顺序，YUV为BT.601（limited range）的Y、U、V
+     *
+     * @param fourcc    数据格式
+     * @param fillColor 填充颜色（ARGB）
+     * @return 返回长度为4的填充值
+     */
+    @NonNull
+    static byte[] fillBytes(@NonNull FourCC fourcc, int fillColor) {
+        int a = fillColor >>> 24;
+        int r = (fillColor >> 16) & 0xff;
+        int g = (fillColor >> 8) & 0xff;
+        int b = fillColor & 0xff;
+        switch (fourcc) {
+            case FOURCC_ARGB:
+                return new byte[]{(byte) b, (byte) g, (byte) r, (byte) a};
+            case FOURCC_ABGR:
+                return new byte[]{(byte) r, (byte) g, (byte) b, (byte) a};
+            case FOURCC_BGRA:
+                return new byte[]{(byte) a, (byte) r, (byte) g, (byte) b};
+            case FOURCC_RGBA:
+                return new byte[]{(byte) a, (byte) b, (byte) g, (byte) r};
+            default:
+                int y = 16 + ((66 * r + 129 * g + 25 * b + 128) >> 8);
+                int u = 128 + ((-38 * r - 74 * g + 112 * b + 128) >> 8);
+                int v = 128 + ((112 * r - 94 * g - 18 * b + 128) >> 8);
+                return new byte[]{(byte) y, (byte) u, (byte) v, 0};
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 多路画面拼接：将多路源画面分别缩放后直接写入同一张画布的指定区域，适用于多路预览、视频墙等场景。
+ * <p>
+ * 每一路源数据通过带跨距的 I420Scale / ARGBScaleClip 直接缩放到画布中，不会产生临时数组，多个区块会并行处理。
+ * <p>
+ * 画布格式支持 {@link FourCC#FOURCC_I420} 以及4字节的 {@link FourCC#FOURCC_ARGB} / {@link FourCC#FOURCC_ABGR} /
+ * {@link FourCC#FOURCC_BGRA} / {@link FourCC#FOURCC_RGBA}，源数据格式需与画布格式一致。
+ * <p>
+ * I420画布的区块起始坐标必须为偶数，且区块必须完全位于画布内；4字节格式画布的区块超出画布的部分会被裁掉。
+ * 区块之间存在重叠时，按添加顺序依次绘制（此时不会并行）。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvCompositor {
+
+    private static final int TILE_INT_SIZE = 7;
+
+    private final int canvasWidth;
+    private final int canvasHeight;
+    private final FourCC canvasFourcc;
+    private final List<byte[]> sources = new ArrayList<>();
+    private final List<Rect> dstRects = new ArrayList<>();
+    private int[] tiles = new int[TILE_INT_SIZE * 4];
+    private int threadCount;
+
+    /**
+     * 构造
+     *
+     * @param canvasWidth  画布宽度
+     * @param canvasHeight 画布高度
+     * @param canvasFourcc 画布数据格式；{@link FourCC}
+     */
+    public YuvCompositor(int canvasWidth, int canvasHeight, @NonNull FourCC canvasFourcc) {
+        Objects.requireNonNull(canvasFourcc, "canvasFourcc is null");
+        if (canvasWidth <= 0 || canvasHeight <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        if (canvasFourcc != FourCC.FOURCC_I420 && !isArgbFourcc(canvasFourcc)) {
+            throw new IllegalArgumentException("unsupported canvas fourcc: " + canvasFourcc);
+        }
+        this.canvasWidth = canvasWidth;
+        this.canvasHeight = canvasHeight;
+        this.canvasFourcc = canvasFourcc;
+    }
+
+    /**
+     * 添加一个区块
+     *
+     * @param srcData    源数据，格式与画布格式一致
+     * @param srcWidth   源图像宽度
+     * @param srcHeight  源图像高度
+     * @param dstRect    区块在画布中的位置
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @return 返回当前对象，便于链式调用
+     */
+    @NonNull
+    public YuvCompositor addTile(@NonNull byte[] srcData, int srcWidth, int srcHeight, @NonNull Rect dstRect, @FilterMode int filterMode) {
+        return addTile(srcData, srcWidth, srcHeight, dstRect.left, dstRect.top, dstRect.width(), dstRect.height(), filterMode);
+    }
+
+    /**
+     * 添加一个区块
+     *
+     * @param srcData    源数据，格式与画布格式一致
+     * @param srcWidth   源图像宽度
+     * @param srcHeight  源图像高度
+     * @param dstX       区块在画布中的起始点X坐标
+     * @param dstY       区块在画布中的起始点Y坐标
+     * @param dstWidth   区块宽度
+     * @param dstHeight  区块高度
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @return 返回当前对象，便于链式调用
+     */
+    @NonNull
+    public YuvCompositor addTile(@NonNull byte[] srcData, int srcWidth, int srcHeight, int dstX, int dstY, int dstWidth, int dstHeight, @FilterMode int filterMode) {
+        Objects.requireNonNull(srcData, "srcData is null");
+        if (srcWidth <= 0 || srcHeight <= 0 || dstWidth <= 0 || dstHeight <= 0) {
+            throw new IllegalArgumentException("width and height must be positive");
+        }
+        int requiredSize = canvasFourcc.getTotalBppSize(srcWidth, srcHeight);
+        if (srcData.length < requiredSize) {
+            throw new IllegalArgumentException("srcData length(" + srcData.length + ") < required(" + requiredSize + ")");
+        }
+        if (canvasFourcc == FourCC.FOURCC_I420) {
+            if ((dstX & 1) != 0 || (dstY & 1) != 0) {
+                throw new IllegalArgumentException("I420 tile origin must be even");
+            }
+            if (dstX < 0 || dstY < 0 || dstX + dstWidth > canvasWidth || dstY + dstHeight > canvasHeight) {
+                throw new IllegalArgumentException("I420 tile must be inside the canvas");
+            }
+        }
+        int index = sources.size();
+        if (tiles.length < (index + 1) * TILE_INT_SIZE) {
+            int[] newTiles = new int[tiles.length * 2];
+            System.arraycopy(tiles, 0, newTiles, 0, tiles.length);
+            tiles = newTiles;
+        }
+        int offset = index * TILE_INT_SIZE;
+        tiles[offset] = srcWidth;
+        tiles[offset + 1] = srcHeight;
+        tiles[offset + 2] = dstX;
+        tiles[offset + 3] = dstY;
+        tiles[offset + 4] = dstWidth;
+        tiles[offset + 5] = dstHeight;
+        tiles[offset + 6] = filterMode;
+        sources.add(srcData);
+        dstRects.add(new Rect(dstX, dstY, dstX + dstWidth, dstY + dstHeight));
+        return this;
+    }
+
+    /**
+     * 清空所有区块；画布尺寸与格式保持不变，可以继续添加下一帧的区块
+     */
+    public void clearTiles() {
+        sources.clear();
+        dstRects.clear();
+    }
+
+    /**
+     * 设置并行线程数
+     *
+     * @param threadCount 线程数；小于等于0时按CPU核数自动选择
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * 获取区块数量
+     *
+     * @return 返回区块数量
+     */
+    public int getTileCount() {
+        return sources.size();
+    }
+
+    /**
+     * 拼接到新分配的画布中（未被区块覆盖的区域为0）
+     *
+     * @return 返回画布数据
+     */
+    @NonNull
+    public byte[] composite() {
+        byte[] canvasData = new byte[canvasFourcc.getTotalBppSize(canvasWidth, canvasHeight)];
+        composite(canvasData);
+        return canvasData;
+    }
+
+    /**
+     * 拼接到指定画布中（复用目标数组）；未被区块覆盖的区域保持原样
+     *
+     * @param canvasData 画布数据
+     */
+    public void composite(@NonNull byte[] canvasData) {
+        Objects.requireNonNull(canvasData, "canvasData is null");
+        int requiredSize = canvasFourcc.getTotalBppSize(canvasWidth, canvasHeight);
+        if (canvasData.length < requiredSize) {
+            throw new IllegalArgumentException("canvasData length(" + canvasData.length + ") < required(" + requiredSize + ")");
+        }
+        int tileCount = sources.size();
+        if (tileCount == 0) {
+            return;
+        }
+        int threads = hasOverlappingTiles() ? 1 : threadCount;
+        LibYuv.CompositeTiles(canvasData, canvasWidth, canvasHeight, canvasFourcc != FourCC.FOURCC_I420,
+                sources.toArray(new byte[tileCount][]), tiles, tileCount, threads);
+    }
+
+    private boolean hasOverlappingTiles() {
+        int size = dstRects.size();
+        for (int i = 0; i < size; i++) {
+            Rect a = dstRects.get(i);
+            for (int j = i + 1; j < size; j++) {
+                Rect b = dstRects.get(j);
+                if (a.left < b.right && b.left < a.right && a.top < b.bottom && b.top < a.bottom) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isArgbFourcc(@NonNull FourCC fourcc) {
+        return fourcc == FourCC.FOURCC_ARGB
+                || fourcc == FourCC.FOURCC_ABGR
+                || fourcc == FourCC.FOURCC_BGRA
+                || fourcc == FourCC.FOURCC_RGBA;
+    }
+}
@@ -0,0 +1,599 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import android.graphics.ImageFormat;
+import android.media.Image;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 生成 {@link LibYuv} 各个操作的执行计划（{@link YuvPlan}）：列出会调用的libyuv内核、中间缓冲区、读写字节数以及遍历次数，
+ * 便于在代码评审时发现意外的慢路径。
+ * <p>
+ * 例如：{@code YuvExplain.scale(w, h, dstW, dstH, FourCC.FOURCC_ARGB, filterMode)} 会显示需要经过I420中转的三次遍历，
+ * 而 {@link FourCC#FOURCC_I420} 只需要一次 I420Scale。多个操作组成的流水线可以通过 {@link YuvPlan#concat(String, YuvPlan...)} 组合。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvExplain {
+
+    static final String SLOW_I420_PIVOT = "non-I420 format pivots through I420";
+    static final String SLOW_ROTATE_BUFFER = "libyuv allocates a temporary frame to rotate this format";
+    static final String SLOW_PORTABLE_ROW = "no SIMD RGB to YUV kernel for this color space, portable C row is used";
+    static final String SLOW_JAVA_COPY = "image plane is copied pixel by pixel in Java";
+    static final String SLOW_UNSUPPORTED = "fourcc is not supported by this operation";
+    static final String SLOW_NO_DIRECT_KERNEL = "no direct kernel for this pair";
+
+    private YuvExplain() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 将指定格式的数据转换为I420数据的执行计划
+     *
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertToI420(int width, int height, @NonNull FourCC fourcc) {
+        return convertToI420(width, height, 0, 0, width, height, RotationMode.ROTATE_0, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据裁减、旋转并转换为I420数据的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertToI420(int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder("convertToI420(" + fourcc + ")");
+        long srcBytes = fourcc.getTotalBppSize(cropWidth, cropHeight);
+        long i420Bytes = i420Size(cropWidth, cropHeight);
+        String kernel = toI420Kernel(fourcc);
+        if (kernel == null) {
+            return builder.step("ConvertToI420", srcBytes, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+        }
+        if (degrees == RotationMode.ROTATE_0) {
+            return builder.step(kernel, srcBytes, i420Bytes).build();
+        }
+        switch (fourcc) {
+            case FOURCC_I420:
+            case FOURCC_YV12:
+                return builder.step("I420Rotate", srcBytes, i420Bytes).build();
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+                return builder.step("NV12ToI420Rotate", srcBytes, i420Bytes).build();
+            default:
+                return builder.step(kernel, srcBytes, i420Bytes, YuvPlan.Allocation.NATIVE_HEAP, SLOW_ROTATE_BUFFER)
+                        .step("I420Rotate", i420Bytes, i420Bytes)
+                        .build();
+        }
+    }
+
+    /**
+     * 按指定色彩空间将指定格式的数据转换为I420数据的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param colorSpace 色彩空间；{@link ColorSpace}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertToI420(int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @RotationMode int degrees, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        String toArgbKernel = toArgbKernel(fourcc);
+        if (colorSpace == ColorSpace.BT601 || toArgbKernel == null) {
+            return convertToI420(width, height, cropX, cropY, cropWidth, cropHeight, degrees, fourcc);
+        }
+        YuvPlan.Builder builder = new YuvPlan.Builder("convertToI420(" + fourcc + ", colorSpace=" + colorSpace + ")");
+        long srcBytes = fourcc.getTotalBppSize(cropWidth, cropHeight);
+        long i420Bytes = i420Size(cropWidth, cropHeight);
+        String prefix = fourcc == FourCC.FOURCC_ARGB ? "" : toArgbKernel + " (2 rows) + ";
+        String kernel;
+        String slowReason;
+        if (colorSpace == ColorSpace.BT601_FULL) {
+            kernel = prefix + "ARGBToJ420";
+            slowReason = null;
+        } else {
+            kernel = prefix + "ARGBRowPairToI420Row";
+            slowReason = SLOW_PORTABLE_ROW;
+        }
+        if (degrees == RotationMode.ROTATE_0) {
+            return builder.step(kernel, srcBytes, i420Bytes, YuvPlan.Allocation.NONE, slowReason).build();
+        }
+        return builder.step(kernel, srcBytes, i420Bytes, YuvPlan.Allocation.NATIVE_ARENA, slowReason)
+                .step("I420Rotate", i420Bytes, i420Bytes)
+                .build();
+    }
+
+    /**
+     * 将I420数据转换为指定格式的数据的执行计划
+     *
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertFromI420(int width, int height, @NonNull FourCC fourcc) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder("convertFromI420(" + fourcc + ")");
+        return builder.step(fromI420Kernel(fourcc), i420Size(width, height), fourcc.getTotalBppSize(width, height)).build();
+    }
+
+    /**
+     * 按指定色彩空间将I420数据转换为指定格式的数据的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param colorSpace 色彩空间；{@link ColorSpace}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertFromI420(int width, int height, @NonNull FourCC fourcc, @ColorSpace int colorSpace) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder("convertFromI420(" + fourcc + ", colorSpace=" + colorSpace + ")");
+        long i420Bytes = i420Size(width, height);
+        long dstBytes = fourcc.getTotalBppSize(width, height);
+        switch (fourcc) {
+            case FOURCC_ARGB:
+            case FOURCC_ABGR:
+                return builder.step("I420ToARGBMatrix", i420Bytes, dstBytes).build();
+            case FOURCC_RGBA:
+            case FOURCC_BGRA:
+                return builder.step("I420ToRGBAMatrix", i420Bytes, dstBytes).build();
+            case FOURCC_24BG:
+            case FOURCC_RAW:
+                return builder.step("I420ToRGB24Matrix", i420Bytes, dstBytes).build();
+            case FOURCC_RGBP:
+                return builder.step("I420ToRGB565Matrix", i420Bytes, dstBytes).build();
+            case FOURCC_AR30:
+                return builder.step("I420ToAR30Matrix", i420Bytes, dstBytes).build();
+            case FOURCC_RGBO:
+            case FOURCC_R444: {
+                long argbBytes = (long) width * height * 4;
+                return builder.step("I420ToARGBMatrix", i420Bytes, argbBytes, YuvPlan.Allocation.NATIVE_ARENA, null)
+                        .step(fromI420Kernel(fourcc).replace("I420", "ARGB"), argbBytes, dstBytes)
+                        .build();
+            }
+            default:
+                return builder.step(fromI420Kernel(fourcc), i420Bytes, dstBytes).build();
+        }
+    }
+
+    /**
+     * 将指定格式的数据直接转换为另一种格式的执行计划
+     *
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @param srcFourcc 源数据格式；{@link FourCC}
+     * @param dstFourcc 目标数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convert(int width, int height, @NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        Objects.requireNonNull(srcFourcc, "srcFourcc is null");
+        Objects.requireNonNull(dstFourcc, "dstFourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder("convert(" + srcFourcc + " -> " + dstFourcc + ")");
+        long srcBytes = srcFourcc.getTotalBppSize(width, height);
+        long dstBytes = dstFourcc.getTotalBppSize(width, height);
+        switch (LibYuv.GetConvertPath(srcFourcc.getCode(), dstFourcc.getCode())) {
+            case LibYuv.CONVERT_COPY:
+                return builder.step("memcpy", srcBytes, dstBytes).build();
+            case LibYuv.CONVERT_DIRECT:
+                return builder.step(directKernel(srcFourcc, dstFourcc), srcBytes, dstBytes).build();
+            case LibYuv.CONVERT_VIA_ARGB: {
+                long argbBytes = (long) width * height * 4;
+                return builder.step(directKernel(srcFourcc, FourCC.FOURCC_ARGB), srcBytes, argbBytes, YuvPlan.Allocation.NATIVE_ARENA, SLOW_NO_DIRECT_KERNEL + ", pivots through ARGB")
+                        .step(directKernel(FourCC.FOURCC_ARGB, dstFourcc), argbBytes, dstBytes)
+                        .build();
+            }
+            case LibYuv.CONVERT_VIA_I420: {
+                long i420Bytes = i420Size(width, height);
+                return builder.step(toI420Kernel(srcFourcc), srcBytes, i420Bytes, YuvPlan.Allocation.NATIVE_ARENA, SLOW_NO_DIRECT_KERNEL + ", pivots through I420")
+                        .step(fromI420Kernel(dstFourcc), i420Bytes, dstBytes)
+                        .build();
+            }
+            default:
+                return builder.step("ConvertSample", srcBytes, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+        }
+    }
+
+    /**
+     * 将指定格式的数据进行旋转的执行计划
+     *
+     * @param width   图像宽度
+     * @param height  图像高度
+     * @param degrees 需要旋转的角度；{@link  RotationMode}
+     * @param fourcc  指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan rotate(int width, int height, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        return transform("rotate(" + fourcc + ")", width, height, 0, 0, width, height,
+                LibYuv.rotatedWidth(width, height, degrees), LibYuv.rotatedHeight(width, height, degrees),
+                degrees, false, FilterMode.FILTER_NONE, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据进行缩放的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param dstWidth   目标宽
+     * @param dstHeight  目标高
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @param filterMode 压缩过滤模式；{@link  FilterMode}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan scale(int width, int height, int dstWidth, int dstHeight, @NonNull FourCC fourcc, @FilterMode int filterMode) {
+        return transform("scale(" + fourcc + ")", width, height, 0, 0, width, height, dstWidth, dstHeight,
+                RotationMode.ROTATE_0, false, filterMode, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据进行裁减的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan crop(int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, @NonNull FourCC fourcc) {
+        return transform("crop(" + fourcc + ")", width, height, cropX, cropY, cropWidth, cropHeight, cropWidth, cropHeight,
+                RotationMode.ROTATE_0, false, FilterMode.FILTER_NONE, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据进行镜像翻转的执行计划
+     *
+     * @param width  图像宽度
+     * @param height 图像高度
+     * @param fourcc 指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan mirror(int width, int height, @NonNull FourCC fourcc) {
+        return transform("mirror(" + fourcc + ")", width, height, 0, 0, width, height, width, height,
+                RotationMode.ROTATE_0, true, FilterMode.FILTER_NONE, fourcc);
+    }
+
+    /**
+     * 将指定格式的数据转换为I400（仅亮度）的执行计划
+     *
+     * @param width      图像宽度
+     * @param height     图像高度
+     * @param cropX      裁减起始点X坐标
+     * @param cropY      裁减起始点Y坐标
+     * @param cropWidth  裁减的宽度
+     * @param cropHeight 裁减的高度
+     * @param dstWidth   目标宽度（旋转后）
+     * @param dstHeight  目标高度（旋转后）
+     * @param degrees    需要旋转的角度；{@link  RotationMode}
+     * @param fourcc     指定数据格式；{@link FourCC}
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan convertToI400(int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, int dstWidth, int dstHeight, @RotationMode int degrees, @NonNull FourCC fourcc) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder("convertToI400(" + fourcc + ")");
+        long lumaBytes = (long) cropWidth * cropHeight;
+        long dstBytes = (long) dstWidth * dstHeight;
+        switch (fourcc) {
+            case FOURCC_I400:
+            case FOURCC_I420:
+            case FOURCC_YV12:
+            case FOURCC_NV12:
+            case FOURCC_NV21:
+            case FOURCC_I422:
+            case FOURCC_YV16:
+            case FOURCC_I444:
+            case FOURCC_YV24:
+                // 直接读取Y平面，无需转换
+                break;
+            case FOURCC_YUY2:
+                builder.step("YUY2ToY", lumaBytes * 2, lumaBytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+                break;
+            case FOURCC_UYVY:
+                builder.step("UYVYToI420", lumaBytes * 2, i420Size(cropWidth, cropHeight), YuvPlan.Allocation.NATIVE_ARENA, null);
+                break;
+            case FOURCC_ARGB:
+            case FOURCC_RGBA:
+            case FOURCC_24BG:
+            case FOURCC_RAW:
+                builder.step(fourccKernelName(fourcc) + "ToJ400", fourcc.getTotalBppSize(cropWidth, cropHeight), lumaBytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+                break;
+            default: {
+                String toArgbKernel = toArgbKernel(fourcc);
+                if (toArgbKernel == null) {
+                    return builder.step("ConvertToI400", lumaBytes, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+                }
+                builder.step(toArgbKernel + " (1 row) + ARGBToJ400", fourcc.getTotalBppSize(cropWidth, cropHeight), lumaBytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+                break;
+            }
+        }
+        boolean quarterTurn = degrees == RotationMode.ROTATE_90 || degrees == RotationMode.ROTATE_270;
+        int scaleWidth = quarterTurn ? dstHeight : dstWidth;
+        int scaleHeight = quarterTurn ? dstWidth : dstHeight;
+        boolean needScale = scaleWidth != cropWidth || scaleHeight != cropHeight;
+        if (degrees == RotationMode.ROTATE_0) {
+            builder.step(needScale ? "ScalePlane" : "CopyPlane", lumaBytes, dstBytes);
+        } else if (needScale) {
+            builder.step("ScalePlane", lumaBytes, dstBytes, YuvPlan.Allocation.NATIVE_ARENA, null)
+                    .step("RotatePlane", dstBytes, dstBytes);
+        } else {
+            builder.step("RotatePlane", lumaBytes, dstBytes);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 将Image转换为I420的执行计划
+     *
+     * @param image   图像；{@link Image}
+     * @param degrees 需要旋转的角度；{@link  RotationMode}
+     * @param fourcc  packed格式Image的源数据格式；YUV格式的Image可传null
+     * @return 返回执行计划
+     */
+    @NonNull
+    public static YuvPlan imageToI420(@NonNull Image image, @RotationMode int degrees, @Nullable FourCC fourcc) {
+        Objects.requireNonNull(image, "image is null");
+        int format = image.getFormat();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long i420Bytes = i420Size(width, height);
+        Image.Plane[] planes = image.getPlanes();
+        YuvPlan.Builder builder = new YuvPlan.Builder("imageToI420(" + format + ")");
+        if (format == ImageFormat.YUV_420_888) {
+            return builder.step("Android420ToI420Rotate", i420Bytes, i420Bytes).build();
+        }
+        if (format == ImageFormat.YUV_422_888 || format == ImageFormat.YUV_444_888) {
+            FourCC planarFourcc = format == ImageFormat.YUV_444_888 ? FourCC.FOURCC_I444 : FourCC.FOURCC_I422;
+            long srcBytes = planarFourcc.getTotalBppSize(width, height);
+            if (!LibYuv.isDirectPlanarImage(planes)) {
+                builder.step("Image.Plane -> byte[]", srcBytes, srcBytes, YuvPlan.Allocation.JAVA_HEAP, SLOW_JAVA_COPY);
+                return builder.append(convertToI420(width, height, 0, 0, width, height, degrees, planarFourcc)).build();
+            }
+            String kernel = planarFourcc == FourCC.FOURCC_I444 ? "I444ToI420" : "I422ToI420";
+            return appendRotate(builder, kernel, srcBytes, i420Bytes, degrees).build();
+        }
+        FourCC packedFourcc = fourcc != null ? fourcc : LibYuv.getImageFormatFourcc(format);
+        if (packedFourcc == null) {
+            return builder.step("imageToI420", 0, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+        }
+        long srcBytes = packedFourcc.getTotalBppSize(width, height);
+        Image.Plane plane = planes[0];
+        ByteBuffer buffer = plane.getBuffer();
+        int bytesPerPixel = (int) (srcBytes / ((long) width * height));
+        if (!buffer.isDirect() || plane.getPixelStride() != bytesPerPixel) {
+            builder.step("Image.Plane -> byte[]", srcBytes, srcBytes, YuvPlan.Allocation.JAVA_HEAP, SLOW_JAVA_COPY);
+            return builder.append(convertToI420(width, height, 0, 0, width, height, degrees, packedFourcc)).build();
+        }
+        if (plane.getRowStride() != width * bytesPerPixel) {
+            builder.step("CopyPlane (remove row padding)", srcBytes, srcBytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+        }
+        String kernel = toI420Kernel(packedFourcc);
+        if (kernel == null) {
+            return builder.step("ConvertToI420", srcBytes, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+        }
+        return appendRotate(builder, kernel, srcBytes, i420Bytes, degrees).build();
+    }
+
+    @NonNull
+    private static YuvPlan.Builder appendRotate(@NonNull YuvPlan.Builder builder, @NonNull String kernel, long srcBytes, long i420Bytes, @RotationMode int degrees) {
+        if (degrees == RotationMode.ROTATE_0) {
+            return builder.step(kernel, srcBytes, i420Bytes);
+        }
+        return builder.step(kernel, srcBytes, i420Bytes, YuvPlan.Allocation.NATIVE_ARENA, null)
+                .step("I420Rotate", i420Bytes, i420Bytes);
+    }
+
+    /**
+     * 非I420格式的旋转、缩放、裁减、镜像：与 {@link LibYuv} 中TransformSample的实现保持一致
+     */
+    @NonNull
+    private static YuvPlan transform(@NonNull String operation, int width, int height, int cropX, int cropY, int cropWidth, int cropHeight, int dstWidth, int dstHeight, @RotationMode int degrees, boolean mirror, @FilterMode int filterMode, @NonNull FourCC fourcc) {
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        YuvPlan.Builder builder = new YuvPlan.Builder(operation);
+        long cropI420Bytes = i420Size(cropWidth, cropHeight);
+        long dstI420Bytes = i420Size(dstWidth, dstHeight);
+        boolean quarterTurn = degrees == RotationMode.ROTATE_90 || degrees == RotationMode.ROTATE_270;
+        int curWidth = quarterTurn ? cropHeight : cropWidth;
+        int curHeight = quarterTurn ? cropWidth : cropHeight;
+        boolean needScale = curWidth != dstWidth || curHeight != dstHeight;
+
+        if (fourcc == FourCC.FOURCC_I420) {
+            if (degrees != RotationMode.ROTATE_0) {
+                builder.step("I420Rotate", cropI420Bytes, cropI420Bytes);
+            }
+            if (mirror) {
+                builder.step("I420Mirror", cropI420Bytes, cropI420Bytes);
+            }
+            if (needScale) {
+                builder.step("I420Scale(" + filterModeName(filterMode) + ")", cropI420Bytes, dstI420Bytes);
+            }
+            if (degrees == RotationMode.ROTATE_0 && !mirror && !needScale) {
+                builder.step("ConvertToI420(I420 crop)", cropI420Bytes, cropI420Bytes);
+            }
+            return builder.build();
+        }
+
+        String toKernel = toI420Kernel(fourcc);
+        long srcBytes = fourcc.getTotalBppSize(cropWidth, cropHeight);
+        if (toKernel == null) {
+            return builder.step("ConvertToI420", srcBytes, 0, YuvPlan.Allocation.NONE, SLOW_UNSUPPORTED).build();
+        }
+        builder.step(toKernel, srcBytes, cropI420Bytes, YuvPlan.Allocation.NATIVE_ARENA, SLOW_I420_PIVOT);
+        if (degrees != RotationMode.ROTATE_0) {
+            builder.step("I420Rotate", cropI420Bytes, cropI420Bytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+        }
+        if (mirror) {
+            builder.step("I420Mirror", cropI420Bytes, cropI420Bytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+        }
+        if (needScale) {
+            builder.step("I420Scale(" + filterModeName(filterMode) + ")", cropI420Bytes, dstI420Bytes, YuvPlan.Allocation.NATIVE_ARENA, null);
+        }
+        return builder.step(fromI420Kernel(fourcc), dstI420Bytes, fourcc.getTotalBppSize(dstWidth, dstHeight)).build();
+    }
+
+    /**
+     * 直接转换对应的libyuv内核
+     */
+    @NonNull
+    static String directKernel(@NonNull FourCC srcFourcc, @NonNull FourCC dstFourcc) {
+        if (srcFourcc == FourCC.FOURCC_NV12 && dstFourcc == FourCC.FOURCC_NV21) {
+            // 交换UV的操作是对称的
+            return "NV21ToNV12";
+        }
+        // 一侧为I420/YV12时由ConvertFromI420/ConvertToI420直接转换
+        if (srcFourcc == FourCC.FOURCC_I420 || srcFourcc == FourCC.FOURCC_YV12) {
+            return fromI420Kernel(dstFourcc);
+        }
+        if (dstFourcc == FourCC.FOURCC_I420 || dstFourcc == FourCC.FOURCC_YV12) {
+            return toI420Kernel(srcFourcc);
+        }
+        return fourccKernelName(srcFourcc) + "To" + fourccKernelName(dstFourcc);
+    }
+
+    /**
+     * ConvertToI420对应的libyuv内核；不支持时返回null
+     */
+    @Nullable
+    static String toI420Kernel(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_I420:
+            case FOURCC_YV12:
+                return "I420Copy";
+            case FOURCC_AR30:
+                return null;
+            default:
+                return fourccKernelName(fourcc) + "ToI420";
+        }
+    }
+
+    /**
+     * ConvertFromI420对应的libyuv内核
+     */
+    @NonNull
+    static String fromI420Kernel(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_I400:
+                return "I400Copy";
+            case FOURCC_I420:
+            case FOURCC_YV12:
+                return "I420Copy";
+            default:
+                return "I420To" + fourccKernelName(fourcc);
+        }
+    }
+
+    /**
+     * packed RGB格式转换为ARGB的libyuv内核；不是packed RGB格式时返回null
+     */
+    @Nullable
+    static String toArgbKernel(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_ARGB:
+                return "ARGBCopy";
+            case FOURCC_ABGR:
+            case FOURCC_BGRA:
+            case FOURCC_RGBA:
+            case FOURCC_AR30:
+            case FOURCC_24BG:
+            case FOURCC_RAW:
+            case FOURCC_RGBP:
+            case FOURCC_RGBO:
+            case FOURCC_R444:
+                return fourccKernelName(fourcc) + "ToARGB";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * FourCC在libyuv函数名中的写法
+     */
+    @NonNull
+    static String fourccKernelName(@NonNull FourCC fourcc) {
+        switch (fourcc) {
+            case FOURCC_24BG:
+                return "RGB24";
+            case FOURCC_RGBP:
+                return "RGB565";
+            case FOURCC_RGBO:
+                return "ARGB1555";
+            case FOURCC_R444:
+                return "ARGB4444";
+            case FOURCC_YV12:
+                return "I420";
+            case FOURCC_YV16:
+                return "I422";
+            case FOURCC_YV24:
+                return "I444";
+            default:
+                return fourcc.name().substring("FOURCC_".length());
+        }
+    }
+
+    @NonNull
+    private static String filterModeName(@FilterMode int filterMode) {
+        switch (filterMode) {
+            case FilterMode.FILTER_NONE:
+                return "none";
+            case FilterMode.FILTER_LINEAR:
+                return "linear";
+            case FilterMode.FILTER_BILINEAR:
+                return "bilinear";
+            default:
+                return "box";
+        }
+    }
+
+    private static long i420Size(int width, int height) {
+        return FourCC.FOURCC_I420.getTotalBppSize(width, height);
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.Objects;
+
+import androidx.annotation.FloatRange;
+import androidx.annotation.NonNull;
+
+/**
+ * 叠加图（水印、Logo、文字等）：直接在YUV数据上进行Alpha混合，无需先转换为ARGB再转换回来。
+ * <p>
+ * 叠加图在创建时会一次性转换为I420与Alpha平面，不同不透明度对应的Alpha平面以及NV21/NV12所需的交错色度数据
+ * 会在首次使用时生成并缓存，之后每一帧只需要一次原地混合。
+ * <p>
+ * 目标数据支持 {@link FourCC#FOURCC_I420} / {@link FourCC#FOURCC_NV21} / {@link FourCC#FOURCC_NV12}，
+ * 以及 {@link FourCC#FOURCC_ARGB} / {@link FourCC#FOURCC_ABGR}；YUV目标的叠加位置坐标必须为偶数，
+ * 超出目标图像的部分会被裁掉。
+ * <p>
+ * 注意：该类不是线程安全的。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvOverlay {
+
+    private final int width;
+    private final int height;
+    private final byte[] i420Data;
+    private final byte[] alphaData;
+
+    private byte[] argbData;
+    private byte[] abgrData;
+    private byte[] vuData;
+    private byte[] uvData;
+
+    private int preparedOpacity = -1;
+    private byte[] scaledAlphaData;
+    private byte[] halfAlphaData;
+    private byte[] uvAlphaData;
+
+    private int shadedOpacity = -1;
+    private FourCC shadedFourcc;
+    private byte[] shadedData;
+
+    private YuvOverlay(int width, int height, @NonNull byte[] i420Data, @NonNull byte[] alphaData) {
+        this.width = width;
+        this.height = height;
+        this.i420Data = i420Data;
+        this.alphaData = alphaData;
+    }
+
+    /**
+     * 通过4字节packed格式的数据创建叠加图
+     *
+     * @param srcData       源数据
+     * @param width         图像宽度
+     * @param height        图像高度
+     * @param fourcc        指定数据格式，支持：{@link FourCC#FOURCC_ARGB} / {@link FourCC#FOURCC_ABGR} /
+     *                      {@link FourCC#FOURCC_BGRA} / {@link FourCC#FOURCC_RGBA}
+     * @param premultiplied 颜色是否已预乘Alpha
+     * @return 返回叠加图
+     */
+    @NonNull
+    public static YuvOverlay fromArgb(@NonNull byte[] srcData, int width, int height, @NonNull FourCC fourcc, boolean premultiplied) {
+        Objects.requireNonNull(srcData, "srcData is null");
+        Objects.requireNonNull(fourcc, "fourcc is null");
+        LibYuv.checkDimensions(width, height);
+        if (fourcc != FourCC.FOURCC_ARGB && fourcc != FourCC.FOURCC_ABGR
+                && fourcc != FourCC.FOURCC_BGRA && fourcc != FourCC.FOURCC_RGBA) {
+            throw new IllegalArgumentException("unsupported overlay fourcc: " + fourcc);
+        }
+        LibYuv.checkArraySize(srcData, width * height * 4, "srcData");
+        byte[] i420Data = new byte[FourCC.FOURCC_I420.getTotalBppSize(width, height)];
+        byte[] alphaData = new byte[width * height];
+        byte[] argbData = new byte[width * height * 4];
+        long traceStart = YuvTrace.begin();
+        LibYuv.OverlayFromARGB(srcData, width, height, fourcc.getCode(), premultiplied, i420Data, alphaData, argbData);
+        YuvTrace.record(traceStart, YuvTrace.OP_OVERLAY_FROM_ARGB, srcData, fourcc, FourCC.FOURCC_I420, width, height, premultiplied ? 1 : 0);
+        YuvOverlay overlay = new YuvOverlay(width, height, i420Data, alphaData);
+        overlay.argbData = argbData;
+        return overlay;
+    }
+
+    /**
+     * 通过I420数据与Alpha平面创建叠加图（颜色未预乘Alpha）
+     *
+     * @param i420Data  源I420数据
+     * @param alphaData Alpha平面数据，大小为width * height
+     * @param width     图像宽度
+     * @param height    图像高度
+     * @return 返回叠加图
+     */
+    @NonNull
+    public static YuvOverlay fromI420Alpha(@NonNull byte[] i420Data, @NonNull byte[] alphaData, int width, int height) {
+        LibYuv.checkDimensions(width, height);
+        int i420Size = FourCC.FOURCC_I420.getTotalBppSize(width, height);
+        LibYuv.checkArraySize(i420Data, i420Size, "i420Data");
+        LibYuv.checkArraySize(alphaData, width * height, "alphaData");
+        byte[] i420Copy = new byte[i420Size];
+        byte[] alphaCopy = new byte[width * height];
+        System.arraycopy(i420Data, 0, i420Copy, 0, i420Size);
+        System.arraycopy(alphaData, 0, alphaCopy, 0, alphaCopy.length);
+        return new YuvOverlay(width, height, i420Copy, alphaCopy);
+    }
+
+    /**
+     * 获取叠加图宽度
+     *
+     * @return 返回叠加图宽度
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * 获取叠加图高度
+     *
+     * @return 返回叠加图高度
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 将叠加图以原始不透明度混合到目标数据中（原地修改）
+     *
+     * @param dstData   目标数据
+     * @param dstWidth  目标图像宽度
+     * @param dstHeight 目标图像高度
+     * @param dstFourcc 目标数据格式；{@link FourCC}
+     * @param x         叠加位置X坐标
+     * @param y         叠加位置Y坐标
+     */
+    public void blend(@NonNull byte[] dstData, int dstWidth, int dstHeight, @NonNull FourCC dstFourcc, int x, int y) {
+        blend(dstData, dstWidth, dstHeight, dstFourcc, x, y, 1f);
+    }
+
+    /**
+     * 将叠加图混合到目标数据中（原地修改）
+     *
+     * @param dstData   目标数据
+     * @param dstWidth  目标图像宽度
+     * @param dstHeight 目标图像高度
+     * @param dstFourcc 目标数据格式；{@link FourCC}
+     * @param x         叠加位置X坐标；YUV目标必须为偶数
+     * @param y         叠加位置Y坐标；YUV目标必须为偶数
+     * @param opacity   整体不透明度，取值范围：[0, 1]
+     */
+    public void blend(@NonNull byte[] dstData, int dstWidth, int dstHeight, @NonNull FourCC dstFourcc, int x, int y, @FloatRange(from = 0, to = 1) float opacity) {
+        Objects.requireNonNull(dstFourcc, "dstFourcc is null");
+        LibYuv.checkDimensions(dstWidth, dstHeight);
+        LibYuv.checkArraySize(dstData, dstFourcc.getTotalBppSize(dstWidth, dstHeight), "dstData");
+        if (!(opacity >= 0f && opacity <= 1f)) {
+            throw new IllegalArgumentException("opacity must be in [0, 1]: " + opacity);
+        }
+        boolean yuv = dstFourcc == FourCC.FOURCC_I420 || dstFourcc == FourCC.FOURCC_NV21 || dstFourcc == FourCC.FOURCC_NV12;
+        if (!yuv && dstFourcc != FourCC.FOURCC_ARGB && dstFourcc != FourCC.FOURCC_ABGR) {
+            throw new IllegalArgumentException("unsupported dst fourcc: " + dstFourcc);
+        }
+        if (yuv && ((x & 1) != 0 || (y & 1) != 0)) {
+            throw new IllegalArgumentException("overlay position must be even for YUV destination");
+        }
+
+        int srcX = Math.max(0, -x);
+        int srcY = Math.max(0, -y);
+        int dstX = Math.max(0, x);
+        int dstY = Math.max(0, y);
+        int blendWidth = Math.min(width - srcX, dstWidth - dstX);
+        int blendHeight = Math.min(height - srcY, dstHeight - dstY);
+        int opacityValue = Math.round(opacity * 255);
+        if (blendWidth <= 0 || blendHeight <= 0 || opacityValue == 0) {
+            return;
+        }
+
+        long traceStart = YuvTrace.begin();
+        if (!yuv) {
+            byte[] argb = getShadedArgb(dstFourcc, opacityValue);
+            LibYuv.OverlayBlendARGB(dstData, dstWidth, dstHeight, argb, width, height, srcX, srcY, dstX, dstY, blendWidth, blendHeight);
+            recordBlend(traceStart, FourCC.FOURCC_ARGB, dstFourcc, dstWidth, dstHeight, dstX, dstY, blendWidth, blendHeight, opacityValue);
+            return;
+        }
+
+        prepareAlpha(opacityValue);
+        byte[] interleavedData = null;
+        if (dstFourcc == FourCC.FOURCC_NV21) {
+            if (vuData == null) {
+                vuData = interleaveChroma(true);
+            }
+            interleavedData = vuData;
+        } else if (dstFourcc == FourCC.FOURCC_NV12) {
+            if (uvData == null) {
+                uvData = interleaveChroma(false);
+            }
+            interleavedData = uvData;
+        }
+        LibYuv.OverlayBlendYUV(dstData, dstWidth, dstHeight, interleavedData != null,
+                i420Data, interleavedData, scaledAlphaData, halfAlphaData, uvAlphaData,
+                width, height, srcX, srcY, dstX, dstY, blendWidth, blendHeight);
+        recordBlend(traceStart, FourCC.FOURCC_I420, dstFourcc, dstWidth, dstHeight, dstX, dstY, blendWidth, blendHeight, opacityValue);
+    }
+
+    /**
+     * 记录一次混合：目标图像的尺寸为源尺寸，混合区域记录为裁减区域，叠加图的尺寸记录为目标尺寸，不透明度（0 ~ 255）记录为附加参数
+     */
+    private void recordBlend(long traceStart, @NonNull FourCC overlayFourcc, @NonNull FourCC dstFourcc, int dstWidth, int dstHeight,
+                             int dstX, int dstY, int blendWidth, int blendHeight, int opacity) {
+        YuvTrace.record(traceStart, YuvTrace.OP_OVERLAY_BLEND, null, overlayFourcc, dstFourcc, dstWidth, dstHeight, dstX, dstY, blendWidth, blendHeight,
+                RotationMode.ROTATE_0, width, height, FilterMode.FILTER_NONE, opacity);
+    }
+
+    private void prepareAlpha(int opacity) {
+        if (preparedOpacity == opacity) {
+            return;
+        }
+        int halfWidth = (width + 1) >> 1;
+        int halfHeight = (height + 1) >> 1;
+        if (scaledAlphaData == null) {
+            scaledAlphaData = new byte[width * height];
+            halfAlphaData = new byte[halfWidth * halfHeight];
+            uvAlphaData = new byte[halfWidth * halfHeight * 2];
+        }
+        LibYuv.OverlayPrepareAlpha(alphaData, width, height, opacity, scaledAlphaData, halfAlphaData, uvAlphaData);
+        preparedOpacity = opacity;
+    }
+
+    @NonNull
+    private byte[] interleaveChroma(boolean vu) {
+        int ySize = width * height;
+        int uSize = ((width + 1) >> 1) * ((height + 1) >> 1);
+        int firstOffset = vu ? ySize + uSize : ySize;
+        int secondOffset = vu ? ySize : ySize + uSize;
+        byte[] chromaData = new byte[uSize << 1];
+        for (int i = 0; i < uSize; i++) {
+            chromaData[i << 1] = i420Data[firstOffset + i];
+            chromaData[(i << 1) + 1] = i420Data[secondOffset + i];
+        }
+        return chromaData;
+    }
+
+    @NonNull
+    private byte[] getShadedArgb(@NonNull FourCC dstFourcc, int opacity) {
+        if (argbData == null) {
+            argbData = new byte[width * height * 4];
+            LibYuv.OverlayToARGB(i420Data, alphaData, width, height, argbData);
+        }
+        byte[] srcData = argbData;
+        if (dstFourcc == FourCC.FOURCC_ABGR) {
+            if (abgrData == null) {
+                abgrData = new byte[argbData.length];
+                for (int i = 0; i < argbData.length; i += 4) {
+                    abgrData[i] = argbData[i + 2];
+                    abgrData[i + 1] = argbData[i + 1];
+                    abgrData[i + 2] = argbData[i];
+                    abgrData[i + 3] = argbData[i + 3];
+                }
+            }
+            srcData = abgrData;
+        }
+        if (opacity >= 255) {
+            return srcData;
+        }
+        // 预乘Alpha的颜色整体乘以不透明度即可
+        if (shadedData == null || shadedOpacity != opacity || shadedFourcc != dstFourcc) {
+            if (shadedData == null) {
+                shadedData = new byte[srcData.length];
+            }
+            for (int i = 0; i < srcData.length; i++) {
+                shadedData[i] = (byte) (((srcData[i] & 0xFF) * opacity + 127) / 255);
+            }
+            shadedOpacity = opacity;
+            shadedFourcc = dstFourcc;
+        }
+        return shadedData;
+    }
+}
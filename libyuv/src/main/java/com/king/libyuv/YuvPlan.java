@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 执行计划：描述一次操作（或由多个操作组成的流水线）会依次调用哪些libyuv内核、产生哪些中间缓冲区、读写多少字节。
+ * <p>
+ * 执行计划由 {@link YuvExplain} 生成，不会真正执行任何转换；其中标记为慢路径的步骤在 {@link LibYuv#setStrictMode(boolean)}
+ * 开启时会导致对应操作抛出 {@link IllegalStateException}。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvPlan {
+
+    /**
+     * 中间缓冲区的来源
+     */
+    public enum Allocation {
+        /**
+         * 没有中间缓冲区：直接写入目标数组
+         */
+        NONE,
+        /**
+         * Java堆上的临时数组
+         */
+        JAVA_HEAP,
+        /**
+         * native层的scratch arena；稳态下不产生新的分配，见 {@link ScratchArena}
+         */
+        NATIVE_ARENA,
+        /**
+         * native堆内存（libyuv内部malloc），每次调用都会分配
+         */
+        NATIVE_HEAP,
+    }
+
+    private final String operation;
+    private final List<Step> steps;
+
+    YuvPlan(@NonNull String operation, @NonNull List<Step> steps) {
+        this.operation = operation;
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * 将多个执行计划按顺序组合成一条流水线
+     *
+     * @param operation 流水线名称
+     * @param plans     按执行顺序排列的执行计划
+     * @return 返回组合后的执行计划
+     */
+    @NonNull
+    public static YuvPlan concat(@NonNull String operation, @NonNull YuvPlan... plans) {
+        Objects.requireNonNull(operation, "operation is null");
+        List<Step> steps = new ArrayList<>();
+        for (YuvPlan plan : plans) {
+            steps.addAll(plan.steps);
+        }
+        return new YuvPlan(operation, steps);
+    }
+
+    /**
+     * 获取操作名称
+     *
+     * @return 返回操作名称
+     */
+    @NonNull
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 获取所有步骤
+     *
+     * @return 返回按执行顺序排列的步骤
+     */
+    @NonNull
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * 获取对图像数据的遍历次数（每个步骤遍历一次）
+     *
+     * @return 返回遍历次数
+     */
+    public int getPassCount() {
+        return steps.size();
+    }
+
+    /**
+     * 获取读写的总字节数
+     *
+     * @return 返回读写的总字节数
+     */
+    public long getBytesTouched() {
+        long bytes = 0;
+        for (Step step : steps) {
+            bytes += step.readBytes + step.writeBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 获取中间缓冲区的数量（不包含调用方的目标数组）
+     *
+     * @return 返回中间缓冲区的数量
+     */
+    public int getIntermediateCount() {
+        int count = 0;
+        for (Step step : steps) {
+            if (step.allocation != Allocation.NONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 获取中间缓冲区的总字节数
+     *
+     * @return 返回中间缓冲区的总字节数
+     */
+    public long getIntermediateBytes() {
+        long bytes = 0;
+        for (Step step : steps) {
+            bytes += step.allocationBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * 是否包含慢路径
+     *
+     * @return 包含慢路径时返回true
+     */
+    public boolean isSlowPath() {
+        for (Step step : steps) {
+            if (step.slowReason != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取所有慢路径的原因
+     *
+     * @return 返回慢路径的原因
+     */
+    @NonNull
+    public List<String> getSlowReasons() {
+        List<String> reasons = new ArrayList<>();
+        for (Step step : steps) {
+            if (step.slowReason != null) {
+                reasons.add(step.kernel + ": " + step.slowReason);
+            }
+        }
+        return reasons;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(operation)
+                .append(": passes=").append(getPassCount())
+                .append(", intermediates=").append(getIntermediateCount())
+                .append(" (").append(getIntermediateBytes()).append(" bytes)")
+                .append(", bytesTouched=").append(getBytesTouched());
+        for (int i = 0; i < steps.size(); i++) {
+            sb.append('\n').append("  ").append(i + 1).append(". ").append(steps.get(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 执行计划中的一个步骤：一次对图像数据的完整遍历
+     */
+    public static final class Step {
+
+        private final String kernel;
+        private final long readBytes;
+        private final long writeBytes;
+        private final Allocation allocation;
+        private final long allocationBytes;
+        private final String slowReason;
+
+        Step(@NonNull String kernel, long readBytes, long writeBytes, @NonNull Allocation allocation, long allocationBytes, @Nullable String slowReason) {
+            this.kernel = kernel;
+            this.readBytes = readBytes;
+            this.writeBytes = writeBytes;
+            this.allocation = allocation;
+            this.allocationBytes = allocationBytes;
+            this.slowReason = slowReason;
+        }
+
+        /**
+         * 获取调用的内核（libyuv函数名或本库的实现说明）
+         *
+         * @return 返回内核名称
+         */
+        @NonNull
+        public String getKernel() {
+            return kernel;
+        }
+
+        /**
+         * 获取读取的字节数
+         *
+         * @return 返回读取的字节数
+         */
+        public long getReadBytes() {
+            return readBytes;
+        }
+
+        /**
+         * 获取写入的字节数
+         *
+         * @return 返回写入的字节数
+         */
+        public long getWriteBytes() {
+            return writeBytes;
+        }
+
+        /**
+         * 获取该步骤写入的中间缓冲区来源
+         *
+         * @return 返回中间缓冲区来源；直接写入目标数组时为 {@link Allocation#NONE}
+         */
+        @NonNull
+        public Allocation getAllocation() {
+            return allocation;
+        }
+
+        /**
+         * 获取该步骤写入的中间缓冲区大小
+         *
+         * @return 返回中间缓冲区大小
+         */
+        public long getAllocationBytes() {
+            return allocationBytes;
+        }
+
+        /**
+         * 获取慢路径的原因
+         *
+         * @return 不是慢路径时返回null
+         */
+        @Nullable
+        public String getSlowReason() {
+            return slowReason;
+        }
+
+        /**
+         * 是否为慢路径
+         *
+         * @return 是慢路径时返回true
+         */
+        public boolean isSlowPath() {
+            return slowReason != null;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(kernel)
+                    .append(" [read=").append(readBytes)
+                    .append(", write=").append(writeBytes);
+            if (allocation != Allocation.NONE) {
+                sb.append(", ").append(allocation).append('=').append(allocationBytes);
+            }
+            sb.append(']');
+            if (slowReason != null) {
+                sb.append(" SLOW: ").append(slowReason);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 构建执行计划
+     */
+    static final class Builder {
+
+        private final String operation;
+        private final List<Step> steps = new ArrayList<>();
+
+        Builder(@NonNull String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * 添加一个直接写入目标数组的步骤
+         */
+        @NonNull
+        Builder step(@NonNull String kernel, long readBytes, long writeBytes) {
+            return step(kernel, readBytes, writeBytes, Allocation.NONE, null);
+        }
+
+        /**
+         * 添加一个步骤；allocation不为NONE时表示该步骤写入的是一个中间缓冲区，大小为writeBytes
+         */
+        @NonNull
+        Builder step(@NonNull String kernel, long readBytes, long writeBytes, @NonNull Allocation allocation, @Nullable String slowReason) {
+            long allocationBytes = allocation == Allocation.NONE ? 0 : writeBytes;
+            steps.add(new Step(kernel, readBytes, writeBytes, allocation, allocationBytes, slowReason));
+            return this;
+        }
+
+        @NonNull
+        Builder append(@NonNull YuvPlan plan) {
+            steps.addAll(plan.steps);
+            return this;
+        }
+
+        @NonNull
+        YuvPlan build() {
+            return new YuvPlan(operation, new ArrayList<>(steps));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 图像金字塔：所有层级连续存放在同一个byte[]中，第0层为原图，后续每一层由上一层缩放得到。
+ * <p>
+ * 每一层均为紧凑排列的 {@link FourCC#FOURCC_I420} 数据，若为仅亮度模式则为 {@link FourCC#FOURCC_I400} 数据；
+ * 可通过 {@link #getOffset(int)} 与 {@link #getLevelSize(int)} 定位各层数据。
+ * <p>
+ * 数据数组来自 {@link ByteArrayPool}，使用完毕后可调用 {@link #recycle()} 归还复用。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvPyramid {
+
+    private final ByteArrayPool pool;
+    private final FourCC fourcc;
+    private final int[] widths;
+    private final int[] heights;
+    private final int[] offsets;
+    private byte[] data;
+
+    YuvPyramid(@NonNull ByteArrayPool pool, @NonNull FourCC fourcc, @NonNull int[] widths, @NonNull int[] heights, @NonNull int[] offsets, @NonNull byte[] data) {
+        this.pool = pool;
+        this.fourcc = fourcc;
+        this.widths = widths;
+        this.heights = heights;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * 根据原图尺寸计算各层的宽高
+     *
+     * @param width   原图宽度
+     * @param height  原图高度
+     * @param levels  层数（包含原图）
+     * @param factor  相邻两层的缩放系数，取值范围：(0, 1)
+     * @param widths  输出各层宽度
+     * @param heights 输出各层高度
+     */
+    static void computeLevelSizes(int width, int height, int levels, float factor, @NonNull int[] widths, @NonNull int[] heights) {
+        widths[0] = width;
+        heights[0] = height;
+        for (int i = 1; i < levels; i++) {
+            widths[i] = Math.max(1, Math.round(widths[i - 1] * factor));
+            heights[i] = Math.max(1, Math.round(heights[i - 1] * factor));
+        }
+    }
+
+    /**
+     * 获取层数
+     *
+     * @return 返回层数
+     */
+    public int getLevelCount() {
+        return widths.length;
+    }
+
+    /**
+     * 获取每一层的数据格式
+     *
+     * @return 返回 {@link FourCC#FOURCC_I420} 或 {@link FourCC#FOURCC_I400}
+     */
+    @NonNull
+    public FourCC getFourcc() {
+        return fourcc;
+    }
+
+    /**
+     * 获取指定层的宽度
+     *
+     * @param level 层级
+     * @return 返回指定层的宽度
+     */
+    public int getWidth(int level) {
+        return widths[level];
+    }
+
+    /**
+     * 获取指定层的高度
+     *
+     * @param level 层级
+     * @return 返回指定层的高度
+     */
+    public int getHeight(int level) {
+        return heights[level];
+    }
+
+    /**
+     * 获取指定层数据在 {@link #getData()} 中的起始偏移
+     *
+     * @param level 层级
+     * @return 返回指定层数据的起始偏移
+     */
+    public int getOffset(int level) {
+        return offsets[level];
+    }
+
+    /**
+     * 获取指定层数据占用的字节大小
+     *
+     * @param level 层级
+     * @return 返回指定层数据占用的字节大小
+     */
+    public int getLevelSize(int level) {
+        return fourcc.getTotalBppSize(widths[level], heights[level]);
+    }
+
+    /**
+     * 获取所有层级的连续数据
+     *
+     * @return 返回所有层级的连续数据
+     */
+    @NonNull
+    public byte[] getData() {
+        if (data == null) {
+            throw new IllegalStateException("pyramid has been recycled");
+        }
+        return data;
+    }
+
+    /**
+     * 拷贝出指定层的数据
+     *
+     * @param level 层级
+     * @return 返回指定层的数据
+     */
+    @NonNull
+    public byte[] copyLevel(int level) {
+        byte[] src = getData();
+        byte[] dst = new byte[getLevelSize(level)];
+        System.arraycopy(src, offsets[level], dst, 0, dst.length);
+        return dst;
+    }
+
+    /**
+     * 将数据数组归还到池中；调用后不可再访问数据
+     */
+    public void recycle() {
+        byte[] recycled = data;
+        data = null;
+        if (recycled != null) {
+            pool.release(recycled);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * 调用轨迹录制：记录应用实际发生的每一次LibYuv处理（操作、格式、尺寸、裁减、旋转、缩放过滤模式以及耗时），写入紧凑的二进制文件，
+ * 之后可以用 {@link YuvTraceReplayer} 在设备或Linux JVM上按同样的调用组合重放，用真实的负载衡量native层的改动。
+ * <p>
+ * 默认关闭，关闭时每次调用只多一次volatile读取。可以按间隔采样保存源帧数据，重放时使用真实内容，其余调用使用合成数据。
+ * <p>
+ * 调用线程只拷贝记录（以及采样到的源数据），由后台线程写入输出流；队列已满时丢弃该条记录（见 {@link #getDroppedCount()}），
+ * 排队中的源数据超过上限时该条记录不保存源数据，录制不会阻塞或拖慢处理线程。
+ * <p>
+ * 记录的是实际执行native处理的那一层调用（例如 rotate 对I420会记录为 i420Rotate），嵌套调用不会重复记录；
+ * 直接读取Image缓冲区的路径记录为等价的字节数组操作。
+ * {@link ChangeDetector}、{@link IncrementalConverter}、{@link FrameAccumulator}、{@link YuvOverlay} 的每次处理也会记录，构造参数记录在尺寸和附加参数中；
+ * 仿射变换、区域遮挡、调色等需要额外参数（矩阵、矩形、查找表）的操作不记录。
+ * <p>
+ * 文件格式：头部为魔数、版本、采样间隔与开始时间；每条记录依次为操作、相对开始时间、耗时、源格式、目标格式、尺寸参数、附加参数以及可选的源数据，
+ * 整数均使用变长编码。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvTrace {
+
+    static final int MAGIC = 0x59555654;
+    static final int VERSION = 1;
+
+    /**
+     * 操作类型，写入文件后不能修改取值
+     */
+    static final int OP_CONVERT_TO_I420 = 1;
+    static final int OP_CONVERT_FROM_I420 = 2;
+    static final int OP_CONVERT = 3;
+    static final int OP_CONVERT_TO_I400 = 4;
+    static final int OP_ROTATE = 5;
+    static final int OP_SCALE = 6;
+    static final int OP_CROP = 7;
+    static final int OP_MIRROR = 8;
+    static final int OP_I420_ROTATE = 9;
+    static final int OP_I420_SCALE = 10;
+    static final int OP_I420_CROP = 11;
+    static final int OP_I420_MIRROR = 12;
+    static final int OP_NV21_TO_I420 = 13;
+    static final int OP_I420_TO_NV21 = 14;
+    static final int OP_YUV_TO_I420 = 15;
+    static final int OP_MIRROR_IN_PLACE = 16;
+    static final int OP_FLIP_VERTICAL_IN_PLACE = 17;
+    static final int OP_INTERPOLATE = 18;
+    static final int OP_SOBEL = 19;
+    static final int OP_I420_TO_NV_IN_PLACE = 20;
+    static final int OP_NV_TO_I420_IN_PLACE = 21;
+    static final int OP_SWAP_UV_IN_PLACE = 22;
+    static final int OP_LUMA_LUT_IN_PLACE = 23;
+    static final int OP_LUMA_STATS = 24;
+    static final int OP_PYRAMID = 25;
+    static final int OP_DETECT_CHANGE = 26;
+    static final int OP_INCREMENTAL_CONVERT = 27;
+    static final int OP_ACCUMULATE = 28;
+    static final int OP_OVERLAY_FROM_ARGB = 29;
+    static final int OP_OVERLAY_BLEND = 30;
+
+    private static final String[] OP_NAMES = {
+            "unknown", "convertToI420", "convertFromI420", "convert", "convertToI400",
+            "rotate", "scale", "crop", "mirror",
+            "i420Rotate", "i420Scale", "i420Crop", "i420Mirror",
+            "nv21ToI420", "i420ToNv21", "yuvToI420",
+            "mirrorInPlace", "flipVerticalInPlace", "interpolate", "sobel",
+            "i420ToNvInPlace", "nvToI420InPlace", "swapUVInPlace", "applyLumaLutInPlace",
+            "computeLumaStats", "buildPyramid", "ChangeDetector.detect", "IncrementalConverter.update",
+            "FrameAccumulator.accumulate", "YuvOverlay.fromArgb", "YuvOverlay.blend",
+    };
+
+    /**
+     * 等待写入的最大记录数
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+    /**
+     * 等待写入的源数据的最大字节数
+     */
+    private static final long MAX_PENDING_PAYLOAD_BYTES = 64L * 1024 * 1024;
+    /**
+     * 通知写入线程结束
+     */
+    private static final Record END = new Record();
+
+    private static volatile YuvTrace active;
+    private static volatile long lastDroppedCount;
+
+    private final DataOutputStream out;
+    private final int payloadInterval;
+    private final long startNanos;
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong pendingPayloadBytes = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread writer;
+    /**
+     * 只由写入线程修改，stop在join之后读取
+     */
+    private long recordCount;
+    private IOException error;
+
+    private YuvTrace(@NonNull OutputStream out, int payloadInterval) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.payloadInterval = payloadInterval;
+        this.startNanos = System.nanoTime();
+        this.writer = new Thread(this::writeLoop, "YuvTrace-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * 开始录制；同一时间只能有一个录制
+     *
+     * @param out             输出流，{@link #stop()} 时关闭
+     * @param payloadInterval 每隔多少条记录保存一次源数据；0表示不保存
+     * @throws IOException 写入文件头失败
+     */
+    public static synchronized void start(@NonNull OutputStream out, int payloadInterval) throws IOException {
+        Objects.requireNonNull(out, "out is null");
+        if (payloadInterval < 0) {
+            throw new IllegalArgumentException("payloadInterval must be non-negative");
+        }
+        if (active != null) {
+            throw new IllegalStateException("trace is already recording");
+        }
+        YuvTrace trace = new YuvTrace(out, payloadInterval);
+        trace.out.writeInt(MAGIC);
+        trace.out.writeInt(VERSION);
+        writeVarLong(trace.out, payloadInterval);
+        trace.out.writeLong(System.currentTimeMillis());
+        lastDroppedCount = 0;
+        trace.writer.start();
+        active = trace;
+    }
+
+    /**
+     * 开始录制到文件
+     *
+     * @param file            轨迹文件
+     * @param payloadInterval 每隔多少条记录保存一次源数据；0表示不保存
+     * @throws IOException 创建文件或写入文件头失败
+     */
+    public static void start(@NonNull File file, int payloadInterval) throws IOException {
+        Objects.requireNonNull(file, "file is null");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            start(out, payloadInterval);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 停止录制并关闭输出流
+     *
+     * @return 返回录制的记录数；没有在录制时返回0
+     * @throws IOException 录制过程中或关闭时写入失败
+     */
+    public static synchronized long stop() throws IOException {
+        YuvTrace trace = active;
+        if (trace == null) {
+            return 0;
+        }
+        active = null;
+        // 正在记录的线程可能仍会入队，END之后的记录不再写入
+        boolean interrupted = false;
+        while (true) {
+            try {
+                trace.queue.put(END);
+                trace.writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        lastDroppedCount = trace.droppedCount.get();
+        try {
+            trace.out.close();
+        } catch (IOException e) {
+            if (trace.error == null) {
+                trace.error = e;
+            }
+        }
+        if (trace.error != null) {
+            throw trace.error;
+        }
+        return trace.recordCount;
+    }
+
+    /**
+     * 是否正在录制
+     *
+     * @return 正在录制时返回true
+     */
+    public static boolean isRecording() {
+        return active != null;
+    }
+
+    /**
+     * 获取当前（或最近一次）录制因写入队列已满而丢弃的记录数
+     *
+     * @return 返回丢弃的记录数
+     */
+    public static long getDroppedCount() {
+        YuvTrace trace = active;
+        return trace != null ? trace.droppedCount.get() : lastDroppedCount;
+    }
+
+    /**
+     * 一次调用开始：没有在录制时返回0
+     */
+    static long begin() {
+        return active != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 记录一次不带裁减、旋转、缩放的调用
+     */
+    static void record(long begin, int op, @Nullable byte[] srcData, @Nullable FourCC srcFourcc, @Nullable FourCC dstFourcc, int width, int height, int arg) {
+        record(begin, op, srcData, srcFourcc, dstFourcc, width, height, 0, 0, width, height, RotationMode.ROTATE_0, width, height, FilterMode.FILTER_NONE, arg);
+    }
+
+    /**
+     * 一次调用成功结束：begin为0（开始时没有在录制）时忽略
+     *
+     * @param arg 附加参数：色彩空间、模式、原地标记等，与操作有关
+     */
+    static void record(long begin, int op, @Nullable byte[] srcData, @Nullable FourCC srcFourcc, @Nullable FourCC dstFourcc,
+                       int width, int height, int cropX, int cropY, int cropWidth, int cropHeight,
+                       @RotationMode int degrees, int dstWidth, int dstHeight, @FilterMode int filterMode, int arg) {
+        if (begin == 0) {
+            return;
+        }
+        long end = System.nanoTime();
+        YuvTrace trace = active;
+        if (trace == null) {
+            return;
+        }
+        Record record = new Record();
+        record.op = op;
+        record.offsetNanos = Math.max(0, begin - trace.startNanos);
+        record.durationNanos = end - begin;
+        record.srcFourcc = srcFourcc;
+        record.dstFourcc = dstFourcc;
+        record.width = width;
+        record.height = height;
+        record.cropX = cropX;
+        record.cropY = cropY;
+        record.cropWidth = cropWidth;
+        record.cropHeight = cropHeight;
+        record.degrees = degrees;
+        record.dstWidth = dstWidth;
+        record.dstHeight = dstHeight;
+        record.filterMode = filterMode;
+        record.arg = arg;
+        long index = trace.sequence.getAndIncrement();
+        if (srcData != null && trace.payloadInterval > 0 && index % trace.payloadInterval == 0) {
+            // 调用方返回后可能立即修改源数组，必须拷贝；排队的源数据超过上限时不保存
+            if (trace.pendingPayloadBytes.addAndGet(srcData.length) <= MAX_PENDING_PAYLOAD_BYTES) {
+                record.payload = srcData.clone();
+            } else {
+                trace.pendingPayloadBytes.addAndGet(-srcData.length);
+            }
+        }
+        if (!trace.queue.offer(record)) {
+            if (record.payload != null) {
+                trace.pendingPayloadBytes.addAndGet(-record.payload.length);
+            }
+            trace.droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 写入线程：依次写入队列中的记录，直到收到END；写入失败后继续取出记录但不再写入，避免调用线程的入队失败
+     */
+    private void writeLoop() {
+        while (true) {
+            Record record;
+            try {
+                record = queue.take();
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (record == END) {
+                return;
+            }
+            if (record.payload != null) {
+                pendingPayloadBytes.addAndGet(-record.payload.length);
+            }
+            if (error != null) {
+                continue;
+            }
+            try {
+                writeRecord(out, record);
+                recordCount++;
+            } catch (IOException e) {
+                // 写入失败后不再记录，错误在stop时抛出；不影响正常的处理
+                error = e;
+            }
+        }
+    }
+
+    private static void writeRecord(@NonNull DataOutputStream out, @NonNull Record record) throws IOException {
+        out.writeByte(record.op);
+        writeVarLong(out, record.offsetNanos);
+        writeVarLong(out, record.durationNanos);
+        out.writeInt(record.srcFourcc != null ? (int) record.srcFourcc.getCode() : 0);
+        out.writeInt(record.dstFourcc != null ? (int) record.dstFourcc.getCode() : 0);
+        writeVarLong(out, record.width);
+        writeVarLong(out, record.height);
+        writeVarLong(out, record.cropX);
+        writeVarLong(out, record.cropY);
+        writeVarLong(out, record.cropWidth);
+        writeVarLong(out, record.cropHeight);
+        writeVarLong(out, record.degrees);
+        writeVarLong(out, record.dstWidth);
+        writeVarLong(out, record.dstHeight);
+        writeVarLong(out, record.filterMode);
+        // arg可能为负数（例如-1表示默认色彩空间），使用zigzag编码
+        writeVarLong(out, ((long) record.arg << 1) ^ (record.arg >> 31));
+        if (record.payload != null) {
+            writeVarLong(out, record.payload.length);
+            out.write(record.payload);
+        } else {
+            writeVarLong(out, 0);
+        }
+    }
+
+    /**
+     * 获取操作名称
+     */
+    @NonNull
+    static String getOpName(int op) {
+        return op > 0 && op < OP_NAMES.length ? OP_NAMES[op] : OP_NAMES[0];
+    }
+
+    /**
+     * 通过代码值查找数据格式；0或未知时返回null
+     */
+    @Nullable
+    static FourCC findFourcc(int code) {
+        for (FourCC fourcc : FourCC.values()) {
+            if ((int) fourcc.getCode() == code) {
+                return fourcc;
+            }
+        }
+        return null;
+    }
+
+    private static void writeVarLong(@NonNull DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(@NonNull DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private static int readVarInt(@NonNull DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("value out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * 读取并校验文件头
+     *
+     * @return 返回录制时的采样间隔
+     */
+    static int readHeader(@NonNull DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a libyuv trace");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported trace version: " + version);
+        }
+        int payloadInterval = readVarInt(in);
+        in.readLong();
+        return payloadInterval;
+    }
+
+    /**
+     * 读取一条记录；到达文件末尾时返回null
+     */
+    @Nullable
+    static Record readRecord(@NonNull DataInputStream in) throws IOException {
+        int op = in.read();
+        if (op < 0) {
+            return null;
+        }
+        try {
+            Record record = new Record();
+            record.op = op;
+            record.offsetNanos = readVarLong(in);
+            record.durationNanos = readVarLong(in);
+            record.srcFourcc = findFourcc(in.readInt());
+            record.dstFourcc = findFourcc(in.readInt());
+            record.width = readVarInt(in);
+            record.height = readVarInt(in);
+            record.cropX = readVarInt(in);
+            record.cropY = readVarInt(in);
+            record.cropWidth = readVarInt(in);
+            record.cropHeight = readVarInt(in);
+            record.degrees = readVarInt(in);
+            record.dstWidth = readVarInt(in);
+            record.dstHeight = readVarInt(in);
+            record.filterMode = readVarInt(in);
+            long arg = readVarLong(in);
+            record.arg = (int) ((arg >>> 1) ^ -(arg & 1));
+            int payloadLength = readVarInt(in);
+            if (payloadLength > 0) {
+                record.payload = new byte[payloadLength];
+                in.readFully(record.payload);
+            }
+            return record;
+        } catch (EOFException e) {
+            // 录制过程中进程被杀死时最后一条记录可能不完整
+            return null;
+        }
+    }
+
+    /**
+     * 一条调用记录
+     */
+    static final class Record {
+        int op;
+        long offsetNanos;
+        long durationNanos;
+        FourCC srcFourcc;
+        FourCC dstFourcc;
+        int width;
+        int height;
+        int cropX;
+        int cropY;
+        int cropWidth;
+        int cropHeight;
+        int degrees;
+        int dstWidth;
+        int dstHeight;
+        int filterMode;
+        int arg;
+        byte[] payload;
+    }
+}
@@ -0,0 +1,750 @@
+/*
+ * Copyright (C) Jenly
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.king.libyuv;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import androidx.annotation.NonNull;
+
+/**
+ * 重放 {@link YuvTrace} 录制的调用轨迹：按录制的顺序依次执行每一次调用，统计每种调用（操作 + 格式 + 尺寸）的重放耗时，
+ * 并与录制时的耗时对比。可以在设备上运行，也可以在Linux JVM上加载主机编译的libyuv.so运行（见单元测试中的TraceReplayTest）。
+ * <p>
+ * 带源数据的记录使用录制的内容，其余记录使用固定种子生成的合成数据；目标数组按尺寸复用，计时的部分不会产生每帧的分配。
+ * 记录边读取边执行，不会一次性把整个轨迹（包括录制的源数据）读入内存。
+ * 重放时不应同时开启录制。
+ *
+ * @author <a href="mailto:jenly1314@gmail.com">Jenly</a>
+ * <p>
+ * <a href="https://github.com/jenly1314">Follow me</a>
+ */
+public final class YuvTraceReplayer {
+
+    private final Map<Integer, byte[]> sources = new HashMap<>();
+    private final Map<Integer, byte[]> targets = new HashMap<>();
+    private final Map<Integer, byte[]> workBuffers = new HashMap<>();
+    private final Map<String, ByteBuffer[]> planeBuffers = new HashMap<>();
+    /**
+     * 有状态的处理对象按调用复用，与应用中每路视频流持有一个实例的用法一致
+     */
+    private final Map<String, ChangeDetector> detectors = new HashMap<>();
+    private final Map<String, IncrementalConverter> converters = new HashMap<>();
+    private final Map<String, FrameAccumulator> accumulators = new HashMap<>();
+    private final Map<String, YuvOverlay> overlays = new HashMap<>();
+    private final ByteArrayPool pyramidPool = new ByteArrayPool(ByteArrayPool.DEFAULT_MAX_POOLED_BYTES);
+    private byte[] lumaLut;
+
+    private YuvTraceReplayer() {
+    }
+
+    /**
+     * 从输入流重放时缓存的源数据的最大字节数，超过后的记录使用合成数据
+     */
+    private static final long MAX_BUFFERED_PAYLOAD_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * 重放轨迹文件：每一轮按顺序重新读取文件，不会把整个轨迹读入内存
+     *
+     * @param file       轨迹文件
+     * @param iterations 重放的轮数；多轮时重放耗时取平均
+     * @return 返回重放报告
+     * @throws IOException 读取失败或文件格式不正确
+     */
+    @NonNull
+    public static Report replay(@NonNull File file, int iterations) throws IOException {
+        Objects.requireNonNull(file, "file is null");
+        checkIterations(iterations);
+        return new YuvTraceReplayer().run(handler -> {
+            try (InputStream in = new FileInputStream(file)) {
+                read(in, handler);
+            }
+        }, iterations);
+    }
+
+    /**
+     * 重放轨迹：输入流只能读取一次，多轮时记录缓存在内存中，缓存的源数据超过64MB后的记录使用合成数据；
+     * 重放较大的轨迹时建议使用 {@link #replay(File, int)}
+     *
+     * @param in         轨迹输入流，不会被关闭
+     * @param iterations 重放的轮数；多轮时重放耗时取平均
+     * @return 返回重放报告
+     * @throws IOException 读取失败或格式不正确
+     */
+    @NonNull
+    public static Report replay(@NonNull InputStream in, int iterations) throws IOException {
+        Objects.requireNonNull(in, "in is null");
+        checkIterations(iterations);
+        if (iterations == 1) {
+            return new YuvTraceReplayer().run(handler -> read(in, handler), 1);
+        }
+        List<YuvTrace.Record> records = new ArrayList<>();
+        long[] payloadBytes = {0};
+        read(in, record -> {
+            if (record.payload != null) {
+                if (payloadBytes[0] + record.payload.length > MAX_BUFFERED_PAYLOAD_BYTES) {
+                    record.payload = null;
+                } else {
+                    payloadBytes[0] += record.payload.length;
+                }
+            }
+            records.add(record);
+        });
+        return new YuvTraceReplayer().run(handler -> {
+            for (YuvTrace.Record record : records) {
+                handler.handle(record);
+            }
+        }, iterations);
+    }
+
+    private static void checkIterations(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+    }
+
+    /**
+     * 读取文件头，然后依次处理每一条记录
+     */
+    private static void read(@NonNull InputStream in, @NonNull RecordHandler handler) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        YuvTrace.readHeader(data);
+        YuvTrace.Record record;
+        while ((record = YuvTrace.readRecord(data)) != null) {
+            handler.handle(record);
+        }
+    }
+
+    @NonNull
+    private Report run(@NonNull RecordSource source, int iterations) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        int[] counts = new int[2];
+        for (int i = 0; i < iterations; i++) {
+            boolean first = i == 0;
+            source.forEach(record -> {
+                String key = describe(record);
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(key);
+                    entries.put(key, entry);
+                }
+                if (first) {
+                    entry.count++;
+                    entry.recordedNanos += record.durationNanos;
+                    counts[0]++;
+                }
+                long nanos = execute(record);
+                if (nanos < 0) {
+                    if (first) {
+                        counts[1]++;
+                    }
+                    return;
+                }
+                entry.replayedNanos += nanos;
+            });
+        }
+        List<Entry> list = new ArrayList<>(entries.values());
+        long recordedNanos = 0;
+        long replayedNanos = 0;
+        for (Entry entry : list) {
+            entry.replayedNanos /= iterations;
+            recordedNanos += entry.recordedNanos;
+            replayedNanos += entry.replayedNanos;
+        }
+        Collections.sort(list, (a, b) -> Long.compare(b.replayedNanos, a.replayedNanos));
+        return new Report(Collections.unmodifiableList(list), counts[0], counts[1], recordedNanos, replayedNanos);
+    }
+
+    /**
+     * 处理读取到的一条记录
+     */
+    private interface RecordHandler {
+        void handle(@NonNull YuvTrace.Record record);
+    }
+
+    /**
+     * 可以按顺序读取多轮的记录序列
+     */
+    private interface RecordSource {
+        void forEach(@NonNull RecordHandler handler) throws IOException;
+    }
+
+    /**
+     * 执行一条记录，返回耗时；无法重放的记录返回-1
+     */
+    private long execute(@NonNull YuvTrace.Record r) {
+        FourCC src = r.srcFourcc;
+        FourCC dst = r.dstFourcc;
+        int w = r.width;
+        int h = r.height;
+        byte[] srcData;
+        byte[] dstData;
+        long start;
+        switch (r.op) {
+            case YuvTrace.OP_CONVERT_TO_I420:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, LibYuv.sampleSize(src, w, h));
+                dstData = target(FourCC.FOURCC_I420.getTotalBppSize(r.dstWidth, r.dstHeight));
+                start = System.nanoTime();
+                if (r.arg < 0) {
+                    LibYuv.convertToI420(srcData, w, h, r.cropX, r.cropY, r.cropWidth, r.cropHeight, r.degrees, src, dstData);
+                } else {
+                    LibYuv.convertToI420(srcData, w, h, r.cropX, r.cropY, r.cropWidth, r.cropHeight, r.degrees, src, r.arg, dstData);
+                }
+                break;
+            case YuvTrace.OP_CONVERT_FROM_I420:
+                if (dst == null) {
+                    return -1;
+                }
+                srcData = source(r, FourCC.FOURCC_I420.getTotalBppSize(w, h));
+                dstData = target(dst.getTotalBppSize(w, h));
+                start = System.nanoTime();
+                if (r.arg < 0) {
+                    LibYuv.convertFromI420(srcData, w, h, dstData, dst);
+                } else {
+                    LibYuv.convertFromI420(srcData, w, h, dstData, dst, r.arg);
+                }
+                break;
+            case YuvTrace.OP_CONVERT:
+                if (src == null || dst == null) {
+                    return -1;
+                }
+                srcData = source(r, LibYuv.sampleSize(src, w, h));
+                dstData = target(LibYuv.sampleSize(dst, w, h));
+                start = System.nanoTime();
+                LibYuv.convert(srcData, w, h, src, dstData, dst);
+                break;
+            case YuvTrace.OP_CONVERT_TO_I400:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, LibYuv.sampleSize(src, w, h));
+                dstData = target(r.dstWidth * r.dstHeight);
+                start = System.nanoTime();
+                LibYuv.convertToI400(srcData, w, h, r.cropX, r.cropY, r.cropWidth, r.cropHeight, r.degrees, r.dstWidth, r.dstHeight, r.filterMode, src, dstData);
+                break;
+            case YuvTrace.OP_ROTATE:
+            case YuvTrace.OP_I420_ROTATE:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, src.getTotalBppSize(w, h));
+                dstData = target(src.getTotalBppSize(r.dstWidth, r.dstHeight));
+                start = System.nanoTime();
+                LibYuv.rotate(srcData, w, h, r.degrees, src, dstData);
+                break;
+            case YuvTrace.OP_SCALE:
+            case YuvTrace.OP_I420_SCALE:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, src.getTotalBppSize(w, h));
+                dstData = target(src.getTotalBppSize(r.dstWidth, r.dstHeight));
+                start = System.nanoTime();
+                LibYuv.scale(srcData, w, h, r.dstWidth, r.dstHeight, src, r.filterMode, dstData);
+                break;
+            case YuvTrace.OP_CROP:
+            case YuvTrace.OP_I420_CROP:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, src.getTotalBppSize(w, h));
+                dstData = target(src.getTotalBppSize(r.cropWidth, r.cropHeight));
+                start = System.nanoTime();
+                LibYuv.crop(srcData, w, h, r.cropX, r.cropY, r.cropWidth, r.cropHeight, src, dstData);
+                break;
+            case YuvTrace.OP_MIRROR:
+            case YuvTrace.OP_I420_MIRROR:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, src.getTotalBppSize(w, h));
+                dstData = target(src.getTotalBppSize(w, h));
+                start = System.nanoTime();
+                LibYuv.mirror(srcData, w, h, src, dstData);
+                break;
+            case YuvTrace.OP_NV21_TO_I420:
+            case YuvTrace.OP_I420_TO_NV21: {
+                int size = FourCC.FOURCC_I420.getTotalBppSize(w, h);
+                boolean toI420 = r.op == YuvTrace.OP_NV21_TO_I420;
+                srcData = source(r, size);
+                if (r.arg == 1) {
+                    // 原地转换：先把源数据拷贝到工作数组，拷贝不计入耗时
+                    dstData = work(srcData, size);
+                    srcData = dstData;
+                } else {
+                    dstData = target(size);
+                }
+                start = System.nanoTime();
+                if (toI420) {
+                    LibYuv.nv21ToI420(srcData, w, h, dstData);
+                } else {
+                    LibYuv.i420ToNv21(srcData, w, h, dstData);
+                }
+                break;
+            }
+            case YuvTrace.OP_MIRROR_IN_PLACE:
+            case YuvTrace.OP_FLIP_VERTICAL_IN_PLACE:
+                if (src == null) {
+                    return -1;
+                }
+                dstData = work(source(r, LibYuv.sampleSize(src, w, h)), LibYuv.sampleSize(src, w, h));
+                start = System.nanoTime();
+                if (r.op == YuvTrace.OP_MIRROR_IN_PLACE) {
+                    LibYuv.mirrorInPlace(dstData, w, h, src);
+                } else {
+                    LibYuv.flipVerticalInPlace(dstData, w, h, src);
+                }
+                break;
+            case YuvTrace.OP_YUV_TO_I420: {
+                ByteBuffer[] planes = planes(w, h, r.arg);
+                int chromaStride = ((w + 1) >> 1) * r.arg;
+                dstData = target(FourCC.FOURCC_I420.getTotalBppSize(w, h));
+                start = System.nanoTime();
+                LibYuv.yuvToI420(planes[0], planes[1], planes[2], w, chromaStride, chromaStride, r.arg, w, h, dstData, r.degrees);
+                break;
+            }
+            case YuvTrace.OP_INTERPOLATE: {
+                if (src == null) {
+                    return -1;
+                }
+                int size = LibYuv.sampleSize(src, w, h);
+                srcData = source(r, size);
+                // 第二帧使用不同种子的合成数据
+                byte[] src1Data = syntheticSource(size + 1);
+                dstData = target(size);
+                start = System.nanoTime();
+                LibYuv.interpolate(srcData, src1Data, w, h, src, r.arg / 256f, dstData);
+                break;
+            }
+            case YuvTrace.OP_SOBEL:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, Math.max(w * h, LibYuv.sampleSize(src, w, h)));
+                dstData = target(r.dstWidth * r.dstHeight * (r.arg == SobelMode.SOBEL_XY ? 2 : 1));
+                start = System.nanoTime();
+                LibYuv.sobel(srcData, w, h, src, dstData, r.dstWidth, r.dstHeight, r.arg);
+                break;
+            case YuvTrace.OP_I420_TO_NV_IN_PLACE:
+            case YuvTrace.OP_NV_TO_I420_IN_PLACE:
+            case YuvTrace.OP_SWAP_UV_IN_PLACE: {
+                if (src == null || dst == null) {
+                    return -1;
+                }
+                int size = FourCC.FOURCC_I420.getTotalBppSize(w, h);
+                dstData = work(source(r, size), size);
+                start = System.nanoTime();
+                if (r.op == YuvTrace.OP_SWAP_UV_IN_PLACE) {
+                    LibYuv.nv21ToNv12InPlace(dstData, w, h);
+                } else if (r.op == YuvTrace.OP_NV_TO_I420_IN_PLACE) {
+                    if (src == FourCC.FOURCC_NV12) {
+                        LibYuv.nv12ToI420InPlace(dstData, w, h);
+                    } else {
+                        LibYuv.nv21ToI420InPlace(dstData, w, h);
+                    }
+                } else if (dst == FourCC.FOURCC_NV12) {
+                    LibYuv.i420ToNv12InPlace(dstData, w, h);
+                } else {
+                    LibYuv.i420ToNv21InPlace(dstData, w, h);
+                }
+                break;
+            }
+            case YuvTrace.OP_LUMA_LUT_IN_PLACE: {
+                if (src == null) {
+                    return -1;
+                }
+                int size = LibYuv.sampleSize(src, w, h);
+                dstData = work(source(r, size), size);
+                byte[] lut = lumaLut();
+                start = System.nanoTime();
+                LibYuv.applyLumaLutInPlace(dstData, w, h, src, lut);
+                break;
+            }
+            case YuvTrace.OP_LUMA_STATS:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, Math.max(w * h, LibYuv.sampleSize(src, w, h)));
+                start = System.nanoTime();
+                LibYuv.computeLumaStats(srcData, w, h, src, r.dstWidth, r.dstHeight, r.arg);
+                break;
+            case YuvTrace.OP_PYRAMID: {
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, src.getTotalBppSize(w, h));
+                // 缩小比例由第二层的尺寸还原
+                float factor = r.arg > 1 ? (float) r.dstWidth / w : 0.5f;
+                start = System.nanoTime();
+                YuvPyramid pyramid = LibYuv.buildPyramid(srcData, w, h, r.arg, factor, r.filterMode, src == FourCC.FOURCC_I400, pyramidPool);
+                long nanos = System.nanoTime() - start;
+                pyramid.recycle();
+                return nanos;
+            }
+            case YuvTrace.OP_DETECT_CHANGE: {
+                if (src == null) {
+                    return -1;
+                }
+                String key = describe(r);
+                ChangeDetector detector = detectors.get(key);
+                if (detector == null) {
+                    detector = new ChangeDetector(r.dstWidth, r.dstHeight, r.arg >>> 16, r.arg & 0xFFFF);
+                    detectors.put(key, detector);
+                }
+                srcData = source(r, Math.max(w * h, LibYuv.sampleSize(src, w, h)));
+                start = System.nanoTime();
+                detector.detect(srcData, w, h, src, true);
+                break;
+            }
+            case YuvTrace.OP_INCREMENTAL_CONVERT: {
+                if (src == null || dst == null) {
+                    return -1;
+                }
+                String key = describe(r);
+                IncrementalConverter converter = converters.get(key);
+                if (converter == null) {
+                    converter = new IncrementalConverter(w, h, src, dst, r.arg);
+                    converters.put(key, converter);
+                }
+                // 合成数据每帧相同，除第一次外只计入变化检测的耗时
+                srcData = source(r, w * h * 4);
+                start = System.nanoTime();
+                converter.update(srcData);
+                break;
+            }
+            case YuvTrace.OP_ACCUMULATE: {
+                if (src == null) {
+                    return -1;
+                }
+                String key = describe(r);
+                FrameAccumulator accumulator = accumulators.get(key);
+                if (accumulator == null) {
+                    accumulator = new FrameAccumulator(w, h, src, (r.arg & 0x1FF) / 256f, r.arg >>> 9);
+                    accumulators.put(key, accumulator);
+                }
+                int size = LibYuv.sampleSize(src, w, h);
+                srcData = source(r, size);
+                dstData = target(size);
+                start = System.nanoTime();
+                accumulator.accumulate(srcData, dstData);
+                break;
+            }
+            case YuvTrace.OP_OVERLAY_FROM_ARGB:
+                if (src == null) {
+                    return -1;
+                }
+                srcData = source(r, w * h * 4);
+                start = System.nanoTime();
+                YuvOverlay.fromArgb(srcData, w, h, src, r.arg == 1);
+                break;
+            case YuvTrace.OP_OVERLAY_BLEND: {
+                if (dst == null) {
+                    return -1;
+                }
+                // 叠加图使用混合区域的尺寸，放在录制时的位置，混合的像素数与录制时一致
+                String key = r.cropWidth + "x" + r.cropHeight;
+                YuvOverlay overlay = overlays.get(key);
+                if (overlay == null) {
+                    overlay = YuvOverlay.fromI420Alpha(syntheticSource(FourCC.FOURCC_I420.getTotalBppSize(r.cropWidth, r.cropHeight)),
+                            syntheticSource(r.cropWidth * r.cropHeight), r.cropWidth, r.cropHeight);
+                    overlays.put(key, overlay);
+                }
+                dstData = target(dst.getTotalBppSize(w, h));
+                start = System.nanoTime();
+                overlay.blend(dstData, w, h, dst, r.cropX, r.cropY, r.arg / 255f);
+                break;
+            }
+            default:
+                return -1;
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 亮度查表重放使用的查找表：取反，保证每个像素都会被写回
+     */
+    @NonNull
+    private byte[] lumaLut() {
+        if (lumaLut == null) {
+            lumaLut = new byte[256];
+            for (int i = 0; i < 256; i++) {
+                lumaLut[i] = (byte) (255 - i);
+            }
+        }
+        return lumaLut;
+    }
+
+    /**
+     * 源数据：优先使用录制的内容，否则使用合成数据
+     */
+    @NonNull
+    private byte[] source(@NonNull YuvTrace.Record record, int size) {
+        if (record.payload != null && record.payload.length >= size) {
+            return record.payload;
+        }
+        return syntheticSource(size);
+    }
+
+    @NonNull
+    private byte[] syntheticSource(int size) {
+        byte[] data = sources.get(size);
+        if (data == null) {
+            data = new byte[size];
+            new Random(size).nextBytes(data);
+            sources.put(size, data);
+        }
+        return data;
+    }
+
+    @NonNull
+    private byte[] target(int size) {
+        byte[] data = targets.get(size);
+        if (data == null) {
+            data = new byte[size];
+            targets.put(size, data);
+        }
+        return data;
+    }
+
+    @NonNull
+    private byte[] work(@NonNull byte[] srcData, int size) {
+        byte[] data = workBuffers.get(size);
+        if (data == null) {
+            data = new byte[size];
+            workBuffers.put(size, data);
+        }
+        System.arraycopy(srcData, 0, data, 0, size);
+        return data;
+    }
+
+    /**
+     * YUV_420_888的三个平面：像素跨距为2时U、V交织在同一块内存中（与相机输出的NV21布局相同）
+     */
+    @NonNull
+    private ByteBuffer[] planes(int width, int height, int uvPixelStride) {
+        String key = width + "x" + height + ":" + uvPixelStride;
+        ByteBuffer[] planes = planeBuffers.get(key);
+        if (planes != null) {
+            return planes;
+        }
+        int halfWidth = (width + 1) >> 1;
+        int halfHeight = (height + 1) >> 1;
+        int chromaStride = halfWidth * uvPixelStride;
+        ByteBuffer y = ByteBuffer.allocateDirect(width * height);
+        y.put(syntheticSource(width * height));
+        if (uvPixelStride == 2) {
+            ByteBuffer vu = ByteBuffer.allocateDirect(chromaStride * halfHeight);
+            vu.put(syntheticSource(chromaStride * halfHeight));
+            vu.position(1);
+            ByteBuffer u = vu.slice();
+            vu.position(0);
+            planes = new ByteBuffer[]{y, u, vu};
+        } else {
+            ByteBuffer u = ByteBuffer.allocateDirect(chromaStride * halfHeight);
+            ByteBuffer v = ByteBuffer.allocateDirect(chromaStride * halfHeight);
+            u.put(syntheticSource(chromaStride * halfHeight));
+            v.put(syntheticSource(chromaStride * halfHeight));
+            planes = new ByteBuffer[]{y, u, v};
+        }
+        for (ByteBuffer plane : planes) {
+            plane.clear();
+        }
+        planeBuffers.put(key, planes);
+        return planes;
+    }
+
+    @NonNull
+    private static String describe(@NonNull YuvTrace.Record r) {
+        StringBuilder builder = new StringBuilder(YuvTrace.getOpName(r.op));
+        // yuvToI420的源是YUV_420_888的三个平面，没有对应的FourCC
+        builder.append(' ').append(r.srcFourcc != null ? r.srcFourcc.toString() : "YUV_420_888");
+        if (r.dstFourcc != null && r.dstFourcc != r.srcFourcc) {
+            builder.append("->").append(r.dstFourcc);
+        }
+        builder.append(' ').append(r.width).append('x').append(r.height);
+        if (r.cropWidth != r.width || r.cropHeight != r.height) {
+            builder.append(" crop ").append(r.cropWidth).append('x').append(r.cropHeight);
+        }
+        if (r.degrees != RotationMode.ROTATE_0) {
+            builder.append(" rotate ").append(r.degrees);
+        }
+        if (r.dstWidth != LibYuv.rotatedWidth(r.cropWidth, r.cropHeight, r.degrees)
+                || r.dstHeight != LibYuv.rotatedHeight(r.cropWidth, r.cropHeight, r.degrees)) {
+            builder.append(" -> ").append(r.dstWidth).append('x').append(r.dstHeight);
+            builder.append(" filter ").append(r.filterMode);
+        }
+        // 负数表示默认值（例如默认色彩空间）
+        if (r.arg > 0) {
+            builder.append(" arg ").append(r.arg);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 同一种调用（操作 + 格式 + 尺寸 + 参数）的统计
+     */
+    public static final class Entry {
+
+        private final String key;
+        private int count;
+        private long recordedNanos;
+        private long replayedNanos;
+
+        Entry(@NonNull String key) {
+            this.key = key;
+        }
+
+        /**
+         * 获取调用的描述，例如 "convertToI420 NV21->I420 1920x1080 rotate 90"
+         *
+         * @return 返回调用的描述
+         */
+        @NonNull
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * 获取轨迹中的调用次数
+         *
+         * @return 返回调用次数
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * 获取录制时的总耗时
+         *
+         * @return 返回总耗时，单位：纳秒
+         */
+        public long getRecordedNanos() {
+            return recordedNanos;
+        }
+
+        /**
+         * 获取重放一轮的总耗时（多轮取平均）
+         *
+         * @return 返回总耗时，单位：纳秒
+         */
+        public long getReplayedNanos() {
+            return replayedNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-60s %8d %12.3f %12.3f", key, count,
+                    count == 0 ? 0 : recordedNanos / 1e3 / count, count == 0 ? 0 : replayedNanos / 1e3 / count);
+        }
+    }
+
+    /**
+     * 重放报告
+     */
+    public static final class Report {
+
+        private final List<Entry> entries;
+        private final int recordCount;
+        private final int skippedCount;
+        private final long recordedNanos;
+        private final long replayedNanos;
+
+        Report(@NonNull List<Entry> entries, int recordCount, int skippedCount, long recordedNanos, long replayedNanos) {
+            this.entries = entries;
+            this.recordCount = recordCount;
+            this.skippedCount = skippedCount;
+            this.recordedNanos = recordedNanos;
+            this.replayedNanos = replayedNanos;
+        }
+
+        /**
+         * 获取每种调用的统计，按重放耗时从高到低排列
+         *
+         * @return 返回统计列表
+         */
+        @NonNull
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * 获取轨迹中的记录数
+         *
+         * @return 返回记录数
+         */
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * 获取无法重放而跳过的记录数（例如格式未知）
+         *
+         * @return 返回跳过的记录数
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * 获取录制时的总耗时
+         *
+         * @return 返回总耗时，单位：纳秒
+         */
+        public long getRecordedNanos() {
+            return recordedNanos;
+        }
+
+        /**
+         * 获取重放一轮的总耗时（多轮取平均）
+         *
+         * @return 返回总耗时，单位：纳秒
+         */
+        public long getReplayedNanos() {
+            return replayedNanos;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.US, "records=%d skipped=%d recorded=%.3fms replayed=%.3fms%n",
+                    recordCount, skippedCount, recordedNanos / 1e6, replayedNanos / 1e6));
+            builder.append(String.format(Locale.US, "%-60s %8s %12s %12s%n", "call", "count", "recorded(us)", "replayed(us)"));
+            for (Entry entry : entries) {
+                builder.append(entry).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+}
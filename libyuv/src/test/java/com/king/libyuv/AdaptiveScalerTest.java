@@ -0,0 +1,84 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link AdaptiveScaler} 的单元测试：直接记录模拟的耗时，不依赖native库
+ */
+public class AdaptiveScalerTest {
+
+    private static final long BUDGET = 1_000_000;
+    private static final int WINDOW = 4;
+
+    private static int frame(AdaptiveScaler scaler, int width, int height, int dstWidth, int dstHeight, long nanos) {
+        int filterMode = scaler.selectFilterMode(width, height, dstWidth, dstHeight);
+        scaler.record(nanos);
+        return filterMode;
+    }
+
+    @Test
+    public void preferredModeDependsOnScaleRatio() {
+        assertEquals(FilterMode.FILTER_BOX, AdaptiveScaler.preferredFilterMode(1920, 1080, 640, 360));
+        assertEquals(FilterMode.FILTER_BILINEAR, AdaptiveScaler.preferredFilterMode(1920, 1080, 960, 540));
+        assertEquals(FilterMode.FILTER_BILINEAR, AdaptiveScaler.preferredFilterMode(1920, 1080, 1280, 720));
+        assertEquals(FilterMode.FILTER_BILINEAR, AdaptiveScaler.preferredFilterMode(640, 360, 1920, 1080));
+    }
+
+    @Test
+    public void degradesOneStepPerWindowWhenOverBudget() {
+        AdaptiveScaler scaler = new AdaptiveScaler(BUDGET, WINDOW);
+        int[] expected = {FilterMode.FILTER_BOX, FilterMode.FILTER_BILINEAR, FilterMode.FILTER_LINEAR, FilterMode.FILTER_NONE, FilterMode.FILTER_NONE};
+        for (int step = 0; step < expected.length; step++) {
+            for (int i = 0; i < WINDOW; i++) {
+                assertEquals(expected[step], frame(scaler, 1920, 1080, 640, 360, BUDGET * 2));
+            }
+        }
+        AdaptiveScaler.Stats stats = scaler.getStats();
+        assertEquals(3, stats.getDowngradeCount());
+        assertEquals(WINDOW, stats.getModeCount(FilterMode.FILTER_BOX));
+        assertEquals(WINDOW * 2, stats.getModeCount(FilterMode.FILTER_NONE));
+    }
+
+    @Test
+    public void downgradeStartsFromPreferredMode() {
+        AdaptiveScaler scaler = new AdaptiveScaler(BUDGET, WINDOW);
+        for (int i = 0; i < WINDOW; i++) {
+            assertEquals(FilterMode.FILTER_BILINEAR, frame(scaler, 1920, 1080, 1280, 720, BUDGET * 2));
+        }
+        assertEquals(FilterMode.FILTER_LINEAR, frame(scaler, 1920, 1080, 1280, 720, BUDGET / 2));
+    }
+
+    @Test
+    public void recoversWithHeadroomButNotAbovePreferred() {
+        AdaptiveScaler scaler = new AdaptiveScaler(BUDGET, WINDOW);
+        for (int i = 0; i < WINDOW; i++) {
+            frame(scaler, 1920, 1080, 1280, 720, BUDGET * 2);
+        }
+        assertEquals(FilterMode.FILTER_LINEAR, scaler.getFilterModeCeiling());
+        // 在预算内但没有足够余量：保持不变
+        for (int i = 0; i < WINDOW; i++) {
+            assertEquals(FilterMode.FILTER_LINEAR, frame(scaler, 1920, 1080, 1280, 720, BUDGET * 8 / 10));
+        }
+        for (int i = 0; i < WINDOW; i++) {
+            frame(scaler, 1920, 1080, 1280, 720, BUDGET / 10);
+        }
+        assertEquals(FilterMode.FILTER_BILINEAR, scaler.getFilterModeCeiling());
+        for (int i = 0; i < WINDOW * 3; i++) {
+            assertEquals(FilterMode.FILTER_BILINEAR, frame(scaler, 1920, 1080, 1280, 720, BUDGET / 10));
+        }
+        assertEquals(1, scaler.getStats().getUpgradeCount());
+    }
+
+    @Test
+    public void geometryChangeRestartsWindow() {
+        AdaptiveScaler scaler = new AdaptiveScaler(BUDGET, WINDOW);
+        for (int i = 0; i < WINDOW - 1; i++) {
+            frame(scaler, 1920, 1080, 640, 360, BUDGET * 2);
+        }
+        frame(scaler, 1280, 720, 320, 180, BUDGET * 2);
+        assertEquals(FilterMode.FILTER_BOX, scaler.getFilterModeCeiling());
+        assertEquals(0, scaler.getStats().getDowngradeCount());
+    }
+}
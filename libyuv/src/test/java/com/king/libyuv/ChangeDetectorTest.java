@@ -0,0 +1,52 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ChangeDetector.Result由各区块的SSE推导全局与区块的均方误差
+ */
+public class ChangeDetectorTest {
+
+    @Test
+    public void noReferenceIsAlwaysChanged() {
+        ChangeDetector.Result result = new ChangeDetector.Result(16, 8, 2, 2, null);
+
+        assertFalse(result.hasReference());
+        assertEquals(0, result.getMse(), 0);
+        assertEquals(ChangeDetector.MAX_PSNR, result.getPsnr(), 0);
+        assertTrue(result.isChanged(Double.MAX_VALUE));
+        assertEquals(4, result.getChangedTileCount(Double.MAX_VALUE));
+    }
+
+    @Test
+    public void tileMseUsesTileArea() {
+        // 10x4 划分为 3x2：区块宽度依次为3、3、4，高度为2
+        long[] tileSse = new long[6];
+        tileSse[2] = 8 * 10;
+        tileSse[3] = 6 * 5;
+        ChangeDetector.Result result = new ChangeDetector.Result(10, 4, 3, 2, tileSse);
+
+        assertTrue(result.hasReference());
+        assertEquals(10, result.getTileMse(2, 0), 1e-9);
+        assertEquals(5, result.getTileMse(0, 1), 1e-9);
+        assertEquals(0, result.getTileMse(1, 1), 1e-9);
+        assertEquals(110.0 / 40, result.getMse(), 1e-9);
+
+        boolean[] changeMap = result.getChangeMap(6);
+        assertArrayEquals(new boolean[]{false, false, true, false, false, false}, changeMap);
+        assertEquals(2, result.getChangedTileCount(1));
+    }
+
+    @Test
+    public void psnrMatchesLibYuv() {
+        assertEquals(ChangeDetector.MAX_PSNR, ChangeDetector.Result.toPsnr(0), 0);
+        assertEquals(48.1308, ChangeDetector.Result.toPsnr(1), 1e-4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMoreTilesThanAnalysisPixels() {
+        new ChangeDetector(4, 4, 8, 2);
+    }
+}
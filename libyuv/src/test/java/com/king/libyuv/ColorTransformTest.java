@@ -0,0 +1,113 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ColorTransform在Java层合并相邻阶段，并按格式的字节位置生成native阶段数据
+ */
+public class ColorTransformTest {
+
+    private static byte[] offsetTable(int offset) {
+        byte[] table = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = (byte) Math.min(255, i + offset);
+        }
+        return table;
+    }
+
+    @Test
+    public void adjacentTablesAreComposedInOrder() {
+        byte[] invert = new byte[256];
+        for (int i = 0; i < 256; i++) {
+            invert[i] = (byte) (255 - i);
+        }
+        ColorTransform transform = new ColorTransform.Builder()
+                .channelTables(offsetTable(10), null, null, null)
+                .channelTables(invert, null, null, null)
+                .build();
+
+        byte[] data = transform.getStageData(FourCC.FOURCC_ABGR);
+        assertEquals(1024, data.length);
+        // ABGR在内存中为 R、G、B、A：R先加10再取反
+        assertEquals((byte) (255 - 30), data[20 * 4]);
+        assertEquals((byte) 20, data[20 * 4 + 1]);
+        assertEquals((byte) 20, data[20 * 4 + 3]);
+    }
+
+    @Test
+    public void stageDataFollowsByteOrder() {
+        ColorTransform transform = new ColorTransform.Builder()
+                .channelTables(offsetTable(1), offsetTable(2), offsetTable(3), offsetTable(4))
+                .build();
+
+        // ARGB在内存中为 B、G、R、A
+        byte[] argb = transform.getStageData(FourCC.FOURCC_ARGB);
+        assertArrayEquals(new byte[]{3, 2, 1, 4}, new byte[]{argb[0], argb[1], argb[2], argb[3]});
+        // RGBA在内存中为 A、B、G、R
+        byte[] rgba = transform.getStageData(FourCC.FOURCC_RGBA);
+        assertArrayEquals(new byte[]{4, 3, 2, 1}, new byte[]{rgba[0], rgba[1], rgba[2], rgba[3]});
+    }
+
+    @Test
+    public void adjacentMatricesAreMultiplied() {
+        float[] swapRedBlue = {
+                0, 0, 1, 0,
+                0, 1, 0, 0,
+                1, 0, 0, 0,
+                0, 0, 0, 1,
+        };
+        ColorTransform transform = new ColorTransform.Builder()
+                .colorMatrix(swapRedBlue)
+                .colorMatrix(swapRedBlue)
+                .build();
+
+        byte[] data = transform.getStageData(FourCC.FOURCC_ARGB);
+        assertEquals(16, data.length);
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals(row == col ? 64 : 0, data[row * 4 + col]);
+            }
+        }
+    }
+
+    @Test
+    public void gammaKeepsEndpointsAndAlpha() {
+        ColorTransform transform = new ColorTransform.Builder().gamma(0.5f).build();
+
+        byte[] data = transform.getStageData(FourCC.FOURCC_ABGR);
+        assertEquals(0, data[0]);
+        assertEquals((byte) 255, data[255 * 4]);
+        assertEquals((byte) 128, data[64 * 4]);
+        assertEquals(64, data[64 * 4 + 3]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMatrixOutOfRange() {
+        new ColorTransform.Builder().colorMatrix(new float[]{
+                2.5f, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0,
+                0, 0, 0, 1,
+        }).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortTable() {
+        new ColorTransform.Builder().lumaTable(new byte[255]);
+    }
+
+    @Test
+    public void rejectsMixingRgbAndYuvStages() {
+        try {
+            new ColorTransform.Builder().sepia().lumaTable(offsetTable(5)).build();
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("cannot be combined"));
+        }
+        // 伽马同时作用于RGB和亮度，可以与任一侧组合
+        new ColorTransform.Builder().gamma(0.8f).chromaTables(offsetTable(1), null).build();
+        new ColorTransform.Builder().gamma(0.8f).sepia().build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ConversionCache} 的单元测试：直接传入哈希值，不依赖native库
+ */
+public class ConversionCacheTest {
+
+    private static ConversionCache.Converter filled(AtomicInteger calls, int size, int value) {
+        return src -> {
+            calls.incrementAndGet();
+            byte[] data = new byte[size];
+            Arrays.fill(data, (byte) value);
+            return data;
+        };
+    }
+
+    @Test
+    public void hitReturnsCopyOfCachedResult() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            ConversionCache cache = new ConversionCache(1024, offHeap);
+            AtomicInteger calls = new AtomicInteger();
+            byte[] src = new byte[16];
+
+            byte[] first = cache.getOrCompute(src, 1, "op", filled(calls, 8, 7));
+            first[0] = 0;
+            byte[] second = cache.getOrCompute(src, 1, "op", filled(calls, 8, 7));
+
+            assertEquals(1, calls.get());
+            assertEquals(7, second[0]);
+            assertEquals(1, cache.getStats().getHitCount());
+            assertEquals(1, cache.getStats().getMissCount());
+            assertEquals(8, cache.getStats().getSizeBytes());
+        }
+    }
+
+    @Test
+    public void keyIncludesHashLengthAndParams() {
+        ConversionCache cache = new ConversionCache(1024);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.getOrCompute(new byte[16], 1, "op", filled(calls, 8, 1));
+        cache.getOrCompute(new byte[16], 2, "op", filled(calls, 8, 1));
+        cache.getOrCompute(new byte[32], 1, "op", filled(calls, 8, 1));
+        cache.getOrCompute(new byte[16], 1, "other", filled(calls, 8, 1));
+
+        assertEquals(4, calls.get());
+        assertEquals(4, cache.getStats().getEntryCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByBytes() {
+        ConversionCache cache = new ConversionCache(24);
+        AtomicInteger calls = new AtomicInteger();
+        byte[] src = new byte[4];
+
+        cache.getOrCompute(src, 1, "op", filled(calls, 10, 1));
+        cache.getOrCompute(src, 2, "op", filled(calls, 10, 2));
+        // 访问1使2成为最久未使用
+        cache.getOrCompute(src, 1, "op", filled(calls, 10, 1));
+        cache.getOrCompute(src, 3, "op", filled(calls, 10, 3));
+
+        ConversionCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals(20, stats.getSizeBytes());
+
+        cache.getOrCompute(src, 1, "op", filled(calls, 10, 1));
+        assertEquals(3, calls.get());
+        cache.getOrCompute(src, 2, "op", filled(calls, 10, 2));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void skipsResultsLargerThanCapacity() {
+        ConversionCache cache = new ConversionCache(8);
+        AtomicInteger calls = new AtomicInteger();
+
+        byte[] result = cache.getOrCompute(new byte[4], 1, "op", filled(calls, 16, 5));
+
+        assertEquals(16, result.length);
+        assertEquals(0, cache.getStats().getEntryCount());
+        assertEquals(0, cache.getStats().getSizeBytes());
+    }
+
+    @Test
+    public void shrinkingCapacityTrims() {
+        ConversionCache cache = new ConversionCache(100);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            cache.getOrCompute(new byte[4], i, "op", filled(calls, 10, i));
+        }
+
+        cache.setMaxBytes(25);
+
+        assertEquals(2, cache.getStats().getEntryCount());
+        assertEquals(3, cache.getStats().getEvictionCount());
+    }
+}
@@ -0,0 +1,74 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * LumaStats由native统计结果（直方图 + 区域亮度和 + 区域采样数）推导各项指标
+ */
+public class LumaStatsTest {
+
+    private static long[] stats(int gridCols, int gridRows) {
+        return new long[LumaStats.HISTOGRAM_SIZE + gridCols * gridRows * 2];
+    }
+
+    @Test
+    public void derivesMomentsFromHistogram() {
+        long[] stats = stats(1, 1);
+        stats[10] = 2;
+        stats[20] = 2;
+        LumaStats lumaStats = new LumaStats(stats, 1, 1);
+
+        assertEquals(4, lumaStats.getSampleCount());
+        assertEquals(15.0, lumaStats.getMean(), 1e-9);
+        assertEquals(25.0, lumaStats.getVariance(), 1e-9);
+        assertEquals(5.0, lumaStats.getStandardDeviation(), 1e-9);
+        assertEquals(10, lumaStats.getMin());
+        assertEquals(20, lumaStats.getMax());
+    }
+
+    @Test
+    public void percentileAndDarkFraction() {
+        long[] stats = stats(1, 1);
+        stats[0] = 3;
+        stats[100] = 1;
+        stats[255] = 1;
+        LumaStats lumaStats = new LumaStats(stats, 1, 1);
+
+        assertEquals(0, lumaStats.getPercentile(0f));
+        assertEquals(0, lumaStats.getPercentile(0.6f));
+        assertEquals(100, lumaStats.getPercentile(0.8f));
+        assertEquals(255, lumaStats.getPercentile(1f));
+        assertEquals(0.6f, lumaStats.getFractionAtOrBelow(50), 1e-6f);
+        assertEquals(1f, lumaStats.getFractionAtOrBelow(255), 1e-6f);
+    }
+
+    @Test
+    public void gridMeansAreRowMajor() {
+        long[] stats = stats(2, 2);
+        int sums = LumaStats.HISTOGRAM_SIZE;
+        int counts = sums + 4;
+        stats[sums + 1] = 300;
+        stats[counts + 1] = 3;
+        stats[sums + 2] = 50;
+        stats[counts + 2] = 2;
+        LumaStats lumaStats = new LumaStats(stats, 2, 2);
+
+        assertEquals(0f, lumaStats.getGridMean(0, 0), 0f);
+        assertEquals(100f, lumaStats.getGridMean(1, 0), 1e-6f);
+        assertEquals(25f, lumaStats.getGridMean(0, 1), 1e-6f);
+        assertEquals(4, lumaStats.getGridMeans().length);
+    }
+
+    @Test
+    public void emptyStats() {
+        LumaStats lumaStats = new LumaStats(stats(1, 1), 1, 1);
+
+        assertEquals(0, lumaStats.getSampleCount());
+        assertEquals(-1, lumaStats.getMin());
+        assertEquals(-1, lumaStats.getMax());
+        assertEquals(-1, lumaStats.getPercentile(0.5f));
+        assertEquals(0f, lumaStats.getFractionAtOrBelow(255), 0f);
+    }
+}
@@ -0,0 +1,148 @@
+package com.king.libyuv;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link MemoryGovernor} 的单元测试：使用独立的实例与模拟的使用方，不涉及native层的arena
+ */
+public class MemoryGovernorTest {
+
+    private static final class FakeConsumer implements MemoryGovernor.Consumer {
+
+        final MemoryGovernor.Account account;
+        long bytes;
+        int trimCount;
+
+        FakeConsumer(MemoryGovernor governor, String name, long bytes) {
+            this.account = governor.register(name, this);
+            assertTrue(account.reserve(bytes));
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long getRetainedBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void trim(long targetBytes) {
+            trimCount++;
+            if (bytes > targetBytes) {
+                account.release(bytes - targetBytes);
+                bytes = targetBytes;
+            }
+        }
+    }
+
+    @Test
+    public void unlimitedBudgetAlwaysReserves() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer consumer = new FakeConsumer(governor, "a", 1000);
+
+        assertTrue(consumer.account.reserve(Long.MAX_VALUE / 2));
+        assertEquals(0, consumer.trimCount);
+        assertEquals(0, governor.getStats().getDeniedCount());
+    }
+
+    @Test
+    public void settingBudgetTrimsLargestConsumerFirst() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer small = new FakeConsumer(governor, "small", 100);
+        FakeConsumer large = new FakeConsumer(governor, "large", 500);
+
+        governor.setBudgetBytes(400);
+
+        assertEquals(100, small.bytes);
+        assertEquals(300, large.bytes);
+        assertEquals(0, small.trimCount);
+        assertEquals(400, governor.getTotalBytes());
+    }
+
+    @Test
+    public void reserveTrimsThenDeniesWhenExhausted() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer consumer = new FakeConsumer(governor, "a", 80);
+        FakeConsumer other = new FakeConsumer(governor, "b", 0);
+        governor.setBudgetBytes(100);
+
+        // 预算足够时直接计入总量，不询问使用方
+        assertTrue(other.account.reserve(20));
+        other.bytes += 20;
+        assertEquals(0, consumer.trimCount);
+        assertEquals(100, governor.getTotalBytes());
+
+        assertTrue(other.account.reserve(50));
+        other.bytes += 50;
+        assertEquals(30, consumer.bytes);
+        assertEquals(100, governor.getTotalBytes());
+
+        assertFalse(other.account.reserve(101));
+        assertEquals(1, governor.getStats().getDeniedCount());
+    }
+
+    @Test
+    public void releaseReturnsBudget() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer consumer = new FakeConsumer(governor, "a", 60);
+        governor.setBudgetBytes(100);
+
+        assertTrue(consumer.account.reserve(40));
+        consumer.bytes += 40;
+        consumer.account.release(50);
+        consumer.bytes -= 50;
+        assertEquals(50, governor.getTotalBytes());
+
+        assertTrue(consumer.account.reserve(50));
+        assertEquals(0, consumer.trimCount);
+    }
+
+    @Test
+    public void unregisterRefundsAccount() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer first = new FakeConsumer(governor, "a", 70);
+        FakeConsumer second = new FakeConsumer(governor, "b", 0);
+        governor.setBudgetBytes(100);
+
+        governor.unregister(first);
+        assertEquals(0, governor.getTotalBytes());
+        assertTrue(second.account.reserve(100));
+        assertEquals(0, first.trimCount);
+    }
+
+    @Test
+    public void onTrimMemoryScalesWithLevel() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer consumer = new FakeConsumer(governor, "a", 800);
+
+        governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertEquals(400, consumer.bytes);
+
+        governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertEquals(100, consumer.bytes);
+
+        governor.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, consumer.bytes);
+        assertEquals(0, governor.getTotalBytes());
+    }
+
+    @Test
+    public void statsReportEachConsumer() {
+        MemoryGovernor governor = new MemoryGovernor(false);
+        FakeConsumer first = new FakeConsumer(governor, "pool", 10);
+        FakeConsumer second = new FakeConsumer(governor, "cache", 20);
+
+        MemoryGovernor.Stats stats = governor.getStats();
+
+        assertEquals(30, stats.getTotalBytes());
+        assertEquals(Long.valueOf(10), stats.getConsumerBytes().get("pool"));
+        assertEquals(Long.valueOf(20), stats.getConsumerBytes().get("cache"));
+
+        governor.unregister(first);
+        assertEquals(20, governor.getTotalBytes());
+        assertEquals(20, second.account.getBytes());
+    }
+}
@@ -0,0 +1,351 @@
+package com.king.libyuv;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 持续负载测试：N路合成视频流按目标帧率驱动可配置的LibYuv流水线（转I420 → 缩放 → 转目标格式），
+ * 统计帧延迟分位数、丢帧数、分配速率、GC暂停总时长以及RSS随时间的变化。
+ * <p>
+ * 只依赖JDK的管理接口与/proc，可以在Linux JVM上无界面运行；Android上的Image无法在JVM上构造，合成流直接以字节数组作为源帧。
+ */
+final class SoakHarness {
+
+    private static final String PREFIX = "libyuv.soak.";
+
+    /**
+     * 测试配置；均可通过系统属性 libyuv.soak.&lt;name&gt; 覆盖
+     */
+    static final class Config {
+        int streams = 4;
+        int width = 1920;
+        int height = 1080;
+        int fps = 30;
+        int seconds = 60;
+        int degrees = RotationMode.ROTATE_0;
+        int dstWidth = 1280;
+        int dstHeight = 720;
+        int filterMode = FilterMode.FILTER_BOX;
+        FourCC srcFourcc = FourCC.FOURCC_NV21;
+        FourCC dstFourcc = FourCC.FOURCC_ARGB;
+        int sampleSeconds = 10;
+
+        static Config fromSystemProperties() {
+            Config config = new Config();
+            config.streams = Integer.getInteger(PREFIX + "streams", config.streams);
+            config.width = Integer.getInteger(PREFIX + "width", config.width);
+            config.height = Integer.getInteger(PREFIX + "height", config.height);
+            config.fps = Integer.getInteger(PREFIX + "fps", config.fps);
+            config.seconds = Integer.getInteger(PREFIX + "seconds", config.seconds);
+            config.degrees = Integer.getInteger(PREFIX + "degrees", config.degrees);
+            config.dstWidth = Integer.getInteger(PREFIX + "dstWidth", config.dstWidth);
+            config.dstHeight = Integer.getInteger(PREFIX + "dstHeight", config.dstHeight);
+            config.filterMode = Integer.getInteger(PREFIX + "filterMode", config.filterMode);
+            config.srcFourcc = fourcc(System.getProperty(PREFIX + "srcFourcc"), config.srcFourcc);
+            config.dstFourcc = fourcc(System.getProperty(PREFIX + "dstFourcc"), config.dstFourcc);
+            config.sampleSeconds = Integer.getInteger(PREFIX + "sampleSeconds", config.sampleSeconds);
+            return config;
+        }
+
+        /**
+         * 支持 NV21 与 FOURCC_NV21 两种写法
+         */
+        private static FourCC fourcc(String value, FourCC defaultValue) {
+            if (value == null) {
+                return defaultValue;
+            }
+            return FourCC.valueOf(value.startsWith("FOURCC_") ? value : "FOURCC_" + value);
+        }
+
+        @Override
+        public String toString() {
+            return streams + " x " + width + "x" + height + "@" + fps + " " + srcFourcc
+                    + " -> rotate " + degrees + " -> scale " + dstWidth + "x" + dstHeight + " -> " + dstFourcc
+                    + " for " + seconds + "s";
+        }
+    }
+
+    /**
+     * 某一时刻的内存采样
+     */
+    static final class Sample {
+        final long elapsedMillis;
+        final long rssBytes;
+        final long javaHeapBytes;
+        final long arenaBytes;
+
+        Sample(long elapsedMillis, long rssBytes, long javaHeapBytes, long arenaBytes) {
+            this.elapsedMillis = elapsedMillis;
+            this.rssBytes = rssBytes;
+            this.javaHeapBytes = javaHeapBytes;
+            this.arenaBytes = arenaBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "t=%6.1fs rss=%7.1fMB heap=%7.1fMB arena=%6.1fMB",
+                    elapsedMillis / 1000d, rssBytes / 1048576d, javaHeapBytes / 1048576d, arenaBytes / 1048576d);
+        }
+    }
+
+    /**
+     * 测试结果
+     */
+    static final class Report {
+        final Config config;
+        final long elapsedNanos;
+        final long[] latencies;
+        final long processedFrames;
+        final long droppedFrames;
+        final long allocatedBytes;
+        final long gcCount;
+        final long gcMillis;
+        final List<Sample> samples;
+
+        Report(Config config, long elapsedNanos, long[] latencies, long droppedFrames, long allocatedBytes,
+               long gcCount, long gcMillis, List<Sample> samples) {
+            this.config = config;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            this.processedFrames = latencies.length;
+            this.droppedFrames = droppedFrames;
+            this.allocatedBytes = allocatedBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+            this.samples = samples;
+        }
+
+        /**
+         * 帧延迟分位数，单位：纳秒
+         */
+        long percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        /**
+         * 工作线程的分配速率，单位：字节/秒；JVM不支持按线程统计分配时为-1
+         */
+        double allocationRate() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(config).append('\n');
+            sb.append(String.format(Locale.US, "frames=%d dropped=%d (%.2f%%)%n", processedFrames, droppedFrames,
+                    100d * droppedFrames / Math.max(1, processedFrames + droppedFrames)));
+            sb.append(String.format(Locale.US, "latency p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                    percentile(0.5) / 1e6, percentile(0.9) / 1e6, percentile(0.99) / 1e6,
+                    percentile(0.999) / 1e6, percentile(1) / 1e6));
+            sb.append(String.format(Locale.US, "allocation=%.1fKB/s gc=%d collections, %dms total%n",
+                    allocationRate() / 1024, gcCount, gcMillis));
+            for (Sample sample : samples) {
+                sb.append(sample).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    private SoakHarness() {
+    }
+
+    static Report run(Config config) throws InterruptedException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long gcCountStart = gcCount();
+        long gcMillisStart = gcMillis();
+        long[][] latencies = new long[config.streams][];
+        long[] dropped = new long[config.streams];
+        long[] allocated = new long[config.streams];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(config.streams);
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(config.seconds);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.streams; i++) {
+            final int stream = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    Stream s = new Stream(config, stream);
+                    long allocatedStart = threadAllocatedBytes(threadBean);
+                    s.run(start, end);
+                    long allocatedEnd = threadAllocatedBytes(threadBean);
+                    latencies[stream] = Arrays.copyOf(s.latencies, s.count);
+                    dropped[stream] = s.dropped;
+                    allocated[stream] = allocatedStart < 0 ? -1 : allocatedEnd - allocatedStart;
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }, "soak-stream-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        samples.add(sample(start));
+        while (!done.await(config.sampleSeconds, TimeUnit.SECONDS)) {
+            samples.add(sample(start));
+        }
+        samples.add(sample(start));
+        long elapsed = System.nanoTime() - start;
+        if (failure.get() != null) {
+            throw new AssertionError("stream failed", failure.get());
+        }
+
+        int total = 0;
+        for (long[] l : latencies) {
+            total += l.length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        long droppedTotal = 0;
+        long allocatedTotal = 0;
+        for (int i = 0; i < config.streams; i++) {
+            System.arraycopy(latencies[i], 0, all, offset, latencies[i].length);
+            offset += latencies[i].length;
+            droppedTotal += dropped[i];
+            allocatedTotal = allocatedTotal < 0 || allocated[i] < 0 ? -1 : allocatedTotal + allocated[i];
+        }
+        Arrays.sort(all);
+        return new Report(config, elapsed, all, droppedTotal, allocatedTotal,
+                gcCount() - gcCountStart, gcMillis() - gcMillisStart, samples);
+    }
+
+    /**
+     * 一路合成视频流：按帧率排期，处理不及时（落后超过一帧）时丢弃过期的帧
+     */
+    private static final class Stream {
+        final Config config;
+        final byte[] srcData;
+        final byte[] i420Data;
+        final byte[] scaledData;
+        final byte[] dstData;
+        final int rotatedWidth;
+        final int rotatedHeight;
+        final long[] latencies;
+        int count;
+        long dropped;
+
+        Stream(Config config, int index) {
+            this.config = config;
+            srcData = new byte[config.srcFourcc.getTotalBppSize(config.width, config.height)];
+            for (int i = 0; i < srcData.length; i++) {
+                srcData[i] = (byte) (i * 7 + index * 13);
+            }
+            rotatedWidth = LibYuv.rotatedWidth(config.width, config.height, config.degrees);
+            rotatedHeight = LibYuv.rotatedHeight(config.width, config.height, config.degrees);
+            i420Data = new byte[FourCC.FOURCC_I420.getTotalBppSize(rotatedWidth, rotatedHeight)];
+            scaledData = new byte[FourCC.FOURCC_I420.getTotalBppSize(config.dstWidth, config.dstHeight)];
+            dstData = new byte[config.dstFourcc.getTotalBppSize(config.dstWidth, config.dstHeight)];
+            latencies = new long[(int) Math.min(Integer.MAX_VALUE - 8, (long) config.fps * config.seconds + 1)];
+        }
+
+        void run(long start, long end) {
+            long period = TimeUnit.SECONDS.toNanos(1) / config.fps;
+            long frame = 0;
+            while (true) {
+                long deadline = start + frame * period;
+                if (deadline >= end || count == latencies.length) {
+                    return;
+                }
+                long now = System.nanoTime();
+                if (now < deadline) {
+                    sleepNanos(deadline - now);
+                } else if (now - deadline >= period) {
+                    // 已经落后一整帧以上：丢弃过期的帧，从最近的排期继续
+                    long skip = (now - deadline) / period;
+                    dropped += skip;
+                    frame += skip;
+                    continue;
+                }
+                // 每帧改动少量字节，模拟内容变化
+                srcData[(int) (frame % srcData.length)]++;
+                long begin = System.nanoTime();
+                process();
+                latencies[count++] = System.nanoTime() - begin;
+                frame++;
+            }
+        }
+
+        void process() {
+            LibYuv.convertToI420(srcData, config.width, config.height, config.degrees, config.srcFourcc, i420Data);
+            LibYuv.i420Scale(i420Data, rotatedWidth, rotatedHeight, scaledData, config.dstWidth, config.dstHeight, config.filterMode);
+            LibYuv.convertFromI420(scaledData, config.dstWidth, config.dstHeight, dstData, config.dstFourcc);
+        }
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long threadAllocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static Sample sample(long start) {
+        Runtime runtime = Runtime.getRuntime();
+        return new Sample(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), readRss(),
+                runtime.totalMemory() - runtime.freeMemory(), ScratchArena.getStats().getRetainedBytes());
+    }
+
+    /**
+     * 读取/proc/self/status中的VmRSS；非Linux系统返回-1
+     */
+    private static long readRss() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    String[] parts = line.trim().split("\\s+");
+                    return Long.parseLong(parts[1]) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException ignored) {
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.king.libyuv;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 持续负载测试，默认跳过；需要主机编译的libyuv.so，运行方式见build.gradle.kts中的说明：
+ * <pre>
+ * cmake -S libyuv/src/main/cpp -B build/host &amp;&amp; cmake --build build/host
+ * ./gradlew :libyuv:testDebugUnitTest --tests "*SoakTest" -Plibyuv.soak=true -Plibyuv.soak.libraryPath=build/host -Plibyuv.soak.seconds=3600
+ * </pre>
+ */
+public class SoakTest {
+
+    @Test
+    public void soak() throws InterruptedException {
+        Assume.assumeTrue("soak test disabled, run with -Plibyuv.soak=true", Boolean.getBoolean("libyuv.soak"));
+        SoakHarness.Config config = SoakHarness.Config.fromSystemProperties();
+
+        SoakHarness.Report report = SoakHarness.run(config);
+        System.out.println(report);
+
+        assertTrue(report.processedFrames > 0);
+        // 稳态下流水线只复用目标数组，native临时内存来自arena，RSS不应随时间持续增长
+        long maxRssGrowth = Long.getLong("libyuv.soak.maxRssGrowthBytes", Long.MAX_VALUE);
+        if (report.samples.size() >= 3 && maxRssGrowth != Long.MAX_VALUE) {
+            long warm = report.samples.get(1).rssBytes;
+            long last = report.samples.get(report.samples.size() - 1).rssBytes;
+            assertTrue("rss grew " + (last - warm) + " bytes", last - warm <= maxRssGrowth);
+        }
+    }
+}
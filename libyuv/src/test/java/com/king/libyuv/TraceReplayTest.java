@@ -0,0 +1,32 @@
+package com.king.libyuv;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 重放线上录制的调用轨迹（{@link YuvTrace}），默认跳过；需要主机编译的libyuv.so，运行方式见build.gradle.kts中的说明：
+ * <pre>
+ * cmake -S libyuv/src/main/cpp -B build/host &amp;&amp; cmake --build build/host
+ * ./gradlew :libyuv:testDebugUnitTest --tests "*TraceReplayTest" -Plibyuv.trace.file=/path/to/app.yuvt -Plibyuv.trace.libraryPath=build/host -Plibyuv.trace.iterations=5
+ * </pre>
+ */
+public class TraceReplayTest {
+
+    @Test
+    public void replay() throws IOException {
+        String path = System.getProperty("libyuv.trace.file");
+        Assume.assumeTrue("trace replay disabled, run with -Plibyuv.trace.file=<trace>", path != null);
+        int iterations = Integer.getInteger("libyuv.trace.iterations", 3);
+
+        YuvTraceReplayer.Report report = YuvTraceReplayer.replay(new File(path), iterations);
+        System.out.println(report);
+
+        assertTrue(report.getRecordCount() > 0);
+        assertEquals(0, report.getSkippedCount());
+    }
+}
@@ -0,0 +1,73 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * WarpMatrix把源到目标的仿射矩阵转换为native层使用的逆矩阵
+ */
+public class WarpMatrixTest {
+
+    private static double[] map(double[] m, double x, double y) {
+        return new double[]{m[0] * x + m[1] * y + m[2], m[3] * x + m[4] * y + m[5]};
+    }
+
+    @Test
+    public void inverseMapsDestinationBackToSource() {
+        float[] matrix = {1.5f, 0.25f, 10f, -0.5f, 2f, -3f};
+        double[] inverse = WarpMatrix.invert(matrix);
+        double[] forward = {1.5, 0.25, 10, -0.5, 2, -3};
+
+        double[] dst = map(forward, 7, 11);
+        double[] src = map(inverse, dst[0], dst[1]);
+        assertEquals(7, src[0], 1e-9);
+        assertEquals(11, src[1], 1e-9);
+    }
+
+    @Test
+    public void acceptsAffineThreeByThreeValues() {
+        double[] inverse = WarpMatrix.invert(new float[]{2f, 0f, 4f, 0f, 2f, 6f, 0f, 0f, 1f});
+
+        assertArrayEquals(new double[]{0.5, 0, -2, 0, 0.5, -3}, inverse, 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsPerspective() {
+        WarpMatrix.invert(new float[]{1f, 0f, 0f, 0f, 1f, 0f, 0.01f, 0f, 1f});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSingular() {
+        WarpMatrix.invert(new float[]{1f, 2f, 0f, 2f, 4f, 0f});
+    }
+
+    @Test
+    public void rotationKeepsCenterAndTurnsClockwise() {
+        float[] matrix = WarpMatrix.rotation(90f, 100, 60, 60, 100);
+        double[] m = new double[6];
+        for (int i = 0; i < 6; i++) {
+            m[i] = matrix[i];
+        }
+
+        double[] center = map(m, 50, 30);
+        assertEquals(30, center[0], 1e-4);
+        assertEquals(50, center[1], 1e-4);
+        // 源图像左上角旋转到目标图像右上角
+        double[] corner = map(m, 0, 0);
+        assertEquals(60, corner[0], 1e-4);
+        assertEquals(0, corner[1], 1e-4);
+    }
+
+    @Test
+    public void fillBytesFollowMemoryOrder() {
+        int color = 0x80102030;
+
+        assertArrayEquals(new byte[]{0x30, 0x20, 0x10, (byte) 0x80}, WarpMatrix.fillBytes(FourCC.FOURCC_ARGB, color));
+        assertArrayEquals(new byte[]{0x10, 0x20, 0x30, (byte) 0x80}, WarpMatrix.fillBytes(FourCC.FOURCC_ABGR, color));
+        byte[] black = WarpMatrix.fillBytes(FourCC.FOURCC_I420, 0xff000000);
+        assertEquals(16, black[0]);
+        assertEquals((byte) 128, black[1]);
+        assertEquals((byte) 128, black[2]);
+    }
+}
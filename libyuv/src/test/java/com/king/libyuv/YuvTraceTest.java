@@ -0,0 +1,129 @@
+package com.king.libyuv;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link YuvTrace} 文件格式的单元测试：直接写入记录，不依赖native库
+ */
+public class YuvTraceTest {
+
+    private static byte[] recordSamples(int payloadInterval) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        YuvTrace.start(out, payloadInterval);
+        try {
+            byte[] frame = new byte[]{1, 2, 3, 4, 5, 6};
+            YuvTrace.record(YuvTrace.begin(), YuvTrace.OP_CONVERT_TO_I420, frame, FourCC.FOURCC_NV21, FourCC.FOURCC_I420,
+                    1920, 1080, 8, 4, 1280, 720, RotationMode.ROTATE_90, 720, 1280, FilterMode.FILTER_NONE, -1);
+            YuvTrace.record(YuvTrace.begin(), YuvTrace.OP_SCALE, frame, FourCC.FOURCC_ARGB, FourCC.FOURCC_ARGB,
+                    640, 480, 0, 0, 640, 480, RotationMode.ROTATE_0, 320, 240, FilterMode.FILTER_BOX, 0);
+            YuvTrace.record(YuvTrace.begin(), YuvTrace.OP_YUV_TO_I420, null, null, FourCC.FOURCC_I420, 64, 48, 2);
+        } finally {
+            assertEquals(3, YuvTrace.stop());
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void recordsRoundTrip() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(recordSamples(0)));
+        assertEquals(0, YuvTrace.readHeader(in));
+
+        YuvTrace.Record first = YuvTrace.readRecord(in);
+        assertNotNull(first);
+        assertEquals(YuvTrace.OP_CONVERT_TO_I420, first.op);
+        assertEquals(FourCC.FOURCC_NV21, first.srcFourcc);
+        assertEquals(FourCC.FOURCC_I420, first.dstFourcc);
+        assertEquals(1920, first.width);
+        assertEquals(1080, first.height);
+        assertEquals(8, first.cropX);
+        assertEquals(4, first.cropY);
+        assertEquals(1280, first.cropWidth);
+        assertEquals(720, first.cropHeight);
+        assertEquals(RotationMode.ROTATE_90, first.degrees);
+        assertEquals(720, first.dstWidth);
+        assertEquals(1280, first.dstHeight);
+        assertEquals(-1, first.arg);
+        assertTrue(first.durationNanos >= 0);
+        assertNull(first.payload);
+
+        YuvTrace.Record second = YuvTrace.readRecord(in);
+        assertNotNull(second);
+        assertEquals(FilterMode.FILTER_BOX, second.filterMode);
+        assertTrue(second.offsetNanos >= first.offsetNanos);
+
+        YuvTrace.Record third = YuvTrace.readRecord(in);
+        assertNotNull(third);
+        assertNull(third.srcFourcc);
+        assertEquals(2, third.arg);
+        assertNull(YuvTrace.readRecord(in));
+    }
+
+    @Test
+    public void samplesPayloadByInterval() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(recordSamples(2)));
+        assertEquals(2, YuvTrace.readHeader(in));
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, YuvTrace.readRecord(in).payload);
+        assertNull(YuvTrace.readRecord(in).payload);
+        // 第三条记录命中采样间隔，但没有源数组
+        assertNull(YuvTrace.readRecord(in).payload);
+    }
+
+    @Test
+    public void payloadIsCopiedOnCallerThread() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        YuvTrace.start(out, 1);
+        byte[] frame = new byte[]{1, 2, 3, 4};
+        try {
+            YuvTrace.record(YuvTrace.begin(), YuvTrace.OP_MIRROR, frame, FourCC.FOURCC_I400, FourCC.FOURCC_I400, 2, 2, 0);
+            // 调用返回后修改源数组不影响后台写入的内容
+            Arrays.fill(frame, (byte) 9);
+        } finally {
+            assertEquals(1, YuvTrace.stop());
+        }
+        assertEquals(0, YuvTrace.getDroppedCount());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        YuvTrace.readHeader(in);
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, YuvTrace.readRecord(in).payload);
+    }
+
+    @Test
+    public void truncatedRecordIsDropped() throws IOException {
+        byte[] data = recordSamples(0);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 2)));
+        YuvTrace.readHeader(in);
+
+        assertNotNull(YuvTrace.readRecord(in));
+        assertNotNull(YuvTrace.readRecord(in));
+        assertNull(YuvTrace.readRecord(in));
+    }
+
+    @Test
+    public void notRecordingIgnoresCalls() throws IOException {
+        assertFalse(YuvTrace.isRecording());
+        assertEquals(0, YuvTrace.begin());
+        assertEquals(0, YuvTrace.stop());
+    }
+
+    @Test
+    public void everyOpHasName() {
+        assertEquals("sobel", YuvTrace.getOpName(YuvTrace.OP_SOBEL));
+        assertEquals("i420ToNvInPlace", YuvTrace.getOpName(YuvTrace.OP_I420_TO_NV_IN_PLACE));
+        assertEquals("YuvOverlay.blend", YuvTrace.getOpName(YuvTrace.OP_OVERLAY_BLEND));
+        assertEquals("unknown", YuvTrace.getOpName(YuvTrace.OP_OVERLAY_BLEND + 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws IOException {
+        YuvTrace.readHeader(new DataInputStream(new ByteArrayInputStream(new byte[16])));
+    }
+}
@@ -17,3 +17,4 @@ dependencyResolutionManagement {
 rootProject.name = "libyuv"
 include(":app")
 include(":libyuv")
+include(":annotation-stub")